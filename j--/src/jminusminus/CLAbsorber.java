@@ -2,6 +2,8 @@
 
 package jminusminus;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.DataInputStream;
@@ -13,6 +15,12 @@ import static jminusminus.CLConstants.*;
  * CLAbsorber is for reading a Java class into an in-memory CLFile
  * representation and printing it out to STDOUT in a format similar to that of
  * javap.
+ * 
+ * A lazy CLAbsorber reads the class file into an array of bytes, and decodes
+ * only the constant pool and the class and member headers up front. Each
+ * attribute (Code included) is represented by a CLLazyAttribute recording
+ * where it lies in the array, and is decoded when it is first accessed, or
+ * copied as is when the class is written out.
  */
 
 public class CLAbsorber {
@@ -26,6 +34,9 @@ public class CLAbsorber {
     /** Name of the class that is read. */
     private String className;
 
+    /** The class file, if read lazily; null otherwise. */
+    private byte[] bytes;
+
     /**
      * Print the specified warning to STDERR.
      * 
@@ -108,6 +119,18 @@ public class CLAbsorber {
                     cp.addCPItem(new CLConstantNameAndTypeInfo(in
                             .readUnsignedShort(), in.readUnsignedShort()));
                     break;
+                case CONSTANT_MethodHandle:
+                    cp.addCPItem(new CLConstantMethodHandleInfo(in
+                            .readUnsignedByte(), in.readUnsignedShort()));
+                    break;
+                case CONSTANT_MethodType:
+                    cp.addCPItem(new CLConstantMethodTypeInfo(in
+                            .readUnsignedShort()));
+                    break;
+                case CONSTANT_InvokeDynamic:
+                    cp.addCPItem(new CLConstantInvokeDynamicInfo(in
+                            .readUnsignedShort(), in.readUnsignedShort()));
+                    break;
                 case CONSTANT_Utf8:
                     int length = in.readUnsignedShort();
                     byte[] b = new byte[length];
@@ -200,73 +223,19 @@ public class CLAbsorber {
             for (int i = 0; i < attributesCount; i++) {
                 int attributeNameIndex = in.readUnsignedShort();
                 long attributeLength = in.readUnsignedInt();
-                CLAttributeInfo attributeInfo = null;
                 String attributeName = new String(((CLConstantUtf8Info) cp
                         .cpItem(attributeNameIndex)).b);
-                if (attributeName.equals(ATT_CONSTANT_VALUE)) {
-                    attributeInfo = readConstantValueAttribute(in,
-                            attributeNameIndex, attributeLength);
-                } else if (attributeName.equals(ATT_CODE)) {
-                    attributeInfo = readCodeAttribute(in, attributeNameIndex,
-                            attributeLength);
-                } else if (attributeName.equals(ATT_EXCEPTIONS)) {
-                    attributeInfo = readExceptionsAttribute(in,
-                            attributeNameIndex, attributeLength);
-                } else if (attributeName.equals(ATT_INNER_CLASSES)) {
-                    attributeInfo = readInnerClassesAttribute(in,
-                            attributeNameIndex, attributeLength);
-                } else if (attributeName.equals(ATT_ENCLOSING_METHOD)) {
-                    attributeInfo = readEnclosingMethodAttribute(in,
-                            attributeNameIndex, attributeLength);
-                } else if (attributeName.equals(ATT_SYNTHETIC)) {
-                    attributeInfo = readSyntheticAttribute(in,
-                            attributeNameIndex, attributeLength);
-                } else if (attributeName.equals(ATT_SIGNATURE)) {
-                    attributeInfo = readSignatureAttribute(in,
-                            attributeNameIndex, attributeLength);
-                } else if (attributeName.equals(ATT_SOURCE_FILE)) {
-                    attributeInfo = readSourceFileAttribute(in,
-                            attributeNameIndex, attributeLength);
-                } else if (attributeName.equals(ATT_SOURCE_DEBUG_EXTENSION)) {
-                    attributeInfo = readSourceDebugExtensionAttribute(in,
-                            attributeNameIndex, attributeLength);
-                } else if (attributeName.equals(ATT_LINE_NUMBER_TABLE)) {
-                    attributeInfo = readLineNumberTableAttribute(in,
-                            attributeNameIndex, attributeLength);
-                } else if (attributeName.equals(ATT_LOCAL_VARIABLE_TABLE)) {
-                    attributeInfo = readLocalVariableTableAttribute(in,
-                            attributeNameIndex, attributeLength);
-                } else if (attributeName.equals(ATT_LOCAL_VARIABLE_TYPE_TABLE)) {
-                    attributeInfo = readLocalVariableTypeTableAttribute(in,
-                            attributeNameIndex, attributeLength);
-                } else if (attributeName.equals(ATT_DEPRECATED)) {
-                    attributeInfo = readDeprecatedAttribute(in,
-                            attributeNameIndex, attributeLength);
-                } else if (attributeName
-                        .equals(ATT_RUNTIME_VISIBLE_ANNOTATIONS)) {
-                    attributeInfo = readRuntimeVisibleAnnotationsAttribute(in,
-                            attributeNameIndex, attributeLength);
-                } else if (attributeName
-                        .equals(ATT_RUNTIME_INVISIBLE_ANNOTATIONS)) {
-                    attributeInfo = readRuntimeInvisibleAnnotationsAttribute(
-                            in, attributeNameIndex, attributeLength);
-                } else if (attributeName
-                        .equals(ATT_RUNTIME_VISIBLE_PARAMETER_ANNOTATIONS)) {
-                    attributeInfo = readRuntimeVisibleParameterAnnotationsAttribute(
-                            in, attributeNameIndex, attributeLength);
-                } else if (attributeName
-                        .equals(ATT_RUNTIME_INVISIBLE_PARAMETER_ANNOTATIONS)) {
-                    attributeInfo = readRuntimeInvisibleParameterAnnotationsAttribute(
-                            in, attributeNameIndex, attributeLength);
-                } else if (attributeName.equals(ATT_ANNOTATION_DEFAULT)) {
-                    attributeInfo = readAnnotationDefaultAttribute(in,
-                            attributeNameIndex, attributeLength);
+                CLAttributeInfo attributeInfo;
+                if (bytes != null) {
+                    // Record where the attribute is, and skip it
+                    int offset = bytes.length - in.available();
+                    attributeInfo = new CLLazyAttribute(this,
+                            attributeNameIndex, attributeLength,
+                            attributeName, offset);
+                    in.skipBytes((int) attributeLength);
                 } else {
-                    reportWarning("Unknown attribute '%s'", attributeName,
-                            className);
-                    for (long j = 0; j < attributeLength; j++) {
-                        in.readUnsignedByte();
-                    }
+                    attributeInfo = readAttribute(in, attributeNameIndex,
+                            attributeLength, attributeName);
                 }
                 if (attributeInfo != null) {
                     attributes.add(attributeInfo);
@@ -278,6 +247,142 @@ public class CLAbsorber {
         return attributes;
     }
 
+    /**
+     * Read the body of the attribute with the specified name from the
+     * specified stream, and return it. An attribute of an unknown kind is
+     * skipped, and null returned.
+     * 
+     * @param in
+     *            input stream.
+     * @param attributeNameIndex
+     *            constant pool index of the attribute name.
+     * @param attributeLength
+     *            length of attribute.
+     * @param attributeName
+     *            name of the attribute.
+     * @return the attribute, or null.
+     * @throws IOException
+     *             if an error occurs while skipping an unknown attribute.
+     */
+
+    private CLAttributeInfo readAttribute(CLInputStream in,
+            int attributeNameIndex, long attributeLength, String attributeName)
+            throws IOException {
+        CLAttributeInfo attributeInfo = null;
+            if (attributeName.equals(ATT_CONSTANT_VALUE)) {
+                attributeInfo = readConstantValueAttribute(in,
+                        attributeNameIndex, attributeLength);
+            } else if (attributeName.equals(ATT_CODE)) {
+                attributeInfo = readCodeAttribute(in, attributeNameIndex,
+                        attributeLength);
+            } else if (attributeName.equals(ATT_EXCEPTIONS)) {
+                attributeInfo = readExceptionsAttribute(in,
+                        attributeNameIndex, attributeLength);
+            } else if (attributeName.equals(ATT_INNER_CLASSES)) {
+                attributeInfo = readInnerClassesAttribute(in,
+                        attributeNameIndex, attributeLength);
+            } else if (attributeName.equals(ATT_ENCLOSING_METHOD)) {
+                attributeInfo = readEnclosingMethodAttribute(in,
+                        attributeNameIndex, attributeLength);
+            } else if (attributeName.equals(ATT_SYNTHETIC)) {
+                attributeInfo = readSyntheticAttribute(in,
+                        attributeNameIndex, attributeLength);
+            } else if (attributeName.equals(ATT_SIGNATURE)) {
+                attributeInfo = readSignatureAttribute(in,
+                        attributeNameIndex, attributeLength);
+            } else if (attributeName.equals(ATT_SOURCE_FILE)) {
+                attributeInfo = readSourceFileAttribute(in,
+                        attributeNameIndex, attributeLength);
+            } else if (attributeName.equals(ATT_SOURCE_DEBUG_EXTENSION)) {
+                attributeInfo = readSourceDebugExtensionAttribute(in,
+                        attributeNameIndex, attributeLength);
+            } else if (attributeName.equals(ATT_LINE_NUMBER_TABLE)) {
+                attributeInfo = readLineNumberTableAttribute(in,
+                        attributeNameIndex, attributeLength);
+            } else if (attributeName.equals(ATT_LOCAL_VARIABLE_TABLE)) {
+                attributeInfo = readLocalVariableTableAttribute(in,
+                        attributeNameIndex, attributeLength);
+            } else if (attributeName.equals(ATT_LOCAL_VARIABLE_TYPE_TABLE)) {
+                attributeInfo = readLocalVariableTypeTableAttribute(in,
+                        attributeNameIndex, attributeLength);
+            } else if (attributeName.equals(ATT_DEPRECATED)) {
+                attributeInfo = readDeprecatedAttribute(in,
+                        attributeNameIndex, attributeLength);
+            } else if (attributeName
+                    .equals(ATT_RUNTIME_VISIBLE_ANNOTATIONS)) {
+                attributeInfo = readRuntimeVisibleAnnotationsAttribute(in,
+                        attributeNameIndex, attributeLength);
+            } else if (attributeName
+                    .equals(ATT_RUNTIME_INVISIBLE_ANNOTATIONS)) {
+                attributeInfo = readRuntimeInvisibleAnnotationsAttribute(
+                        in, attributeNameIndex, attributeLength);
+            } else if (attributeName
+                    .equals(ATT_RUNTIME_VISIBLE_PARAMETER_ANNOTATIONS)) {
+                attributeInfo = readRuntimeVisibleParameterAnnotationsAttribute(
+                        in, attributeNameIndex, attributeLength);
+            } else if (attributeName
+                    .equals(ATT_RUNTIME_INVISIBLE_PARAMETER_ANNOTATIONS)) {
+                attributeInfo = readRuntimeInvisibleParameterAnnotationsAttribute(
+                        in, attributeNameIndex, attributeLength);
+            } else if (attributeName.equals(ATT_ANNOTATION_DEFAULT)) {
+                attributeInfo = readAnnotationDefaultAttribute(in,
+                        attributeNameIndex, attributeLength);
+            } else if (attributeName.equals(ATT_BOOTSTRAP_METHODS)) {
+                attributeInfo = readBootstrapMethodsAttribute(in,
+                        attributeNameIndex, attributeLength);
+            } else if (attributeName.equals(ATT_STACK_MAP_TABLE)) {
+                attributeInfo = readStackMapTableAttribute(in,
+                        attributeNameIndex, attributeLength);
+            } else {
+                reportWarning("Unknown attribute '%s'", attributeName,
+                        className);
+                for (long j = 0; j < attributeLength; j++) {
+                    in.readUnsignedByte();
+                }
+            }
+        return attributeInfo;
+    }
+
+    /**
+     * Decode the specified attribute, recorded by a lazy CLAbsorber, and
+     * return it; null if it is of an unknown kind.
+     * 
+     * @param lazy
+     *            the attribute.
+     * @return the decoded attribute, or null.
+     */
+
+    CLAttributeInfo readAttribute(CLLazyAttribute lazy) {
+        CLInputStream in = new CLInputStream(new ByteArrayInputStream(bytes));
+        try {
+            // The whole class is kept visible, so that the offsets of the
+            // attributes nested in this one are computed as above
+            in.skipBytes(lazy.offset());
+            return readAttribute(in, lazy.attributeNameIndex,
+                    lazy.attributeLength, lazy.attributeName());
+        } catch (IOException e) {
+            reportError("Error reading attributes from file %s", className);
+            return null;
+        }
+    }
+
+    /**
+     * Write the body of the specified attribute, recorded by a lazy
+     * CLAbsorber, to the specified output stream as it was read.
+     * 
+     * @param lazy
+     *            the attribute.
+     * @param out
+     *            output stream.
+     * @throws IOException
+     *             if an error occurs while writing.
+     */
+
+    void writeAttribute(CLLazyAttribute lazy, CLOutputStream out)
+            throws IOException {
+        out.write(bytes, lazy.offset(), (int) lazy.attributeLength);
+    }
+
     /**
      * Read a ConstantValue attribute from the specified input stream, and
      * return it.
@@ -322,11 +427,9 @@ public class CLAbsorber {
         try {
             int maxStack = in.readUnsignedShort();
             int maxLocals = in.readUnsignedShort();
-            ArrayList<Integer> code = new ArrayList<Integer>();
             long codeLength = in.readUnsignedInt();
-            for (long l = 0; l < codeLength; l++) {
-                code.add(in.readUnsignedByte());
-            }
+            byte[] code = new byte[(int) codeLength];
+            in.readFully(code);
             int exceptionTableLength = in.readUnsignedShort();
             ArrayList<CLExceptionInfo> exceptionTable = new ArrayList<CLExceptionInfo>();
             for (int l = 0; l < exceptionTableLength; l++) {
@@ -415,6 +518,121 @@ public class CLAbsorber {
         return attribute;
     }
 
+    /**
+     * Read a BootstrapMethods attribute from the specified input stream, and
+     * return it.
+     * 
+     * @param in
+     *            input stream.
+     * @param attributeNameIndex
+     *            constant pool index of the attribute name.
+     * @param attributeLength
+     *            length of attribute.
+     * @return a BootstrapMethods attribute.
+     */
+
+    private CLBootstrapMethodsAttribute readBootstrapMethodsAttribute(
+            CLInputStream in, int attributeNameIndex, long attributeLength) {
+        CLBootstrapMethodsAttribute attribute = null;
+        try {
+            int numBootstrapMethods = in.readUnsignedShort();
+            ArrayList<CLBootstrapMethodInfo> bootstrapMethods = new ArrayList<CLBootstrapMethodInfo>();
+            for (int m = 0; m < numBootstrapMethods; m++) {
+                int bootstrapMethodRef = in.readUnsignedShort();
+                int numBootstrapArguments = in.readUnsignedShort();
+                ArrayList<Integer> bootstrapArguments = new ArrayList<Integer>();
+                for (int n = 0; n < numBootstrapArguments; n++) {
+                    bootstrapArguments.add(in.readUnsignedShort());
+                }
+                bootstrapMethods.add(new CLBootstrapMethodInfo(
+                        bootstrapMethodRef, numBootstrapArguments,
+                        bootstrapArguments));
+            }
+            attribute = new CLBootstrapMethodsAttribute(attributeNameIndex,
+                    attributeLength, numBootstrapMethods, bootstrapMethods);
+        } catch (IOException e) {
+            reportError(
+                    "Error reading BootstrapMethods_attribute from file %s",
+                    className);
+        }
+        return attribute;
+    }
+
+    /**
+     * Read a StackMapTable attribute from the specified input stream, and
+     * return it.
+     * 
+     * @param in
+     *            input stream.
+     * @param attributeNameIndex
+     *            constant pool index of the attribute name.
+     * @param attributeLength
+     *            length of attribute.
+     * @return a StackMapTable attribute.
+     */
+
+    private CLStackMapTableAttribute readStackMapTableAttribute(
+            CLInputStream in, int attributeNameIndex, long attributeLength) {
+        CLStackMapTableAttribute attribute = null;
+        try {
+            int numberOfEntries = in.readUnsignedShort();
+            ArrayList<CLStackMapFrame> entries = new ArrayList<CLStackMapFrame>();
+            for (int i = 0; i < numberOfEntries; i++) {
+                int frameType = in.readUnsignedByte();
+                int offsetDelta = frameType < SAME_LOCALS_1_STACK_ITEM ? frameType
+                        : frameType < SAME_LOCALS_1_STACK_ITEM_EXTENDED ? frameType
+                                - SAME_LOCALS_1_STACK_ITEM
+                                : in.readUnsignedShort();
+                ArrayList<CLVerificationTypeInfo> locals = new ArrayList<CLVerificationTypeInfo>();
+                ArrayList<CLVerificationTypeInfo> stack = new ArrayList<CLVerificationTypeInfo>();
+                if (frameType == FULL_FRAME) {
+                    int numberOfLocals = in.readUnsignedShort();
+                    for (int j = 0; j < numberOfLocals; j++) {
+                        locals.add(readVerificationTypeInfo(in));
+                    }
+                    int numberOfStackItems = in.readUnsignedShort();
+                    for (int j = 0; j < numberOfStackItems; j++) {
+                        stack.add(readVerificationTypeInfo(in));
+                    }
+                } else if (frameType >= APPEND_FRAME) {
+                    for (int j = SAME_FRAME_EXTENDED; j < frameType; j++) {
+                        locals.add(readVerificationTypeInfo(in));
+                    }
+                } else if (frameType >= SAME_LOCALS_1_STACK_ITEM
+                        && frameType < CHOP_FRAME) {
+                    stack.add(readVerificationTypeInfo(in));
+                }
+                entries.add(new CLStackMapFrame(frameType, offsetDelta,
+                        locals, stack));
+            }
+            attribute = new CLStackMapTableAttribute(attributeNameIndex,
+                    attributeLength, numberOfEntries, entries);
+        } catch (IOException e) {
+            reportError("Error reading StackMapTable_attribute from file %s",
+                    className);
+        }
+        return attribute;
+    }
+
+    /**
+     * Read a verification_type_info structure from the specified input
+     * stream, and return it.
+     * 
+     * @param in
+     *            input stream.
+     * @return a verification_type_info structure.
+     * @throws IOException
+     *             if an error occurs while reading.
+     */
+
+    private CLVerificationTypeInfo readVerificationTypeInfo(CLInputStream in)
+            throws IOException {
+        short tag = (short) in.readUnsignedByte();
+        int info = (tag == ITEM_Object || tag == ITEM_Uninitialized) ? in
+                .readUnsignedShort() : 0;
+        return new CLVerificationTypeInfo(tag, info);
+    }
+
     /**
      * Read an EnclosingMethod attribute from the specified input stream, and
      * return it.
@@ -913,14 +1131,63 @@ public class CLAbsorber {
      */
 
     public CLAbsorber(String className) {
+        this(className, false);
+    }
+
+    /**
+     * Construct a CLAbsorber object given the (fully-qualified) name of the
+     * class file to read, reading it lazily if so specified.
+     * 
+     * @param className
+     *            fully qualified name of the input class file.
+     * @param isLazy
+     *            whether the attributes are decoded only when accessed.
+     */
+
+    public CLAbsorber(String className, boolean isLazy) {
+        this.className = className;
+        CLPath classPath = new CLPath();
+        CLInputStream in = classPath.loadClass(className);
+        errorHasOccurred = false;
+        if (in == null) {
+            reportError("Error loading %s", className);
+            return;
+        }
+        read(in, isLazy);
+    }
+
+    /**
+     * Construct a CLAbsorber object reading the class with the specified
+     * (fully-qualified) name from the specified stream, lazily if so
+     * specified.
+     * 
+     * @param className
+     *            fully qualified name of the class, for error messages.
+     * @param in
+     *            input stream.
+     * @param isLazy
+     *            whether the attributes are decoded only when accessed.
+     */
+
+    public CLAbsorber(String className, InputStream in, boolean isLazy) {
+        this.className = className;
+        read(new CLInputStream(in), isLazy);
+    }
+
+    /**
+     * Read the class from the specified stream.
+     * 
+     * @param in
+     *            input stream.
+     * @param isLazy
+     *            whether the attributes are decoded only when accessed.
+     */
+
+    private void read(CLInputStream in, boolean isLazy) {
         try {
-            this.className = className;
-            CLPath classPath = new CLPath();
-            CLInputStream in = classPath.loadClass(className);
-            errorHasOccurred = false;
-            if (in == null) {
-                reportError("Error loading %s", className);
-                return;
+            if (isLazy) {
+                bytes = readBytes(in);
+                in = new CLInputStream(new ByteArrayInputStream(bytes));
             }
             classFile = new CLFile();
 
@@ -987,6 +1254,26 @@ public class CLAbsorber {
         }
     }
 
+    /**
+     * Read the specified stream to its end, close it, and return its bytes.
+     * 
+     * @param in
+     *            input stream.
+     * @return the bytes.
+     * @throws IOException
+     *             if an error occurs while reading.
+     */
+
+    private static byte[] readBytes(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] b = new byte[8192];
+        for (int n = in.read(b); n >= 0; n = in.read(b)) {
+            out.write(b, 0, n);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
     /**
      * Return the CLFile representation of the class that was read.
      * 
@@ -1017,16 +1304,21 @@ public class CLAbsorber {
 
     public static void main(String[] args) {
         String classFile = "";
+        boolean isLazy = false;
         if (args.length == 1) {
             classFile = args[0];
+        } else if (args.length == 2 && args[0].equals("-lazy")) {
+            classFile = args[1];
+            isLazy = true;
         } else {
-            String usage = "Usage: java jminusminus.CLAbsorber <class name>\n"
+            String usage = "Usage: java jminusminus.CLAbsorber [-lazy] "
+                    + "<class name>\n"
                     + "Where the class name must be fully qualified; "
                     + "eg, java/util/ArrayList";
             System.out.println(usage);
             System.exit(0);
         }
-        CLAbsorber r = new CLAbsorber(classFile);
+        CLAbsorber r = new CLAbsorber(classFile, isLazy);
         if (!r.errorHasOccurred()) {
             CLFile c = r.classFile();
             c.writeToStdOut();
@@ -1035,6 +1327,107 @@ public class CLAbsorber {
 
 }
 
+/**
+ * An attribute read by a lazy CLAbsorber, which is decoded when it is first
+ * accessed through attribute().
+ */
+
+class CLLazyAttribute extends CLAttributeInfo {
+
+    /** The absorber that read the attribute. */
+    private CLAbsorber absorber;
+
+    /** Name of the attribute. */
+    private String attributeName;
+
+    /** Offset of the attribute's body in the class file. */
+    private int offset;
+
+    /** The decoded attribute; null until decoded. */
+    private CLAttributeInfo attribute;
+
+    /** Whether the attribute has been decoded. */
+    private boolean isDecoded;
+
+    /**
+     * Construct a CLLazyAttribute object.
+     * 
+     * @param absorber
+     *            the absorber that read the attribute.
+     * @param attributeNameIndex
+     *            attribute_info.attribute_name_index item.
+     * @param attributeLength
+     *            attribute_info.attribute_length item.
+     * @param attributeName
+     *            name of the attribute.
+     * @param offset
+     *            offset of the attribute's body in the class file.
+     */
+
+    public CLLazyAttribute(CLAbsorber absorber, int attributeNameIndex,
+            long attributeLength, String attributeName, int offset) {
+        super(attributeNameIndex, attributeLength);
+        this.absorber = absorber;
+        this.attributeName = attributeName;
+        this.offset = offset;
+    }
+
+    /**
+     * Return the name of the attribute.
+     * 
+     * @return name of the attribute.
+     */
+
+    public String attributeName() {
+        return attributeName;
+    }
+
+    /**
+     * Return the offset of the attribute's body in the class file.
+     * 
+     * @return offset of the attribute.
+     */
+
+    public int offset() {
+        return offset;
+    }
+
+    /**
+     * Return the decoded attribute, decoding it if need be; null if it is of
+     * an unknown kind.
+     * 
+     * @return the attribute, or null.
+     */
+
+    public CLAttributeInfo attribute() {
+        if (!isDecoded) {
+            attribute = absorber.readAttribute(this);
+            isDecoded = true;
+        }
+        return attribute;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public void write(CLOutputStream out) throws IOException {
+        super.write(out);
+        absorber.writeAttribute(this, out);
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public void writeToStdOut(PrettyPrinter p) {
+        if (attribute() != null) {
+            attribute().writeToStdOut(p);
+        }
+    }
+
+}
+
 /**
  * Inherits from java.io.DataInputStream and provides an extra function for
  * reading unsigned int from the input stream, which is required for reading
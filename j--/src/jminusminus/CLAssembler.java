@@ -0,0 +1,474 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package jminusminus;
+
+import static jminusminus.CLConstants.*;
+
+/**
+ * Single-pass assembler for the code of a method, an alternative to the
+ * instruction list that CLEmitter otherwise builds and converts to bytes once
+ * the method is complete. CLEmitter writes each opcode, and then its operands,
+ * straight into a growable byte buffer; no instruction object is created.
+ * Labels are int ids, indexing arrays of pcs and stack depths. A branch to a
+ * label that is not placed yet leaves its offset zero and adds a fixup to the
+ * label's list, which is backpatched when the label is placed. The maximum
+ * stack depth and the number of local variables are tracked along the way,
+ * the depth at a label being the one a branch to it left, or 0 (a statement
+ * boundary) for a label only reached by falling through from unreachable code
+ * or by backward branches.
+ *
+ * Since the code is final as soon as it is added, no pass that rewrites the
+ * instruction list can run on it: there is no peephole optimization, no branch
+ * relaxation (an offset out of range is an error), and no stack map frames.
+ * CLEmitter therefore assembles a method directly only if asked to (see
+ * CLEmitter.directAssembly()), and only for class files older than
+ * STACK_MAP_MAJOR_VERSION.
+ */
+
+class CLAssembler {
+
+    /** The code assembled so far. */
+    private CLCodeBuffer code;
+
+    /** Pc of each label, by id; -1 until placed. */
+    private int[] labelPCs;
+
+    /** Stack depth at each label, by id; -1 until known. */
+    private int[] labelDepths;
+
+    /** First pending fixup of each label, by id; -1 if none. */
+    private int[] firstFixups;
+
+    /** Number of label ids in use (one more than the largest). */
+    private int labelCount;
+
+    /** Index of the offset operand of each fixup. */
+    private int[] fixupIndexes;
+
+    /** Pc of the instruction holding each fixup, the offset's origin. */
+    private int[] fixupPCs;
+
+    /** Width in bytes (2 or 4) of the offset of each fixup. */
+    private int[] fixupWidths;
+
+    /** Next pending fixup of the same label, for each fixup; -1 if none. */
+    private int[] nextFixups;
+
+    /** Number of fixups. */
+    private int fixupCount;
+
+    /** Pc of the last instruction. */
+    private int pc;
+
+    /** Stack depth after the last instruction. */
+    private int depth;
+
+    /** Whether the next instruction is reachable by falling through. */
+    private boolean isReachable;
+
+    /** Maximum stack depth. */
+    private int maxStack;
+
+    /** Number of local variables used. */
+    private int maxLocals;
+
+    /** Description of the first error, or null. */
+    private String error;
+
+    /**
+     * Construct an assembler for the code of a method.
+     */
+
+    public CLAssembler() {
+        code = new CLCodeBuffer(64);
+        labelPCs = new int[16];
+        labelDepths = new int[16];
+        firstFixups = new int[16];
+        fixupIndexes = new int[16];
+        fixupPCs = new int[16];
+        fixupWidths = new int[16];
+        nextFixups = new int[16];
+        isReachable = true;
+    }
+
+    /**
+     * Write the specified opcode at the end of the code, and account for the
+     * effect of the instruction on the stack and the local variables. Its
+     * operands, if any, must be written next with operand().
+     *
+     * @param opcode
+     *            the opcode.
+     * @param stackUnits
+     *            the change in stack depth, or EMPTY_STACK or
+     *            UNIT_SIZE_STACK.
+     * @param localVariableIndex
+     *            index of the local variable accessed, or IRRELEVANT.
+     */
+
+    public void opcode(int opcode, int stackUnits, int localVariableIndex) {
+        if (!isReachable) {
+            // Code following a jump without a label starts a statement
+            isReachable = true;
+            depth = 0;
+        }
+        pc = code.size();
+        code.add(opcode);
+        int index = localVariableIndex;
+        if (isCategory2(opcode)) {
+            // A long or double takes two slots
+            index++;
+        }
+        maxLocals = Math.max(maxLocals, index + 1);
+        if (stackUnits == EMPTY_STACK) {
+            depth = 0;
+        } else if (stackUnits == UNIT_SIZE_STACK) {
+            depth = 1;
+        } else {
+            depth += stackUnits;
+        }
+        maxStack = Math.max(maxStack, depth);
+        if (opcode == GOTO || opcode == GOTO_W || opcode == ATHROW
+                || opcode == RET || opcode == TABLESWITCH
+                || opcode == LOOKUPSWITCH
+                || (opcode >= IRETURN && opcode <= RETURN)) {
+            isReachable = false;
+        }
+    }
+
+    /**
+     * Write an operand of the last instruction, big-endian, at the end of the
+     * code.
+     *
+     * @param value
+     *            the operand.
+     * @param width
+     *            width of the operand in bytes (1, 2 or 4).
+     */
+
+    public void operand(int value, int width) {
+        for (int i = width - 1; i >= 0; i--) {
+            code.add(value >> (8 * i));
+        }
+    }
+
+    /**
+     * Assemble a branch (FLOW_CONTROL1) instruction to the specified label.
+     *
+     * @param opcode
+     *            the opcode.
+     * @param label
+     *            id of the label.
+     */
+
+    public void branch(int opcode, int label) {
+        opcode(opcode, CLInstruction.instructionInfo[opcode].stackUnits,
+                IRRELEVANT);
+        jumpTo(label, opcode == GOTO_W || opcode == JSR_W ? 4 : 2);
+    }
+
+    /**
+     * Assemble a TABLESWITCH instruction.
+     *
+     * @param defaultLabel
+     *            id of the label for the default value.
+     * @param low
+     *            smallest value of index.
+     * @param high
+     *            highest value of index.
+     * @param labels
+     *            ids of the labels for each index value from low to high.
+     */
+
+    public void tableSwitch(int defaultLabel, int low, int high, int[] labels) {
+        opcode(TABLESWITCH, CLInstruction.instructionInfo[TABLESWITCH]
+                .stackUnits, IRRELEVANT);
+        pad();
+        jumpTo(defaultLabel, 4);
+        operand(low, 4);
+        operand(high, 4);
+        for (int label : labels) {
+            jumpTo(label, 4);
+        }
+    }
+
+    /**
+     * Assemble a LOOKUPSWITCH instruction.
+     *
+     * @param defaultLabel
+     *            id of the label for the default value.
+     * @param matches
+     *            the match values, in increasing order.
+     * @param labels
+     *            ids of the labels for each match value.
+     */
+
+    public void lookupSwitch(int defaultLabel, int[] matches, int[] labels) {
+        opcode(LOOKUPSWITCH, CLInstruction.instructionInfo[LOOKUPSWITCH]
+                .stackUnits, IRRELEVANT);
+        pad();
+        jumpTo(defaultLabel, 4);
+        operand(matches.length, 4);
+        for (int i = 0; i < matches.length; i++) {
+            operand(matches[i], 4);
+            jumpTo(labels[i], 4);
+        }
+    }
+
+    /**
+     * Place the specified label at the end of the code, and backpatch the
+     * branches to it.
+     *
+     * @param label
+     *            id of the label.
+     */
+
+    public void label(int label) {
+        ensureLabel(label);
+        int labelPC = code.size();
+        labelPCs[label] = labelPC;
+        if (isReachable) {
+            if (labelDepths[label] < 0) {
+                labelDepths[label] = depth;
+            }
+        } else {
+            isReachable = true;
+            depth = Math.max(labelDepths[label], 0);
+        }
+        for (int f = firstFixups[label]; f >= 0; f = nextFixups[f]) {
+            patch(fixupIndexes[f], labelPC - fixupPCs[f], fixupWidths[f]);
+        }
+        firstFixups[label] = -1;
+    }
+
+    /**
+     * Record that the specified label begins an exception handler, which
+     * starts with the exception on the stack.
+     *
+     * @param label
+     *            id of the handler label.
+     */
+
+    public void handler(int label) {
+        ensureLabel(label);
+        if (labelPCs[label] < 0) {
+            labelDepths[label] = 1;
+        } else {
+            // The handler was assembled at a depth one too low
+            maxStack++;
+        }
+    }
+
+    /**
+     * Return the pc of the specified label.
+     *
+     * @param label
+     *            id of the label.
+     * @return the pc, or -1 if the label is not placed.
+     */
+
+    public int labelPC(int label) {
+        return label < labelCount ? labelPCs[label] : -1;
+    }
+
+    /**
+     * Return true if a label is placed at the specified pc; false otherwise.
+     *
+     * @param pc
+     *            the pc.
+     * @return true or false.
+     */
+
+    public boolean hasLabelAt(int pc) {
+        for (int label = 0; label < labelCount; label++) {
+            if (labelPCs[label] == pc) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drop the code from the specified pc on, which must lie at a statement
+     * boundary, along with the labels placed and the branches added there.
+     *
+     * @param pc
+     *            the new size of the code.
+     */
+
+    public void rewind(int pc) {
+        code.truncate(pc);
+        for (int label = 0; label < labelCount; label++) {
+            if (labelPCs[label] > pc) {
+                labelPCs[label] = -1;
+                labelDepths[label] = -1;
+            }
+            int previous = -1;
+            for (int f = firstFixups[label]; f >= 0; f = nextFixups[f]) {
+                if (fixupPCs[f] < pc) {
+                    previous = f;
+                } else if (previous < 0) {
+                    firstFixups[label] = nextFixups[f];
+                } else {
+                    nextFixups[previous] = nextFixups[f];
+                }
+            }
+        }
+        depth = 0;
+        isReachable = true;
+    }
+
+    /**
+     * Return the number of bytes of code assembled so far, ie, the pc of the
+     * next instruction.
+     *
+     * @return size of the code.
+     */
+
+    public int size() {
+        return code.size();
+    }
+
+    /**
+     * Return the assembled code; all labels branched to must have been
+     * placed.
+     *
+     * @return the code.
+     */
+
+    public byte[] toByteArray() {
+        for (int label = 0; label < labelCount; label++) {
+            if (firstFixups[label] >= 0) {
+                error = "Unable to resolve jump label(s)";
+            }
+        }
+        return code.toByteArray();
+    }
+
+    /**
+     * Return the maximum stack depth.
+     *
+     * @return maximum stack depth.
+     */
+
+    public int maxStack() {
+        return maxStack;
+    }
+
+    /**
+     * Return the number of local variables, including the arguments.
+     *
+     * @param argumentCount
+     *            number of slots taken by the arguments.
+     * @return number of local variables.
+     */
+
+    public int maxLocals(int argumentCount) {
+        return Math.max(maxLocals, argumentCount);
+    }
+
+    /**
+     * Return a description of the first error, or null if there was none.
+     *
+     * @return description of the error.
+     */
+
+    public String error() {
+        return error;
+    }
+
+    /**
+     * Write the offset from the last instruction to the specified label, or
+     * zero and a fixup if the label is not placed yet, and record the stack
+     * depth at the label.
+     */
+
+    private void jumpTo(int label, int width) {
+        ensureLabel(label);
+        if (labelDepths[label] < 0) {
+            labelDepths[label] = depth;
+        }
+        if (labelPCs[label] >= 0) {
+            int index = code.size();
+            operand(0, width);
+            patch(index, labelPCs[label] - pc, width);
+            return;
+        }
+        if (fixupCount == fixupIndexes.length) {
+            fixupIndexes = grow(fixupIndexes);
+            fixupPCs = grow(fixupPCs);
+            fixupWidths = grow(fixupWidths);
+            nextFixups = grow(nextFixups);
+        }
+        fixupIndexes[fixupCount] = code.size();
+        fixupPCs[fixupCount] = pc;
+        fixupWidths[fixupCount] = width;
+        nextFixups[fixupCount] = firstFixups[label];
+        firstFixups[label] = fixupCount++;
+        operand(0, width);
+    }
+
+    /**
+     * Write the padding that aligns the operands of a switch on 4 bytes.
+     */
+
+    private void pad() {
+        while (code.size() % 4 != 0) {
+            code.add(0);
+        }
+    }
+
+    /**
+     * Write the specified offset, big-endian, at the specified index.
+     */
+
+    private void patch(int index, int offset, int width) {
+        if (width == 2 && (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE)
+                && error == null) {
+            error = "Branch offset out of range";
+        }
+        for (int i = width - 1; i >= 0; i--) {
+            code.set(index++, offset >> (8 * i));
+        }
+    }
+
+    /**
+     * Make room for the label with the specified id, unplaced if new.
+     */
+
+    private void ensureLabel(int label) {
+        while (label >= labelPCs.length) {
+            labelPCs = grow(labelPCs);
+            labelDepths = grow(labelDepths);
+            firstFixups = grow(firstFixups);
+        }
+        for (; labelCount <= label; labelCount++) {
+            labelPCs[labelCount] = -1;
+            labelDepths[labelCount] = -1;
+            firstFixups[labelCount] = -1;
+        }
+    }
+
+    /**
+     * Return a copy of the specified array, twice as long.
+     */
+
+    private static int[] grow(int[] a) {
+        int[] b = new int[2 * a.length];
+        System.arraycopy(a, 0, b, 0, a.length);
+        return b;
+    }
+
+    /**
+     * Return true if the specified opcode loads or stores a long or double
+     * local variable; false otherwise.
+     */
+
+    private static boolean isCategory2(int opcode) {
+        return opcode == LLOAD || opcode == DLOAD || opcode == LSTORE
+                || opcode == DSTORE || (opcode >= LLOAD_0 && opcode <= LLOAD_3)
+                || (opcode >= DLOAD_0 && opcode <= DLOAD_3)
+                || (opcode >= LSTORE_0 && opcode <= LSTORE_3)
+                || (opcode >= DSTORE_0 && opcode <= DSTORE_3);
+    }
+
+}
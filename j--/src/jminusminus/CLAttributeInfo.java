@@ -228,7 +228,7 @@ class CLCodeAttribute extends CLAttributeInfo {
     /**
      * Code_attribute.code item.
      */
-    public ArrayList<Integer> code;
+    public byte[] code;
 
     /** Code_attribute.exception_table_length item. */
     public int exceptionTableLength;
@@ -260,6 +260,18 @@ class CLCodeAttribute extends CLAttributeInfo {
         return (a << 24) | (b << 16) | (c << 8) | d;
     }
 
+    /**
+     * Return the byte of code at the specified index, as an unsigned value.
+     * 
+     * @param i
+     *            index into code.
+     * @return the unsigned byte.
+     */
+
+    private int unsignedByte(int i) {
+        return code[i] & 0xFF;
+    }
+
     /**
      * Construct a CLCodeAttribute object.
      * 
@@ -286,8 +298,8 @@ class CLCodeAttribute extends CLAttributeInfo {
      */
 
     public CLCodeAttribute(int attributeNameIndex, long attributeLength,
-            int maxStack, int maxLocals, long codeLength,
-            ArrayList<Integer> code, int exceptionTableLength,
+            int maxStack, int maxLocals, long codeLength, byte[] code,
+            int exceptionTableLength,
             ArrayList<CLExceptionInfo> exceptionTable, int attributesCount,
             ArrayList<CLAttributeInfo> attributes) {
         super(attributeNameIndex, attributeLength);
@@ -310,9 +322,7 @@ class CLCodeAttribute extends CLAttributeInfo {
         out.writeShort(maxStack);
         out.writeShort(maxLocals);
         out.writeInt(codeLength);
-        for (int i = 0; i < code.size(); i++) {
-            out.writeByte(code.get(i));
-        }
+        out.write(code);
         out.writeShort(exceptionTableLength);
         for (int i = 0; i < exceptionTable.size(); i++) {
             exceptionTable.get(i).write(out);
@@ -336,9 +346,9 @@ class CLCodeAttribute extends CLAttributeInfo {
         p.printf("Code Length: %s\n", codeLength);
         p.printf("%-10s%-17s%s\n", "PC", "Opcode", "Operands");
         p.printf("%-10s%-17s%s\n", "--", "------", "--------");
-        for (int i = 0; i < code.size(); i++) {
+        for (int i = 0; i < code.length; i++) {
             int pc = i;
-            int opcode = code.get(i);
+            int opcode = unsignedByte(i);
             String mnemonic = CLInstruction.instructionInfo[opcode].mnemonic;
             int operandBytes = CLInstruction.instructionInfo[opcode].operandCount;
             short operandByte1, operandByte2, operandByte3, operandByte4;
@@ -348,27 +358,27 @@ class CLCodeAttribute extends CLAttributeInfo {
                 p.printf("%-10s%-17s\n", pc, mnemonic);
                 break;
             case 1:
-                operandByte1 = code.get(++i).shortValue();
+                operandByte1 = (short) unsignedByte(++i);
                 p.printf("%-10s%-17s%-5s\n", pc, mnemonic, operandByte1);
                 break;
             case 2:
-                operandByte1 = code.get(++i).shortValue();
-                operandByte2 = code.get(++i).shortValue();
+                operandByte1 = (short) unsignedByte(++i);
+                operandByte2 = (short) unsignedByte(++i);
                 p.printf("%-10s%-17s%-5s%-5s\n", pc, mnemonic, operandByte1,
                         operandByte2);
                 break;
             case 3:
-                operandByte1 = code.get(++i).shortValue();
-                operandByte2 = code.get(++i).shortValue();
-                operandByte3 = code.get(++i).shortValue();
+                operandByte1 = (short) unsignedByte(++i);
+                operandByte2 = (short) unsignedByte(++i);
+                operandByte3 = (short) unsignedByte(++i);
                 p.printf("%-10s%-17s%-5s%-5s%-5s\n", pc, mnemonic,
                         operandByte1, operandByte2, operandByte3);
                 break;
             case 4:
-                operandByte1 = code.get(++i).shortValue();
-                operandByte2 = code.get(++i).shortValue();
-                operandByte3 = code.get(++i).shortValue();
-                operandByte4 = code.get(++i).shortValue();
+                operandByte1 = (short) unsignedByte(++i);
+                operandByte2 = (short) unsignedByte(++i);
+                operandByte3 = (short) unsignedByte(++i);
+                operandByte4 = (short) unsignedByte(++i);
                 p.printf("%-10s%-17s%-5s%-5s%-5s%-5s\n", pc, mnemonic,
                         operandByte1, operandByte2, operandByte3, operandByte4);
                 break;
@@ -377,17 +387,16 @@ class CLCodeAttribute extends CLAttributeInfo {
                     int low, high;
                     pad = 4 - ((i + 1) % 4);
                     i = i + pad + 1;
-                    deflt = intValue(code.get(i++), code.get(i++), code
-                            .get(i++), code.get(i++));
-                    low = intValue(code.get(i++), code.get(i++), code.get(i++),
-                            code.get(i++));
-                    high = intValue(code.get(i++), code.get(i++),
-                            code.get(i++), code.get(i));
+                    deflt = intValue(unsignedByte(i++), unsignedByte(i++), unsignedByte(i++), unsignedByte(i++));
+                    low = intValue(unsignedByte(i++), unsignedByte(i++), unsignedByte(i++),
+                            unsignedByte(i++));
+                    high = intValue(unsignedByte(i++), unsignedByte(i++),
+                            unsignedByte(i++), unsignedByte(i));
                     p.printf("%-10s%s { // %s to %s \n", pc, mnemonic, low,
                             high);
                     for (int idx = low; idx <= high; idx++) {
-                        int offset = intValue(code.get(++i), code.get(++i),
-                                code.get(++i), code.get(++i));
+                        int offset = intValue(unsignedByte(++i), unsignedByte(++i),
+                                unsignedByte(++i), unsignedByte(++i));
                         p.printf("%-10s    %s:%s\n", "", idx, offset);
                     }
                     p.printf("%-10s    default: %s\n", "", deflt);
@@ -396,16 +405,13 @@ class CLCodeAttribute extends CLAttributeInfo {
                     int nPairs;
                     pad = 4 - ((i + 1) % 4);
                     i = i + pad + 1;
-                    deflt = intValue(code.get(i++), code.get(i++), code
-                            .get(i++), code.get(i++));
-                    nPairs = intValue(code.get(i++), code.get(i++), code
-                            .get(i++), code.get(i));
+                    deflt = intValue(unsignedByte(i++), unsignedByte(i++), unsignedByte(i++), unsignedByte(i++));
+                    nPairs = intValue(unsignedByte(i++), unsignedByte(i++), unsignedByte(i++), unsignedByte(i));
                     p.printf("%-10s%s { \n", pc, mnemonic);
                     for (int idx = 0; idx < nPairs; idx++) {
-                        int match = intValue(code.get(++i), code.get(++i), code
-                                .get(++i), code.get(++i));
-                        int offset = intValue(code.get(++i), code.get(++i),
-                                code.get(++i), code.get(++i));
+                        int match = intValue(unsignedByte(++i), unsignedByte(++i), unsignedByte(++i), unsignedByte(++i));
+                        int offset = intValue(unsignedByte(++i), unsignedByte(++i),
+                                unsignedByte(++i), unsignedByte(++i));
                         p.printf("%-10s    %s:%s\n", "", match, offset);
                     }
                     p.printf("%-10s    default: %s\n", "", deflt);
@@ -2088,3 +2094,476 @@ class CLAnnotationDefaultAttribute extends CLAttributeInfo {
     }
 
 }
+
+/**
+ * Representation of bootstrap_methods table entry structure (JVM Spec Section
+ * 4.7.23).
+ */
+
+class CLBootstrapMethodInfo {
+
+    /** bootstrap_methods_entry.bootstrap_method_ref item. */
+    public int bootstrapMethodRef;
+
+    /** bootstrap_methods_entry.num_bootstrap_arguments item. */
+    public int numBootstrapArguments;
+
+    /** bootstrap_methods_entry.bootstrap_arguments item. */
+    public ArrayList<Integer> bootstrapArguments;
+
+    /**
+     * Construct a CLBootstrapMethodInfo object.
+     * 
+     * @param bootstrapMethodRef
+     *            bootstrap_methods_entry.bootstrap_method_ref item.
+     * @param numBootstrapArguments
+     *            bootstrap_methods_entry.num_bootstrap_arguments item.
+     * @param bootstrapArguments
+     *            bootstrap_methods_entry.bootstrap_arguments item.
+     */
+
+    public CLBootstrapMethodInfo(int bootstrapMethodRef,
+            int numBootstrapArguments, ArrayList<Integer> bootstrapArguments) {
+        this.bootstrapMethodRef = bootstrapMethodRef;
+        this.numBootstrapArguments = numBootstrapArguments;
+        this.bootstrapArguments = bootstrapArguments;
+    }
+
+    /**
+     * Return the number of bytes this entry occupies in the class file.
+     * 
+     * @return size of this entry in bytes.
+     */
+
+    public int size() {
+        return 4 + 2 * numBootstrapArguments;
+    }
+
+    /**
+     * Write the contents of this object to the specified output stream.
+     * 
+     * @param out
+     *            output stream.
+     * @throws IOException
+     *             if an error occurs while writing.
+     */
+
+    public void write(CLOutputStream out) throws IOException {
+        out.writeShort(bootstrapMethodRef);
+        out.writeShort(numBootstrapArguments);
+        for (int i = 0; i < bootstrapArguments.size(); i++) {
+            out.writeShort(bootstrapArguments.get(i));
+        }
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public boolean equals(Object obj) {
+        if (obj instanceof CLBootstrapMethodInfo) {
+            CLBootstrapMethodInfo c = (CLBootstrapMethodInfo) obj;
+            return c.bootstrapMethodRef == bootstrapMethodRef
+                    && c.bootstrapArguments.equals(bootstrapArguments);
+        }
+        return false;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        return bootstrapMethodRef * 31 + bootstrapArguments.hashCode();
+    }
+
+    /**
+     * Write the contents of this object to STDOUT in a format similar to that
+     * of javap.
+     * 
+     * @param p
+     *            for pretty printing with indentation.
+     */
+
+    public void writeToStdOut(PrettyPrinter p) {
+        p.printf("%-16s    %s\n", bootstrapMethodRef, bootstrapArguments);
+    }
+
+}
+
+/**
+ * Representation of BootstrapMethods_attribute structure (JVM Spec Section
+ * 4.7.23). This class attribute is required when the constant pool contains
+ * CONSTANT_InvokeDynamic_info entries.
+ */
+
+class CLBootstrapMethodsAttribute extends CLAttributeInfo {
+
+    /** BootstrapMethods_attribute.num_bootstrap_methods item. */
+    public int numBootstrapMethods;
+
+    /** BootstrapMethods_attribute.bootstrap_methods item. */
+    public ArrayList<CLBootstrapMethodInfo> bootstrapMethods;
+
+    /**
+     * Construct a CLBootstrapMethodsAttribute object.
+     * 
+     * @param attributeNameIndex
+     *            BootstrapMethods_attribute.attribute_name_index item.
+     * @param attributeLength
+     *            BootstrapMethods_attribute.attribute_length item.
+     * @param numBootstrapMethods
+     *            BootstrapMethods_attribute.num_bootstrap_methods item.
+     * @param bootstrapMethods
+     *            BootstrapMethods_attribute.bootstrap_methods item.
+     */
+
+    public CLBootstrapMethodsAttribute(int attributeNameIndex,
+            long attributeLength, int numBootstrapMethods,
+            ArrayList<CLBootstrapMethodInfo> bootstrapMethods) {
+        super(attributeNameIndex, attributeLength);
+        this.numBootstrapMethods = numBootstrapMethods;
+        this.bootstrapMethods = bootstrapMethods;
+    }
+
+    /**
+     * Return the index of the specified bootstrap method in this attribute,
+     * adding it (and updating the attribute length) if it is not already
+     * present.
+     * 
+     * @param bootstrapMethod
+     *            the bootstrap method.
+     * @return index of the bootstrap method.
+     */
+
+    public int findOrAdd(CLBootstrapMethodInfo bootstrapMethod) {
+        int index = bootstrapMethods.indexOf(bootstrapMethod);
+        if (index == -1) {
+            index = bootstrapMethods.size();
+            bootstrapMethods.add(bootstrapMethod);
+            numBootstrapMethods++;
+            attributeLength += bootstrapMethod.size();
+        }
+        return index;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public void write(CLOutputStream out) throws IOException {
+        super.write(out);
+        out.writeShort(numBootstrapMethods);
+        for (int i = 0; i < bootstrapMethods.size(); i++) {
+            bootstrapMethods.get(i).write(out);
+        }
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public void writeToStdOut(PrettyPrinter p) {
+        p.printf("BootstrapMethods {\n");
+        p.indentRight();
+        super.writeToStdOut(p);
+        p.printf("Number of Bootstrap Methods: %s\n", numBootstrapMethods);
+        p.printf("%s    %s\n", "Method Ref Index", "Arguments");
+        p.printf("%s    %s\n", "----------------", "---------");
+        for (int i = 0; i < bootstrapMethods.size(); i++) {
+            bootstrapMethods.get(i).writeToStdOut(p);
+        }
+        p.indentLeft();
+        p.printf("}\n");
+    }
+
+}
+
+/**
+ * Representation of verification_type_info structure (JVM Spec Section
+ * 4.7.4).
+ */
+
+class CLVerificationTypeInfo {
+
+    /** verification_type_info.tag item. */
+    public short tag;
+
+    /**
+     * Object_variable_info.cpool_index item, or Uninitialized_variable_info.
+     * offset item; not used for the other tags.
+     */
+    public int info;
+
+    /**
+     * Construct a CLVerificationTypeInfo object.
+     * 
+     * @param tag
+     *            verification_type_info.tag item.
+     * @param info
+     *            Object_variable_info.cpool_index item or
+     *            Uninitialized_variable_info.offset item.
+     */
+
+    public CLVerificationTypeInfo(short tag, int info) {
+        this.tag = tag;
+        this.info = info;
+    }
+
+    /**
+     * Return the number of bytes this structure occupies in the class file.
+     * 
+     * @return size of this structure in bytes.
+     */
+
+    public int size() {
+        return (tag == ITEM_Object || tag == ITEM_Uninitialized) ? 3 : 1;
+    }
+
+    /**
+     * Write the contents of this object to the specified output stream.
+     * 
+     * @param out
+     *            output stream.
+     * @throws IOException
+     *             if an error occurs while writing.
+     */
+
+    public void write(CLOutputStream out) throws IOException {
+        out.writeByte(tag);
+        if (tag == ITEM_Object || tag == ITEM_Uninitialized) {
+            out.writeShort(info);
+        }
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public boolean equals(Object obj) {
+        if (obj instanceof CLVerificationTypeInfo) {
+            CLVerificationTypeInfo c = (CLVerificationTypeInfo) obj;
+            return c.tag == tag && c.info == info;
+        }
+        return false;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        return tag * 31 + info;
+    }
+
+    /**
+     * Return a representation of this verification type similar to that of
+     * javap.
+     * 
+     * @return the representation.
+     */
+
+    public String toString() {
+        switch (tag) {
+        case ITEM_Top:
+            return "top";
+        case ITEM_Integer:
+            return "int";
+        case ITEM_Float:
+            return "float";
+        case ITEM_Double:
+            return "double";
+        case ITEM_Long:
+            return "long";
+        case ITEM_Null:
+            return "null";
+        case ITEM_UninitializedThis:
+            return "uninitialized this";
+        case ITEM_Object:
+            return "class #" + info;
+        default:
+            return "uninitialized " + info;
+        }
+    }
+
+}
+
+/**
+ * Representation of stack_map_frame structure (JVM Spec Section 4.7.4).
+ */
+
+class CLStackMapFrame {
+
+    /** stack_map_frame.frame_type item. */
+    public int frameType;
+
+    /**
+     * stack_map_frame.offset_delta item; implicit in the frame type for
+     * same_frame and same_locals_1_stack_item_frame.
+     */
+    public int offsetDelta;
+
+    /**
+     * The locals of an append_frame (the ones appended) or of a full_frame.
+     */
+    public ArrayList<CLVerificationTypeInfo> locals;
+
+    /**
+     * The stack of a same_locals_1_stack_item_frame (its single item) or of a
+     * full_frame.
+     */
+    public ArrayList<CLVerificationTypeInfo> stack;
+
+    /**
+     * Construct a CLStackMapFrame object.
+     * 
+     * @param frameType
+     *            stack_map_frame.frame_type item.
+     * @param offsetDelta
+     *            stack_map_frame.offset_delta item.
+     * @param locals
+     *            the locals that the frame type calls for.
+     * @param stack
+     *            the stack items that the frame type calls for.
+     */
+
+    public CLStackMapFrame(int frameType, int offsetDelta,
+            ArrayList<CLVerificationTypeInfo> locals,
+            ArrayList<CLVerificationTypeInfo> stack) {
+        this.frameType = frameType;
+        this.offsetDelta = offsetDelta;
+        this.locals = locals;
+        this.stack = stack;
+    }
+
+    /**
+     * Return the number of bytes this frame occupies in the class file.
+     * 
+     * @return size of this frame in bytes.
+     */
+
+    public int size() {
+        int size = frameType < SAME_LOCALS_1_STACK_ITEM_EXTENDED ? 1 : 3;
+        if (frameType == FULL_FRAME) {
+            size += 4;
+        }
+        for (int i = 0; i < locals.size(); i++) {
+            size += locals.get(i).size();
+        }
+        for (int i = 0; i < stack.size(); i++) {
+            size += stack.get(i).size();
+        }
+        return size;
+    }
+
+    /**
+     * Write the contents of this object to the specified output stream.
+     * 
+     * @param out
+     *            output stream.
+     * @throws IOException
+     *             if an error occurs while writing.
+     */
+
+    public void write(CLOutputStream out) throws IOException {
+        out.writeByte(frameType);
+        if (frameType >= SAME_LOCALS_1_STACK_ITEM_EXTENDED) {
+            out.writeShort(offsetDelta);
+        }
+        if (frameType == FULL_FRAME) {
+            out.writeShort(locals.size());
+        }
+        for (int i = 0; i < locals.size(); i++) {
+            locals.get(i).write(out);
+        }
+        if (frameType == FULL_FRAME) {
+            out.writeShort(stack.size());
+        }
+        for (int i = 0; i < stack.size(); i++) {
+            stack.get(i).write(out);
+        }
+    }
+
+    /**
+     * Write the contents of this object to STDOUT in a format similar to that
+     * of javap.
+     * 
+     * @param p
+     *            for pretty printing with indentation.
+     */
+
+    public void writeToStdOut(PrettyPrinter p) {
+        p.printf("%-10s    %-12s    %s    %s\n", frameType, offsetDelta,
+                locals, stack);
+    }
+
+}
+
+/**
+ * Representation of StackMapTable_attribute structure (JVM Spec Section
+ * 4.7.4). The type checking verifier uses the frames in this code attribute
+ * to verify a method in a single pass.
+ */
+
+class CLStackMapTableAttribute extends CLAttributeInfo {
+
+    /** StackMapTable_attribute.number_of_entries item. */
+    public int numberOfEntries;
+
+    /** StackMapTable_attribute.entries item. */
+    public ArrayList<CLStackMapFrame> entries;
+
+    /**
+     * Construct a CLStackMapTableAttribute object.
+     * 
+     * @param attributeNameIndex
+     *            StackMapTable_attribute.attribute_name_index item.
+     * @param attributeLength
+     *            StackMapTable_attribute.attribute_length item.
+     * @param numberOfEntries
+     *            StackMapTable_attribute.number_of_entries item.
+     * @param entries
+     *            StackMapTable_attribute.entries item.
+     */
+
+    public CLStackMapTableAttribute(int attributeNameIndex,
+            long attributeLength, int numberOfEntries,
+            ArrayList<CLStackMapFrame> entries) {
+        super(attributeNameIndex, attributeLength);
+        this.numberOfEntries = numberOfEntries;
+        this.entries = entries;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public void write(CLOutputStream out) throws IOException {
+        super.write(out);
+        out.writeShort(numberOfEntries);
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).write(out);
+        }
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public void writeToStdOut(PrettyPrinter p) {
+        p.printf("StackMapTable {\n");
+        p.indentRight();
+        super.writeToStdOut(p);
+        p.printf("Number of Entries: %s\n", numberOfEntries);
+        p.printf("%s    %s    %s    %s\n", "Frame Type", "Offset Delta",
+                "Locals", "Stack");
+        p.printf("%s    %s    %s    %s\n", "----------", "------------",
+                "------", "-----");
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).writeToStdOut(p);
+        }
+        p.indentLeft();
+        p.printf("}\n");
+    }
+
+}
@@ -0,0 +1,190 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package jminusminus;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+import static jminusminus.CLConstants.*;
+
+/**
+ * Branch relaxation over the instruction list of a method, run by CLEmitter
+ * once the code is final but before the labels are resolved. A GOTO, JSR or
+ * conditional branch holds a signed 16-bit offset, so it cannot reach a label
+ * more than 32 KB away. Such a GOTO (JSR) is widened to GOTO_W (JSR_W), and
+ * such a conditional branch IFcc L is rewritten as IF!cc L1; GOTO_W L; L1:.
+ * Since widening moves the code that follows, the pcs are recomputed and the
+ * branches checked again, until no branch is out of range; as branches only
+ * ever grow, this terminates.
+ */
+
+class CLBranchRelaxer {
+
+    /** The instructions of the method. */
+    private ArrayList<CLInstruction> code;
+
+    /** Label to pc mapping of the method. */
+    private Hashtable<String, Integer> labels;
+
+    /** Creates the labels needed by rewritten conditional branches. */
+    private CLEmitter emitter;
+
+    /**
+     * Label to instruction mapping; a label past the last instruction maps to
+     * END.
+     */
+    private Hashtable<String, CLInstruction> targets;
+
+    /** Stands for the end of the code in targets. */
+    private static final CLInstruction END = new CLMiscInstruction(NOP, -1);
+
+    /**
+     * Construct a CLBranchRelaxer for the given method code.
+     *
+     * @param code
+     *            the instructions of the method; modified in place.
+     * @param labels
+     *            label to pc mapping of the method; modified in place.
+     * @param emitter
+     *            the emitter building the method, for creating labels.
+     */
+
+    public CLBranchRelaxer(ArrayList<CLInstruction> code,
+            Hashtable<String, Integer> labels, CLEmitter emitter) {
+        this.code = code;
+        this.labels = labels;
+        this.emitter = emitter;
+    }
+
+    /**
+     * Relax the branches that are out of range, and assign new pcs to the
+     * instructions and labels if any was.
+     *
+     * @param pc
+     *            the pc past the last instruction.
+     * @return the pc past the last instruction, after relaxation.
+     */
+
+    public int relax(int pc) {
+        if (pc <= Short.MAX_VALUE) {
+            // No offset can be out of range
+            return pc;
+        }
+        targets = new Hashtable<String, CLInstruction>();
+        Hashtable<Integer, CLInstruction> atPC = new Hashtable<Integer, CLInstruction>();
+        for (CLInstruction instr : code) {
+            atPC.put(instr.pc(), instr);
+        }
+        for (String label : labels.keySet()) {
+            CLInstruction instr = atPC.get(labels.get(label));
+            targets.put(label, instr == null ? END : instr);
+        }
+        while (widen()) {
+            pc = layout();
+        }
+        return pc;
+    }
+
+    /**
+     * Widen the branches whose offsets are out of range in the current
+     * layout.
+     *
+     * @return true if a branch was widened; false otherwise.
+     */
+
+    private boolean widen() {
+        boolean changed = false;
+        for (int i = 0; i < code.size(); i++) {
+            CLInstruction instr = code.get(i);
+            int opcode = instr.opcode();
+            if (!isShortBranch(opcode)) {
+                continue;
+            }
+            String label = ((CLFlowControlInstruction) instr).jumpToLabel();
+            Integer target = labels.get(label);
+            if (target == null || fitsShort(target - instr.pc())) {
+                // An unknown label is reported by CLEmitter
+                continue;
+            }
+            if (opcode == GOTO || opcode == JSR) {
+                replace(i, new CLFlowControlInstruction(
+                        opcode == GOTO ? GOTO_W : JSR_W, instr.pc(), label));
+            } else {
+                String next = emitter.createLabel();
+                CLInstruction after = i + 1 < code.size() ? code.get(i + 1)
+                        : END;
+                targets.put(next, after);
+                replace(i, new CLFlowControlInstruction(CLPeepholeOptimizer
+                        .inverse(opcode), instr.pc(), next));
+                code.add(i + 1, new CLFlowControlInstruction(GOTO_W, instr
+                        .pc(), label));
+                i++;
+            }
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Replace the instruction at the specified index with the specified one,
+     * which the labels on the old instruction are moved to.
+     */
+
+    private void replace(int i, CLInstruction instr) {
+        CLInstruction old = code.set(i, instr);
+        for (String label : targets.keySet()) {
+            if (targets.get(label) == old) {
+                targets.put(label, instr);
+            }
+        }
+    }
+
+    /**
+     * Assign new pcs to the instructions, and move the labels along with
+     * them.
+     *
+     * @return the pc past the last instruction.
+     */
+
+    private int layout() {
+        if (targets.containsValue(END)) {
+            // Must jump to an instruction
+            CLInstruction nop = new CLMiscInstruction(NOP, 0);
+            code.add(nop);
+            for (String label : targets.keySet()) {
+                if (targets.get(label) == END) {
+                    targets.put(label, nop);
+                }
+            }
+        }
+        int pc = 0;
+        for (CLInstruction instr : code) {
+            instr.setPC(pc);
+            pc += 1 + instr.operandCount();
+        }
+        for (String label : targets.keySet()) {
+            CLInstruction target = targets.get(label);
+            labels.put(label, target == END ? pc : target.pc());
+        }
+        return pc;
+    }
+
+    /**
+     * Return true if the specified instruction is a branch with a 16-bit
+     * offset; false otherwise.
+     */
+
+    private static boolean isShortBranch(int opcode) {
+        return opcode == GOTO || opcode == JSR
+                || CLPeepholeOptimizer.isConditionalBranch(opcode);
+    }
+
+    /**
+     * Return true if the specified offset fits in a signed 16-bit operand;
+     * false otherwise.
+     */
+
+    private static boolean fitsShort(int offset) {
+        return Short.MIN_VALUE <= offset && offset <= Short.MAX_VALUE;
+    }
+
+}
@@ -2,8 +2,9 @@
 
 package jminusminus;
 
-import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.util.Arrays;
 import static jminusminus.CLConstants.*;
 
 /**
@@ -41,6 +42,33 @@ abstract class CLCPInfo {
         out.writeByte(tag);
     }
 
+    /**
+     * Return the number of bytes that write() writes for this item.
+     * 
+     * @return size of this item in the class file.
+     */
+
+    public int size() {
+        switch (tag) {
+        case CONSTANT_Long:
+        case CONSTANT_Double:
+            return 9;
+        case CONSTANT_Integer:
+        case CONSTANT_Float:
+        case CONSTANT_Fieldref:
+        case CONSTANT_Methodref:
+        case CONSTANT_InterfaceMethodref:
+        case CONSTANT_NameAndType:
+        case CONSTANT_InvokeDynamic:
+            return 5;
+        case CONSTANT_MethodHandle:
+            return 4;
+        default:
+            // CONSTANT_Class, CONSTANT_String, CONSTANT_MethodType
+            return 3;
+        }
+    }
+
     /**
      * Write the content of this object to STDOUT in a format similar to that of
      * javap.
@@ -99,6 +127,14 @@ class CLConstantClassInfo extends CLCPInfo {
         return false;
     }
 
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        return nameIndex;
+    }
+
     /**
      * @inheritDoc
      */
@@ -166,6 +202,14 @@ abstract class CLConstantMemberRefInfo extends CLCPInfo {
         return false;
     }
 
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        return (tag * 31 + classIndex) * 31 + nameAndTypeIndex;
+    }
+
 }
 
 /**
@@ -304,6 +348,14 @@ class CLConstantStringInfo extends CLCPInfo {
         return false;
     }
 
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        return stringIndex;
+    }
+
     /**
      * @inheritDoc
      */
@@ -359,11 +411,7 @@ class CLConstantIntegerInfo extends CLCPInfo {
 
     public void write(CLOutputStream out) throws IOException {
         super.write(out);
-
-        // out is cast to DataOutputStream to resolve the
-        // writeInt()
-        // ambiguity
-        ((DataOutputStream) out).writeInt(i);
+        out.writeInt(i);
     }
 
     /**
@@ -380,6 +428,14 @@ class CLConstantIntegerInfo extends CLCPInfo {
         return false;
     }
 
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        return i;
+    }
+
     /**
      * @inheritDoc
      */
@@ -445,13 +501,21 @@ class CLConstantFloatInfo extends CLCPInfo {
     public boolean equals(Object obj) {
         if (obj instanceof CLConstantFloatInfo) {
             CLConstantFloatInfo c = (CLConstantFloatInfo) obj;
-            if (c.f == f) {
+            if (Float.floatToIntBits(c.f) == Float.floatToIntBits(f)) {
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        return Float.floatToIntBits(f);
+    }
+
     /**
      * @inheritDoc
      */
@@ -556,6 +620,14 @@ class CLConstantLongInfo extends CLCPInfo {
         return false;
     }
 
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        return (int) (l ^ (l >>> 32));
+    }
+
     /**
      * @inheritDoc
      */
@@ -653,13 +725,23 @@ class CLConstantDoubleInfo extends CLCPInfo {
     public boolean equals(Object obj) {
         if (obj instanceof CLConstantDoubleInfo) {
             CLConstantDoubleInfo c = (CLConstantDoubleInfo) obj;
-            if (c.d == d) {
+            if (Double.doubleToLongBits(c.d) == Double
+                    .doubleToLongBits(d)) {
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        long bits = Double.doubleToLongBits(d);
+        return (int) (bits ^ (bits >>> 32));
+    }
+
     /**
      * @inheritDoc
      */
@@ -724,6 +806,14 @@ class CLConstantNameAndTypeInfo extends CLCPInfo {
         return false;
     }
 
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        return nameIndex * 31 + descriptorIndex;
+    }
+
     /**
      * @inheritDoc
      */
@@ -735,6 +825,220 @@ class CLConstantNameAndTypeInfo extends CLCPInfo {
 
 }
 
+/**
+ * Representation of CONSTANT_MethodHandle_info structure (JVM Spec Section
+ * 4.4.8).
+ */
+
+class CLConstantMethodHandleInfo extends CLCPInfo {
+
+    /** CONSTANT_MethodHandle_info.reference_kind item. */
+    public int referenceKind;
+
+    /** CONSTANT_MethodHandle_info.reference_index item. */
+    public int referenceIndex;
+
+    /**
+     * Construct a CLConstantMethodHandleInfo object.
+     * 
+     * @param referenceKind
+     *            CONSTANT_MethodHandle_info.reference_kind item.
+     * @param referenceIndex
+     *            CONSTANT_MethodHandle_info.reference_index item.
+     */
+
+    public CLConstantMethodHandleInfo(int referenceKind, int referenceIndex) {
+        super.tag = CONSTANT_MethodHandle;
+        this.referenceKind = referenceKind;
+        this.referenceIndex = referenceIndex;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public void write(CLOutputStream out) throws IOException {
+        super.write(out);
+        out.writeByte(referenceKind);
+        out.writeShort(referenceIndex);
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public boolean equals(Object obj) {
+        if (obj instanceof CLConstantMethodHandleInfo) {
+            CLConstantMethodHandleInfo c = (CLConstantMethodHandleInfo) obj;
+            if ((c.referenceKind == referenceKind)
+                    && (c.referenceIndex == referenceIndex)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        return referenceKind * 31 + referenceIndex;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public void writeToStdOut(PrettyPrinter p) {
+        super.writeToStdOut(p);
+        p.printf("%-20s%-8s%-8s\n", "MethodHandle", referenceKind,
+                referenceIndex);
+    }
+
+}
+
+/**
+ * Representation of CONSTANT_MethodType_info structure (JVM Spec Section
+ * 4.4.9).
+ */
+
+class CLConstantMethodTypeInfo extends CLCPInfo {
+
+    /** CONSTANT_MethodType_info.descriptor_index item. */
+    public int descriptorIndex;
+
+    /**
+     * Construct a CLConstantMethodTypeInfo object.
+     * 
+     * @param descriptorIndex
+     *            CONSTANT_MethodType_info.descriptor_index item.
+     */
+
+    public CLConstantMethodTypeInfo(int descriptorIndex) {
+        super.tag = CONSTANT_MethodType;
+        this.descriptorIndex = descriptorIndex;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public void write(CLOutputStream out) throws IOException {
+        super.write(out);
+        out.writeShort(descriptorIndex);
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public boolean equals(Object obj) {
+        if (obj instanceof CLConstantMethodTypeInfo) {
+            CLConstantMethodTypeInfo c = (CLConstantMethodTypeInfo) obj;
+            if (c.descriptorIndex == descriptorIndex) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        return descriptorIndex;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public void writeToStdOut(PrettyPrinter p) {
+        super.writeToStdOut(p);
+        p.printf("%-20s%s\n", "MethodType", descriptorIndex);
+    }
+
+}
+
+/**
+ * Representation of CONSTANT_InvokeDynamic_info structure (JVM Spec Section
+ * 4.4.10).
+ */
+
+class CLConstantInvokeDynamicInfo extends CLCPInfo {
+
+    /**
+     * CONSTANT_InvokeDynamic_info.bootstrap_method_attr_index item; an index
+     * into the bootstrap_methods table of the BootstrapMethods attribute.
+     */
+    public int bootstrapMethodAttrIndex;
+
+    /** CONSTANT_InvokeDynamic_info.name_and_type_index item. */
+    public int nameAndTypeIndex;
+
+    /**
+     * Construct a CLConstantInvokeDynamicInfo object.
+     * 
+     * @param bootstrapMethodAttrIndex
+     *            CONSTANT_InvokeDynamic_info.bootstrap_method_attr_index item.
+     * @param nameAndTypeIndex
+     *            CONSTANT_InvokeDynamic_info.name_and_type_index item.
+     */
+
+    public CLConstantInvokeDynamicInfo(int bootstrapMethodAttrIndex,
+            int nameAndTypeIndex) {
+        super.tag = CONSTANT_InvokeDynamic;
+        this.bootstrapMethodAttrIndex = bootstrapMethodAttrIndex;
+        this.nameAndTypeIndex = nameAndTypeIndex;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public void write(CLOutputStream out) throws IOException {
+        super.write(out);
+        out.writeShort(bootstrapMethodAttrIndex);
+        out.writeShort(nameAndTypeIndex);
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public boolean equals(Object obj) {
+        if (obj instanceof CLConstantInvokeDynamicInfo) {
+            CLConstantInvokeDynamicInfo c = (CLConstantInvokeDynamicInfo) obj;
+            if ((c.bootstrapMethodAttrIndex == bootstrapMethodAttrIndex)
+                    && (c.nameAndTypeIndex == nameAndTypeIndex)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        return bootstrapMethodAttrIndex * 31 + nameAndTypeIndex;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public void writeToStdOut(PrettyPrinter p) {
+        super.writeToStdOut(p);
+        p.printf("%-20s%-8s%-8s\n", "InvokeDynamic", bootstrapMethodAttrIndex,
+                nameAndTypeIndex);
+    }
+
+}
+
 /**
  * Representation of CONSTANT_Utf8_info structure (JVM Spec Section 4.5.7).
  */
@@ -744,6 +1048,9 @@ class CLConstantUtf8Info extends CLCPInfo {
     /** CONSTANT_Utf8_info.bytes item. */
     public byte[] b;
 
+    /** b in modified UTF-8, as written; computed on demand. */
+    private byte[] utf;
+
     /**
      * Construct a CLConstantUtf8Info object.
      * 
@@ -772,7 +1079,32 @@ class CLConstantUtf8Info extends CLCPInfo {
 
     public void write(CLOutputStream out) throws IOException {
         super.write(out);
-        out.writeUTF(new String(b));
+        byte[] utf = utf();
+        if (utf.length > 65535) {
+            throw new UTFDataFormatException("String too long");
+        }
+        out.writeShort(utf.length);
+        out.write(utf);
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public int size() {
+        return 3 + utf().length;
+    }
+
+    /**
+     * Return b in modified UTF-8, the encoding DataOutputStream.writeUTF()
+     * wrote it in.
+     */
+
+    private byte[] utf() {
+        if (utf == null) {
+            utf = CLOutputStream.utf(new String(b));
+        }
+        return utf;
     }
 
     /**
@@ -782,13 +1114,21 @@ class CLConstantUtf8Info extends CLCPInfo {
     public boolean equals(Object obj) {
         if (obj instanceof CLConstantUtf8Info) {
             CLConstantUtf8Info c = (CLConstantUtf8Info) obj;
-            if ((new String(b)).equals(new String(c.b))) {
+            if (Arrays.equals(b, c.b)) {
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * @inheritDoc
+     */
+
+    public int hashCode() {
+        return Arrays.hashCode(b);
+    }
+
     /**
      * @inheritDoc
      */
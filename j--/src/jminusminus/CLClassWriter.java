@@ -0,0 +1,227 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package jminusminus;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Background writer of class files. CLEmitter.write() hands each class it has
+ * built to the writer through a bounded queue, and code generation carries on
+ * with the next type while the writer thread serializes the class and writes
+ * it out; once the queue is full, write() waits for room. There is a single
+ * writer thread, so that the classes are written in the order they are
+ * generated, a jar's entries included.
+ *
+ * Errors are reported (to STDERR) by the writer thread as they occur;
+ * finish() waits for all the classes to be written, and tells whether an error
+ * occurred.
+ */
+
+class CLClassWriter {
+
+    /** Number of classes that may wait to be written. */
+    public static final int CAPACITY = 16;
+
+    /** Marks the end of the classes in the queue. */
+    private static final CLClassOutput END = new CLClassOutput(null, null,
+            null, null);
+
+    /** Classes waiting to be written. */
+    private BlockingQueue<CLClassOutput> queue;
+
+    /** The writer thread. */
+    private Thread thread;
+
+    /** Whether an error has occurred. */
+    private boolean errorHasOccurred;
+
+    /**
+     * Construct a CLClassWriter, and start its thread.
+     */
+
+    public CLClassWriter() {
+        queue = new ArrayBlockingQueue<CLClassOutput>(CAPACITY);
+        thread = new Thread("j-- class writer") {
+            public void run() {
+                writeAll();
+            }
+        };
+        // Do not keep the VM alive if the compiler fails
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queue the specified class for writing, waiting for room in the queue if
+     * need be.
+     *
+     * @param output
+     *            the class.
+     */
+
+    public void put(CLClassOutput output) {
+        boolean isInterrupted = false;
+        while (true) {
+            try {
+                queue.put(output);
+                break;
+            } catch (InterruptedException e) {
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Wait for the classes queued so far to be written, and stop the writer
+     * thread. Return true if an error occurred while writing; false
+     * otherwise.
+     *
+     * @return true or false.
+     */
+
+    public boolean finish() {
+        put(END);
+        boolean isInterrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return errorHasOccurred;
+    }
+
+    /**
+     * Write the classes from the queue until the end is reached.
+     */
+
+    private void writeAll() {
+        while (true) {
+            CLClassOutput output;
+            try {
+                output = queue.take();
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (output == END) {
+                return;
+            }
+            String error;
+            try {
+                error = output.write();
+            } catch (RuntimeException e) {
+                error = "Cannot write class " + output.name() + ": " + e;
+            }
+            if (error != null) {
+                System.err.println(error);
+                errorHasOccurred = true;
+            }
+        }
+    }
+
+}
+
+/**
+ * A class built by CLEmitter, with where it goes: a .class file under a
+ * destination directory, or an entry of a jar.
+ */
+
+class CLClassOutput {
+
+    /** The class. */
+    private CLFile clFile;
+
+    /** Internal (/ separated) name of the class. */
+    private String name;
+
+    /** Destination directory for the class. */
+    private String destDir;
+
+    /** Jar the class is written into instead of destDir, or null. */
+    private CLJarWriter jar;
+
+    /**
+     * Construct a CLClassOutput.
+     *
+     * @param clFile
+     *            the class.
+     * @param name
+     *            internal name of the class.
+     * @param destDir
+     *            destination directory for the class.
+     * @param jar
+     *            jar the class is written into instead, or null.
+     */
+
+    public CLClassOutput(CLFile clFile, String name, String destDir,
+            CLJarWriter jar) {
+        this.clFile = clFile;
+        this.name = name;
+        this.destDir = destDir;
+        this.jar = jar;
+    }
+
+    /**
+     * Return the internal name of the class.
+     *
+     * @return internal name of the class.
+     */
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Serialize and write out the class. Return a description of the error if
+     * one occurred; null otherwise.
+     *
+     * @return description of the error, or null.
+     */
+
+    public String write() {
+        if (jar != null) {
+            try {
+                jar.add(name, clFile.toByteBuffer());
+            } catch (IOException e) {
+                return String.format("Cannot write %s to jar %s: %s", name,
+                        jar.fileName(), e.getMessage());
+            }
+            return null;
+        }
+        String outFile = destDir + File.separator + name + ".class";
+        try {
+            File file = new File(destDir + File.separator
+                    + name.substring(0, name.lastIndexOf("/") + 1));
+            file.mkdirs();
+            ByteBuffer buffer = clFile.toByteBuffer();
+            FileChannel channel = new FileOutputStream(outFile).getChannel();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } finally {
+                channel.close();
+            }
+        } catch (FileNotFoundException e) {
+            return String.format("File %s not found", outFile);
+        } catch (IOException e) {
+            return String.format("Cannot write to file %s", outFile);
+        }
+        return null;
+    }
+
+}
@@ -4,6 +4,8 @@ package jminusminus;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Hashtable;
+import static jminusminus.CLConstants.*;
 
 /**
  * Representation of a class' constant_pool table (JVM Spec Section 4.5). An
@@ -22,6 +24,12 @@ class CLConstantPool {
     /** List of constant pool items. */
     private ArrayList<CLCPInfo> cpItems;
 
+    /**
+     * Maps each distinct item (by equals()) to the constant pool index where
+     * it first occurs, so find() takes constant time.
+     */
+    private Hashtable<CLCPInfo, Integer> cpIndexes;
+
     /**
      * Look for the specified item in the constant pool. If it exists, return
      * its index. Otherwise, add the item to the constant pool and return its
@@ -47,6 +55,7 @@ class CLConstantPool {
     public CLConstantPool() {
         cpIndex = 1;
         cpItems = new ArrayList<CLCPInfo>();
+        cpIndexes = new Hashtable<CLCPInfo, Integer>();
     }
 
     /**
@@ -69,12 +78,8 @@ class CLConstantPool {
      */
 
     public int find(CLCPInfo cpInfo) {
-        int index = cpItems.indexOf(cpInfo);
-        if (index != -1) {
-            CLCPInfo c = cpItems.get(index);
-            index = c.cpIndex;
-        }
-        return index;
+        Integer index = cpIndexes.get(cpInfo);
+        return index == null ? -1 : index;
     }
 
     /**
@@ -106,6 +111,9 @@ class CLConstantPool {
         int i = cpIndex++;
         cpInfo.cpIndex = i;
         cpItems.add(cpInfo);
+        if (!cpIndexes.containsKey(cpInfo)) {
+            cpIndexes.put(cpInfo, i);
+        }
 
         // long and double, with their lower and higher words,
         // are treated by JVM as two items in the constant pool. We
@@ -137,6 +145,23 @@ class CLConstantPool {
         }
     }
 
+    /**
+     * Return the number of bytes that write() writes.
+     * 
+     * @return size of the constant_pool in the class file.
+     */
+
+    public int byteSize() {
+        int size = 0;
+        for (int i = 0; i < cpItems.size(); i++) {
+            CLCPInfo cpInfo = cpItems.get(i);
+            if (cpInfo != null) {
+                size += cpInfo.size();
+            }
+        }
+        return size;
+    }
+
     /**
      * Write the contents of the constant pool to STDOUT in a format similar to
      * that of javap.
@@ -326,6 +351,65 @@ class CLConstantPool {
         return findOrAdd(c);
     }
 
+    /**
+     * Return the constant pool index of a singleton instance of
+     * CLConstantMethodHandleInfo.
+     * 
+     * @param referenceKind
+     *            the kind of method handle (REF_invokeStatic, etc.).
+     * @param className
+     *            class or interface name in internal form.
+     * @param name
+     *            name of the method.
+     * @param type
+     *            method descriptor.
+     * @return constant pool index.
+     */
+
+    public int constantMethodHandleInfo(int referenceKind, String className,
+            String name, String type) {
+        int referenceIndex = referenceKind == REF_invokeInterface
+                ? constantInterfaceMethodRefInfo(className, name, type)
+                : constantMethodRefInfo(className, name, type);
+        CLCPInfo c = new CLConstantMethodHandleInfo(referenceKind,
+                referenceIndex);
+        return findOrAdd(c);
+    }
+
+    /**
+     * Return the constant pool index of a singleton instance of
+     * CLConstantMethodTypeInfo.
+     * 
+     * @param type
+     *            method descriptor.
+     * @return constant pool index.
+     */
+
+    public int constantMethodTypeInfo(String type) {
+        CLCPInfo c = new CLConstantMethodTypeInfo(constantUtf8Info(type));
+        return findOrAdd(c);
+    }
+
+    /**
+     * Return the constant pool index of a singleton instance of
+     * CLConstantInvokeDynamicInfo.
+     * 
+     * @param bootstrapMethodAttrIndex
+     *            index into the BootstrapMethods attribute.
+     * @param name
+     *            name of the dynamic call site.
+     * @param type
+     *            method descriptor of the dynamic call site.
+     * @return constant pool index.
+     */
+
+    public int constantInvokeDynamicInfo(int bootstrapMethodAttrIndex,
+            String name, String type) {
+        CLCPInfo c = new CLConstantInvokeDynamicInfo(bootstrapMethodAttrIndex,
+                constantNameAndTypeInfo(name, type));
+        return findOrAdd(c);
+    }
+
     /**
      * Return the constant pool index of a singleton instance of
      * CLConstantUtf8Info.
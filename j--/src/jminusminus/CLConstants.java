@@ -13,12 +13,30 @@ public class CLConstants {
      */
     public static final long MAGIC = 3405691582L;
 
-    /** Major version for the class files that j-- compiles. */
-    public static final int MAJOR_VERSION = 49;
+    /**
+     * Default major version (Java 8) for the class files that j-- compiles;
+     * see CLEmitter.majorVersion().
+     */
+    public static final int MAJOR_VERSION = 52;
+
+    /**
+     * Major version (Java 6) from which class files carry StackMapTable
+     * attributes; from the next version on, the JVM requires them.
+     */
+    public static final int STACK_MAP_MAJOR_VERSION = 50;
+
+    /** Maximum length in bytes of the code of a method. */
+    public static final int MAX_CODE_LENGTH = 65535;
 
     /** Minor version for the class files that j-- compiles. */
     public static final int MINOR_VERSION = 0;
 
+    /**
+     * Major version (Java 9) for class files that use invokedynamic; in
+     * particular, string concatenation through StringConcatFactory.
+     */
+    public static final int INVOKEDYNAMIC_MAJOR_VERSION = 53;
+
     /** public access flag. */
     public static final int ACC_PUBLIC = 0x0001;
 
@@ -112,6 +130,42 @@ public class CLConstants {
      */
     public static final short CONSTANT_NameAndType = 12;
 
+    /** Identifies CONSTANT_MethodHandle_info constant pool structure. */
+    public static final short CONSTANT_MethodHandle = 15;
+
+    /** Identifies CONSTANT_MethodType_info constant pool structure. */
+    public static final short CONSTANT_MethodType = 16;
+
+    /** Identifies CONSTANT_InvokeDynamic_info constant pool structure. */
+    public static final short CONSTANT_InvokeDynamic = 18;
+
+    /** Method handle kind REF_getField. */
+    public static final int REF_getField = 1;
+
+    /** Method handle kind REF_getStatic. */
+    public static final int REF_getStatic = 2;
+
+    /** Method handle kind REF_putField. */
+    public static final int REF_putField = 3;
+
+    /** Method handle kind REF_putStatic. */
+    public static final int REF_putStatic = 4;
+
+    /** Method handle kind REF_invokeVirtual. */
+    public static final int REF_invokeVirtual = 5;
+
+    /** Method handle kind REF_invokeStatic. */
+    public static final int REF_invokeStatic = 6;
+
+    /** Method handle kind REF_invokeSpecial. */
+    public static final int REF_invokeSpecial = 7;
+
+    /** Method handle kind REF_newInvokeSpecial. */
+    public static final int REF_newInvokeSpecial = 8;
+
+    /** Method handle kind REF_invokeInterface. */
+    public static final int REF_invokeInterface = 9;
+
     /** Identifies ConstantValue attribute. */
     public static final String ATT_CONSTANT_VALUE = "ConstantValue";
 
@@ -166,6 +220,57 @@ public class CLConstants {
     /** Identifies AnnotationDefault attribute. */
     public static final String ATT_ANNOTATION_DEFAULT = "AnnotationDefault";
 
+    /** Identifies BootstrapMethods attribute. */
+    public static final String ATT_BOOTSTRAP_METHODS = "BootstrapMethods";
+
+    /** Identifies StackMapTable attribute. */
+    public static final String ATT_STACK_MAP_TABLE = "StackMapTable";
+
+    /** Top verification type. */
+    public static final short ITEM_Top = 0;
+
+    /** Integer verification type. */
+    public static final short ITEM_Integer = 1;
+
+    /** Float verification type. */
+    public static final short ITEM_Float = 2;
+
+    /** Double verification type. */
+    public static final short ITEM_Double = 3;
+
+    /** Long verification type. */
+    public static final short ITEM_Long = 4;
+
+    /** Null verification type. */
+    public static final short ITEM_Null = 5;
+
+    /** UninitializedThis verification type. */
+    public static final short ITEM_UninitializedThis = 6;
+
+    /** Object verification type. */
+    public static final short ITEM_Object = 7;
+
+    /** Uninitialized verification type. */
+    public static final short ITEM_Uninitialized = 8;
+
+    /** First of the same_locals_1_stack_item frame types (64-127). */
+    public static final int SAME_LOCALS_1_STACK_ITEM = 64;
+
+    /** same_locals_1_stack_item_frame_extended frame type. */
+    public static final int SAME_LOCALS_1_STACK_ITEM_EXTENDED = 247;
+
+    /** First of the chop_frame frame types (248-250). */
+    public static final int CHOP_FRAME = 248;
+
+    /** same_frame_extended frame type. */
+    public static final int SAME_FRAME_EXTENDED = 251;
+
+    /** First of the append_frame frame types (252-254). */
+    public static final int APPEND_FRAME = 252;
+
+    /** full_frame frame type. */
+    public static final int FULL_FRAME = 255;
+
     /** Identifies boolean type of annotation element value. */
     public static final short ELT_B = 'B';
 
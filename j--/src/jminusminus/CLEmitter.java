@@ -2,17 +2,13 @@
 
 package jminusminus;
 
-import java.io.BufferedOutputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.DataOutputStream;
-import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Hashtable;
-import java.util.Stack;
+import java.util.Map;
 import java.util.StringTokenizer;
 import java.util.TreeMap;
 import static jminusminus.CLConstants.*;
@@ -43,6 +39,30 @@ public class CLEmitter {
     /** Destination directory for the class. */
     private String destDir;
 
+    /** Jar the class is written into instead of destDir, or null. */
+    private CLJarWriter jar;
+
+    /** Background writer the class is handed to, or null. */
+    private CLClassWriter writer;
+
+    /** Splitter of the over-long methods of the class, or null. */
+    private MethodSplitter splitter;
+
+    /** Major version of the class files emitted. */
+    private int majorVersion;
+
+    /** Whether the code of methods is run through CLPeepholeOptimizer. */
+    private boolean isOptimized;
+
+    /** Whether methods are assembled as their code is added. */
+    private boolean isDirect;
+
+    /** Whether string concatenation is compiled to invokedynamic. */
+    private boolean isIndyConcatenation;
+
+    /** Name of the parent class. */
+    private String superClassName;
+
     /** In-memory representation of the class. */
     private CLFile clFile;
 
@@ -70,9 +90,21 @@ public class CLEmitter {
     /** Inner classes of the class. */
     private ArrayList<CLInnerClassInfo> innerClasses;
 
+    /**
+     * BootstrapMethods attribute of the class; created when the first
+     * INVOKEDYNAMIC instruction is added.
+     */
+    private CLBootstrapMethodsAttribute bootstrapMethods;
+
     /** Code (instruction) section of the method last added. */
     private ArrayList<CLInstruction> mCode;
 
+    /**
+     * Assembler for the method last added, if its code is assembled as it is
+     * added rather than kept in mCode; null otherwise.
+     */
+    private CLAssembler mAssembler;
+
     /**
      * Table containing exception handlers in the method last added.
      */
@@ -157,6 +189,7 @@ public class CLEmitter {
         mAttributes = new ArrayList<CLAttributeInfo>();
         mExceptionHandlers = new ArrayList<CLException>();
         mCode = new ArrayList<CLInstruction>();
+        mAssembler = null;
         mCodeAttributes = new ArrayList<CLAttributeInfo>();
         mLabels = new Hashtable<String, Integer>();
         mLabelCount = 1;
@@ -170,6 +203,10 @@ public class CLEmitter {
      */
 
     private void endOpenMethodIfAny() {
+        if (isMethodOpen && mAssembler != null) {
+            isMethodOpen = false;
+            endAssembledMethod();
+        }
         if (isMethodOpen) {
             isMethodOpen = false;
             if (!mInstructionAfterLabel) {
@@ -177,36 +214,25 @@ public class CLEmitter {
                 addNoArgInstruction(NOP);
             }
 
-            // Resolve jump labels in exception handlers
-            ArrayList<CLExceptionInfo> exceptionTable = new ArrayList<CLExceptionInfo>();
-            for (int i = 0; i < mExceptionHandlers.size(); i++) {
-                CLException e = mExceptionHandlers.get(i);
-                if (!e.resolveLabels(mLabels)) {
-                    reportEmitterError(
-                            "%s: Unable to resolve exception handler "
-                                    + "label(s)", eCurrentMethod);
-                }
+            // Optimize the code before any pc is relied upon
+            if (isOptimized && mExceptionHandlers.isEmpty()) {
+                mPC = new CLPeepholeOptimizer(mCode, mLabels).optimize();
+            }
 
-                // We allow catchType to be null (mapping to
-                // index 0),
-                // implying this exception handler is called for
-                // all
-                // exceptions. This is used to implement
-                // "finally"
-                int catchTypeIndex = (e.catchType == null) ? 0 : constantPool
-                        .constantClassInfo(e.catchType);
-                CLExceptionInfo c = new CLExceptionInfo(e.startPC, e.endPC,
-                        e.handlerPC, catchTypeIndex);
-                exceptionTable.add(c);
+            // Widen the branches that cannot reach their targets
+            // with a 16-bit offset
+            mPC = new CLBranchRelaxer(mCode, mLabels, this).relax(mPC);
+            if (mPC > MAX_CODE_LENGTH) {
+                reportEmitterError("%s: Code too large", eCurrentMethod);
             }
 
-            // Convert Instruction objects to bytes
-            ArrayList<Integer> byteCode = new ArrayList<Integer>();
+            // Resolve jump labels in exception handlers
+            ArrayList<CLExceptionInfo> exceptionTable = exceptionTable(mLabels);
+
+            // Compute maxLocals
             int maxLocals = mArgumentCount;
             for (int i = 0; i < mCode.size(); i++) {
                 CLInstruction instr = mCode.get(i);
-
-                // Compute maxLocals
                 int localVariableIndex = instr.localVariableIndex();
                 switch (instr.opcode()) {
                 case LLOAD:
@@ -235,6 +261,36 @@ public class CLEmitter {
                     localVariableIndex++;
                 }
                 maxLocals = Math.max(maxLocals, localVariableIndex + 1);
+            }
+
+            // Compute the stack map frames, which may replace
+            // unreachable code
+            boolean isAbstract = (mAccessFlags & ACC_NATIVE) == ACC_NATIVE
+                    || (mAccessFlags & ACC_ABSTRACT) == ACC_ABSTRACT;
+            boolean hasDeadCode = false;
+            if (!isAbstract && clFile.majorVersion >= STACK_MAP_MAJOR_VERSION) {
+                CLStackMap stackMap = new CLStackMap(mCode, mLabels,
+                        mExceptionHandlers, constantPool, name,
+                        superClassName);
+                int paren = eCurrentMethod.indexOf('(');
+                CLStackMapTableAttribute stackMapTable = stackMap
+                        .stackMapTable(eCurrentMethod.substring(0, paren),
+                                eCurrentMethod.substring(paren),
+                                (mAccessFlags & ACC_STATIC) == ACC_STATIC,
+                                maxLocals);
+                if (stackMap.error() != null) {
+                    reportEmitterError("%s: %s", eCurrentMethod, stackMap
+                            .error());
+                } else if (stackMapTable != null) {
+                    addCodeAttribute(stackMapTable);
+                }
+                hasDeadCode = stackMap.hasDeadCode();
+            }
+
+            // Convert Instruction objects to bytes
+            CLCodeBuffer byteCode = new CLCodeBuffer(mPC);
+            for (int i = 0; i < mCode.size(); i++) {
+                CLInstruction instr = mCode.get(i);
 
                 // Resolve jump labels in flow control
                 // instructions
@@ -247,15 +303,21 @@ public class CLEmitter {
                     }
                 }
 
-                byteCode.addAll(instr.toBytes());
+                instr.toBytes(byteCode);
             }
 
             // Code attribute; add only if method is neither
             // native
             // nor abstract
-            if (!((mAccessFlags & ACC_NATIVE) == ACC_NATIVE || (mAccessFlags & ACC_ABSTRACT) == ACC_ABSTRACT)) {
-                addMethodAttribute(codeAttribute(byteCode, exceptionTable,
-                        stackDepth(), maxLocals));
+            if (!isAbstract) {
+                // The frame of unreachable code has a Throwable on
+                // the stack
+                int maxStack = stackDepth();
+                if (hasDeadCode) {
+                    maxStack = Math.max(maxStack, 1);
+                }
+                addMethodAttribute(codeAttribute(byteCode.toByteArray(),
+                        exceptionTable, maxStack, maxLocals));
             }
 
             methods.add(new CLMethodInfo(mAccessFlags, mNameIndex,
@@ -285,6 +347,145 @@ public class CLEmitter {
         clFile.attributes = attributes;
     }
 
+    /**
+     * Add the method created using addMethod(), whose code was assembled as
+     * it was added, to the ClassFile structure.
+     */
+
+    private void endAssembledMethod() {
+        if (!mInstructionAfterLabel) {
+            // Must jump to an instruction
+            addNoArgInstruction(NOP);
+        }
+        if (mPC > MAX_CODE_LENGTH) {
+            reportEmitterError("%s: Code too large", eCurrentMethod);
+        }
+        ArrayList<CLExceptionInfo> exceptionTable = exceptionTable(null);
+        byte[] byteCode = mAssembler.toByteArray();
+        if (mAssembler.error() != null) {
+            reportEmitterError("%s: %s", eCurrentMethod, mAssembler.error());
+        }
+
+        // Code attribute; add only if method is neither native nor
+        // abstract
+        if ((mAccessFlags & ACC_NATIVE) != ACC_NATIVE
+                && (mAccessFlags & ACC_ABSTRACT) != ACC_ABSTRACT) {
+            addMethodAttribute(codeAttribute(byteCode, exceptionTable,
+                    mAssembler.maxStack(), mAssembler
+                            .maxLocals(mArgumentCount)));
+        }
+        methods.add(new CLMethodInfo(mAccessFlags, mNameIndex,
+                mDescriptorIndex, mAttributes.size(), mAttributes));
+    }
+
+    /**
+     * Resolve the jump labels in the exception handlers of the method last
+     * added, and return its exception table.
+     * 
+     * @param labels
+     *            label to pc mapping of the method, or null if its code was
+     *            assembled directly.
+     * @return the exception table.
+     */
+
+    private ArrayList<CLExceptionInfo> exceptionTable(
+            Hashtable<String, Integer> labels) {
+        ArrayList<CLExceptionInfo> exceptionTable = new ArrayList<CLExceptionInfo>();
+        for (int i = 0; i < mExceptionHandlers.size(); i++) {
+            CLException e = mExceptionHandlers.get(i);
+            boolean isResolved;
+            if (labels == null) {
+                e.startPC = mAssembler.labelPC(labelId(e.startLabel));
+                e.endPC = mAssembler.labelPC(labelId(e.endLabel));
+                e.handlerPC = mAssembler.labelPC(labelId(e.handlerLabel));
+                isResolved = e.startPC >= 0 && e.endPC >= 0
+                        && e.handlerPC >= 0;
+            } else {
+                isResolved = e.resolveLabels(labels);
+            }
+            if (!isResolved) {
+                reportEmitterError("%s: Unable to resolve exception handler "
+                        + "label(s)", eCurrentMethod);
+            }
+
+            // We allow catchType to be null (mapping to index 0),
+            // implying this exception handler is called for all
+            // exceptions. This is used to implement "finally"
+            int catchTypeIndex = (e.catchType == null) ? 0 : constantPool
+                    .constantClassInfo(e.catchType);
+            CLExceptionInfo c = new CLExceptionInfo(e.startPC, e.endPC,
+                    e.handlerPC, catchTypeIndex);
+            exceptionTable.add(c);
+        }
+        return exceptionTable;
+    }
+
+    /**
+     * Assemble the specified opcode directly, with the effect on the stack and
+     * the local variables given in the instruction table; its operands, if
+     * any, must be assembled next.
+     * 
+     * @param opcode
+     *            the opcode.
+     */
+
+    private void assemble(int opcode) {
+        mAssembler.opcode(opcode, CLInstruction.instructionInfo[opcode]
+                .stackUnits, CLInstruction.instructionInfo[opcode]
+                .localVariableIndex);
+    }
+
+    /**
+     * Assemble a field or method instruction directly.
+     * 
+     * @param opcode
+     *            the opcode.
+     * @param stackUnits
+     *            the change in stack depth.
+     * @param index
+     *            constant pool index of the member.
+     * @param argumentCount
+     *            argument count operand of INVOKEINTERFACE.
+     */
+
+    private void assembleMember(int opcode, int stackUnits, int index,
+            int argumentCount) {
+        mAssembler.opcode(opcode, stackUnits, IRRELEVANT);
+        mAssembler.operand(index, 2);
+        if (opcode == INVOKEINTERFACE) {
+            mAssembler.operand(argumentCount, 1);
+            mAssembler.operand(0, 1);
+        } else if (opcode == INVOKEDYNAMIC) {
+            mAssembler.operand(0, 2);
+        }
+        mPC = mAssembler.size();
+    }
+
+    /**
+     * Return the id by which the assembler knows the specified label, which
+     * must have been created with createLabel().
+     * 
+     * @param label
+     *            the label.
+     * @return its id.
+     */
+
+    private int labelId(String label) {
+        if (label != null && label.startsWith("Label")) {
+            try {
+                int id = Integer.parseInt(label.substring(5));
+                if (id >= 0) {
+                    return id;
+                }
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+        }
+        reportEmitterError("%s: '%s' was not created by createLabel()",
+                eCurrentMethod, label);
+        return 0;
+    }
+
     /**
      * Add a field.
      * 
@@ -591,65 +792,109 @@ public class CLEmitter {
     }
 
     /**
-     * Return the instruction with the specified pc within the code array of the
-     * current method being added.
+     * Return an array that maps each pc in the code array of the current method
+     * being added to the index of the instruction at that pc, or to -1 if no
+     * instruction starts there.
      * 
-     * @param pc
-     *            pc of the instruction.
-     * @return the instruction with the specified pc, or null.
+     * @return the pc to instruction index mapping.
      */
 
-    private CLInstruction instruction(int pc) {
+    private int[] instructionIndexes() {
+        int[] indexes = new int[mPC + 1];
+        Arrays.fill(indexes, -1);
         for (int j = 0; j < mCode.size(); j++) {
-            CLInstruction i = mCode.get(j);
-            if (i.pc() == pc) {
-                return i;
-            }
+            indexes[mCode.get(j).pc()] = j;
         }
-        return null;
+        return indexes;
     }
 
     /**
-     * Return the index of the instruction with the specified pc, within the
-     * code array of the current method being added.
+     * Return the index of the instruction at the specified pc, or -1 if there
+     * is none.
      * 
+     * @param indexes
+     *            the pc to instruction index mapping.
      * @param pc
      *            pc of the instruction.
-     * @return index of the instruction with the specified pc.
+     * @return index of the instruction or -1.
      */
 
-    private int instructionIndex(int pc) {
-        int j = 0;
-        for (; j < mCode.size(); j++) {
-            CLInstruction i = mCode.get(j);
-            if (i.pc() == pc) {
-                return j;
-            }
+    private static int instructionIndex(int[] indexes, int pc) {
+        return pc < 0 || pc >= indexes.length ? -1 : indexes[pc];
+    }
+
+    /**
+     * Report an error if the instruction at the specified index, which has
+     * been reached before with the recorded stack depth, is now reached with
+     * a different one.
+     * 
+     * @param branchTargets
+     *            instructions reached so far.
+     * @param index
+     *            index of the instruction.
+     * @param stackDepth
+     *            depth of stack before the instruction is executed.
+     */
+
+    private void checkStackDepth(CLBranchStack branchTargets, int index,
+            int stackDepth) {
+        if (branchTargets.stackDepth(index) != stackDepth) {
+            reportEmitterError("%s: Stack depth %d at pc %d, which is also "
+                    + "reached with stack depth %d", eCurrentMethod,
+                    stackDepth, mCode.get(index).pc(), branchTargets
+                            .stackDepth(index));
+        }
+    }
+
+    /**
+     * Push the instruction at the specified index as a branch target reached
+     * with the specified stack depth, unless it was reached before, in which
+     * case the stack depths must agree.
+     * 
+     * @param branchTargets
+     *            instructions reached so far.
+     * @param index
+     *            index of the target instruction, or -1 if there is none.
+     * @param stackDepth
+     *            depth of stack before the target instruction is executed.
+     */
+
+    private void branchTo(CLBranchStack branchTargets, int index,
+            int stackDepth) {
+        if (index == -1) {
+            return;
+        }
+        if (branchTargets.isVisited(index)) {
+            checkStackDepth(branchTargets, index, stackDepth);
+        } else {
+            branchTargets.push(index, stackDepth);
         }
-        return j;
     }
 
     /**
      * Compute the maximum depth of the operand stack for the method last added,
-     * and return the value.
+     * and return the value. Every instruction is walked at most once: a walk
+     * stops at an instruction that was reached before, whether by falling
+     * through or by a branch.
      * 
      * @return maximum depth of operand stack.
      */
 
     private int stackDepth() {
-        CLBranchStack branchTargets = new CLBranchStack();
+        int[] indexes = instructionIndexes();
+        CLBranchStack branchTargets = new CLBranchStack(mCode.size());
         for (int i = 0; i < mExceptionHandlers.size(); i++) {
             CLException e = mExceptionHandlers.get(i);
-            CLInstruction h = instruction(e.handlerPC);
-            if (h != null) {
-                // 1 because the exception that is thrown is
-                // pushed
-                // on top of the operand stack
-                branchTargets.push(h, 1);
-            }
+            // 1 because the exception that is thrown is
+            // pushed
+            // on top of the operand stack
+            branchTo(branchTargets, instructionIndex(indexes, e.handlerPC), 1);
         }
         int stackDepth = 0, maxStackDepth = 0, c = 0;
         CLInstruction instr = (mCode.size() == 0) ? null : mCode.get(c);
+        if (instr != null) {
+            branchTargets.visit(c, stackDepth);
+        }
         while (instr != null) {
             int opcode = instr.opcode();
             int stackUnits = instr.stackUnits();
@@ -672,21 +917,27 @@ public class CLEmitter {
             if (instr instanceof CLFlowControlInstruction) {
                 CLFlowControlInstruction b = (CLFlowControlInstruction) instr;
                 int jumpToIndex = b.pc() + b.jumpToOffset();
-                CLInstruction instrAt = null;
+                int indexAt = -1;
                 switch (opcode) {
                 case JSR:
                 case JSR_W:
                 case RET:
                     instr = null;
                     break;
+                case TABLESWITCH:
+                case LOOKUPSWITCH:
+                    for (int offset : b.switchOffsets()) {
+                        indexAt = instructionIndex(indexes, b.pc() + offset);
+                        branchTo(branchTargets, indexAt, stackDepth);
+                    }
+                    instr = null;
+                    break;
                 case GOTO:
                 case GOTO_W:
                     instr = null;
                 default:
-                    instrAt = instruction(jumpToIndex);
-                    if (instrAt != null) {
-                        branchTargets.push(instrAt, stackDepth);
-                    }
+                    indexAt = instructionIndex(indexes, jumpToIndex);
+                    branchTo(branchTargets, indexAt, stackDepth);
                 }
             } else {
                 if ((opcode == ATHROW)
@@ -697,13 +948,21 @@ public class CLEmitter {
             if (instr != null) {
                 c++;
                 instr = (c >= mCode.size()) ? null : mCode.get(c);
+                if (instr != null && branchTargets.isVisited(c)) {
+                    // Fell through into code that is already walked, or
+                    // that is pushed to be
+                    checkStackDepth(branchTargets, c, stackDepth);
+                    instr = null;
+                } else if (instr != null) {
+                    branchTargets.visit(c, stackDepth);
+                }
             }
             if (instr == null) {
                 CLBranchTarget bt = branchTargets.pop();
                 if (bt != null) {
-                    instr = bt.target;
+                    c = bt.target;
+                    instr = mCode.get(c);
                     stackDepth = bt.stackDepth;
-                    c = instructionIndex(instr.pc());
                 }
             }
         }
@@ -721,6 +980,13 @@ public class CLEmitter {
      */
 
     private void ldcInstruction(int index) {
+        if (mAssembler != null) {
+            assemble(index <= 255 ? LDC : LDC_W);
+            mAssembler.operand(index, index <= 255 ? 1 : 2);
+            mPC = mAssembler.size();
+            mInstructionAfterLabel = true;
+            return;
+        }
         CLLoadStoreInstruction instr = null;
         if (index <= 255) {
             instr = new CLLoadStoreInstruction(LDC, mPC++, index);
@@ -742,6 +1008,13 @@ public class CLEmitter {
      */
 
     private void ldc2wInstruction(int index) {
+        if (mAssembler != null) {
+            assemble(LDC2_W);
+            mAssembler.operand(index, 2);
+            mPC = mAssembler.size();
+            mInstructionAfterLabel = true;
+            return;
+        }
         CLLoadStoreInstruction instr = new CLLoadStoreInstruction(LDC2_W,
                 mPC++, index);
         mPC += instr.operandCount();
@@ -766,13 +1039,12 @@ public class CLEmitter {
     }
 
     /**
-     * Construct and return a Code attribute given the list of bytes that make
+     * Construct and return a Code attribute given the bytes that make
      * up the instructions and their operands, exception table, maximum depth of
      * operand stack, and maximum number of local variables.
      * 
      * @param byteCode
-     *            list of bytes that make up the instructions and their
-     *            operands.
+     *            bytes that make up the instructions and their operands.
      * @param exceptionTable
      *            exception table.
      * @param stackDepth
@@ -782,10 +1054,10 @@ public class CLEmitter {
      * @return a Code attribute.
      */
 
-    private CLCodeAttribute codeAttribute(ArrayList<Integer> byteCode,
+    private CLCodeAttribute codeAttribute(byte[] byteCode,
             ArrayList<CLExceptionInfo> exceptionTable, int stackDepth,
             int maxLocals) {
-        int codeLength = byteCode.size();
+        int codeLength = byteCode.length;
         int attributeNameIndex = constantPool.constantUtf8Info(ATT_CODE);
         int attributeLength = codeLength + 8 * exceptionTable.size() + 12;
         for (int i = 0; i < mCodeAttributes.size(); i++) {
@@ -896,6 +1168,8 @@ public class CLEmitter {
 
     public CLEmitter(boolean toFile) {
         destDir = ".";
+        majorVersion = MAJOR_VERSION;
+        isOptimized = true;
         this.toFile = toFile;
     }
 
@@ -910,6 +1184,115 @@ public class CLEmitter {
         this.destDir = destDir;
     }
 
+    /**
+     * Write the class files into the specified jar, rather than into the
+     * destination directory.
+     * 
+     * @param jar
+     *            the jar.
+     */
+
+    public void destinationJar(CLJarWriter jar) {
+        this.jar = jar;
+    }
+
+    /**
+     * Hand the class files to the specified background writer, rather than
+     * write them before write() returns.
+     * 
+     * @param writer
+     *            the writer.
+     */
+
+    public void classWriter(CLClassWriter writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Set the splitter of the over-long methods of the class being added; a
+     * new class has none.
+     * 
+     * @param splitter
+     *            the splitter.
+     */
+
+    public void methodSplitter(MethodSplitter splitter) {
+        this.splitter = splitter;
+    }
+
+    /**
+     * Return the splitter of the over-long methods of the class being added.
+     * 
+     * @return the splitter, or null if the class has none.
+     */
+
+    public MethodSplitter methodSplitter() {
+        return splitter;
+    }
+
+    /**
+     * Set the major version of the class files emitted to the specified value;
+     * it is MAJOR_VERSION by default. Methods in class files of version
+     * STACK_MAP_MAJOR_VERSION or later carry a StackMapTable attribute.
+     * 
+     * @param majorVersion
+     *            major version number.
+     */
+
+    public void majorVersion(int majorVersion) {
+        this.majorVersion = majorVersion;
+    }
+
+    /**
+     * Set whether the code of each method is run through the peephole
+     * optimizer (see CLPeepholeOptimizer); it is by default.
+     * 
+     * @param isOptimized
+     *            whether to optimize.
+     */
+
+    public void peepholeOptimization(boolean isOptimized) {
+        this.isOptimized = isOptimized;
+    }
+
+    /**
+     * Set whether the code of each method is assembled as it is added (see
+     * CLAssembler), rather than kept as a list of instructions that is
+     * optimized and assembled when the method is complete; it is not by
+     * default. Only class files older than STACK_MAP_MAJOR_VERSION, which
+     * need no stack map frames, are assembled directly.
+     * 
+     * @param isDirect
+     *            whether to assemble methods directly.
+     */
+
+    public void directAssembly(boolean isDirect) {
+        this.isDirect = isDirect;
+    }
+
+    /**
+     * Set whether string concatenation is compiled to a single invokedynamic
+     * call to StringConcatFactory.makeConcatWithConstants, rather than to a
+     * StringBuilder chain; it is not by default.
+     * 
+     * @param isIndyConcatenation
+     *            whether to use invokedynamic.
+     */
+
+    public void invokeDynamicConcatenation(boolean isIndyConcatenation) {
+        this.isIndyConcatenation = isIndyConcatenation;
+    }
+
+    /**
+     * Return whether string concatenation is compiled to invokedynamic.
+     * 
+     * @return true or false.
+     */
+
+    public boolean invokeDynamicConcatenation() {
+        return isIndyConcatenation;
+    }
+
     /**
      * Has an emitter error occurred up to now?
      * 
@@ -949,9 +1332,11 @@ public class CLEmitter {
         methods = new ArrayList<CLMethodInfo>();
         attributes = new ArrayList<CLAttributeInfo>();
         innerClasses = new ArrayList<CLInnerClassInfo>();
+        bootstrapMethods = null;
+        splitter = null;
         errorHasOccurred = false;
         clFile.magic = MAGIC;
-        clFile.majorVersion = MAJOR_VERSION;
+        clFile.majorVersion = majorVersion;
         clFile.minorVersion = MINOR_VERSION;
         if (!validInternalForm(thisClass)) {
             reportEmitterError("'%s' is not in internal form", thisClass);
@@ -966,6 +1351,7 @@ public class CLEmitter {
             }
         }
         name = thisClass;
+        superClassName = superClass;
         clFile.thisClass = constantPool.constantClassInfo(thisClass);
         clFile.superClass = constantPool.constantClassInfo(superClass);
         for (int i = 0; superInterfaces != null && i < superInterfaces.size(); i++) {
@@ -1168,6 +1554,10 @@ public class CLEmitter {
         }
         mArgumentCount = argumentCount(descriptor)
                 + (accessFlags.contains("static") ? 0 : 1);
+        if (isDirect && clFile.majorVersion < STACK_MAP_MAJOR_VERSION) {
+            // No pass needs the instructions; assemble them directly
+            mAssembler = new CLAssembler();
+        }
         mNameIndex = constantPool.constantUtf8Info(name);
         mDescriptorIndex = constantPool.constantUtf8Info(descriptor);
         if (exceptions != null && exceptions.size() > 0) {
@@ -1206,6 +1596,9 @@ public class CLEmitter {
         CLException e = new CLException(startLabel, endLabel, handlerLabel,
                 catchType);
         mExceptionHandlers.add(e);
+        if (mAssembler != null) {
+            mAssembler.handler(labelId(handlerLabel));
+        }
     }
 
     /**
@@ -1297,6 +1690,26 @@ public class CLEmitter {
      */
 
     public void addNoArgInstruction(int opcode) {
+        if (mAssembler != null) {
+            switch (CLInstruction.instructionInfo[opcode].category) {
+            case ARITHMETIC1:
+            case ARRAY2:
+            case BIT:
+            case COMPARISON:
+            case CONVERSION:
+            case LOAD_STORE1:
+            case METHOD2:
+            case MISC:
+            case STACK:
+                assemble(opcode);
+                mPC = mAssembler.size();
+                mInstructionAfterLabel = true;
+                break;
+            default:
+                reportOpcodeError(opcode);
+            }
+            return;
+        }
         CLInstruction instr = null;
         switch (CLInstruction.instructionInfo[opcode].category) {
         case ARITHMETIC1:
@@ -1368,6 +1781,34 @@ public class CLEmitter {
      */
 
     public void addOneArgInstruction(int opcode, int arg) {
+        if (mAssembler != null) {
+            switch (CLInstruction.instructionInfo[opcode].category) {
+            case LOAD_STORE2:
+            case FLOW_CONTROL2:
+                int width = arg > 255 ? 2 : 1;
+                if (width == 2) {
+                    assemble(WIDE);
+                }
+                opcode = CLInstruction.instructionInfo[opcode].category
+                        == LOAD_STORE2 ? opcode : RET;
+                mAssembler.opcode(opcode,
+                        CLInstruction.instructionInfo[opcode].stackUnits,
+                        opcode == RET ? IRRELEVANT : arg);
+                mAssembler.operand(arg, width);
+                break;
+            case LOAD_STORE3:
+                assemble(opcode);
+                mAssembler.operand(arg,
+                        CLInstruction.instructionInfo[opcode].operandCount);
+                break;
+            default:
+                reportOpcodeError(opcode);
+                return;
+            }
+            mPC = mAssembler.size();
+            mInstructionAfterLabel = true;
+            return;
+        }
         CLInstruction instr = null;
         boolean isWidened = false;
         switch (CLInstruction.instructionInfo[opcode].category) {
@@ -1416,6 +1857,18 @@ public class CLEmitter {
     public void addIINCInstruction(int index, int constVal) {
         boolean isWidened = index > 255 || constVal < Byte.MIN_VALUE
                 || constVal > Byte.MAX_VALUE;
+        if (mAssembler != null) {
+            if (isWidened) {
+                assemble(WIDE);
+            }
+            mAssembler.opcode(IINC, CLInstruction.instructionInfo[IINC]
+                    .stackUnits, index);
+            mAssembler.operand(index, isWidened ? 2 : 1);
+            mAssembler.operand(constVal, isWidened ? 2 : 1);
+            mPC = mAssembler.size();
+            mInstructionAfterLabel = true;
+            return;
+        }
         if (isWidened) {
             CLLoadStoreInstruction wideInstr = new CLLoadStoreInstruction(WIDE,
                     mPC++);
@@ -1443,10 +1896,11 @@ public class CLEmitter {
      * Method Instructions:
      * 
      * <pre>
-     *   INVOKEVIRTUAL, INVOKESPECIAL, INVOKESTATIC, INVOKEINTERFACE, 
-     *   INVOKEDYNAMIC
+     *   INVOKEVIRTUAL, INVOKESPECIAL, INVOKESTATIC, INVOKEINTERFACE
      * </pre>
      * 
+     * INVOKEDYNAMIC instructions are added using addInvokeDynamicInstruction().
+     * 
      * The opcodes for instructions are defined in CLConstants class.
      * 
      * @param opcode
@@ -1477,14 +1931,28 @@ public class CLEmitter {
             }
             index = constantPool.constantFieldRefInfo(target, name, type);
             stackUnits = typeStackResidue(type);
+            if (opcode == PUTSTATIC || opcode == PUTFIELD) {
+                // The value is consumed from the operand stack,
+                // not pushed
+                stackUnits = -stackUnits;
+            }
             if ((opcode == GETFIELD) || (opcode == PUTFIELD)) {
                 // This is because target of this method is also
                 // consumed from the operand stack
                 stackUnits--;
             }
+            if (mAssembler != null) {
+                assembleMember(opcode, stackUnits, index, 0);
+                return;
+            }
             instr = new CLFieldInstruction(opcode, mPC++, index, stackUnits);
             break;
         case METHOD1:
+            if (opcode == INVOKEDYNAMIC) {
+                reportEmitterError("%s: use addInvokeDynamicInstruction() "
+                        + "for invokedynamic", eCurrentMethod);
+                break;
+            }
             if (!validMethodDescriptor(type)) {
                 reportEmitterError(
                         "%s: '%s' is not a valid type descriptor for "
@@ -1502,6 +1970,13 @@ public class CLEmitter {
                 // consumed from the operand stack
                 stackUnits--;
             }
+            if (mAssembler != null) {
+                // We add 1 to account for "this"
+                assembleMember(opcode, stackUnits, index,
+                        opcode == INVOKEINTERFACE ? argumentCount(type) + 1
+                                : 0);
+                return;
+            }
             instr = new CLMethodInstruction(opcode, mPC++, index, stackUnits);
 
             // INVOKEINTERFACE expects the number of arguments in
@@ -1521,6 +1996,84 @@ public class CLEmitter {
         }
     }
 
+    /**
+     * Add an INVOKEDYNAMIC instruction. The call site is linked at run time by
+     * the specified bootstrap method, which must be a static method taking a
+     * MethodHandles.Lookup, the call site name and its MethodType, followed by
+     * the (string) static arguments. Adding the first such instruction to a
+     * class adds a BootstrapMethods attribute to it and raises its major
+     * version to INVOKEDYNAMIC_MAJOR_VERSION; that is an error in a class file
+     * whose methods carry no StackMapTable, since the methods already added
+     * would lack the frames the new version requires.
+     * 
+     * @param bootstrapClass
+     *            fully qualified name in internal form of the class defining
+     *            the bootstrap method.
+     * @param bootstrapName
+     *            name of the bootstrap method.
+     * @param bootstrapType
+     *            type descriptor of the bootstrap method.
+     * @param bootstrapArguments
+     *            static (string) arguments to the bootstrap method.
+     * @param name
+     *            name of the dynamic call site.
+     * @param type
+     *            type descriptor of the dynamic call site.
+     */
+
+    public void addInvokeDynamicInstruction(String bootstrapClass,
+            String bootstrapName, String bootstrapType,
+            ArrayList<String> bootstrapArguments, String name, String type) {
+        if (!validInternalForm(bootstrapClass)) {
+            reportEmitterError("%s: '%s' is not in internal form",
+                    eCurrentMethod, bootstrapClass);
+        }
+        if (!validMethodDescriptor(bootstrapType)
+                || !validMethodDescriptor(type)) {
+            reportEmitterError("%s: '%s' is not a valid type descriptor for "
+                    + "method", eCurrentMethod,
+                    validMethodDescriptor(type) ? bootstrapType : type);
+        }
+        if (clFile.majorVersion < STACK_MAP_MAJOR_VERSION) {
+            reportEmitterError("%s: invokedynamic needs class file version "
+                    + "%d or later", eCurrentMethod,
+                    INVOKEDYNAMIC_MAJOR_VERSION);
+        }
+        if (bootstrapMethods == null) {
+            bootstrapMethods = new CLBootstrapMethodsAttribute(constantPool
+                    .constantUtf8Info(ATT_BOOTSTRAP_METHODS), 2, 0,
+                    new ArrayList<CLBootstrapMethodInfo>());
+            addClassAttribute(bootstrapMethods);
+            if (clFile.majorVersion < INVOKEDYNAMIC_MAJOR_VERSION) {
+                clFile.majorVersion = INVOKEDYNAMIC_MAJOR_VERSION;
+            }
+        }
+        ArrayList<Integer> arguments = new ArrayList<Integer>();
+        for (String argument : bootstrapArguments) {
+            arguments.add(constantPool.constantStringInfo(argument));
+        }
+        int bootstrapMethodRef = constantPool.constantMethodHandleInfo(
+                REF_invokeStatic, bootstrapClass, bootstrapName, bootstrapType);
+        int bootstrapIndex = bootstrapMethods
+                .findOrAdd(new CLBootstrapMethodInfo(bootstrapMethodRef,
+                        arguments.size(), arguments));
+        int index = constantPool.constantInvokeDynamicInfo(bootstrapIndex,
+                name, type);
+
+        // There is no receiver; the dynamic arguments are all that
+        // is consumed from the operand stack
+        if (mAssembler != null) {
+            assembleMember(INVOKEDYNAMIC, methodStackResidue(type), index, 0);
+            mInstructionAfterLabel = true;
+            return;
+        }
+        CLInstruction instr = new CLMethodInstruction(INVOKEDYNAMIC, mPC++,
+                index, methodStackResidue(type));
+        mPC += instr.operandCount();
+        mCode.add(instr);
+        mInstructionAfterLabel = true;
+    }
+
     /**
      * Add a reference (object) instruction. Following instructions can be added
      * using this method:
@@ -1546,6 +2099,12 @@ public class CLEmitter {
         switch (CLInstruction.instructionInfo[opcode].category) {
         case OBJECT:
             int index = constantPool.constantClassInfo(type);
+            if (mAssembler != null) {
+                assemble(opcode);
+                mAssembler.operand(index, 2);
+                mPC = mAssembler.size();
+                return;
+            }
             instr = new CLObjectInstruction(opcode, mPC++, index);
             break;
         default:
@@ -1612,6 +2171,13 @@ public class CLEmitter {
                 }
                 index = constantPool.constantClassInfo(type);
             }
+            if (mAssembler != null) {
+                assemble(opcode);
+                mAssembler.operand(index,
+                        CLInstruction.instructionInfo[opcode].operandCount);
+                mPC = mAssembler.size();
+                return;
+            }
             instr = new CLArrayInstruction(opcode, mPC++, index);
             break;
         default:
@@ -1640,6 +2206,13 @@ public class CLEmitter {
                     eCurrentMethod, type);
         }
         int index = constantPool.constantClassInfo(type);
+        if (mAssembler != null) {
+            assemble(MULTIANEWARRAY);
+            mAssembler.operand(index, 2);
+            mAssembler.operand(dim, 1);
+            mPC = mAssembler.size();
+            return;
+        }
         instr = new CLArrayInstruction(MULTIANEWARRAY, mPC++, index, dim);
         if (instr != null) {
             mPC += instr.operandCount();
@@ -1669,6 +2242,12 @@ public class CLEmitter {
         CLInstruction instr = null;
         switch (CLInstruction.instructionInfo[opcode].category) {
         case FLOW_CONTROL1:
+            if (mAssembler != null) {
+                mAssembler.branch(opcode, labelId(label));
+                mPC = mAssembler.size();
+                mInstructionAfterLabel = true;
+                return;
+            }
             instr = new CLFlowControlInstruction(opcode, mPC++, label);
             break;
         default:
@@ -1697,6 +2276,16 @@ public class CLEmitter {
 
     public void addTABLESWITCHInstruction(String defaultLabel, int low,
             int high, ArrayList<String> labels) {
+        if (mAssembler != null) {
+            int[] ids = new int[labels.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = labelId(labels.get(i));
+            }
+            mAssembler.tableSwitch(labelId(defaultLabel), low, high, ids);
+            mPC = mAssembler.size();
+            mInstructionAfterLabel = true;
+            return;
+        }
         CLFlowControlInstruction instr = new CLFlowControlInstruction(
                 TABLESWITCH, mPC++, defaultLabel, low, high, labels);
         mPC += instr.operandCount();
@@ -1717,6 +2306,19 @@ public class CLEmitter {
 
     public void addLOOKUPSWITCHInstruction(String defaultLabel, int numPairs,
             TreeMap<Integer, String> matchLabelPairs) {
+        if (mAssembler != null) {
+            int[] matches = new int[numPairs];
+            int[] ids = new int[numPairs];
+            int i = 0;
+            for (Map.Entry<Integer, String> pair : matchLabelPairs.entrySet()) {
+                matches[i] = pair.getKey();
+                ids[i++] = labelId(pair.getValue());
+            }
+            mAssembler.lookupSwitch(labelId(defaultLabel), matches, ids);
+            mPC = mAssembler.size();
+            mInstructionAfterLabel = true;
+            return;
+        }
         CLFlowControlInstruction instr = new CLFlowControlInstruction(
                 LOOKUPSWITCH, mPC++, defaultLabel, numPairs, matchLabelPairs);
         mPC += instr.operandCount();
@@ -1844,7 +2446,11 @@ public class CLEmitter {
      */
 
     public void addLabel(String label) {
-        mLabels.put(label, mPC);
+        if (mAssembler != null) {
+            mAssembler.label(labelId(label));
+        } else {
+            mLabels.put(label, mPC);
+        }
         mInstructionAfterLabel = false;
     }
 
@@ -1869,6 +2475,75 @@ public class CLEmitter {
         return mPC;
     }
 
+    /**
+     * Return the instructions of the method being added that lie between the
+     * specified pcs.
+     * 
+     * @param startPC
+     *            pc of the first instruction.
+     * @param endPC
+     *            pc past the last instruction.
+     * @return the instructions from startPC up to endPC, or null if the
+     *         method is assembled directly and they are not kept.
+     */
+
+    public ArrayList<CLInstruction> instructions(int startPC, int endPC) {
+        if (mAssembler != null) {
+            return null;
+        }
+        ArrayList<CLInstruction> instructions = new ArrayList<CLInstruction>();
+        for (CLInstruction instr : mCode) {
+            if (instr.pc() >= endPC) {
+                // The instructions are in pc order
+                break;
+            } else if (startPC <= instr.pc()) {
+                instructions.add(instr);
+            }
+        }
+        return instructions;
+    }
+
+    /**
+     * Discard the instructions, and the labels and exception handlers that
+     * follow them, added to the method being added at or after the specified
+     * pc, so that code may be generated again from that pc.
+     * 
+     * @param pc
+     *            pc to rewind to.
+     */
+
+    public void rewind(int pc) {
+        if (mAssembler != null) {
+            mAssembler.rewind(pc);
+            for (int i = mExceptionHandlers.size() - 1; i >= 0; i--) {
+                int startPC = mAssembler.labelPC(labelId(mExceptionHandlers
+                        .get(i).startLabel));
+                if (startPC < 0 || startPC >= pc) {
+                    mExceptionHandlers.remove(i);
+                }
+            }
+            mPC = pc;
+            mInstructionAfterLabel = pc > 0 && !mAssembler.hasLabelAt(pc);
+            return;
+        }
+        while (!mCode.isEmpty() && mCode.get(mCode.size() - 1).pc() >= pc) {
+            mCode.remove(mCode.size() - 1);
+        }
+        for (String label : new ArrayList<String>(mLabels.keySet())) {
+            if (mLabels.get(label) > pc) {
+                mLabels.remove(label);
+            }
+        }
+        for (int i = mExceptionHandlers.size() - 1; i >= 0; i--) {
+            Integer startPC = mLabels.get(mExceptionHandlers.get(i).startLabel);
+            if (startPC == null || startPC >= pc) {
+                mExceptionHandlers.remove(i);
+            }
+        }
+        mPC = pc;
+        mInstructionAfterLabel = pc > 0 && !mLabels.containsValue(pc);
+    }
+
     /**
      * Return the constant pool of the class being built.
      * 
@@ -1887,6 +2562,21 @@ public class CLEmitter {
         byteClassLoader = new ByteClassLoader();
     }
 
+    /**
+     * Return the Java Class instance for the class with the specified name,
+     * either loaded from a byte stream or found on the class path, or null if
+     * there is none.
+     * 
+     * @param name
+     *            fully qualified name of the class in internal form.
+     * @return Java Class instance or null.
+     */
+
+    public static Class<?> lookupClass(String name) {
+        return byteClassLoader == null ? null : byteClassLoader
+                .lookupClass(name.replace("/", "."));
+    }
+
     /**
      * Return the CLFile instance corresponding to the class built by this
      * emitter.
@@ -1905,19 +2595,9 @@ public class CLEmitter {
         endOpenMethodIfAny();
         Class theClass = null;
         try {
-            // Extract the bytes from the class representation in
-            // memory into an array of bytes
-            ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-            CLOutputStream out = new CLOutputStream(new BufferedOutputStream(
-                    byteStream));
-            clFile.write(out);
-            out.close();
-            byte[] classBytes = byteStream.toByteArray();
-            byteStream.close();
-
-            // Load a Java Class instance from its byte
-            // representation
-            byteClassLoader.setClassBytes(classBytes);
+            // Load a Java Class instance straight from the buffer the
+            // class is serialized into
+            byteClassLoader.addClassBytes(name, clFile.toByteBuffer());
             theClass = byteClassLoader.loadClass(name, true);
         } catch (IOException e) {
             reportEmitterError("Cannot write class to byte stream");
@@ -1930,7 +2610,10 @@ public class CLEmitter {
     /**
      * Write out the class to the file system as a .class file if toFile is
      * true. The destination directory for the file can be set using the
-     * destinationDir(String dir) method.
+     * destinationDir(String dir) method, or a jar to add the file to using the
+     * destinationJar(CLJarWriter jar) method. If a background writer is set
+     * using the classWriter(CLClassWriter writer) method, the class is handed
+     * to it, and written (and any error reported) later.
      */
 
     public void write() {
@@ -1938,19 +2621,14 @@ public class CLEmitter {
         if (!toFile) {
             return;
         }
-        String outFile = destDir + File.separator + name + ".class";
-        try {
-            File file = new File(destDir + File.separator
-                    + name.substring(0, name.lastIndexOf("/") + 1));
-            file.mkdirs();
-            CLOutputStream out = new CLOutputStream(new BufferedOutputStream(
-                    new FileOutputStream(outFile)));
-            clFile.write(out);
-            out.close();
-        } catch (FileNotFoundException e) {
-            reportEmitterError("File %s not found", outFile);
-        } catch (IOException e) {
-            reportEmitterError("Cannot write to file %s", outFile);
+        CLClassOutput output = new CLClassOutput(clFile, name, destDir, jar);
+        if (writer != null) {
+            writer.put(output);
+            return;
+        }
+        String error = output.write();
+        if (error != null) {
+            reportEmitterError("%s", error);
         }
     }
 }
@@ -2062,8 +2740,8 @@ class CLException {
 
 class CLBranchTarget {
 
-    /** Target instruction. */
-    public CLInstruction target;
+    /** Index of the target instruction within the code array. */
+    public int target;
 
     /** Depth of stack before the target instruction is executed. */
     public int stackDepth;
@@ -2072,12 +2750,12 @@ class CLBranchTarget {
      * Construct a CLBranchTarget object.
      * 
      * @param target
-     *            the target instruction.
+     *            index of the target instruction within the code array.
      * @param stackDepth
      *            depth of stack before the target instruction is executed.
      */
 
-    public CLBranchTarget(CLInstruction target, int stackDepth) {
+    public CLBranchTarget(int target, int stackDepth) {
         this.target = target;
         this.stackDepth = stackDepth;
     }
@@ -2086,72 +2764,94 @@ class CLBranchTarget {
 
 /**
  * This class is used for control flow analysis to compute maximum depth of
- * operand stack for a method.
+ * operand stack for a method. It records every instruction reached, by
+ * falling through or by a branch, with the depth of the stack before it.
+ * Each instruction is pushed at most once and walked at most once, so the
+ * analysis is linear in the size of the method.
  */
 
 class CLBranchStack {
 
     /** Branch targets yet to visit. */
-    private Stack<CLBranchTarget> branchTargets;
+    private ArrayList<CLBranchTarget> branchTargets;
+
+    /** Indexes of the instructions reached so far. */
+    private BitSet visited;
 
-    /** Branch targets already visited. */
-    private Hashtable<CLInstruction, CLBranchTarget> visitedTargets;
+    /** Depth of stack before each instruction reached, by index. */
+    private int[] stackDepths;
 
     /**
-     * Return an instance of CLBranchTarget with the specified information and
-     * record the target as visited.
+     * Construct a CLBranchStack object for a method with the specified number
+     * of instructions.
      * 
-     * @param target
-     *            the target instruction.
-     * @param stackDepth
-     *            depth of stack before the target instruction is executed.
-     * @return an instance of CLBranchTarget.
+     * @param size
+     *            number of instructions in the method.
      */
 
-    private CLBranchTarget visit(CLInstruction target, int stackDepth) {
-        CLBranchTarget bt = new CLBranchTarget(target, stackDepth);
-        visitedTargets.put(target, bt);
-        return bt;
+    public CLBranchStack(int size) {
+        this.branchTargets = new ArrayList<CLBranchTarget>();
+        this.visited = new BitSet(size);
+        this.stackDepths = new int[size];
     }
 
     /**
-     * Return true if the specified instruction has been visited, false
-     * otherwise.
+     * Return true if the instruction at the specified index has been reached,
+     * false otherwise.
      * 
-     * @param target
-     *            the target instruction.
-     * @return true if the specified instruction has been visited, false
-     *         otherwise.
+     * @param index
+     *            index of the instruction within the code array.
+     * @return whether the instruction has been reached.
+     */
+
+    public boolean isVisited(int index) {
+        return visited.get(index);
+    }
+
+    /**
+     * Return the depth of stack before the instruction at the specified index,
+     * which has been reached, is executed.
+     * 
+     * @param index
+     *            index of the instruction within the code array.
+     * @return depth of stack before the instruction.
      */
 
-    private boolean visited(CLInstruction target) {
-        return (visitedTargets.get(target) != null);
+    public int stackDepth(int index) {
+        return stackDepths[index];
     }
 
     /**
-     * Construct a CLBranchStack object.
+     * Record that the instruction at the specified index is reached with the
+     * specified stack depth.
+     * 
+     * @param index
+     *            index of the instruction within the code array.
+     * @param stackDepth
+     *            depth of stack before the instruction is executed.
      */
 
-    public CLBranchStack() {
-        this.branchTargets = new Stack<CLBranchTarget>();
-        this.visitedTargets = new Hashtable<CLInstruction, CLBranchTarget>();
+    public void visit(int index, int stackDepth) {
+        visited.set(index);
+        stackDepths[index] = stackDepth;
     }
 
     /**
      * Push the specified information into the stack as a CLBranchTarget
-     * instance if the target has not been visited yet.
+     * instance if the target has not been reached yet.
      * 
      * @param target
-     *            the target instruction.
+     *            index of the target instruction within the code array.
      * @param stackDepth
      *            depth of stack before the target instruction is executed.
      */
 
-    public void push(CLInstruction target, int stackDepth) {
-        if (visited(target)) {
+    public void push(int target, int stackDepth) {
+        if (visited.get(target)) {
             return;
         }
-        branchTargets.push(visit(target, stackDepth));
+        visit(target, stackDepth);
+        branchTargets.add(new CLBranchTarget(target, stackDepth));
     }
 
     /**
@@ -2162,9 +2862,8 @@ class CLBranchStack {
      */
 
     public CLBranchTarget pop() {
-        if (!branchTargets.empty()) {
-            CLBranchTarget bt = (CLBranchTarget) branchTargets.pop();
-            return bt;
+        if (!branchTargets.isEmpty()) {
+            return branchTargets.remove(branchTargets.size() - 1);
         }
         return null;
     }
@@ -2172,82 +2871,173 @@ class CLBranchStack {
 }
 
 /**
- * A class loader to be able to load a class from a byte stream.
+ * A class loader to be able to load classes from byte streams. The bytes of
+ * each class are added by name, and the class is defined from them when it is
+ * first loaded, so that a set of classes that refer to each other can be
+ * loaded together. A class whose bytes were added is defined by this loader
+ * even if there is one by the same name on the class path.
  */
 
 class ByteClassLoader extends ClassLoader {
 
-    /** Bytes representing the class. */
-    private byte[] bytes;
+    /** Bytes representing the classes not defined yet, by name. */
+    private Hashtable<String, ByteBuffer> classBytes;
 
-    /** Has a package been defined for this class loader? */
-    private boolean pkgDefined = false;
+    /** Packages defined by this class loader, by name. */
+    private Hashtable<String, Package> packages;
 
     /**
-     * Set the bytes representing the class.
+     * Construct an empty ByteClassLoader.
+     */
+
+    public ByteClassLoader() {
+        classBytes = new Hashtable<String, ByteBuffer>();
+        packages = new Hashtable<String, Package>();
+    }
+
+    /**
+     * Add the bytes representing the class with the specified name.
      * 
+     * @param name
+     *            fully qualified (. or / separated) name of the class.
      * @param bytes
      *            bytes representing the class.
      */
 
-    public void setClassBytes(byte[] bytes) {
-        this.bytes = bytes;
+    public void addClassBytes(String name, ByteBuffer bytes) {
+        classBytes.put(name.replace("/", "."), bytes);
     }
 
     /**
-     * @inheritDoc
+     * Return the class with the specified name if it has been loaded from a
+     * byte stream or is found on the class path, without defining it; null
+     * otherwise.
+     * 
+     * @param name
+     *            fully qualified name of the class.
+     * @return the class or null.
      */
 
-    public Class<?> loadClass(String name, boolean resolve)
-            throws ClassNotFoundException {
-        Class cls = findLoadedClass(name);
+    public Class<?> lookupClass(String name) {
+        Class<?> cls = findLoadedClass(name);
         if (cls == null) {
             try {
                 cls = findSystemClass(name);
-            } catch (Exception e) {
-                // Ignore these
+            } catch (Throwable e) {
+                // Not known
             }
         }
+        return cls;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public synchronized Class<?> loadClass(String name, boolean resolve)
+            throws ClassNotFoundException {
+        name = name.replace("/", ".");
+        Class<?> cls = findLoadedClass(name);
+        if (cls == null && classBytes.containsKey(name)) {
+            cls = findClass(name);
+        }
         if (cls == null) {
-            name = name.replace("/", ".");
-            String pkg = name.lastIndexOf('.') == -1 ? "" : name.substring(0,
-                    name.lastIndexOf('.'));
-            if (!pkgDefined) {
-                // Packages must be created before the class is
-                // defined, and package names must be unique
-                // within
-                // a class loader and cannot be redefined or
-                // changed once created
-                definePackage(pkg, "", "", "", "", "", "", null);
-                pkgDefined = true;
-            }
-            cls = defineClass(name, bytes, 0, bytes.length);
-            if (resolve && cls != null) {
-                resolveClass(cls);
-            }
+            return super.loadClass(name, resolve);
+        }
+        if (resolve) {
+            resolveClass(cls);
         }
         return cls;
     }
 
+    /**
+     * @inheritDoc
+     */
+
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        ByteBuffer bytes = classBytes.remove(name);
+        if (bytes == null) {
+            throw new ClassNotFoundException(name);
+        }
+        String pkg = name.lastIndexOf('.') == -1 ? "" : name.substring(0, name
+                .lastIndexOf('.'));
+        if (!packages.containsKey(pkg)) {
+            // Packages must be created before the class is defined,
+            // and cannot be redefined or changed once created
+            packages.put(pkg, definePackage(pkg, "", "", "", "", "", "",
+                    null));
+        }
+        return defineClass(name, bytes, null);
+    }
+
 }
 
 /**
- * Inherits from java.out.DataOutputStream and provides an extra function for
- * writing unsigned int to the output stream, which is required for writing Java
- * class files.
+ * Writer of class files into a java.nio.ByteBuffer, with the methods of
+ * java.io.DataOutputStream that the CL classes use, plus one for writing an
+ * unsigned int, which is required for writing Java class files. The buffer is
+ * allocated once, with the exact size of the class file (see CLFile.size()),
+ * so that the class is serialized without intermediate copies, and goes to a
+ * file with a single channel write or to a class loader as is.
  */
 
-class CLOutputStream extends DataOutputStream {
+class CLOutputStream {
+
+    /** The buffer written into. */
+    private ByteBuffer buffer;
+
+    /**
+     * Construct a CLOutputStream writing into a new buffer of the specified
+     * size.
+     * 
+     * @param size
+     *            size of the buffer in bytes.
+     */
+
+    public CLOutputStream(int size) {
+        buffer = ByteBuffer.allocate(size);
+    }
+
+    /**
+     * Write the low eight bits of the argument.
+     * 
+     * @param v
+     *            the byte value to be written.
+     * @throws IOException
+     *             if the buffer is full.
+     */
+
+    public void writeByte(int v) throws IOException {
+        ensure(1);
+        buffer.put((byte) v);
+    }
+
+    /**
+     * Write the low sixteen bits of the argument, high byte first.
+     * 
+     * @param v
+     *            the short value to be written.
+     * @throws IOException
+     *             if the buffer is full.
+     */
+
+    public void writeShort(int v) throws IOException {
+        ensure(2);
+        buffer.putShort((short) v);
+    }
 
     /**
-     * Construct a CLOutputStream from the specified output stream.
+     * Write an int, high byte first.
      * 
-     * @param out
-     *            output stream.
+     * @param v
+     *            the int value to be written.
+     * @throws IOException
+     *             if the buffer is full.
      */
 
-    public CLOutputStream(OutputStream out) {
-        super(out);
+    public void writeInt(int v) throws IOException {
+        ensure(4);
+        buffer.putInt(v);
     }
 
     /**
@@ -2264,15 +3054,149 @@ class CLOutputStream extends DataOutputStream {
      * @param v
      *            the int value to be written.
      * @throws IOException
-     *             if an error occurs while writing.
+     *             if the buffer is full.
+     */
+
+    public void writeInt(long v) throws IOException {
+        writeInt((int) v);
+    }
+
+    /**
+     * Write a long, high byte first.
+     * 
+     * @param v
+     *            the long value to be written.
+     * @throws IOException
+     *             if the buffer is full.
+     */
+
+    public void writeLong(long v) throws IOException {
+        ensure(8);
+        buffer.putLong(v);
+    }
+
+    /**
+     * Write the bits of a float, as by Float.floatToIntBits().
+     * 
+     * @param v
+     *            the float value to be written.
+     * @throws IOException
+     *             if the buffer is full.
      */
 
-    public final void writeInt(long v) throws IOException {
-        long mask = 0xFF;
-        out.write((byte) (mask & (v >> 24)));
-        out.write((byte) (mask & (v >> 16)));
-        out.write((byte) (mask & (v >> 8)));
-        out.write((byte) (mask & v));
+    public void writeFloat(float v) throws IOException {
+        writeInt(Float.floatToIntBits(v));
+    }
+
+    /**
+     * Write the bits of a double, as by Double.doubleToLongBits().
+     * 
+     * @param v
+     *            the double value to be written.
+     * @throws IOException
+     *             if the buffer is full.
+     */
+
+    public void writeDouble(double v) throws IOException {
+        writeLong(Double.doubleToLongBits(v));
+    }
+
+    /**
+     * Write the specified bytes.
+     * 
+     * @param b
+     *            the bytes.
+     * @throws IOException
+     *             if the buffer is full.
+     */
+
+    public void write(byte[] b) throws IOException {
+        ensure(b.length);
+        buffer.put(b);
+    }
+
+    /**
+     * Write the specified number of bytes from the specified array, starting
+     * at the specified offset.
+     * 
+     * @param b
+     *            the bytes.
+     * @param off
+     *            offset of the first byte.
+     * @param len
+     *            number of bytes.
+     * @throws IOException
+     *             if the buffer is full.
+     */
+
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensure(len);
+        buffer.put(b, off, len);
+    }
+
+    /**
+     * Return the buffer written so far, flipped for reading.
+     * 
+     * @return the buffer.
+     */
+
+    public ByteBuffer buffer() {
+        ByteBuffer b = buffer.duplicate();
+        b.flip();
+        return b;
+    }
+
+    /**
+     * Return true if the buffer is exactly full; false otherwise.
+     * 
+     * @return whether the buffer is full.
+     */
+
+    public boolean isFull() {
+        return !buffer.hasRemaining();
+    }
+
+    /**
+     * Return the modified UTF-8 encoding of the specified string, the
+     * encoding of CONSTANT_Utf8_info (JVM Spec Section 4.4.7).
+     * 
+     * @param s
+     *            the string.
+     * @return its encoding.
+     */
+
+    public static byte[] utf(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            length += c >= 0x0001 && c <= 0x007F ? 1 : c <= 0x07FF ? 2 : 3;
+        }
+        byte[] b = new byte[length];
+        int j = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                b[j++] = (byte) c;
+            } else if (c <= 0x07FF) {
+                b[j++] = (byte) (0xC0 | (c >> 6));
+                b[j++] = (byte) (0x80 | (c & 0x3F));
+            } else {
+                b[j++] = (byte) (0xE0 | (c >> 12));
+                b[j++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                b[j++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return b;
+    }
+
+    /**
+     * Make sure that the specified number of bytes fit in the buffer.
+     */
+
+    private void ensure(int n) throws IOException {
+        if (buffer.remaining() < n) {
+            throw new IOException("Class file larger than its computed size");
+        }
     }
 
 }
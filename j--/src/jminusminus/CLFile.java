@@ -3,6 +3,7 @@
 package jminusminus;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import static jminusminus.CLConstants.*;
 
@@ -115,6 +116,68 @@ class CLFile {
         }
     }
 
+    /**
+     * Return the internal (/ separated) name of this class, as found in the
+     * constant pool.
+     * 
+     * @return name of the class.
+     */
+
+    public String name() {
+        CLConstantClassInfo c = (CLConstantClassInfo) constantPool
+                .cpItem(thisClass);
+        return new String(((CLConstantUtf8Info) constantPool
+                .cpItem(c.nameIndex)).b);
+    }
+
+    /**
+     * Serialize the class into a buffer of its exact size, and return the
+     * buffer, ready for reading.
+     * 
+     * @return the class file.
+     * @throws IOException
+     *             if the class does not serialize to its computed size.
+     */
+
+    public ByteBuffer toByteBuffer() throws IOException {
+        CLOutputStream out = new CLOutputStream(size());
+        write(out);
+        if (!out.isFull()) {
+            throw new IOException("Class file smaller than its computed size");
+        }
+        return out.buffer();
+    }
+
+    /**
+     * Return the exact number of bytes that write() writes, so that the class
+     * can be written into a buffer of that size.
+     * 
+     * @return size of the class file.
+     */
+
+    public int size() {
+        int size = 10 + constantPool.byteSize() + 8 + 2 * interfaces.size();
+        size += 2;
+        for (int i = 0; i < fields.size(); i++) {
+            if (fields.get(i) != null) {
+                size += fields.get(i).size();
+            }
+        }
+        size += 2;
+        for (int i = 0; i < methods.size(); i++) {
+            if (methods.get(i) != null) {
+                size += methods.get(i).size();
+            }
+        }
+        size += 2;
+        for (int i = 0; i < attributes.size(); i++) {
+            if (attributes.get(i) != null) {
+                size += 6 + (int) attributes.get(i).attributeLength;
+            }
+        }
+        return size;
+    }
+
     /**
      * Write the contents of the class file to STDOUT in a format similar to
      * that of javap.
@@ -0,0 +1,636 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package jminusminus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import static jminusminus.CLConstants.*;
+
+/**
+ * An index of the classes on a class path: for each class, its name, its
+ * super class and interfaces, and the names and descriptors of its fields and
+ * methods. The index is built in one pass over the whole class path, the
+ * directories and jars (or zips) of which are scanned in parallel on a
+ * fork-join pool, each class file being read by a lazy CLAbsorber that
+ * decodes nothing beyond the member headers. Looking a class up in the index
+ * then takes a hash table lookup, instead of a search through every entry of
+ * the class path, and the index can be saved to a file and loaded back.
+ *
+ * As with CLPath.loadClass(), a class found in more than one entry of the
+ * class path is taken from the first.
+ *
+ * The compiler itself does not consult the index, but looks classes up with
+ * CLPath; CLIndex is a standalone tool (see main()) for building, saving and
+ * querying indexes.
+ */
+
+public class CLIndex {
+
+    /** Identifies an index file ("JMXI"). */
+    private static final int MAGIC_NUMBER = 0x4A4D5849;
+
+    /** Version of the index file format. */
+    private static final int FORMAT_VERSION = 1;
+
+    /** Number of class files of a jar read by a single task. */
+    static final int JAR_CHUNK = 256;
+
+    /** Indexed classes, by internal (/ separated) name. */
+    private Hashtable<String, CLIndexEntry> entries;
+
+    /**
+     * Construct an empty CLIndex.
+     */
+
+    public CLIndex() {
+        entries = new Hashtable<String, CLIndexEntry>();
+    }
+
+    /**
+     * Construct the index of the classes on the specified class path, a list
+     * of directories and jars separated by the path separator; null stands
+     * for the class path of the VM.
+     *
+     * @param path
+     *            the class path.
+     */
+
+    public CLIndex(String path) {
+        this(new CLPath(path, null));
+    }
+
+    /**
+     * Construct the index of the classes on the specified class path.
+     *
+     * @param classPath
+     *            the class path.
+     */
+
+    public CLIndex(CLPath classPath) {
+        this();
+        ArrayList<CLIndexTask> tasks = new ArrayList<CLIndexTask>();
+        for (String dir : classPath.entries()) {
+            tasks.add(new CLIndexTask(new File(dir), ""));
+        }
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            for (CLIndexTask task : tasks) {
+                pool.execute(task);
+            }
+            // Merge in class path order, so that the first entry wins
+            for (CLIndexTask task : tasks) {
+                for (CLIndexEntry entry : task.join()) {
+                    if (!entries.containsKey(entry.name)) {
+                        entries.put(entry.name, entry);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Return the indexed class with the specified name, or null if there is
+     * none.
+     *
+     * @param name
+     *            internal (/ separated) name of the class.
+     * @return the class or null.
+     */
+
+    public CLIndexEntry lookup(String name) {
+        return entries.get(name);
+    }
+
+    /**
+     * Return the internal name of the super class of the specified class; ""
+     * if it has none, and null if it is not indexed.
+     *
+     * @param name
+     *            internal name of the class.
+     * @return name of the super class.
+     */
+
+    public String superName(String name) {
+        CLIndexEntry entry = entries.get(name);
+        return entry == null ? null : entry.superName;
+    }
+
+    /**
+     * Return true if the specified class is indexed and declares a member
+     * with the specified name and descriptor; false otherwise.
+     *
+     * @param className
+     *            internal name of the class.
+     * @param name
+     *            name of the member.
+     * @param descriptor
+     *            descriptor of the member.
+     * @return true or false.
+     */
+
+    public boolean hasMember(String className, String name, String descriptor) {
+        CLIndexEntry entry = entries.get(className);
+        return entry != null && entry.member(name, descriptor) >= 0;
+    }
+
+    /**
+     * Return the number of classes indexed.
+     *
+     * @return number of classes.
+     */
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Save the index to the specified file. Each distinct string (name or
+     * descriptor) is written once, and referred to by its position.
+     *
+     * @param fileName
+     *            name of the file.
+     * @throws IOException
+     *             if an error occurs while writing.
+     */
+
+    public void save(String fileName) throws IOException {
+        ArrayList<String> strings = new ArrayList<String>();
+        Hashtable<String, Integer> indexes = new Hashtable<String, Integer>();
+        for (CLIndexEntry entry : entries.values()) {
+            intern(entry.name, strings, indexes);
+            intern(entry.superName, strings, indexes);
+            for (String s : entry.interfaces) {
+                intern(s, strings, indexes);
+            }
+            for (int i = 0; i < entry.memberNames.length; i++) {
+                intern(entry.memberNames[i], strings, indexes);
+                intern(entry.memberDescriptors[i], strings, indexes);
+            }
+        }
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(fileName)));
+        try {
+            out.writeInt(MAGIC_NUMBER);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(strings.size());
+            for (String s : strings) {
+                out.writeUTF(s);
+            }
+            out.writeInt(entries.size());
+            for (CLIndexEntry entry : entries.values()) {
+                out.writeInt(indexes.get(entry.name));
+                out.writeShort(entry.accessFlags);
+                out.writeInt(indexes.get(entry.superName));
+                out.writeShort(entry.interfaces.length);
+                for (String s : entry.interfaces) {
+                    out.writeInt(indexes.get(s));
+                }
+                out.writeShort(entry.fieldsCount);
+                out.writeShort(entry.memberNames.length - entry.fieldsCount);
+                for (int i = 0; i < entry.memberNames.length; i++) {
+                    out.writeShort(entry.memberFlags[i]);
+                    out.writeInt(indexes.get(entry.memberNames[i]));
+                    out.writeInt(indexes.get(entry.memberDescriptors[i]));
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Load an index from the specified file, written by save().
+     *
+     * @param fileName
+     *            name of the file.
+     * @return the index.
+     * @throws IOException
+     *             if an error occurs while reading, or the file is not an
+     *             index.
+     */
+
+    public static CLIndex load(String fileName) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(fileName)));
+        try {
+            if (in.readInt() != MAGIC_NUMBER
+                    || in.readInt() != FORMAT_VERSION) {
+                throw new IOException(fileName + " is not a class index");
+            }
+            String[] strings = new String[in.readInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = in.readUTF();
+            }
+            CLIndex index = new CLIndex();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = strings[in.readInt()];
+                int accessFlags = in.readUnsignedShort();
+                String superName = strings[in.readInt()];
+                String[] interfaces = new String[in.readUnsignedShort()];
+                for (int j = 0; j < interfaces.length; j++) {
+                    interfaces[j] = strings[in.readInt()];
+                }
+                int fieldsCount = in.readUnsignedShort();
+                int membersCount = fieldsCount + in.readUnsignedShort();
+                int[] memberFlags = new int[membersCount];
+                String[] memberNames = new String[membersCount];
+                String[] memberDescriptors = new String[membersCount];
+                for (int j = 0; j < membersCount; j++) {
+                    memberFlags[j] = in.readUnsignedShort();
+                    memberNames[j] = strings[in.readInt()];
+                    memberDescriptors[j] = strings[in.readInt()];
+                }
+                index.entries.put(name, new CLIndexEntry(name, accessFlags,
+                        superName, interfaces, fieldsCount, memberFlags,
+                        memberNames, memberDescriptors));
+            }
+            return index;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Add the specified string to the string table if it is not there yet.
+     */
+
+    private static void intern(String s, ArrayList<String> strings,
+            Hashtable<String, Integer> indexes) {
+        if (!indexes.containsKey(s)) {
+            indexes.put(s, strings.size());
+            strings.add(s);
+        }
+    }
+
+    /**
+     * Driver for CLIndex. It indexes the class path (or the one specified
+     * with -cp), prints the number of classes indexed and the time it took,
+     * and saves the index to the file specified with -o, if any.
+     */
+
+    public static void main(String[] args) {
+        String path = null;
+        String outFile = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-cp") && i + 1 < args.length) {
+                path = args[++i];
+            } else if (args[i].equals("-o") && i + 1 < args.length) {
+                outFile = args[++i];
+            } else {
+                System.out.println("Usage: java jminusminus.CLIndex "
+                        + "[-cp <class path>] [-o <index file>]");
+                return;
+            }
+        }
+        long start = System.currentTimeMillis();
+        CLIndex index = new CLIndex(path);
+        System.out.printf("Indexed %d classes in %d ms\n", index.size(),
+                System.currentTimeMillis() - start);
+        if (outFile != null) {
+            try {
+                index.save(outFile);
+            } catch (IOException e) {
+                System.err.println("Error: cannot write " + outFile);
+            }
+        }
+    }
+
+}
+
+/**
+ * A class of a CLIndex: the header of the class and of its members. The
+ * members are kept in parallel arrays, the fields first.
+ */
+
+class CLIndexEntry {
+
+    /** Internal (/ separated) name of the class. */
+    public String name;
+
+    /** Access flags of the class. */
+    public int accessFlags;
+
+    /** Internal name of the super class; "" for java/lang/Object. */
+    public String superName;
+
+    /** Internal names of the interfaces. */
+    public String[] interfaces;
+
+    /** Number of fields; the methods follow them. */
+    public int fieldsCount;
+
+    /** Access flags of the members. */
+    public int[] memberFlags;
+
+    /** Names of the members. */
+    public String[] memberNames;
+
+    /** Descriptors of the members. */
+    public String[] memberDescriptors;
+
+    /**
+     * Construct a CLIndexEntry.
+     *
+     * @param name
+     *            internal name of the class.
+     * @param accessFlags
+     *            access flags of the class.
+     * @param superName
+     *            internal name of the super class.
+     * @param interfaces
+     *            internal names of the interfaces.
+     * @param fieldsCount
+     *            number of fields.
+     * @param memberFlags
+     *            access flags of the members.
+     * @param memberNames
+     *            names of the members.
+     * @param memberDescriptors
+     *            descriptors of the members.
+     */
+
+    public CLIndexEntry(String name, int accessFlags, String superName,
+            String[] interfaces, int fieldsCount, int[] memberFlags,
+            String[] memberNames, String[] memberDescriptors) {
+        this.name = name;
+        this.accessFlags = accessFlags;
+        this.superName = superName;
+        this.interfaces = interfaces;
+        this.fieldsCount = fieldsCount;
+        this.memberFlags = memberFlags;
+        this.memberNames = memberNames;
+        this.memberDescriptors = memberDescriptors;
+    }
+
+    /**
+     * Construct the CLIndexEntry of the specified class, read lazily.
+     *
+     * @param clFile
+     *            the class.
+     */
+
+    public CLIndexEntry(CLFile clFile) {
+        CLConstantPool cp = clFile.constantPool;
+        name = clFile.name();
+        accessFlags = clFile.accessFlags;
+        superName = clFile.superClass == 0 ? "" : className(cp,
+                clFile.superClass);
+        interfaces = new String[clFile.interfaces.size()];
+        for (int i = 0; i < interfaces.length; i++) {
+            interfaces[i] = className(cp, clFile.interfaces.get(i));
+        }
+        fieldsCount = clFile.fields.size();
+        int membersCount = fieldsCount + clFile.methods.size();
+        memberFlags = new int[membersCount];
+        memberNames = new String[membersCount];
+        memberDescriptors = new String[membersCount];
+        for (int i = 0; i < membersCount; i++) {
+            CLMemberInfo member = i < fieldsCount ? clFile.fields.get(i)
+                    : clFile.methods.get(i - fieldsCount);
+            memberFlags[i] = member.accessFlags;
+            memberNames[i] = utf8(cp, member.nameIndex);
+            memberDescriptors[i] = utf8(cp, member.descriptorIndex);
+        }
+    }
+
+    /**
+     * Return the index of the member with the specified name and descriptor,
+     * or -1 if the class has no such member.
+     *
+     * @param name
+     *            name of the member.
+     * @param descriptor
+     *            descriptor of the member.
+     * @return index of the member or -1.
+     */
+
+    public int member(String name, String descriptor) {
+        for (int i = 0; i < memberNames.length; i++) {
+            if (memberNames[i].equals(name)
+                    && memberDescriptors[i].equals(descriptor)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Return the name of the class at the specified constant pool index.
+     */
+
+    private static String className(CLConstantPool cp, int index) {
+        return utf8(cp, ((CLConstantClassInfo) cp.cpItem(index)).nameIndex);
+    }
+
+    /**
+     * Return the string at the specified constant pool index.
+     */
+
+    private static String utf8(CLConstantPool cp, int index) {
+        return new String(((CLConstantUtf8Info) cp.cpItem(index)).b);
+    }
+
+}
+
+/**
+ * A fork-join task indexing the classes of a directory (and, in subtasks, of
+ * its subdirectories), of a jar (or zip), or of a range of the class files of
+ * a jar.
+ */
+
+class CLIndexTask extends RecursiveTask<ArrayList<CLIndexEntry>> {
+
+    /** Version of the serialized form (tasks are never serialized). */
+    private static final long serialVersionUID = 1L;
+
+    /** The directory or jar. */
+    private File file;
+
+    /** Package (/ terminated) of the directory; "" for a class path entry. */
+    private String pkg;
+
+    /** The open jar, for a range of its class files; null otherwise. */
+    private ZipFile zip;
+
+    /** The class files of the jar. */
+    private ArrayList<ZipEntry> zipEntries;
+
+    /** First class file of the range. */
+    private int from;
+
+    /** Class file following the range. */
+    private int to;
+
+    /**
+     * Construct a task indexing the specified directory, of the specified
+     * package, or jar.
+     *
+     * @param file
+     *            the directory or jar.
+     * @param pkg
+     *            package of the directory.
+     */
+
+    public CLIndexTask(File file, String pkg) {
+        this.file = file;
+        this.pkg = pkg;
+    }
+
+    /**
+     * Construct a task indexing the specified range of class files of the
+     * specified jar.
+     *
+     * @param zip
+     *            the jar.
+     * @param zipEntries
+     *            the class files of the jar.
+     * @param from
+     *            first class file of the range.
+     * @param to
+     *            class file following the range.
+     */
+
+    public CLIndexTask(ZipFile zip, ArrayList<ZipEntry> zipEntries, int from,
+            int to) {
+        this.zip = zip;
+        this.zipEntries = zipEntries;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    protected ArrayList<CLIndexEntry> compute() {
+        ArrayList<CLIndexEntry> result = new ArrayList<CLIndexEntry>();
+        if (zip != null) {
+            for (int i = from; i < to; i++) {
+                ZipEntry entry = zipEntries.get(i);
+                try {
+                    index(entry.getName(), zip.getInputStream(entry), result);
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        } else if (file.isDirectory()) {
+            computeDirectory(result);
+        } else if (file.isFile()) {
+            computeJar(result);
+        } else {
+            // Bogus entry; ignore
+        }
+        return result;
+    }
+
+    /**
+     * Index the class files of the directory, and fork a task for each
+     * subdirectory.
+     */
+
+    private void computeDirectory(ArrayList<CLIndexEntry> result) {
+        File[] files = file.listFiles();
+        if (files == null) {
+            return;
+        }
+        ArrayList<CLIndexTask> subtasks = new ArrayList<CLIndexTask>();
+        for (File f : files) {
+            if (f.isDirectory()) {
+                CLIndexTask subtask = new CLIndexTask(f, pkg + f.getName()
+                        + "/");
+                subtask.fork();
+                subtasks.add(subtask);
+            } else if (isClassFile(f.getName())) {
+                try {
+                    index(pkg + f.getName(), new FileInputStream(f), result);
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+        for (CLIndexTask subtask : subtasks) {
+            result.addAll(subtask.join());
+        }
+    }
+
+    /**
+     * Index the class files of the jar, in chunks of JAR_CHUNK read by
+     * subtasks.
+     */
+
+    private void computeJar(ArrayList<CLIndexEntry> result) {
+        try {
+            ZipFile zip = new ZipFile(file);
+            try {
+                ArrayList<ZipEntry> classes = new ArrayList<ZipEntry>();
+                Enumeration<? extends ZipEntry> e = zip.entries();
+                while (e.hasMoreElements()) {
+                    ZipEntry entry = e.nextElement();
+                    if (isClassFile(entry.getName())) {
+                        classes.add(entry);
+                    }
+                }
+                ArrayList<CLIndexTask> subtasks = new ArrayList<CLIndexTask>();
+                for (int i = 0; i < classes.size(); i += CLIndex.JAR_CHUNK) {
+                    subtasks.add(new CLIndexTask(zip, classes, i, Math.min(i
+                            + CLIndex.JAR_CHUNK, classes.size())));
+                }
+                invokeAll(subtasks);
+                for (CLIndexTask subtask : subtasks) {
+                    result.addAll(subtask.join());
+                }
+            } finally {
+                zip.close();
+            }
+        } catch (IOException e) {
+            // Not a jar; ignore
+        }
+    }
+
+    /**
+     * Return true if the file with the specified name holds a class; false
+     * otherwise. Module descriptors and the versioned classes of a
+     * multi-release jar are not indexed.
+     */
+
+    private static boolean isClassFile(String fileName) {
+        return fileName.endsWith(".class")
+                && !fileName.endsWith("module-info.class")
+                && !fileName.startsWith("META-INF/");
+    }
+
+    /**
+     * Read the class file with the specified name from the specified stream,
+     * and add its entry to the specified list unless it is not a class file.
+     */
+
+    private static void index(String fileName, InputStream in,
+            ArrayList<CLIndexEntry> result) {
+        String className = fileName.substring(0, fileName.length()
+                - ".class".length());
+        CLAbsorber absorber = new CLAbsorber(className, in, true);
+        CLFile clFile = absorber.classFile();
+        if (!absorber.errorHasOccurred() && clFile != null
+                && clFile.magic == MAGIC && clFile.methods != null) {
+            result.add(new CLIndexEntry(clFile));
+        }
+    }
+
+}
@@ -265,7 +265,7 @@ abstract class CLInstruction {
                     METHOD1),
             new CLInsInfo(INVOKEINTERFACE, "invokeinterface", 4, IRRELEVANT,
                     DYNAMIC, METHOD1),
-            new CLInsInfo(INVOKEDYNAMIC, "invokedynamic", 2, IRRELEVANT,
+            new CLInsInfo(INVOKEDYNAMIC, "invokedynamic", 4, IRRELEVANT,
                     DYNAMIC, METHOD1),
             new CLInsInfo(NEW, "new", 2, IRRELEVANT, 1, OBJECT),
             new CLInsInfo(NEWARRAY, "newarray", 1, IRRELEVANT, 0, ARRAY1),
@@ -338,6 +338,18 @@ abstract class CLInstruction {
         return pc;
     }
 
+    /**
+     * Set the pc for this instruction; the peephole optimizer moves
+     * instructions when it removes the ones before them.
+     * 
+     * @param pc
+     *            the new pc.
+     */
+
+    public void setPC(int pc) {
+        this.pc = pc;
+    }
+
     /**
      * Return the stack units for this instruction.
      * 
@@ -359,12 +371,13 @@ abstract class CLInstruction {
     }
 
     /**
-     * Return the bytecode for this instruction.
+     * Append the bytecode for this instruction to the specified buffer.
      * 
-     * @return bytecode.
+     * @param bytes
+     *            buffer the bytecode is appended to.
      */
 
-    public abstract ArrayList<Integer> toBytes();
+    public abstract void toBytes(CLCodeBuffer bytes);
 
     /**
      * Return the byte from i at position byteNum.
@@ -431,16 +444,25 @@ class CLObjectInstruction extends CLInstruction {
         this.index = index;
     }
 
+    /**
+     * Return the index into the constant pool, the item at which identifies
+     * the object type.
+     * 
+     * @return the constant pool index.
+     */
+
+    public int index() {
+        return index;
+    }
+
     /**
      * @inheritDoc
      */
 
-    public ArrayList<Integer> toBytes() {
-        ArrayList<Integer> bytes = new ArrayList<Integer>();
+    public void toBytes(CLCodeBuffer bytes) {
         bytes.add(opcode);
         bytes.add(byteAt(index, 2));
         bytes.add(byteAt(index, 1));
-        return bytes;
     }
 
 }
@@ -482,16 +504,25 @@ class CLFieldInstruction extends CLInstruction {
         this.index = index;
     }
 
+    /**
+     * Return the index into the constant pool, the item at which identifies
+     * the field.
+     * 
+     * @return the constant pool index.
+     */
+
+    public int index() {
+        return index;
+    }
+
     /**
      * @inheritDoc
      */
 
-    public ArrayList<Integer> toBytes() {
-        ArrayList<Integer> bytes = new ArrayList<Integer>();
+    public void toBytes(CLCodeBuffer bytes) {
         bytes.add(opcode);
         bytes.add(byteAt(index, 2));
         bytes.add(byteAt(index, 1));
-        return bytes;
     }
 
 }
@@ -568,12 +599,22 @@ class CLMethodInstruction extends CLInstruction {
         this.nArgs = nArgs;
     }
 
+    /**
+     * Return the index into the constant pool, the item at which identifies
+     * the method.
+     * 
+     * @return the constant pool index.
+     */
+
+    public int index() {
+        return index;
+    }
+
     /**
      * @inheritDoc
      */
 
-    public ArrayList<Integer> toBytes() {
-        ArrayList<Integer> bytes = new ArrayList<Integer>();
+    public void toBytes(CLCodeBuffer bytes) {
         bytes.add(opcode);
         if (instructionInfo[opcode].category == METHOD1) {
             bytes.add(byteAt(index, 2));
@@ -586,8 +627,14 @@ class CLMethodInstruction extends CLInstruction {
                 bytes.add(byteAt(nArgs, 1));
                 bytes.add(0);
             }
+
+            // INVOKEDYNAMIC has two trailing operand bytes which
+            // must always be 0.
+            if (opcode == INVOKEDYNAMIC) {
+                bytes.add(0);
+                bytes.add(0);
+            }
         }
-        return bytes;
     }
 
 }
@@ -671,12 +718,33 @@ class CLArrayInstruction extends CLInstruction {
         localVariableIndex = instructionInfo[opcode].localVariableIndex;
     }
 
+    /**
+     * Return the number identifying the type of primitive array, or the index
+     * into the constant pool, the item at which specifies the reference type
+     * of the array.
+     * 
+     * @return the array type.
+     */
+
+    public int type() {
+        return type;
+    }
+
+    /**
+     * Return the number of dimensions of a multi-dimensional array.
+     * 
+     * @return number of dimensions.
+     */
+
+    public int dim() {
+        return dim;
+    }
+
     /**
      * @inheritDoc
      */
 
-    public ArrayList<Integer> toBytes() {
-        ArrayList<Integer> bytes = new ArrayList<Integer>();
+    public void toBytes(CLCodeBuffer bytes) {
         bytes.add(opcode);
         switch (opcode) {
         case NEWARRAY:
@@ -692,7 +760,6 @@ class CLArrayInstruction extends CLInstruction {
             bytes.add(byteAt(dim, 1));
             break;
         }
-        return bytes;
     }
 
 }
@@ -752,7 +819,8 @@ class CLArithmeticInstruction extends CLInstruction {
         super.pc = pc;
         super.localVariableIndex = localVariableIndex;
         mnemonic = instructionInfo[opcode].mnemonic;
-        operandCount = instructionInfo[opcode].operandCount;
+        operandCount = instructionInfo[opcode].operandCount
+                * (isWidened ? 2 : 1);
         stackUnits = instructionInfo[opcode].stackUnits;
         this.constVal = constVal;
         this.isWidened = isWidened;
@@ -762,8 +830,7 @@ class CLArithmeticInstruction extends CLInstruction {
      * @inheritDoc
      */
 
-    public ArrayList<Integer> toBytes() {
-        ArrayList<Integer> bytes = new ArrayList<Integer>();
+    public void toBytes(CLCodeBuffer bytes) {
         bytes.add(opcode);
         if (opcode == IINC) {
             if (isWidened) {
@@ -776,7 +843,6 @@ class CLArithmeticInstruction extends CLInstruction {
                 bytes.add(byteAt(constVal, 1));
             }
         }
-        return bytes;
     }
 
 }
@@ -809,10 +875,8 @@ class CLBitInstruction extends CLInstruction {
      * @inheritDoc
      */
 
-    public ArrayList<Integer> toBytes() {
-        ArrayList<Integer> bytes = new ArrayList<Integer>();
+    public void toBytes(CLCodeBuffer bytes) {
         bytes.add(opcode);
-        return bytes;
     }
 
 }
@@ -845,10 +909,8 @@ class CLComparisonInstruction extends CLInstruction {
      * @inheritDoc
      */
 
-    public ArrayList<Integer> toBytes() {
-        ArrayList<Integer> bytes = new ArrayList<Integer>();
+    public void toBytes(CLCodeBuffer bytes) {
         bytes.add(opcode);
-        return bytes;
     }
 
 }
@@ -881,10 +943,8 @@ class CLConversionInstruction extends CLInstruction {
      * @inheritDoc
      */
 
-    public ArrayList<Integer> toBytes() {
-        ArrayList<Integer> bytes = new ArrayList<Integer>();
+    public void toBytes(CLCodeBuffer bytes) {
         bytes.add(opcode);
-        return bytes;
     }
 
 }
@@ -1002,7 +1062,8 @@ class CLFlowControlInstruction extends CLInstruction {
         super.opcode = RET;
         super.pc = pc;
         mnemonic = instructionInfo[opcode].mnemonic;
-        operandCount = instructionInfo[opcode].operandCount;
+        operandCount = instructionInfo[opcode].operandCount
+                * (isWidened ? 2 : 1);
         stackUnits = instructionInfo[opcode].stackUnits;
         localVariableIndex = instructionInfo[opcode].localVariableIndex;
         this.index = index;
@@ -1038,7 +1099,7 @@ class CLFlowControlInstruction extends CLInstruction {
         this.low = low;
         this.high = high;
         this.labels = labels;
-        pad = 4 - ((pc + 1) % 4);
+        pad = (4 - ((pc + 1) % 4)) % 4;
         operandCount = pad + 12 + 4 * labels.size();
     }
 
@@ -1067,7 +1128,7 @@ class CLFlowControlInstruction extends CLInstruction {
         this.defaultLabel = defaultLabel;
         this.numPairs = numPairs;
         this.matchLabelPairs = matchLabelPairs;
-        pad = 4 - ((pc + 1) % 4);
+        pad = (4 - ((pc + 1) % 4)) % 4;
         operandCount = pad + 8 + 8 * numPairs;
     }
 
@@ -1141,12 +1202,106 @@ class CLFlowControlInstruction extends CLInstruction {
         return jumpToOffset;
     }
 
+    /**
+     * Return the label this FLOW_CONTROL1 instruction jumps to.
+     * 
+     * @return the jump label.
+     */
+
+    public String jumpToLabel() {
+        return jumpToLabel;
+    }
+
+    /**
+     * Return all the labels this instruction may jump to; for TABLESWITCH and
+     * LOOKUPSWITCH, the default label is the first.
+     * 
+     * @return the jump labels.
+     */
+
+    public ArrayList<String> jumpLabels() {
+        ArrayList<String> jumpLabels = new ArrayList<String>();
+        if (instructionInfo[opcode].category == FLOW_CONTROL1) {
+            jumpLabels.add(jumpToLabel);
+        } else if (opcode == TABLESWITCH) {
+            jumpLabels.add(defaultLabel);
+            jumpLabels.addAll(labels);
+        } else if (opcode == LOOKUPSWITCH) {
+            jumpLabels.add(defaultLabel);
+            jumpLabels.addAll(matchLabelPairs.values());
+        }
+        return jumpLabels;
+    }
+
+    /**
+     * Replace the label from by the label to, wherever this instruction jumps
+     * to it.
+     * 
+     * @param from
+     *            the old jump label.
+     * @param to
+     *            the new jump label.
+     */
+
+    public void retarget(String from, String to) {
+        if (from.equals(jumpToLabel)) {
+            jumpToLabel = to;
+        }
+        if (from.equals(defaultLabel)) {
+            defaultLabel = to;
+        }
+        if (labels != null) {
+            for (int i = 0; i < labels.size(); i++) {
+                if (from.equals(labels.get(i))) {
+                    labels.set(i, to);
+                }
+            }
+        }
+        if (matchLabelPairs != null) {
+            for (Entry<Integer, String> entry : matchLabelPairs.entrySet()) {
+                if (from.equals(entry.getValue())) {
+                    entry.setValue(to);
+                }
+            }
+        }
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public void setPC(int pc) {
+        super.setPC(pc);
+        if (opcode == TABLESWITCH || opcode == LOOKUPSWITCH) {
+            operandCount -= pad;
+            pad = (4 - ((pc + 1) % 4)) % 4;
+            operandCount += pad;
+        }
+    }
+
+    /**
+     * Return the offsets of all the instructions a TABLESWITCH or LOOKUPSWITCH
+     * instruction may jump to, the default included.
+     * 
+     * @return offsets to jump to.
+     */
+
+    public ArrayList<Integer> switchOffsets() {
+        ArrayList<Integer> switchOffsets = new ArrayList<Integer>();
+        switchOffsets.add(defaultOffset);
+        if (opcode == TABLESWITCH) {
+            switchOffsets.addAll(offsets);
+        } else if (opcode == LOOKUPSWITCH) {
+            switchOffsets.addAll(matchOffsetPairs.values());
+        }
+        return switchOffsets;
+    }
+
     /**
      * @inheritDoc
      */
 
-    public ArrayList<Integer> toBytes() {
-        ArrayList<Integer> bytes = new ArrayList<Integer>();
+    public void toBytes(CLCodeBuffer bytes) {
         bytes.add(opcode);
         switch (opcode) {
         case RET:
@@ -1220,7 +1375,6 @@ class CLFlowControlInstruction extends CLInstruction {
             bytes.add(byteAt(jumpToOffset, 2));
             bytes.add(byteAt(jumpToOffset, 1));
         }
-        return bytes;
     }
 
 }
@@ -1282,7 +1436,8 @@ class CLLoadStoreInstruction extends CLInstruction {
         super.opcode = opcode;
         super.pc = pc;
         mnemonic = instructionInfo[opcode].mnemonic;
-        operandCount = instructionInfo[opcode].operandCount;
+        operandCount = instructionInfo[opcode].operandCount
+                * (isWidened ? 2 : 1);
         stackUnits = instructionInfo[opcode].stackUnits;
         super.localVariableIndex = localVariableIndex;
         this.isWidened = isWidened;
@@ -1311,12 +1466,22 @@ class CLLoadStoreInstruction extends CLInstruction {
         this.constVal = constVal;
     }
 
+    /**
+     * Return the byte (for BIPUSH), the short (for SIPUSH), or the constant
+     * pool index (for LDC, LDC_W, LDC2_W) operand.
+     * 
+     * @return the operand.
+     */
+
+    public int constVal() {
+        return constVal;
+    }
+
     /**
      * @inheritDoc
      */
 
-    public ArrayList<Integer> toBytes() {
-        ArrayList<Integer> bytes = new ArrayList<Integer>();
+    public void toBytes(CLCodeBuffer bytes) {
         bytes.add(opcode);
         if (instructionInfo[opcode].operandCount > 0) {
             if (localVariableIndex != IRRELEVANT) {
@@ -1338,7 +1503,6 @@ class CLLoadStoreInstruction extends CLInstruction {
                 }
             }
         }
-        return bytes;
     }
 
 }
@@ -1371,10 +1535,8 @@ class CLStackInstruction extends CLInstruction {
      * @inheritDoc
      */
 
-    public ArrayList<Integer> toBytes() {
-        ArrayList<Integer> bytes = new ArrayList<Integer>();
+    public void toBytes(CLCodeBuffer bytes) {
         bytes.add(opcode);
-        return bytes;
     }
 
 }
@@ -1407,10 +1569,8 @@ class CLMiscInstruction extends CLInstruction {
      * @inheritDoc
      */
 
-    public ArrayList<Integer> toBytes() {
-        ArrayList<Integer> bytes = new ArrayList<Integer>();
+    public void toBytes(CLCodeBuffer bytes) {
         bytes.add(opcode);
-        return bytes;
     }
 
 }
@@ -1474,3 +1634,98 @@ class CLInsInfo {
     }
 
 }
+
+/**
+ * A growable buffer of bytes, into which the instructions of a method are
+ * encoded. Unlike a list of (boxed) Integers, it costs one byte per byte of
+ * code.
+ */
+
+class CLCodeBuffer {
+
+    /** The bytes; only the first size of them are in use. */
+    private byte[] bytes;
+
+    /** Number of bytes in the buffer. */
+    private int size;
+
+    /**
+     * Construct an empty CLCodeBuffer with room for the specified number of
+     * bytes; it grows as needed.
+     * 
+     * @param capacity
+     *            initial capacity.
+     */
+
+    public CLCodeBuffer(int capacity) {
+        bytes = new byte[Math.max(capacity, 16)];
+        size = 0;
+    }
+
+    /**
+     * Append the low order byte of the specified value.
+     * 
+     * @param b
+     *            the value.
+     */
+
+    public void add(int b) {
+        if (size == bytes.length) {
+            byte[] newBytes = new byte[2 * bytes.length];
+            System.arraycopy(bytes, 0, newBytes, 0, size);
+            bytes = newBytes;
+        }
+        bytes[size++] = (byte) b;
+    }
+
+    /**
+     * Replace the byte at the specified index by the low order byte of the
+     * specified value.
+     * 
+     * @param index
+     *            index of the byte.
+     * @param b
+     *            the value.
+     */
+
+    public void set(int index, int b) {
+        bytes[index] = (byte) b;
+    }
+
+    /**
+     * Drop the bytes from the specified index on.
+     * 
+     * @param size
+     *            the new number of bytes.
+     */
+
+    public void truncate(int size) {
+        this.size = Math.min(this.size, size);
+    }
+
+    /**
+     * Return the number of bytes in the buffer.
+     * 
+     * @return number of bytes.
+     */
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the bytes in the buffer, in an array of exactly that length.
+     * 
+     * @return the bytes.
+     */
+
+    public byte[] toByteArray() {
+        if (size == bytes.length) {
+            return bytes;
+        }
+        byte[] result = new byte[size];
+        System.arraycopy(bytes, 0, result, 0, size);
+        return result;
+    }
+
+}
@@ -0,0 +1,119 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package jminusminus;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+/**
+ * Writer of the class files built by one or more CLEmitter instances into a
+ * single jar file, instead of one .class file each under a destination
+ * directory; see Main's -jar option. The entries are compressed (DEFLATED)
+ * unless they are to be STORED, which is faster both to write and to load
+ * classes from.
+ */
+
+class CLJarWriter {
+
+    /** Name of the jar file. */
+    private String fileName;
+
+    /** Whether entries are stored uncompressed. */
+    private boolean isStored;
+
+    /** The jar being written. */
+    private JarOutputStream out;
+
+    /**
+     * Create the specified jar file, creating its directory if need be, and
+     * write its manifest.
+     *
+     * @param fileName
+     *            name of the jar file.
+     * @param isStored
+     *            whether entries are stored uncompressed.
+     * @throws IOException
+     *             if the file cannot be created.
+     */
+
+    public CLJarWriter(String fileName, boolean isStored) throws IOException {
+        this.fileName = fileName;
+        this.isStored = isStored;
+        File dir = new File(fileName).getAbsoluteFile().getParentFile();
+        if (dir != null) {
+            dir.mkdirs();
+        }
+        out = new JarOutputStream(new BufferedOutputStream(
+                new FileOutputStream(fileName)));
+        byte[] manifest = "Manifest-Version: 1.0\r\nCreated-By: j--\r\n\r\n"
+                .getBytes("US-ASCII");
+        put("META-INF/MANIFEST.MF", manifest, 0, manifest.length);
+    }
+
+    /**
+     * Return the name of the jar file.
+     *
+     * @return name of the jar file.
+     */
+
+    public String fileName() {
+        return fileName;
+    }
+
+    /**
+     * Add the class with the specified internal name to the jar.
+     *
+     * @param name
+     *            internal (/ separated) name of the class.
+     * @param bytes
+     *            the class file, ready for reading; must be backed by an
+     *            array.
+     * @throws IOException
+     *             if the class cannot be written, for example because the jar
+     *             already has a class by that name.
+     */
+
+    public void add(String name, ByteBuffer bytes) throws IOException {
+        put(name + ".class", bytes.array(), bytes.arrayOffset()
+                + bytes.position(), bytes.remaining());
+    }
+
+    /**
+     * Finish writing the jar, and close it.
+     *
+     * @throws IOException
+     *             if an error occurs while writing.
+     */
+
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Write an entry with the specified name and contents. A STORED entry
+     * must carry its size and checksum ahead of its contents.
+     */
+
+    private void put(String entryName, byte[] b, int off, int len)
+            throws IOException {
+        ZipEntry entry = new ZipEntry(entryName);
+        if (isStored) {
+            CRC32 crc = new CRC32();
+            crc.update(b, off, len);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(len);
+            entry.setCompressedSize(len);
+            entry.setCrc(crc.getValue());
+        }
+        out.putNextEntry(entry);
+        out.write(b, off, len);
+        out.closeEntry();
+    }
+
+}
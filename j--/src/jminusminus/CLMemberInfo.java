@@ -76,6 +76,20 @@ abstract class CLMemberInfo {
         }
     }
 
+    /**
+     * Return the number of bytes that write() writes.
+     * 
+     * @return size of this class member in the class file.
+     */
+
+    public int size() {
+        int size = 8;
+        for (int i = 0; i < attributes.size(); i++) {
+            size += 6 + (int) attributes.get(i).attributeLength;
+        }
+        return size;
+    }
+
     /**
      * Write the contents of this class member to STDOUT in a format similar to
      * that of javap.
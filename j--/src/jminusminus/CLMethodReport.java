@@ -0,0 +1,142 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package jminusminus;
+
+import java.util.ArrayList;
+import static jminusminus.CLConstants.*;
+import static jminusminus.CLInstruction.*;
+
+/**
+ * The size and shape of the code of a method of a CLReport: its code length,
+ * max_stack, max_locals, the size of the constant pool of its class, its
+ * number of branches, and a histogram of its instructions.
+ */
+
+public class CLMethodReport {
+
+    /** Name of the method, qualified by its class, and descriptor. */
+    public String name;
+
+    /** Length of the code, in bytes. */
+    public int codeLength;
+
+    /** Maximum depth of the operand stack. */
+    public int maxStack;
+
+    /** Number of local variables. */
+    public int maxLocals;
+
+    /** Number of entries in the constant pool of the class. */
+    public int constantPoolCount;
+
+    /** Number of branch (conditional, goto, jsr and switch) instructions. */
+    public int branches;
+
+    /** Number of instructions of each opcode. */
+    public int[] histogram;
+
+    /**
+     * Construct the CLMethodReport of the specified method.
+     *
+     * @param name
+     *            qualified name and descriptor of the method.
+     * @param constantPoolCount
+     *            number of entries in the constant pool of the class.
+     * @param code
+     *            Code attribute of the method.
+     */
+
+    public CLMethodReport(String name, int constantPoolCount,
+            CLCodeAttribute code) {
+        this.name = name;
+        this.constantPoolCount = constantPoolCount;
+        codeLength = code.code.length;
+        maxStack = code.maxStack;
+        maxLocals = code.maxLocals;
+        histogram = new int[256];
+        byte[] b = code.code;
+        for (int pc = 0; pc < b.length;) {
+            int opcode = b[pc] & 0xFF;
+            if (!isValid(opcode)) {
+                break;
+            }
+            histogram[opcode]++;
+            CLInsInfo info = instructionInfo[opcode];
+            if (info.category == Category.FLOW_CONTROL1
+                    || opcode == TABLESWITCH || opcode == LOOKUPSWITCH) {
+                branches++;
+            }
+            pc += length(b, pc);
+        }
+    }
+
+    /**
+     * Return the number of instructions with the specified opcode.
+     *
+     * @param opcode
+     *            the opcode.
+     * @return number of instructions.
+     */
+
+    public int count(int opcode) {
+        return histogram[opcode];
+    }
+
+    /**
+     * Return the histogram as a string of mnemonics and counts, the most
+     * frequent first.
+     *
+     * @return the histogram.
+     */
+
+    public String histogramToString() {
+        ArrayList<Integer> opcodes = new ArrayList<Integer>();
+        for (int opcode = 0; opcode < histogram.length; opcode++) {
+            if (histogram[opcode] > 0) {
+                int i = 0;
+                while (i < opcodes.size()
+                        && histogram[opcodes.get(i)] >= histogram[opcode]) {
+                    i++;
+                }
+                opcodes.add(i, opcode);
+            }
+        }
+        StringBuffer s = new StringBuffer();
+        for (int opcode : opcodes) {
+            s.append(s.length() == 0 ? "" : ", ");
+            s.append(instructionInfo[opcode].mnemonic + " "
+                    + histogram[opcode]);
+        }
+        return s.toString();
+    }
+
+    /**
+     * Return the length, in bytes, of the instruction at the specified pc.
+     */
+
+    private static int length(byte[] b, int pc) {
+        int opcode = b[pc] & 0xFF;
+        if (opcode == WIDE) {
+            return pc + 1 < b.length && (b[pc + 1] & 0xFF) == IINC ? 6 : 4;
+        } else if (opcode == TABLESWITCH || opcode == LOOKUPSWITCH) {
+            // Operands start at the next multiple of 4
+            int p = (pc + 4) & ~3;
+            if (opcode == TABLESWITCH) {
+                return p - pc + 12 + 4 * (readInt(b, p + 8)
+                        - readInt(b, p + 4) + 1);
+            }
+            return p - pc + 8 + 8 * readInt(b, p + 4);
+        }
+        return 1 + instructionInfo[opcode].operandCount;
+    }
+
+    /**
+     * Return the (big-endian) int at the specified position.
+     */
+
+    private static int readInt(byte[] b, int p) {
+        return (b[p] & 0xFF) << 24 | (b[p + 1] & 0xFF) << 16
+                | (b[p + 2] & 0xFF) << 8 | (b[p + 3] & 0xFF);
+    }
+
+}
@@ -52,12 +52,12 @@ class CLPath {
                 container.add(entries.nextToken());
             }
         } else {
-            float version = Float
-                    .parseFloat(System.getProperty("java.version"));
-            if (version > 1.1) {
-                String dir = System.getProperty("java.home")
-                        + File.separatorChar + "lib" + File.separatorChar
-                        + "rt.jar";
+            // Up to Java 8, the system classes are in rt.jar; the
+            // version (eg, 1.8.0_40 or 17.0.2) need not parse as a
+            // number
+            String dir = System.getProperty("java.home") + File.separatorChar
+                    + "lib" + File.separatorChar + "rt.jar";
+            if (new File(dir).isFile()) {
                 container.add(dir);
             }
         }
@@ -160,4 +160,15 @@ class CLPath {
         return reader;
     }
 
+    /**
+     * Return the directories, jars and zips of this path, in the order they
+     * are searched.
+     * 
+     * @return the entries of this path.
+     */
+
+    public ArrayList<String> entries() {
+        return dirs;
+    }
+
 }
@@ -0,0 +1,348 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package jminusminus;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Hashtable;
+import static jminusminus.CLConstants.*;
+import static jminusminus.CLConstants.Category.*;
+
+/**
+ * A peephole optimizer over the instruction list of a method, run by CLEmitter
+ * before the labels are resolved and the instructions are converted to bytes.
+ * It repeatedly
+ *
+ * <ul>
+ * <li>threads jumps to (unconditional) jumps,</li>
+ * <li>inverts a conditional branch over a GOTO, so that IFcc L1; GOTO L2; L1:
+ * becomes IF!cc L2; L1:,</li>
+ * <li>removes a GOTO to the next instruction,</li>
+ * <li>replaces xSTORE n; xLOAD n by DUP; xSTORE n,</li>
+ * <li>removes a constant push or a DUP followed by a POP, and</li>
+ * <li>removes the unreachable instructions following a GOTO, a return, an
+ * ATHROW or a switch,</li>
+ * </ul>
+ *
+ * until nothing changes. A pattern never spans an instruction that is the
+ * target of a jump, other than at its start. The instructions are then given
+ * new pcs and the labels are moved along with them, so stackDepth() and label
+ * resolution see consistent code.
+ *
+ * Methods with exception handlers are left alone, since removing code might
+ * leave a protected range empty.
+ */
+
+class CLPeepholeOptimizer {
+
+    /** The instructions of the method. */
+    private ArrayList<CLInstruction> code;
+
+    /** Label to pc mapping of the method. */
+    private Hashtable<String, Integer> labels;
+
+    /**
+     * Label to instruction mapping; a label past the last instruction maps to
+     * END.
+     */
+    private Hashtable<String, CLInstruction> targets;
+
+    /** Instructions that are the target of some jump. */
+    private HashSet<CLInstruction> jumpTargets;
+
+    /** Stands for the end of the code in targets. */
+    private static final CLInstruction END = new CLMiscInstruction(NOP, -1);
+
+    /**
+     * Construct a CLPeepholeOptimizer for the given method code.
+     *
+     * @param code
+     *            the instructions of the method; modified in place.
+     * @param labels
+     *            label to pc mapping of the method; modified in place.
+     */
+
+    public CLPeepholeOptimizer(ArrayList<CLInstruction> code,
+            Hashtable<String, Integer> labels) {
+        this.code = code;
+        this.labels = labels;
+    }
+
+    /**
+     * Optimize the code, and assign new pcs to the instructions and labels.
+     *
+     * @return the pc past the last instruction.
+     */
+
+    public int optimize() {
+        targets = new Hashtable<String, CLInstruction>();
+        Hashtable<Integer, CLInstruction> atPC = new Hashtable<Integer, CLInstruction>();
+        for (CLInstruction instr : code) {
+            atPC.put(instr.pc(), instr);
+        }
+        for (String label : labels.keySet()) {
+            CLInstruction instr = atPC.get(labels.get(label));
+            targets.put(label, instr == null ? END : instr);
+        }
+        boolean changed = true;
+        while (changed) {
+            findJumpTargets();
+            changed = threadJumps();
+            changed = rewrite() || changed;
+        }
+
+        // Lay the code out again
+        findJumpTargets();
+        if (jumpTargets.contains(END)) {
+            // Must jump to an instruction
+            code.add(new CLMiscInstruction(NOP, 0));
+        }
+        int pc = 0;
+        for (CLInstruction instr : code) {
+            instr.setPC(pc);
+            pc += 1 + instr.operandCount();
+        }
+        for (String label : targets.keySet()) {
+            CLInstruction target = targets.get(label);
+            labels.put(label, target == END ? pc : target.pc());
+        }
+        return pc;
+    }
+
+    /**
+     * Collect the instructions that some instruction jumps to.
+     */
+
+    private void findJumpTargets() {
+        jumpTargets = new HashSet<CLInstruction>();
+        for (CLInstruction instr : code) {
+            if (instr instanceof CLFlowControlInstruction) {
+                for (String label : ((CLFlowControlInstruction) instr)
+                        .jumpLabels()) {
+                    jumpTargets.add(targets.get(label));
+                }
+            }
+        }
+    }
+
+    /**
+     * Make every jump to a GOTO jump to where that GOTO jumps to.
+     *
+     * @return true if a jump was changed; false otherwise.
+     */
+
+    private boolean threadJumps() {
+        boolean changed = false;
+        for (CLInstruction instr : code) {
+            if (!(instr instanceof CLFlowControlInstruction)) {
+                continue;
+            }
+            CLFlowControlInstruction jump = (CLFlowControlInstruction) instr;
+            for (String label : jump.jumpLabels()) {
+                String to = label;
+                HashSet<CLInstruction> seen = new HashSet<CLInstruction>();
+                CLInstruction target = targets.get(to);
+                while (isGoto(target) && seen.add(target)) {
+                    to = ((CLFlowControlInstruction) target).jumpToLabel();
+                    target = targets.get(to);
+                }
+                if (!to.equals(label) && target != jump) {
+                    jump.retarget(label, to);
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Apply the local patterns in a single sweep over the code.
+     *
+     * @return true if the code was changed; false otherwise.
+     */
+
+    private boolean rewrite() {
+        int n = code.size();
+        CLInstruction[] instrs = code.toArray(new CLInstruction[n + 1]);
+        instrs[n] = END;
+        boolean[] removed = new boolean[n];
+        boolean changed = false;
+        for (int i = 0; i < n; i++) {
+            CLInstruction instr = instrs[i];
+            CLInstruction next = instrs[i + 1];
+            int opcode = instr.opcode();
+            if (isGoto(instr)
+                    && targets.get(((CLFlowControlInstruction) instr)
+                            .jumpToLabel()) == next) {
+                // GOTO L; L:
+                removed[i] = true;
+                changed = true;
+            } else if (isConditionalBranch(opcode) && isGoto(next)
+                    && !jumpTargets.contains(next)
+                    && targets.get(((CLFlowControlInstruction) instr)
+                            .jumpToLabel()) == instrs[i + 2]) {
+                // IFcc L1; GOTO L2; L1:
+                instrs[i] = new CLFlowControlInstruction(inverse(opcode), 0,
+                        ((CLFlowControlInstruction) next).jumpToLabel());
+                removed[i + 1] = true;
+                changed = true;
+                i++;
+            } else if (isStore(instr) && (i == 0 || instrs[i - 1].opcode() != WIDE)
+                    && next.opcode() == opcode - (ISTORE - ILOAD)
+                    && next.localVariableIndex() == instr.localVariableIndex()
+                    && !jumpTargets.contains(next)) {
+                // xSTORE n; xLOAD n
+                instrs[i] = new CLStackInstruction(isWide(instr) ? DUP2 : DUP,
+                        0);
+                instrs[i + 1] = instr;
+                changed = true;
+                i++;
+            } else if (isDiscardable(instr) && next.opcode() == POP
+                    && !jumpTargets.contains(next)) {
+                // ICONST; POP or DUP; POP
+                removed[i] = true;
+                removed[i + 1] = true;
+                changed = true;
+                i++;
+            } else if (endsFlow(instr)) {
+                // Unreachable code
+                while (i + 1 < n && !jumpTargets.contains(instrs[i + 1])) {
+                    removed[++i] = true;
+                    changed = true;
+                }
+            }
+        }
+        if (!changed) {
+            return false;
+        }
+
+        // Drop the removed instructions, moving their labels to the next
+        // instruction that is kept
+        Hashtable<CLInstruction, CLInstruction> moved = new Hashtable<CLInstruction, CLInstruction>();
+        CLInstruction kept = END;
+        for (int i = n - 1; i >= 0; i--) {
+            if (removed[i]) {
+                moved.put(code.get(i), kept);
+            } else {
+                kept = instrs[i];
+                moved.put(code.get(i), kept);
+            }
+        }
+        for (String label : targets.keySet()) {
+            CLInstruction target = targets.get(label);
+            if (target != END) {
+                targets.put(label, moved.get(target));
+            }
+        }
+        code.clear();
+        for (int i = 0; i < n; i++) {
+            if (!removed[i]) {
+                code.add(instrs[i]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return true if the instruction is an unconditional GOTO; false
+     * otherwise.
+     */
+
+    private static boolean isGoto(CLInstruction instr) {
+        return instr != null && instr.opcode() == GOTO;
+    }
+
+    /**
+     * Return true if the opcode is that of a conditional branch; false
+     * otherwise.
+     */
+
+    static boolean isConditionalBranch(int opcode) {
+        return opcode >= IFEQ && opcode <= IF_ACMPNE || opcode == IFNULL
+                || opcode == IFNONNULL;
+    }
+
+    /**
+     * Return the conditional branch taken exactly when the given one is not.
+     */
+
+    static int inverse(int opcode) {
+        if (opcode == IFNULL) {
+            return IFNONNULL;
+        } else if (opcode == IFNONNULL) {
+            return IFNULL;
+        }
+
+        // IFEQ through IF_ACMPNE come in pairs, each the negation of the
+        // other
+        return IFEQ + ((opcode - IFEQ) ^ 1);
+    }
+
+    /**
+     * Return true if the instruction stores into a local variable; false
+     * otherwise.
+     */
+
+    private static boolean isStore(CLInstruction instr) {
+        return instr.opcode() >= ISTORE && instr.opcode() <= ASTORE_3;
+    }
+
+    /**
+     * Return true if the instruction operates on a long or double; false
+     * otherwise.
+     */
+
+    private static boolean isWide(CLInstruction instr) {
+        switch (instr.opcode()) {
+        case LSTORE:
+        case DSTORE:
+        case LSTORE_0:
+        case LSTORE_1:
+        case LSTORE_2:
+        case LSTORE_3:
+        case DSTORE_0:
+        case DSTORE_1:
+        case DSTORE_2:
+        case DSTORE_3:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Return true if the instruction pushes a single word without side
+     * effects; false otherwise.
+     */
+
+    private static boolean isDiscardable(CLInstruction instr) {
+        int opcode = instr.opcode();
+        return opcode >= ACONST_NULL && opcode <= ICONST_5 || opcode == BIPUSH
+                || opcode == SIPUSH || opcode == DUP;
+    }
+
+    /**
+     * Return true if control never falls through the instruction; false
+     * otherwise.
+     */
+
+    private static boolean endsFlow(CLInstruction instr) {
+        switch (instr.opcode()) {
+        case GOTO:
+        case GOTO_W:
+        case TABLESWITCH:
+        case LOOKUPSWITCH:
+        case IRETURN:
+        case LRETURN:
+        case FRETURN:
+        case DRETURN:
+        case ARETURN:
+        case RETURN:
+        case ATHROW:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+}
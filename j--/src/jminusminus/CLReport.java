@@ -0,0 +1,368 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package jminusminus;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import static jminusminus.CLConstants.*;
+
+/**
+ * A report of the size and shape of the code of the methods of a build (a
+ * directory or a jar of class files): for every method, its code length,
+ * max_stack, max_locals, the size of the constant pool of its class, its
+ * number of branches, and a histogram of its instructions. The class files
+ * are read by a lazy CLAbsorber, only the Code attributes being decoded.
+ *
+ * Two reports can be compared, to see whether a change to code generation
+ * made the generated code bigger. A method whose code length, max_stack,
+ * max_locals or number of branches grew is flagged as a regression; so is a
+ * method whose code grew past one of the limits on the size of the methods
+ * HotSpot inlines or compiles, since the size of a method decides whether it
+ * is inlined at all.
+ */
+
+public class CLReport {
+
+    /** Largest method inlined by HotSpot however rarely it is called. */
+    public static final int MAX_INLINE_SIZE = 35;
+
+    /** Largest method inlined by HotSpot when it is called often. */
+    public static final int FREQ_INLINE_SIZE = 325;
+
+    /** Largest method compiled by HotSpot. */
+    public static final int HUGE_METHOD_LIMIT = 8000;
+
+    /** Methods of the build, by class name, name and descriptor. */
+    private Hashtable<String, CLMethodReport> methods;
+
+    /**
+     * Construct an empty CLReport.
+     */
+
+    public CLReport() {
+        methods = new Hashtable<String, CLMethodReport>();
+    }
+
+    /**
+     * Construct the report of the class files under the specified directory,
+     * or in the specified jar (or zip).
+     *
+     * @param build
+     *            name of the directory or jar.
+     * @throws IOException
+     *             if the build cannot be read.
+     */
+
+    public CLReport(String build) throws IOException {
+        this();
+        File file = new File(build);
+        if (file.isDirectory()) {
+            addDirectory(file, "");
+        } else if (file.isFile()) {
+            addJar(file);
+        } else {
+            throw new IOException(build + " not found");
+        }
+    }
+
+    /**
+     * Add the methods of the specified class to the report. A method without
+     * code (abstract or native) is not reported.
+     *
+     * @param clFile
+     *            the class.
+     */
+
+    public void add(CLFile clFile) {
+        CLConstantPool cp = clFile.constantPool;
+        String className = clFile.name();
+        for (CLMethodInfo method : clFile.methods) {
+            CLCodeAttribute code = codeAttribute(method);
+            if (code != null) {
+                CLMethodReport m = new CLMethodReport(className + "."
+                        + utf8(cp, method.nameIndex)
+                        + utf8(cp, method.descriptorIndex),
+                        clFile.constantPoolCount, code);
+                methods.put(m.name, m);
+            }
+        }
+    }
+
+    /**
+     * Add the methods of the class with the specified name, which is looked
+     * up on the class path.
+     *
+     * @param className
+     *            fully qualified name of the class in internal form, eg
+     *            "pass/Factorial".
+     * @throws IOException
+     *             if the class cannot be found or read.
+     */
+
+    public void addClass(String className) throws IOException {
+        CLAbsorber absorber = new CLAbsorber(className, true);
+        CLFile clFile = absorber.classFile();
+        if (absorber.errorHasOccurred() || clFile == null) {
+            throw new IOException("cannot read class " + className);
+        }
+        add(clFile);
+    }
+
+    /**
+     * Return the reported method with the specified name, or null if there is
+     * none.
+     *
+     * @param name
+     *            name of the method: internal name of its class, ".", name of
+     *            the method and descriptor, eg "pass/Factorial.factorial(I)I".
+     * @return the method or null.
+     */
+
+    public CLMethodReport lookup(String name) {
+        return methods.get(name);
+    }
+
+    /**
+     * Return the number of methods reported.
+     *
+     * @return number of methods.
+     */
+
+    public int size() {
+        return methods.size();
+    }
+
+    /**
+     * Print the report to STDOUT, one method after another, by name.
+     */
+
+    public void writeToStdOut() {
+        for (String name : sortedNames(methods)) {
+            CLMethodReport m = methods.get(name);
+            System.out.printf("%s\n", name);
+            System.out.printf("    code %d, stack %d, locals %d, "
+                    + "constant pool %d, branches %d\n", m.codeLength,
+                    m.maxStack, m.maxLocals, m.constantPoolCount, m.branches);
+            System.out.printf("    %s\n", m.histogramToString());
+        }
+        System.out.printf("%d methods\n", methods.size());
+    }
+
+    /**
+     * Print how the methods changed from the specified report (of the old
+     * build) to this one (of the new build), flagging the regressions.
+     *
+     * @param old
+     *            report of the old build.
+     * @return the number of regressions.
+     */
+
+    public int printChangesFrom(CLReport old) {
+        int regressions = 0;
+        int oldTotal = 0, newTotal = 0;
+        ArrayList<String> names = sortedNames(old.methods);
+        for (String name : sortedNames(methods)) {
+            if (!old.methods.containsKey(name)) {
+                names.add(name);
+            }
+        }
+        for (String name : names) {
+            CLMethodReport o = old.methods.get(name);
+            CLMethodReport n = methods.get(name);
+            if (o == null) {
+                System.out.printf("added    %s: code %d\n", name,
+                        n.codeLength);
+                newTotal += n.codeLength;
+                continue;
+            }
+            if (n == null) {
+                System.out.printf("removed  %s: code %d\n", name,
+                        o.codeLength);
+                oldTotal += o.codeLength;
+                continue;
+            }
+            oldTotal += o.codeLength;
+            newTotal += n.codeLength;
+            String changes = change("code", o.codeLength, n.codeLength)
+                    + change("stack", o.maxStack, n.maxStack)
+                    + change("locals", o.maxLocals, n.maxLocals)
+                    + change("constant pool", o.constantPoolCount,
+                            n.constantPoolCount)
+                    + change("branches", o.branches, n.branches);
+            if (changes.equals("")) {
+                continue;
+            }
+            boolean isRegression = n.codeLength > o.codeLength
+                    || n.maxStack > o.maxStack || n.maxLocals > o.maxLocals
+                    || n.branches > o.branches;
+            if (isRegression) {
+                regressions++;
+            }
+            System.out.printf("%s %s:%s\n", isRegression ? "REGRESSION"
+                    : "changed ", name, changes);
+            String limit = limitCrossed(o.codeLength, n.codeLength);
+            if (limit != null) {
+                System.out.printf("    code grew past %s\n", limit);
+            }
+        }
+        System.out.printf("total code %d -> %d, %d regressions\n", oldTotal,
+                newTotal, regressions);
+        return regressions;
+    }
+
+    /**
+     * Return a description of the change of the specified measure, or "" if
+     * it did not change.
+     */
+
+    private static String change(String measure, int from, int to) {
+        return from == to ? "" : String.format(" %s %d -> %d (%+d)", measure,
+                from, to, to - from);
+    }
+
+    /**
+     * Return the name of the HotSpot size limit that code growing from the
+     * specified length to the other crossed, or null if it crossed none.
+     */
+
+    private static String limitCrossed(int from, int to) {
+        if (from <= HUGE_METHOD_LIMIT && to > HUGE_METHOD_LIMIT) {
+            return "HugeMethodLimit (" + HUGE_METHOD_LIMIT + ")";
+        } else if (from <= FREQ_INLINE_SIZE && to > FREQ_INLINE_SIZE) {
+            return "FreqInlineSize (" + FREQ_INLINE_SIZE + ")";
+        } else if (from <= MAX_INLINE_SIZE && to > MAX_INLINE_SIZE) {
+            return "MaxInlineSize (" + MAX_INLINE_SIZE + ")";
+        }
+        return null;
+    }
+
+    /**
+     * Return the names of the specified methods, sorted.
+     */
+
+    private static ArrayList<String> sortedNames(
+            Hashtable<String, CLMethodReport> methods) {
+        ArrayList<String> names = new ArrayList<String>(methods.keySet());
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Add the class files under the specified directory, of the specified
+     * package.
+     */
+
+    private void addDirectory(File dir, String pkg) throws IOException {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            throw new IOException("cannot read " + dir);
+        }
+        for (File f : files) {
+            if (f.isDirectory()) {
+                addDirectory(f, pkg + f.getName() + "/");
+            } else if (f.getName().endsWith(".class")) {
+                InputStream in = new FileInputStream(f);
+                try {
+                    add(pkg + f.getName(), in);
+                } finally {
+                    in.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the class files of the specified jar.
+     */
+
+    private void addJar(File file) throws IOException {
+        ZipFile zip = new ZipFile(file);
+        try {
+            Enumeration<? extends ZipEntry> e = zip.entries();
+            while (e.hasMoreElements()) {
+                ZipEntry entry = e.nextElement();
+                if (entry.getName().endsWith(".class")) {
+                    add(entry.getName(), zip.getInputStream(entry));
+                }
+            }
+        } finally {
+            zip.close();
+        }
+    }
+
+    /**
+     * Read the class file with the specified name from the specified stream,
+     * and add its methods.
+     */
+
+    private void add(String fileName, InputStream in) throws IOException {
+        CLAbsorber absorber = new CLAbsorber(fileName.substring(0, fileName
+                .length()
+                - ".class".length()), in, true);
+        CLFile clFile = absorber.classFile();
+        if (absorber.errorHasOccurred() || clFile == null
+                || clFile.magic != MAGIC || clFile.methods == null) {
+            throw new IOException(fileName + " is not a class file");
+        }
+        add(clFile);
+    }
+
+    /**
+     * Return the Code attribute of the specified method, decoding it if it was
+     * read lazily, or null if it has none.
+     */
+
+    private static CLCodeAttribute codeAttribute(CLMethodInfo method) {
+        for (CLAttributeInfo attribute : method.attributes) {
+            if (attribute instanceof CLLazyAttribute) {
+                attribute = ((CLLazyAttribute) attribute).attribute();
+            }
+            if (attribute instanceof CLCodeAttribute) {
+                return (CLCodeAttribute) attribute;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return the string at the specified constant pool index.
+     */
+
+    private static String utf8(CLConstantPool cp, int index) {
+        return new String(((CLConstantUtf8Info) cp.cpItem(index)).b);
+    }
+
+    /**
+     * Driver for CLReport. Given one build (a directory or jar of class
+     * files) it prints the report of the build; given two, the old one first,
+     * it prints how the methods changed, and exits with status 1 if there are
+     * regressions.
+     */
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.out.println("Usage: java jminusminus.CLReport "
+                    + "<build> | <old build> <new build>");
+            return;
+        }
+        try {
+            if (args.length == 1) {
+                new CLReport(args[0]).writeToStdOut();
+            } else if (new CLReport(args[1])
+                    .printChangesFrom(new CLReport(args[0])) > 0) {
+                System.exit(1);
+            }
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+
+}
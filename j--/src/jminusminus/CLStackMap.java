@@ -0,0 +1,1168 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package jminusminus;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+import static jminusminus.CLConstants.*;
+
+/**
+ * Computes the StackMapTable frames of a method, by a dataflow analysis over
+ * its instructions that tracks the verification type of every local variable
+ * and operand stack item. CLEmitter runs it once the pcs of the instructions
+ * are final, and adds the frames it computes to the Code attribute, for the
+ * type checking verifier.
+ *
+ * Verification types are represented as strings during the analysis: "T"
+ * (top), "I" (int, boolean, byte, char and short), "F", "J", "D", "N" (null),
+ * "U" (uninitialized this), "U" followed by the pc of a NEW instruction (the
+ * uninitialized object it created), or the type descriptor of a reference
+ * type. A long or a double takes a single stack item but two local variables,
+ * the second of which is top.
+ *
+ * At a point where control flow merges, a local variable of different types
+ * becomes top, and two reference types are merged into their closest common
+ * superclass (interfaces are treated as java/lang/Object, as the verifier
+ * does). Unreachable code is replaced by NOPs ending in an ATHROW, so that it
+ * verifies against a frame of its own.
+ */
+
+class CLStackMap {
+
+    /** Instructions of the method. */
+    private ArrayList<CLInstruction> code;
+
+    /** Label to pc mapping of the method. */
+    private Hashtable<String, Integer> labels;
+
+    /** Exception handlers of the method, with their labels resolved. */
+    private ArrayList<CLException> handlers;
+
+    /** Constant pool of the class. */
+    private CLConstantPool constantPool;
+
+    /** Name of the class in internal form. */
+    private String className;
+
+    /** Name of the parent class in internal form. */
+    private String superClassName;
+
+    /** The state on entry to each instruction; null if not (yet) reached. */
+    private State[] in;
+
+    /** Indices of the instructions whose entry state needs to be revisited. */
+    private ArrayList<Integer> worklist;
+
+    /** pc to instruction index mapping. */
+    private Hashtable<Integer, Integer> indexOf;
+
+    /** Number of local variables of the method. */
+    private int maxLocals;
+
+    /** Whether unreachable code was replaced. */
+    private boolean hasDeadCode;
+
+    /** Description of the first inconsistency found; null if none. */
+    private String error;
+
+    /**
+     * Construct a CLStackMap for a method.
+     *
+     * @param code
+     *            instructions of the method, with their final pcs.
+     * @param labels
+     *            label to pc mapping of the method.
+     * @param handlers
+     *            exception handlers of the method, with their labels
+     *            resolved.
+     * @param constantPool
+     *            constant pool of the class.
+     * @param className
+     *            name of the class in internal form.
+     * @param superClassName
+     *            name of the parent class in internal form.
+     */
+
+    public CLStackMap(ArrayList<CLInstruction> code,
+            Hashtable<String, Integer> labels, ArrayList<CLException> handlers,
+            CLConstantPool constantPool, String className,
+            String superClassName) {
+        this.code = code;
+        this.labels = labels;
+        this.handlers = handlers;
+        this.constantPool = constantPool;
+        this.className = className;
+        this.superClassName = superClassName;
+    }
+
+    /**
+     * Compute the frames of the method and return them as a StackMapTable
+     * attribute, or null if the method needs no frames.
+     *
+     * @param name
+     *            name of the method.
+     * @param descriptor
+     *            descriptor of the method.
+     * @param isStatic
+     *            whether the method is static.
+     * @param maxLocals
+     *            number of local variables of the method.
+     * @return the StackMapTable attribute or null.
+     */
+
+    public CLStackMapTableAttribute stackMapTable(String name,
+            String descriptor, boolean isStatic, int maxLocals) {
+        this.maxLocals = maxLocals;
+        int n = code.size();
+        in = new State[n];
+        worklist = new ArrayList<Integer>();
+        indexOf = new Hashtable<Integer, Integer>();
+        for (int i = 0; i < n; i++) {
+            indexOf.put(code.get(i).pc(), i);
+        }
+
+        // Propagate the types from the entry state
+        if (n > 0) {
+            merge(0, entryState(name, descriptor, isStatic));
+        }
+        while (!worklist.isEmpty() && error == null) {
+            int i = worklist.remove(worklist.size() - 1);
+            CLInstruction instr = code.get(i);
+            State state = in[i].copy();
+            for (CLException handler : handlers) {
+                if (handler.startPC <= instr.pc()
+                        && instr.pc() < handler.endPC) {
+                    State caught = new State(state.locals.clone());
+                    caught.push(descriptorFor(handler.catchType == null
+                            ? "java/lang/Throwable" : handler.catchType));
+                    merge(indexOf.get(handler.handlerPC), caught);
+                }
+            }
+            execute(instr, state);
+            if (instr instanceof CLFlowControlInstruction) {
+                for (String label : ((CLFlowControlInstruction) instr)
+                        .jumpLabels()) {
+                    // An unknown label is reported by CLEmitter
+                    Integer pc = labels.get(label);
+                    if (pc != null && indexOf.containsKey(pc)) {
+                        merge(indexOf.get(pc), state);
+                    }
+                }
+            }
+            if (!endsFlow(instr) && i + 1 < n) {
+                merge(i + 1, state);
+            }
+        }
+        if (error != null) {
+            return null;
+        }
+
+        // The instructions that (reachable) jumps and handlers go to
+        // need a frame
+        boolean[] isTarget = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            CLInstruction instr = code.get(i);
+            if (in[i] != null && instr instanceof CLFlowControlInstruction) {
+                for (String label : ((CLFlowControlInstruction) instr)
+                        .jumpLabels()) {
+                    Integer pc = labels.get(label);
+                    if (pc != null && indexOf.containsKey(pc)) {
+                        isTarget[indexOf.get(pc)] = true;
+                    }
+                }
+            }
+        }
+        for (CLException handler : handlers) {
+            isTarget[indexOf.get(handler.handlerPC)] = true;
+        }
+        isTarget = replaceDeadCode(isTarget);
+
+        // Encode the frames, each relative to the previous one
+        ArrayList<CLStackMapFrame> frames = new ArrayList<CLStackMapFrame>();
+        ArrayList<String> previous = entryState(name, descriptor, isStatic)
+                .frameLocals();
+        int previousPC = -1;
+        for (int i = 0; i < code.size(); i++) {
+            if (isTarget[i]) {
+                int pc = code.get(i).pc();
+                ArrayList<String> locals = in[i].frameLocals();
+                frames.add(frame(previous, locals, in[i].stack, pc
+                        - previousPC - 1));
+                previous = locals;
+                previousPC = pc;
+            }
+        }
+        if (frames.isEmpty()) {
+            return null;
+        }
+        long attributeLength = 2;
+        for (CLStackMapFrame frame : frames) {
+            attributeLength += frame.size();
+        }
+        return new CLStackMapTableAttribute(
+                constantPool.constantUtf8Info(ATT_STACK_MAP_TABLE),
+                attributeLength, frames.size(), frames);
+    }
+
+    /**
+     * Return true if unreachable code was replaced; its frame has an item on
+     * the operand stack, so the method needs a stack of depth at least 1.
+     *
+     * @return true or false.
+     */
+
+    public boolean hasDeadCode() {
+        return hasDeadCode;
+    }
+
+    /**
+     * Return the description of the inconsistency that stopped the analysis,
+     * or null if there was none.
+     *
+     * @return the description or null.
+     */
+
+    public String error() {
+        return error;
+    }
+
+    /**
+     * Return the state on entry to the method: "this" (uninitialized in a
+     * constructor) and the parameters in the local variables, and an empty
+     * operand stack.
+     */
+
+    private State entryState(String name, String descriptor, boolean isStatic) {
+        State state = new State(new String[maxLocals]);
+        for (int i = 0; i < maxLocals; i++) {
+            state.locals[i] = "T";
+        }
+        int slot = 0;
+        if (!isStatic) {
+            state.locals[slot++] = name.equals("<init>")
+                    && !className.equals("java/lang/Object") ? "U"
+                    : descriptorFor(className);
+        }
+        for (String type : argumentTypes(descriptor)) {
+            state.locals[slot++] = type;
+            if (isCategory2(type)) {
+                slot++;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Merge the specified state into the entry state of the instruction at the
+     * specified index, and schedule the instruction if its entry state has
+     * changed.
+     */
+
+    private void merge(int i, State state) {
+        if (in[i] == null) {
+            in[i] = state.copy();
+            worklist.add(i);
+            return;
+        }
+        State target = in[i];
+        if (target.stack.size() != state.stack.size()) {
+            error = String.format("Inconsistent stack height at pc %d",
+                    code.get(i).pc());
+            return;
+        }
+        boolean changed = false;
+        for (int j = 0; j < maxLocals; j++) {
+            String type = mergeTypes(target.locals[j], state.locals[j], true);
+            if (!type.equals(target.locals[j])) {
+                target.locals[j] = type;
+                changed = true;
+            }
+        }
+        for (int j = 0; j < target.stack.size(); j++) {
+            String type = mergeTypes(target.stack.get(j), state.stack.get(j),
+                    false);
+            if (type == null) {
+                error = String.format("Inconsistent stack types at pc %d",
+                        code.get(i).pc());
+                return;
+            }
+            if (!type.equals(target.stack.get(j))) {
+                target.stack.set(j, type);
+                changed = true;
+            }
+        }
+        if (changed && !worklist.contains(i)) {
+            worklist.add(i);
+        }
+    }
+
+    /**
+     * Return the type that both specified types are assignable to: top for
+     * incompatible local variables, or null for incompatible stack items.
+     */
+
+    private String mergeTypes(String a, String b, boolean isLocal) {
+        if (a.equals(b)) {
+            return a;
+        } else if (isReference(a) && isReference(b)) {
+            return a.equals("N") ? b : b.equals("N") ? a : commonSuperType(a,
+                    b);
+        }
+        return isLocal ? "T" : null;
+    }
+
+    /**
+     * Return the closest common super type of the specified (distinct,
+     * non-null) reference types.
+     */
+
+    private String commonSuperType(String a, String b) {
+        if (a.startsWith("[") && b.startsWith("[")) {
+            String componentA = a.substring(1);
+            String componentB = b.substring(1);
+            if (isReference(componentA) && isReference(componentB)) {
+                return "[" + commonSuperType(componentA, componentB);
+            }
+        } else if (a.startsWith("L") && b.startsWith("L")) {
+            ArrayList<String> superClasses = new ArrayList<String>();
+            for (String c = internalName(a); c != null; c = superClassOf(c)) {
+                superClasses.add(c);
+            }
+            for (String c = internalName(b); c != null; c = superClassOf(c)) {
+                if (superClasses.contains(c)) {
+                    return descriptorFor(c);
+                }
+            }
+        }
+        return "Ljava/lang/Object;";
+    }
+
+    /**
+     * Return the parent of the specified class, or null if there is none or it
+     * is not known; interfaces have none.
+     */
+
+    private String superClassOf(String name) {
+        if (name.equals(className)) {
+            return superClassName;
+        }
+        Class<?> c = CLEmitter.lookupClass(name);
+        if (c == null || c.isInterface() || c.getSuperclass() == null) {
+            return null;
+        }
+        return c.getSuperclass().getName().replace('.', '/');
+    }
+
+    /**
+     * Update the state by the effect of the specified instruction.
+     */
+
+    private void execute(CLInstruction instr, State state) {
+        int opcode = instr.opcode();
+        String type;
+        switch (opcode) {
+        case NOP:
+        case IINC:
+        case WIDE:
+        case GOTO:
+        case GOTO_W:
+        case RETURN:
+            break;
+        case ACONST_NULL:
+            state.push("N");
+            break;
+        case ICONST_M1:
+        case ICONST_0:
+        case ICONST_1:
+        case ICONST_2:
+        case ICONST_3:
+        case ICONST_4:
+        case ICONST_5:
+        case BIPUSH:
+        case SIPUSH:
+            state.push("I");
+            break;
+        case LCONST_0:
+        case LCONST_1:
+            state.push("J");
+            break;
+        case FCONST_0:
+        case FCONST_1:
+        case FCONST_2:
+            state.push("F");
+            break;
+        case DCONST_0:
+        case DCONST_1:
+            state.push("D");
+            break;
+        case LDC:
+        case LDC_W:
+        case LDC2_W:
+            state.push(constantType(((CLLoadStoreInstruction) instr)
+                    .constVal()));
+            break;
+        case ILOAD:
+        case ILOAD_0:
+        case ILOAD_1:
+        case ILOAD_2:
+        case ILOAD_3:
+            state.push("I");
+            break;
+        case LLOAD:
+        case LLOAD_0:
+        case LLOAD_1:
+        case LLOAD_2:
+        case LLOAD_3:
+            state.push("J");
+            break;
+        case FLOAD:
+        case FLOAD_0:
+        case FLOAD_1:
+        case FLOAD_2:
+        case FLOAD_3:
+            state.push("F");
+            break;
+        case DLOAD:
+        case DLOAD_0:
+        case DLOAD_1:
+        case DLOAD_2:
+        case DLOAD_3:
+            state.push("D");
+            break;
+        case ALOAD:
+        case ALOAD_0:
+        case ALOAD_1:
+        case ALOAD_2:
+        case ALOAD_3:
+            state.push(state.locals[instr.localVariableIndex()]);
+            break;
+        case ISTORE:
+        case ISTORE_0:
+        case ISTORE_1:
+        case ISTORE_2:
+        case ISTORE_3:
+        case LSTORE:
+        case LSTORE_0:
+        case LSTORE_1:
+        case LSTORE_2:
+        case LSTORE_3:
+        case FSTORE:
+        case FSTORE_0:
+        case FSTORE_1:
+        case FSTORE_2:
+        case FSTORE_3:
+        case DSTORE:
+        case DSTORE_0:
+        case DSTORE_1:
+        case DSTORE_2:
+        case DSTORE_3:
+        case ASTORE:
+        case ASTORE_0:
+        case ASTORE_1:
+        case ASTORE_2:
+        case ASTORE_3:
+            state.store(instr.localVariableIndex(), state.pop());
+            break;
+        case IALOAD:
+        case BALOAD:
+        case CALOAD:
+        case SALOAD:
+            state.pop(2);
+            state.push("I");
+            break;
+        case LALOAD:
+            state.pop(2);
+            state.push("J");
+            break;
+        case FALOAD:
+            state.pop(2);
+            state.push("F");
+            break;
+        case DALOAD:
+            state.pop(2);
+            state.push("D");
+            break;
+        case AALOAD:
+            state.pop();
+            type = state.pop();
+            state.push(type.startsWith("[") ? type.substring(1) : "N");
+            break;
+        case IASTORE:
+        case LASTORE:
+        case FASTORE:
+        case DASTORE:
+        case AASTORE:
+        case BASTORE:
+        case CASTORE:
+        case SASTORE:
+            state.pop(3);
+            break;
+        case POP:
+            state.pop();
+            break;
+        case POP2:
+            if (!isCategory2(state.pop())) {
+                state.pop();
+            }
+            break;
+        case DUP: {
+            String value1 = state.pop();
+            state.push(value1, value1);
+            break;
+        }
+        case DUP_X1: {
+            String value1 = state.pop();
+            String value2 = state.pop();
+            state.push(value1, value2, value1);
+            break;
+        }
+        case DUP_X2: {
+            String value1 = state.pop();
+            String value2 = state.pop();
+            if (isCategory2(value2)) {
+                state.push(value1, value2, value1);
+            } else {
+                String value3 = state.pop();
+                state.push(value1, value3, value2, value1);
+            }
+            break;
+        }
+        case DUP2: {
+            String value1 = state.pop();
+            if (isCategory2(value1)) {
+                state.push(value1, value1);
+            } else {
+                String value2 = state.pop();
+                state.push(value2, value1, value2, value1);
+            }
+            break;
+        }
+        case DUP2_X1: {
+            String value1 = state.pop();
+            String value2 = state.pop();
+            if (isCategory2(value1)) {
+                state.push(value1, value2, value1);
+            } else {
+                String value3 = state.pop();
+                state.push(value2, value1, value3, value2, value1);
+            }
+            break;
+        }
+        case DUP2_X2: {
+            String value1 = state.pop();
+            String value2 = state.pop();
+            if (isCategory2(value1) && isCategory2(value2)) {
+                state.push(value1, value2, value1);
+            } else if (isCategory2(value1)) {
+                String value3 = state.pop();
+                state.push(value1, value3, value2, value1);
+            } else {
+                String value3 = state.pop();
+                if (isCategory2(value3)) {
+                    state.push(value2, value1, value3, value2, value1);
+                } else {
+                    String value4 = state.pop();
+                    state.push(value2, value1, value4, value3, value2, value1);
+                }
+            }
+            break;
+        }
+        case SWAP: {
+            String value1 = state.pop();
+            String value2 = state.pop();
+            state.push(value1, value2);
+            break;
+        }
+        case IADD:
+        case ISUB:
+        case IMUL:
+        case IDIV:
+        case IREM:
+        case ISHL:
+        case ISHR:
+        case IUSHR:
+        case IAND:
+        case IOR:
+        case IXOR:
+        case LCMP:
+        case FCMPL:
+        case FCMPG:
+        case DCMPL:
+        case DCMPG:
+            state.pop(2);
+            state.push("I");
+            break;
+        case LADD:
+        case LSUB:
+        case LMUL:
+        case LDIV:
+        case LREM:
+        case LSHL:
+        case LSHR:
+        case LUSHR:
+        case LAND:
+        case LOR:
+        case LXOR:
+            state.pop(2);
+            state.push("J");
+            break;
+        case FADD:
+        case FSUB:
+        case FMUL:
+        case FDIV:
+        case FREM:
+            state.pop(2);
+            state.push("F");
+            break;
+        case DADD:
+        case DSUB:
+        case DMUL:
+        case DDIV:
+        case DREM:
+            state.pop(2);
+            state.push("D");
+            break;
+        case INEG:
+        case L2I:
+        case F2I:
+        case D2I:
+        case I2B:
+        case I2C:
+        case I2S:
+        case ARRAYLENGTH:
+        case INSTANCEOF:
+            state.pop();
+            state.push("I");
+            break;
+        case LNEG:
+        case I2L:
+        case F2L:
+        case D2L:
+            state.pop();
+            state.push("J");
+            break;
+        case FNEG:
+        case I2F:
+        case L2F:
+        case D2F:
+            state.pop();
+            state.push("F");
+            break;
+        case DNEG:
+        case I2D:
+        case L2D:
+        case F2D:
+            state.pop();
+            state.push("D");
+            break;
+        case IFEQ:
+        case IFNE:
+        case IFLT:
+        case IFGE:
+        case IFGT:
+        case IFLE:
+        case IFNULL:
+        case IFNONNULL:
+        case TABLESWITCH:
+        case LOOKUPSWITCH:
+        case IRETURN:
+        case LRETURN:
+        case FRETURN:
+        case DRETURN:
+        case ARETURN:
+        case ATHROW:
+        case MONITORENTER:
+        case MONITOREXIT:
+        case PUTSTATIC:
+            state.pop();
+            break;
+        case IF_ICMPEQ:
+        case IF_ICMPNE:
+        case IF_ICMPLT:
+        case IF_ICMPGE:
+        case IF_ICMPGT:
+        case IF_ICMPLE:
+        case IF_ACMPEQ:
+        case IF_ACMPNE:
+        case PUTFIELD:
+            state.pop(2);
+            break;
+        case GETSTATIC:
+            state.push(typeFor(memberDescriptor(((CLFieldInstruction) instr)
+                    .index())));
+            break;
+        case GETFIELD:
+            state.pop();
+            state.push(typeFor(memberDescriptor(((CLFieldInstruction) instr)
+                    .index())));
+            break;
+        case INVOKEVIRTUAL:
+        case INVOKESPECIAL:
+        case INVOKESTATIC:
+        case INVOKEINTERFACE:
+        case INVOKEDYNAMIC:
+            invoke((CLMethodInstruction) instr, state);
+            break;
+        case NEW:
+            state.push("U" + instr.pc());
+            break;
+        case NEWARRAY:
+            state.pop();
+            state.push("[" + "ZCFDBSIJ".charAt(((CLArrayInstruction) instr)
+                    .type() - 4));
+            break;
+        case ANEWARRAY:
+            state.pop();
+            state.push("["
+                    + descriptorFor(className(((CLArrayInstruction) instr)
+                            .type())));
+            break;
+        case MULTIANEWARRAY:
+            state.pop(((CLArrayInstruction) instr).dim());
+            state.push(className(((CLArrayInstruction) instr).type()));
+            break;
+        case CHECKCAST:
+            state.pop();
+            state.push(descriptorFor(className(((CLObjectInstruction) instr)
+                    .index())));
+            break;
+        default:
+            // JSR, JSR_W and RET
+            error = String.format("%s is not allowed in class files "
+                    + "with a StackMapTable", instr.mnemonic());
+        }
+    }
+
+    /**
+     * Update the state by the effect of the specified method invocation. A
+     * constructor invocation initializes its receiver everywhere in the state.
+     */
+
+    private void invoke(CLMethodInstruction instr, State state) {
+        int opcode = instr.opcode();
+        CLCPInfo member = constantPool.cpItem(instr.index());
+        int nameAndTypeIndex = member instanceof CLConstantInvokeDynamicInfo ? ((CLConstantInvokeDynamicInfo) member).nameAndTypeIndex
+                : ((CLConstantMemberRefInfo) member).nameAndTypeIndex;
+        CLConstantNameAndTypeInfo nameAndType = (CLConstantNameAndTypeInfo) constantPool
+                .cpItem(nameAndTypeIndex);
+        String name = utf8(nameAndType.nameIndex);
+        String descriptor = utf8(nameAndType.descriptorIndex);
+        state.pop(argumentTypes(descriptor).size());
+        if (opcode != INVOKESTATIC && opcode != INVOKEDYNAMIC) {
+            String receiver = state.pop();
+            if (opcode == INVOKESPECIAL && name.equals("<init>")
+                    && receiver.startsWith("U")) {
+                String initialized;
+                if (receiver.equals("U")) {
+                    initialized = descriptorFor(className);
+                } else {
+                    int pc = Integer.parseInt(receiver.substring(1));
+                    CLObjectInstruction allocation = (CLObjectInstruction) code
+                            .get(indexOf.get(pc));
+                    initialized = descriptorFor(className(allocation.index()));
+                }
+                state.replace(receiver, initialized);
+            }
+        }
+        String returnType = descriptor.substring(descriptor.indexOf(')') + 1);
+        if (!returnType.equals("V")) {
+            state.push(typeFor(returnType));
+        }
+    }
+
+    /**
+     * Replace each run of unreachable instructions by NOPs ending in an
+     * ATHROW, taking the same number of bytes so no pc changes, and give the
+     * run a frame with no locals and a Throwable on the operand stack.
+     *
+     * @return which of the new instructions need a frame.
+     */
+
+    private boolean[] replaceDeadCode(boolean[] isTarget) {
+        ArrayList<CLInstruction> live = new ArrayList<CLInstruction>();
+        ArrayList<State> states = new ArrayList<State>();
+        ArrayList<Boolean> targets = new ArrayList<Boolean>();
+        State dead = new State(new String[maxLocals]);
+        for (int k = 0; k < maxLocals; k++) {
+            dead.locals[k] = "T";
+        }
+        dead.push("Ljava/lang/Throwable;");
+        int n = code.size();
+        for (int i = 0; i < n;) {
+            if (in[i] != null) {
+                live.add(code.get(i));
+                states.add(in[i]);
+                targets.add(isTarget[i]);
+                i++;
+                continue;
+            }
+            int start = code.get(i).pc();
+            int end = start;
+            for (; i < n && in[i] == null; i++) {
+                end += 1 + code.get(i).operandCount();
+            }
+            for (int pc = start; pc < end; pc++) {
+                live.add(new CLMiscInstruction(pc < end - 1 ? NOP : ATHROW,
+                        pc));
+                states.add(dead);
+                targets.add(pc == start);
+            }
+            hasDeadCode = true;
+        }
+        if (!hasDeadCode) {
+            return isTarget;
+        }
+        code.clear();
+        code.addAll(live);
+        in = states.toArray(new State[states.size()]);
+        boolean[] newIsTarget = new boolean[targets.size()];
+        for (int i = 0; i < newIsTarget.length; i++) {
+            newIsTarget[i] = targets.get(i);
+        }
+        return newIsTarget;
+    }
+
+    /**
+     * Return a frame at the specified offset delta from the previous one,
+     * using the most compact frame type that describes it.
+     */
+
+    private CLStackMapFrame frame(ArrayList<String> previous,
+            ArrayList<String> locals, ArrayList<String> stack, int offsetDelta) {
+        ArrayList<CLVerificationTypeInfo> none = new ArrayList<CLVerificationTypeInfo>();
+        int k = locals.size() - previous.size();
+        if (stack.isEmpty() && locals.equals(previous)) {
+            return offsetDelta < SAME_LOCALS_1_STACK_ITEM ? new CLStackMapFrame(
+                    offsetDelta, offsetDelta, none, none)
+                    : new CLStackMapFrame(SAME_FRAME_EXTENDED, offsetDelta,
+                            none, none);
+        } else if (stack.size() == 1 && locals.equals(previous)) {
+            ArrayList<CLVerificationTypeInfo> item = verificationTypes(stack);
+            return offsetDelta < SAME_LOCALS_1_STACK_ITEM ? new CLStackMapFrame(
+                    SAME_LOCALS_1_STACK_ITEM + offsetDelta, offsetDelta, none,
+                    item)
+                    : new CLStackMapFrame(SAME_LOCALS_1_STACK_ITEM_EXTENDED,
+                            offsetDelta, none, item);
+        } else if (stack.isEmpty() && k < 0 && k >= -3
+                && previous.subList(0, locals.size()).equals(locals)) {
+            return new CLStackMapFrame(SAME_FRAME_EXTENDED + k, offsetDelta,
+                    none, none);
+        } else if (stack.isEmpty() && k > 0 && k <= 3
+                && locals.subList(0, previous.size()).equals(previous)) {
+            return new CLStackMapFrame(SAME_FRAME_EXTENDED + k, offsetDelta,
+                    verificationTypes(locals.subList(previous.size(), locals
+                            .size())), none);
+        }
+        return new CLStackMapFrame(FULL_FRAME, offsetDelta,
+                verificationTypes(locals), verificationTypes(stack));
+    }
+
+    /**
+     * Return the verification_type_info structures for the specified types.
+     */
+
+    private ArrayList<CLVerificationTypeInfo> verificationTypes(
+            java.util.List<String> types) {
+        ArrayList<CLVerificationTypeInfo> infos = new ArrayList<CLVerificationTypeInfo>();
+        for (String type : types) {
+            switch (type.charAt(0)) {
+            case 'T':
+                infos.add(new CLVerificationTypeInfo(ITEM_Top, 0));
+                break;
+            case 'I':
+                infos.add(new CLVerificationTypeInfo(ITEM_Integer, 0));
+                break;
+            case 'F':
+                infos.add(new CLVerificationTypeInfo(ITEM_Float, 0));
+                break;
+            case 'J':
+                infos.add(new CLVerificationTypeInfo(ITEM_Long, 0));
+                break;
+            case 'D':
+                infos.add(new CLVerificationTypeInfo(ITEM_Double, 0));
+                break;
+            case 'N':
+                infos.add(new CLVerificationTypeInfo(ITEM_Null, 0));
+                break;
+            case 'U':
+                infos.add(type.length() == 1 ? new CLVerificationTypeInfo(
+                        ITEM_UninitializedThis, 0)
+                        : new CLVerificationTypeInfo(ITEM_Uninitialized,
+                                Integer.parseInt(type.substring(1))));
+                break;
+            default:
+                infos.add(new CLVerificationTypeInfo(ITEM_Object, constantPool
+                        .constantClassInfo(internalName(type))));
+            }
+        }
+        return infos;
+    }
+
+    /**
+     * Return the type of the constant at the specified constant pool index.
+     */
+
+    private String constantType(int index) {
+        CLCPInfo constant = constantPool.cpItem(index);
+        if (constant instanceof CLConstantIntegerInfo) {
+            return "I";
+        } else if (constant instanceof CLConstantFloatInfo) {
+            return "F";
+        } else if (constant instanceof CLConstantLongInfo) {
+            return "J";
+        } else if (constant instanceof CLConstantDoubleInfo) {
+            return "D";
+        } else if (constant instanceof CLConstantStringInfo) {
+            return "Ljava/lang/String;";
+        } else if (constant instanceof CLConstantClassInfo) {
+            return "Ljava/lang/Class;";
+        } else if (constant instanceof CLConstantMethodTypeInfo) {
+            return "Ljava/lang/invoke/MethodType;";
+        }
+        return "Ljava/lang/invoke/MethodHandle;";
+    }
+
+    /**
+     * Return the descriptor of the field or method at the specified constant
+     * pool index.
+     */
+
+    private String memberDescriptor(int index) {
+        CLConstantMemberRefInfo member = (CLConstantMemberRefInfo) constantPool
+                .cpItem(index);
+        return utf8(((CLConstantNameAndTypeInfo) constantPool
+                .cpItem(member.nameAndTypeIndex)).descriptorIndex);
+    }
+
+    /**
+     * Return the name of the class at the specified constant pool index.
+     */
+
+    private String className(int index) {
+        CLConstantClassInfo c = (CLConstantClassInfo) constantPool.cpItem(index);
+        return utf8(c.nameIndex);
+    }
+
+    /**
+     * Return the string at the specified constant pool index.
+     */
+
+    private String utf8(int index) {
+        return new String(((CLConstantUtf8Info) constantPool.cpItem(index)).b);
+    }
+
+    /**
+     * Return the verification types of the arguments in the specified method
+     * descriptor.
+     */
+
+    private static ArrayList<String> argumentTypes(String descriptor) {
+        ArrayList<String> types = new ArrayList<String>();
+        int i = 1;
+        while (descriptor.charAt(i) != ')') {
+            int start = i;
+            while (descriptor.charAt(i) == '[') {
+                i++;
+            }
+            if (descriptor.charAt(i) == 'L') {
+                i = descriptor.indexOf(';', i);
+            }
+            i++;
+            types.add(typeFor(descriptor.substring(start, i)));
+        }
+        return types;
+    }
+
+    /**
+     * Return the verification type for the specified field descriptor.
+     */
+
+    private static String typeFor(String descriptor) {
+        switch (descriptor.charAt(0)) {
+        case 'Z':
+        case 'B':
+        case 'C':
+        case 'S':
+        case 'I':
+            return "I";
+        default:
+            return descriptor;
+        }
+    }
+
+    /**
+     * Return the type descriptor for the specified class name, which may be
+     * an array descriptor already.
+     */
+
+    private static String descriptorFor(String name) {
+        return name.startsWith("[") ? name : "L" + name + ";";
+    }
+
+    /**
+     * Return the class name (in internal form) for the specified reference
+     * type descriptor; an array descriptor is its own name.
+     */
+
+    private static String internalName(String descriptor) {
+        return descriptor.startsWith("L") ? descriptor.substring(1,
+                descriptor.length() - 1) : descriptor;
+    }
+
+    /**
+     * Return true if the specified type is a reference type or null; false
+     * otherwise.
+     */
+
+    private static boolean isReference(String type) {
+        return type.startsWith("L") || type.startsWith("[")
+                || type.equals("N");
+    }
+
+    /**
+     * Return true if the specified type is long or double; false otherwise.
+     */
+
+    private static boolean isCategory2(String type) {
+        return type.equals("J") || type.equals("D");
+    }
+
+    /**
+     * Return true if control never falls through the instruction; false
+     * otherwise.
+     */
+
+    private static boolean endsFlow(CLInstruction instr) {
+        switch (instr.opcode()) {
+        case GOTO:
+        case GOTO_W:
+        case TABLESWITCH:
+        case LOOKUPSWITCH:
+        case IRETURN:
+        case LRETURN:
+        case FRETURN:
+        case DRETURN:
+        case ARETURN:
+        case RETURN:
+        case ATHROW:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * The types of the local variables and operand stack items at some point
+     * in a method.
+     */
+
+    private static class State {
+
+        /** Types of the local variables. */
+        public String[] locals;
+
+        /** Types of the operand stack items, the top last. */
+        public ArrayList<String> stack;
+
+        /**
+         * Construct a State with the specified local variables and an empty
+         * operand stack.
+         */
+
+        public State(String[] locals) {
+            this.locals = locals;
+            stack = new ArrayList<String>();
+        }
+
+        /**
+         * Return a copy of this state.
+         */
+
+        public State copy() {
+            State copy = new State(locals.clone());
+            copy.stack.addAll(stack);
+            return copy;
+        }
+
+        /**
+         * Push the specified types, in order.
+         */
+
+        public void push(String... types) {
+            for (String type : types) {
+                stack.add(type);
+            }
+        }
+
+        /**
+         * Pop and return the top type.
+         */
+
+        public String pop() {
+            return stack.remove(stack.size() - 1);
+        }
+
+        /**
+         * Pop the specified number of types.
+         */
+
+        public void pop(int n) {
+            for (int i = 0; i < n; i++) {
+                pop();
+            }
+        }
+
+        /**
+         * Store the specified type in the local variable at the specified
+         * index; a long or double also takes the next one, and either breaks
+         * a long or double it partly overwrites.
+         */
+
+        public void store(int index, String type) {
+            if (index > 0 && isCategory2(locals[index - 1])) {
+                locals[index - 1] = "T";
+            }
+            locals[index] = type;
+            if (isCategory2(type)) {
+                locals[index + 1] = "T";
+            }
+        }
+
+        /**
+         * Replace every occurrence of one type by another.
+         */
+
+        public void replace(String from, String to) {
+            for (int i = 0; i < locals.length; i++) {
+                if (locals[i].equals(from)) {
+                    locals[i] = to;
+                }
+            }
+            for (int i = 0; i < stack.size(); i++) {
+                if (stack.get(i).equals(from)) {
+                    stack.set(i, to);
+                }
+            }
+        }
+
+        /**
+         * Return the types of the local variables as listed in a frame: a
+         * long or double stands for both its variables, and trailing tops
+         * are left out.
+         */
+
+        public ArrayList<String> frameLocals() {
+            ArrayList<String> types = new ArrayList<String>();
+            int end = locals.length;
+            while (end > 0 && locals[end - 1].equals("T")) {
+                end--;
+            }
+            for (int i = 0; i < end; i += isCategory2(locals[i]) ? 2 : 1) {
+                types.add(locals[i]);
+            }
+            return types;
+        }
+
+    }
+
+}
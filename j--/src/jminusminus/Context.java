@@ -51,6 +51,12 @@ class Context {
      */
     protected Map<String, IDefn> entries;
 
+    /**
+     * The switch or loop statement this (local) context is the body of, if
+     * any; break statements in here exit it.
+     */
+    protected JBreakable breakTarget;
+
     /**
      * Construct a Context.
      * 
@@ -194,6 +200,25 @@ class Context {
         return (MethodContext) context;
     }
 
+    /**
+     * Return the statement that an (unlabeled) break statement in this context
+     * exits, i.e., the closest enclosing switch or loop statement. Return null
+     * if there's none within the method.
+     * 
+     * @return the break target.
+     */
+
+    public JBreakable breakTarget() {
+        Context context = this;
+        while (context instanceof LocalContext) {
+            if (context.breakTarget != null) {
+                return context.breakTarget;
+            }
+            context = context.surroundingContext();
+        }
+        return null;
+    }
+
     /**
      * The names declared in this context.
      * 
@@ -343,6 +368,18 @@ class LocalContext extends Context {
         return offset++;
     }
 
+    /**
+     * Record that this context is the body of the given switch or loop
+     * statement.
+     * 
+     * @param breakTarget
+     *            the statement that break statements in here exit.
+     */
+
+    public void setBreakTarget(JBreakable breakTarget) {
+        this.breakTarget = breakTarget;
+    }
+
     /**
      * @inheritDoc
      */
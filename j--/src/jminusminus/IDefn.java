@@ -73,6 +73,15 @@ class LocalVariableDefn implements IDefn {
     /** Has this local variable been initialized? */
     private boolean isInitialized;
 
+    /** Was this local variable declared final (and initialized)? */
+    private boolean isFinal;
+
+    /**
+     * The value of this local variable if it is a constant variable (final,
+     * and initialized with a constant expression); null otherwise.
+     */
+    private JExpression constantValue;
+
     /**
      * Construct a local variable definition for a local variable.
      * 
@@ -126,4 +135,45 @@ class LocalVariableDefn implements IDefn {
         return isInitialized;
     }
 
+    /**
+     * Mark this local variable as final; it may not be assigned again.
+     */
+
+    public void makeFinal() {
+        this.isFinal = true;
+    }
+
+    /**
+     * Was this local variable declared final?
+     * 
+     * @return true or false.
+     */
+
+    public boolean isFinal() {
+        return isFinal;
+    }
+
+    /**
+     * Record the (folded) constant value of this local variable.
+     * 
+     * @param constantValue
+     *            the literal the variable is initialized with.
+     */
+
+    public void setConstantValue(JExpression constantValue) {
+        this.constantValue = constantValue;
+    }
+
+    /**
+     * The constant value of this local variable, or null if it's not a
+     * constant variable. References to a constant variable are replaced by its
+     * value.
+     * 
+     * @return the constant value.
+     */
+
+    public JExpression constantValue() {
+        return constantValue;
+    }
+
 }
@@ -68,7 +68,10 @@ class JArrayInitializer
 
     /**
      * Perform code generation necessary to construct the
-     * initializing array and leave it on top of the stack.
+     * initializing array and leave it on top of the stack. An
+     * initializer with too many constant elements to store
+     * inline stores them from helper methods (see
+     * MethodSplitter).
      * 
      * @param output
      *                the code emitter (basically an abstraction
@@ -89,11 +92,51 @@ class JArrayInitializer
 
         // Code to load initial values and store them as
         // elements in the newly created array.
+        MethodSplitter splitter = output.methodSplitter();
+        if (splitter == null || !isSplit()) {
+            codegenStores(DUP, 0, initials.size(), output);
+            return;
+        }
+        int from = 0;
+        int weight = 0;
         for (int i = 0; i < initials.size(); i++) {
+            int elementWeight = weight(initials.get(i));
+            if (i > from
+                && weight + elementWeight > MethodSplitter.ARRAY_CHUNK) {
+                splitter.codegenFill(this, from, i, output);
+                from = i;
+                weight = 0;
+            }
+            weight += elementWeight;
+        }
+        splitter.codegenFill(this, from, initials.size(), output);
+    }
+
+    /**
+     * Generate code to store a range of the initial values as
+     * elements of the array.
+     * 
+     * @param load
+     *                instruction that pushes the array: DUP
+     *                when it is on top of the stack, ALOAD_0
+     *                when it is the first argument.
+     * @param from
+     *                index of the first element.
+     * @param to
+     *                index past the last element.
+     * @param output
+     *                the code emitter (basically an abstraction
+     *                for producing the .class file).
+     */
+
+    public void codegenStores(int load, int from, int to,
+        CLEmitter output) {
+        Type componentType = type.componentType();
+        for (int i = from; i < to; i++) {
             JExpression initExpr = initials.get(i);
 
-            // Duplicate the array for each element store
-            output.addNoArgInstruction(DUP);
+            // Push the array for each element store
+            output.addNoArgInstruction(load);
 
             // Code to push index for store
             new JLiteralInt(line, String.valueOf(i)).codegen(output);
@@ -114,6 +157,72 @@ class JArrayInitializer
         }
     }
 
+    /**
+     * Are the elements stored from helper methods? They are if
+     * there are too many to store inline, and all of them are
+     * constant, so that the helpers need no local variables.
+     * 
+     * @return true or false.
+     */
+
+    private boolean isSplit() {
+        return hasConstantElements()
+            && elementsWeight() > MethodSplitter.ARRAY_CHUNK;
+    }
+
+    /**
+     * Are all the elements (of nested initializers too)
+     * constants or null?
+     * 
+     * @return true or false.
+     */
+
+    private boolean hasConstantElements() {
+        for (JExpression initial : initials) {
+            if (!(initial.isConstant()
+                || initial instanceof JLiteralNull
+                || initial instanceof JArrayInitializer
+                && ((JArrayInitializer) initial)
+                    .hasConstantElements())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return the number of element stores that storing all the
+     * elements inline takes, nested initializers included.
+     * 
+     * @return the number of stores.
+     */
+
+    private int elementsWeight() {
+        int weight = 0;
+        for (JExpression initial : initials) {
+            weight += weight(initial);
+        }
+        return weight;
+    }
+
+    /**
+     * Return the number of element stores, or helper calls,
+     * that storing the specified element takes.
+     * 
+     * @param initial
+     *                the element.
+     * @return the number of stores.
+     */
+
+    private static int weight(JExpression initial) {
+        if (!(initial instanceof JArrayInitializer)) {
+            return 1;
+        }
+        JArrayInitializer array = (JArrayInitializer) initial;
+        return 1 + (array.isSplit() ? array.elementsWeight()
+            / MethodSplitter.ARRAY_CHUNK + 1 : array.elementsWeight());
+    }
+
     /**
      * @inheritDoc
      */
@@ -30,6 +30,57 @@ abstract class JAssignment extends JBinaryExpression {
         super(line, operator, lhs, rhs);
     }
 
+    /**
+     * Analyze the lhs as a lhs, reporting an error if it isn't one. Assigning
+     * to a final variable is reported by the lhs itself.
+     * 
+     * @param context
+     *            context in which names are resolved.
+     * @return false if an error was reported; true otherwise.
+     */
+
+    protected boolean analyzeLhs(Context context) {
+        if (!(lhs instanceof JLhs)) {
+            JAST.compilationUnit.reportSemanticError(line(),
+                    "Illegal lhs for assignment");
+            return false;
+        }
+        lhs = (JExpression) ((JLhs) lhs).analyzeLhs(context);
+        return true;
+    }
+
+    /**
+     * If the lhs is an int local variable and the rhs a constant whose value
+     * (negated, if so asked) fits the signed 16-bit operand of a (wide) IINC,
+     * generate an IINC adding that value to the variable and, unless this is a
+     * statement expression, load the new value; this saves the load, add and
+     * store. Otherwise, generate nothing.
+     * 
+     * @param output
+     *            the code emitter (basically an abstraction for producing the
+     *            .class file).
+     * @param negate
+     *            whether the rhs is subtracted (rather than added).
+     * @return true if the IINC was generated; false otherwise.
+     */
+
+    protected boolean codegenIINC(CLEmitter output, boolean negate) {
+        if (!(lhs instanceof JVariable) || lhs.type() != Type.INT
+                || !isIntConstant(rhs)) {
+            return false;
+        }
+        long delta = negate ? -(long) intConstant(rhs) : intConstant(rhs);
+        if (delta < Short.MIN_VALUE || delta > Short.MAX_VALUE) {
+            return false;
+        }
+        int offset = ((LocalVariableDefn) ((JVariable) lhs).iDefn()).offset();
+        output.addIINCInstruction(offset, (int) delta);
+        if (!isStatementExpression) {
+            lhs.codegen(output);
+        }
+        return true;
+    }
+
 }
 
 /**
@@ -66,12 +117,7 @@ class JAssignOp extends JAssignment {
      */
 
     public JExpression analyze(Context context) {
-        if (!(lhs instanceof JLhs)) {
-            JAST.compilationUnit.reportSemanticError(line(),
-                    "Illegal lhs for assignment");
-        } else {
-            lhs = (JExpression) ((JLhs) lhs).analyzeLhs(context);
-        }
+        analyzeLhs(context);
         rhs = (JExpression) rhs.analyze(context);
         rhs.type().mustMatchExpected(line(), lhs.type());
         type = rhs.type();
@@ -146,9 +192,8 @@ class JPlusAssignOp extends JAssignment {
             JAST.compilationUnit.reportSemanticError(line(),
                     "Illegal lhs for assignment");
 	    return this;
-        } else {
-            lhs = (JExpression) ((JLhs) lhs).analyzeLhs(context);
         }
+        analyzeLhs(context);
         rhs = (JExpression) rhs.analyze(context);
         if (lhs.type().equals(Type.INT)) {
             rhs.type().mustMatchExpected(line(), Type.INT);
@@ -167,7 +212,8 @@ class JPlusAssignOp extends JAssignment {
      * Code generation for += involves, generating code for loading any
      * necessary l-value onto the stack, for (unless a string concatenation)
      * loading the r-value, for (unless a statement) copying the r-value to its
-     * proper place on the stack, and for doing the store.
+     * proper place on the stack, and for doing the store. Adding a (small
+     * enough) constant to an int local is done with a single IINC.
      * 
      * @param output
      *            the code emitter (basically an abstraction for producing the
@@ -175,6 +221,9 @@ class JPlusAssignOp extends JAssignment {
      */
 
     public void codegen(CLEmitter output) {
+        if (codegenIINC(output, false)) {
+            return;
+        }
         ((JLhs) lhs).codegenLoadLhsLvalue(output);
         if (lhs.type().equals(Type.STRING)) {
             rhs.codegen(output);
@@ -191,3 +240,337 @@ class JPlusAssignOp extends JAssignment {
     }
 
 }
+
+/**
+ * The AST node for a compound assignment on ints, other than += (which also
+ * concatenates Strings): -=, *=, /=, %=, <<=, >>=, >>>=, &=, |= and ^=. The
+ * lhs is evaluated once: its l-value (target object, or array and index) is
+ * loaded and duplicated to fetch the r-value, and (unless a statement) the
+ * result is copied below it with DUP_X1 or DUP_X2 before the store.
+ */
+
+abstract class JCompoundAssignment extends JAssignment {
+
+    /** The instruction that combines the lhs and rhs values. */
+    private int opcode;
+
+    /**
+     * Construct an AST node for a compound assignment.
+     * 
+     * @param line
+     *            line in which the assignment expression occurs in the source
+     *            file.
+     * @param operator
+     *            the actual assignment operator.
+     * @param opcode
+     *            the instruction that combines the lhs and rhs values.
+     * @param lhs
+     *            the lhs operand.
+     * @param rhs
+     *            the rhs operand.
+     */
+
+    protected JCompoundAssignment(int line, String operator, int opcode,
+            JExpression lhs, JExpression rhs) {
+        super(line, operator, lhs, rhs);
+        this.opcode = opcode;
+    }
+
+    /**
+     * Analyze the lhs and rhs, check that both are ints, and set the result
+     * type.
+     * 
+     * @param context
+     *            context in which names are resolved.
+     * @return the analyzed (and possibly rewritten) AST subtree.
+     */
+
+    public JExpression analyze(Context context) {
+        type = Type.INT;
+        if (!analyzeLhs(context)) {
+            return this;
+        }
+        rhs = (JExpression) rhs.analyze(context);
+        lhs.type().mustMatchExpected(line(), Type.INT);
+        rhs.type().mustMatchExpected(line(), Type.INT);
+        return this;
+    }
+
+    /**
+     * Code generation involves generating code for loading any necessary
+     * l-value onto the stack, for loading the r-value and the rhs, for
+     * combining them, for (unless a statement) copying the result to its
+     * proper place on the stack, and for doing the store. Subtracting a (small
+     * enough) constant from an int local is done with a single IINC.
+     * 
+     * @param output
+     *            the code emitter (basically an abstraction for producing the
+     *            .class file).
+     */
+
+    public void codegen(CLEmitter output) {
+        if (opcode == ISUB && codegenIINC(output, true)) {
+            return;
+        }
+        ((JLhs) lhs).codegenLoadLhsLvalue(output);
+        ((JLhs) lhs).codegenLoadLhsRvalue(output);
+        rhs.codegen(output);
+        output.addNoArgInstruction(opcode);
+        if (!isStatementExpression) {
+            // Generate code to leave the r-value atop stack
+            ((JLhs) lhs).codegenDuplicateRvalue(output);
+        }
+        ((JLhs) lhs).codegenStore(output);
+    }
+
+}
+
+/**
+ * The AST node for a -= expression.
+ */
+
+class JMinusAssignOp extends JCompoundAssignment {
+
+    /**
+     * Construct the AST node for a -= expression given its lhs and rhs
+     * operands.
+     * 
+     * @param line
+     *            line in which the assignment expression occurs in the source
+     *            file.
+     * @param lhs
+     *            the lhs operand.
+     * @param rhs
+     *            the rhs operand.
+     */
+
+    public JMinusAssignOp(int line, JExpression lhs, JExpression rhs) {
+        super(line, "-=", ISUB, lhs, rhs);
+    }
+
+}
+
+/**
+ * The AST node for a *= expression.
+ */
+
+class JMultiplyAssignOp extends JCompoundAssignment {
+
+    /**
+     * Construct the AST node for a *= expression given its lhs and rhs
+     * operands.
+     * 
+     * @param line
+     *            line in which the assignment expression occurs in the source
+     *            file.
+     * @param lhs
+     *            the lhs operand.
+     * @param rhs
+     *            the rhs operand.
+     */
+
+    public JMultiplyAssignOp(int line, JExpression lhs, JExpression rhs) {
+        super(line, "*=", IMUL, lhs, rhs);
+    }
+
+}
+
+/**
+ * The AST node for a /= expression.
+ */
+
+class JDivideAssignOp extends JCompoundAssignment {
+
+    /**
+     * Construct the AST node for a /= expression given its lhs and rhs
+     * operands.
+     * 
+     * @param line
+     *            line in which the assignment expression occurs in the source
+     *            file.
+     * @param lhs
+     *            the lhs operand.
+     * @param rhs
+     *            the rhs operand.
+     */
+
+    public JDivideAssignOp(int line, JExpression lhs, JExpression rhs) {
+        super(line, "/=", IDIV, lhs, rhs);
+    }
+
+}
+
+/**
+ * The AST node for a %= expression.
+ */
+
+class JModuloAssignOp extends JCompoundAssignment {
+
+    /**
+     * Construct the AST node for a %= expression given its lhs and rhs
+     * operands.
+     * 
+     * @param line
+     *            line in which the assignment expression occurs in the source
+     *            file.
+     * @param lhs
+     *            the lhs operand.
+     * @param rhs
+     *            the rhs operand.
+     */
+
+    public JModuloAssignOp(int line, JExpression lhs, JExpression rhs) {
+        super(line, "%=", IREM, lhs, rhs);
+    }
+
+}
+
+/**
+ * The AST node for a <<= expression.
+ */
+
+class JLShiftAssignOp extends JCompoundAssignment {
+
+    /**
+     * Construct the AST node for a <<= expression given its lhs and rhs
+     * operands.
+     * 
+     * @param line
+     *            line in which the assignment expression occurs in the source
+     *            file.
+     * @param lhs
+     *            the lhs operand.
+     * @param rhs
+     *            the rhs operand.
+     */
+
+    public JLShiftAssignOp(int line, JExpression lhs, JExpression rhs) {
+        super(line, "<<=", ISHL, lhs, rhs);
+    }
+
+}
+
+/**
+ * The AST node for a >>= expression.
+ */
+
+class JRShiftAssignOp extends JCompoundAssignment {
+
+    /**
+     * Construct the AST node for a >>= expression given its lhs and rhs
+     * operands.
+     * 
+     * @param line
+     *            line in which the assignment expression occurs in the source
+     *            file.
+     * @param lhs
+     *            the lhs operand.
+     * @param rhs
+     *            the rhs operand.
+     */
+
+    public JRShiftAssignOp(int line, JExpression lhs, JExpression rhs) {
+        super(line, ">>=", ISHR, lhs, rhs);
+    }
+
+}
+
+/**
+ * The AST node for a >>>= expression.
+ */
+
+class JUSRShiftAssignOp extends JCompoundAssignment {
+
+    /**
+     * Construct the AST node for a >>>= expression given its lhs and rhs
+     * operands.
+     * 
+     * @param line
+     *            line in which the assignment expression occurs in the source
+     *            file.
+     * @param lhs
+     *            the lhs operand.
+     * @param rhs
+     *            the rhs operand.
+     */
+
+    public JUSRShiftAssignOp(int line, JExpression lhs, JExpression rhs) {
+        super(line, ">>>=", IUSHR, lhs, rhs);
+    }
+
+}
+
+/**
+ * The AST node for an &= expression.
+ */
+
+class JBitAndAssignOp extends JCompoundAssignment {
+
+    /**
+     * Construct the AST node for an &= expression given its lhs and rhs
+     * operands.
+     * 
+     * @param line
+     *            line in which the assignment expression occurs in the source
+     *            file.
+     * @param lhs
+     *            the lhs operand.
+     * @param rhs
+     *            the rhs operand.
+     */
+
+    public JBitAndAssignOp(int line, JExpression lhs, JExpression rhs) {
+        super(line, "&=", IAND, lhs, rhs);
+    }
+
+}
+
+/**
+ * The AST node for an |= expression.
+ */
+
+class JBitOrAssignOp extends JCompoundAssignment {
+
+    /**
+     * Construct the AST node for an |= expression given its lhs and rhs
+     * operands.
+     * 
+     * @param line
+     *            line in which the assignment expression occurs in the source
+     *            file.
+     * @param lhs
+     *            the lhs operand.
+     * @param rhs
+     *            the rhs operand.
+     */
+
+    public JBitOrAssignOp(int line, JExpression lhs, JExpression rhs) {
+        super(line, "|=", IOR, lhs, rhs);
+    }
+
+}
+
+/**
+ * The AST node for a ^= expression.
+ */
+
+class JBitXorAssignOp extends JCompoundAssignment {
+
+    /**
+     * Construct the AST node for a ^= expression given its lhs and rhs
+     * operands.
+     * 
+     * @param line
+     *            line in which the assignment expression occurs in the source
+     *            file.
+     * @param lhs
+     *            the lhs operand.
+     * @param rhs
+     *            the rhs operand.
+     */
+
+    public JBitXorAssignOp(int line, JExpression lhs, JExpression rhs) {
+        super(line, "^=", IXOR, lhs, rhs);
+    }
+
+}
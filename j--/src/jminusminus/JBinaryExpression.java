@@ -75,8 +75,8 @@ abstract class JBinaryExpression extends JExpression {
 class JPlusOp extends JBinaryExpression {
 
     /**
-     * Construct an AST node for an addition expression given its line number,
-     * and the lhs and rhs operands.
+     * Construct an AST node for an addition expression given
+     * its line number, and the lhs and rhs operands.
      * 
      * @param line
      *            line in which the addition expression occurs in the source
@@ -95,7 +95,7 @@ class JPlusOp extends JBinaryExpression {
      * Analysis involves first analyzing the operands. If this is a string
      * concatenation, we rewrite the subtree to make that explicit (and analyze
      * that). Otherwise we check the types of the addition operands and compute
-     * the result type.
+     * the result type; an addition of two constants is folded.
      * 
      * @param context
      *            context in which names are resolved.
@@ -110,6 +110,9 @@ class JPlusOp extends JBinaryExpression {
                     .analyze(context);
         } else if (lhs.type() == Type.INT && rhs.type() == Type.INT) {
             type = Type.INT;
+            if (isIntConstant(lhs) && isIntConstant(rhs)) {
+                return foldTo(intConstant(lhs) + intConstant(rhs));
+            }
         } else {
             type = Type.ANY;
             JAST.compilationUnit.reportSemanticError(line(),
@@ -164,7 +167,8 @@ class JSubtractOp extends JBinaryExpression {
 
     /**
      * Analyzing the - operation involves analyzing its operands, checking
-     * types, and determining the result type.
+     * types, and determining the result type. If both operands are constants
+     * the operation is folded.
      * 
      * @param context
      *            context in which names are resolved.
@@ -177,6 +181,9 @@ class JSubtractOp extends JBinaryExpression {
         lhs.type().mustMatchExpected(line(), Type.INT);
         rhs.type().mustMatchExpected(line(), Type.INT);
         type = Type.INT;
+        if (isIntConstant(lhs) && isIntConstant(rhs)) {
+            return foldTo(intConstant(lhs) - intConstant(rhs));
+        }
         return this;
     }
 
@@ -222,7 +229,8 @@ class JMultiplyOp extends JBinaryExpression {
 
     /**
      * Analyzing the * operation involves analyzing its operands, checking
-     * types, and determining the result type.
+     * types, and determining the result type. If both operands are constants
+     * the operation is folded.
      * 
      * @param context
      *            context in which names are resolved.
@@ -235,6 +243,9 @@ class JMultiplyOp extends JBinaryExpression {
         lhs.type().mustMatchExpected(line(), Type.INT);
         rhs.type().mustMatchExpected(line(), Type.INT);
         type = Type.INT;
+        if (isIntConstant(lhs) && isIntConstant(rhs)) {
+            return foldTo(intConstant(lhs) * intConstant(rhs));
+        }
         return this;
     }
 
@@ -283,7 +294,9 @@ class JDivideOp extends JBinaryExpression {
 
     /**
      * Analyzing the / operation involves analyzing its operands, checking
-     * types, and determining the result type.
+     * types, and determining the result type. If both operands are constants
+     * the operation is folded, unless the divisor is zero; in that case, as in
+     * Java, the expression is not a constant and throws at run-time.
      *
      * @param context
      *            context in which names are resolved.
@@ -296,6 +309,9 @@ class JDivideOp extends JBinaryExpression {
         lhs.type().mustMatchExpected(line(), Type.INT);
         rhs.type().mustMatchExpected(line(), Type.INT);
         type = Type.INT;
+        if (isIntConstant(lhs) && isIntConstant(rhs) && intConstant(rhs) != 0) {
+            return foldTo(intConstant(lhs) / intConstant(rhs));
+        }
         return this;
     }
 
@@ -340,7 +356,9 @@ class JRemOp extends JBinaryExpression {
 
     /**
      * Analyzing the % operation involves analyzing its operands, checking
-     * types, and determining the result type.
+     * types, and determining the result type. If both operands are constants
+     * the operation is folded, unless the divisor is zero; in that case, as in
+     * Java, the expression is not a constant and throws at run-time.
      *
      * @param context
      *            context in which names are resolved.
@@ -353,6 +371,9 @@ class JRemOp extends JBinaryExpression {
         lhs.type().mustMatchExpected(line(), Type.INT);
         rhs.type().mustMatchExpected(line(), Type.INT);
         type = Type.INT;
+        if (isIntConstant(lhs) && isIntConstant(rhs) && intConstant(rhs) != 0) {
+            return foldTo(intConstant(lhs) % intConstant(rhs));
+        }
         return this;
     }
 
@@ -373,399 +394,368 @@ class JRemOp extends JBinaryExpression {
 
 }
 
-class JMinusAssignOp extends JBinaryExpression {
-	public JMinusAssignOp(int line, JExpression lhs, JExpression rhs) {
-		super(line, "-=", lhs, rhs);
-	}
-
-	public JExpression analyze(Context context) {
-    	//FIXME Temporary placeholder
-		lhs = (JExpression) lhs.analyze(context);
-		rhs = (JExpression) rhs.analyze(context);
-		lhs.type().mustMatchExpected(line(), Type.INT);
-		rhs.type().mustMatchExpected(line(), Type.INT);
-		type = Type.INT;
-		return this;
-	}
-
-	public void codegen(CLEmitter output) {
-		//TODO
-	}
-}
+/**
+ * The AST node for a bitwise inclusive or (|) expression.
+ */
 
-class JMultiplyAssignOp extends JBinaryExpression {
-	public JMultiplyAssignOp(int line, JExpression lhs, JExpression rhs) {
-		super(line, "*=", lhs, rhs);
-	}
-
-	public JExpression analyze(Context context) {
-    	//FIXME Temporary placeholder 
-		lhs = (JExpression) lhs.analyze(context);
-		rhs = (JExpression) rhs.analyze(context);
-		lhs.type().mustMatchExpected(line(), Type.INT);
-		rhs.type().mustMatchExpected(line(), Type.INT);
-		type = Type.INT;
-		return this;
-	}
-
-	public void codegen(CLEmitter output) {
-		//TODO
-	}
-}
+class JBitOrOp extends JBinaryExpression {
 
-class JDivideAssignOp extends JBinaryExpression {
-	public JDivideAssignOp(int line, JExpression lhs, JExpression rhs) {
-		super(line, "/=", lhs, rhs);
-	}
-
-	public JExpression analyze(Context context) {
-    	//FIXME Temporary placeholder
-		lhs = (JExpression) lhs.analyze(context);
-		rhs = (JExpression) rhs.analyze(context);
-		lhs.type().mustMatchExpected(line(), Type.INT);
-		rhs.type().mustMatchExpected(line(), Type.INT);
-		type = Type.INT;
-		return this;
-	}
-
-	public void codegen(CLEmitter output) {
-		//TODO
-	}
-}
+    /**
+     * Construct an AST node for a bitwise inclusive or expression given
+     * its line number, and the lhs and rhs operands.
+     * 
+     * @param line
+     *            line in which the expression occurs in the source file.
+     * @param lhs
+     *            the lhs operand.
+     * @param rhs
+     *            the rhs operand.
+     */
 
-class JModuloAssignOp extends JBinaryExpression {
-	public JModuloAssignOp(int line, JExpression lhs, JExpression rhs) {
-		super(line, "%=", lhs, rhs);
-	}
-
-	public JExpression analyze(Context context) {
-    	//FIXME Temporary placeholder 
-		lhs = (JExpression) lhs.analyze(context);
-		rhs = (JExpression) rhs.analyze(context);
-		lhs.type().mustMatchExpected(line(), Type.INT);
-		rhs.type().mustMatchExpected(line(), Type.INT);
-		type = Type.INT;
-		return this;
-	}
-
-	public void codegen(CLEmitter output) {
-		//TODO
-	}
-}
-class JLShiftAssignOp extends JBinaryExpression {
-	public JLShiftAssignOp(int line, JExpression lhs, JExpression rhs) {
-		super(line, "<<=", lhs, rhs);
-	}
-
-	public JExpression analyze(Context context) {
-    	//FIXME Temporary placeholder
-		lhs = (JExpression) lhs.analyze(context);
-		rhs = (JExpression) rhs.analyze(context);
-		lhs.type().mustMatchExpected(line(), Type.INT);
-		rhs.type().mustMatchExpected(line(), Type.INT);
-		type = Type.INT;
-		return this;
-	}
-
-	public void codegen(CLEmitter output) {
-		//TODO
-	}
-}
+    public JBitOrOp(int line, JExpression lhs, JExpression rhs) {
+        super(line, "|", lhs, rhs);
+    }
 
-class JRShiftAssignOp extends JBinaryExpression {
-	public JRShiftAssignOp(int line, JExpression lhs, JExpression rhs) {
-		super(line, ">>=", lhs, rhs);
-	}
-
-	public JExpression analyze(Context context) {
-    	//FIXME Temporary placeholder 
-		lhs = (JExpression) lhs.analyze(context);
-		rhs = (JExpression) rhs.analyze(context);
-		lhs.type().mustMatchExpected(line(), Type.INT);
-		rhs.type().mustMatchExpected(line(), Type.INT);
-		type = Type.INT;
-		return this;
-	}
-
-	public void codegen(CLEmitter output) {
-		//TODO
-	}
-}
+    /**
+     * Analyzing the | operation involves analyzing its operands, checking
+     * types, and determining the result type. If both operands are constants
+     * the operation is folded.
+     * 
+     * @param context
+     *            context in which names are resolved.
+     * @return the analyzed (and possibly rewritten) AST subtree.
+     */
 
-class JUSRShiftAssignOp extends JBinaryExpression {
-	public JUSRShiftAssignOp(int line, JExpression lhs, JExpression rhs) {
-		super(line, ">>=", lhs, rhs);
-	}
-
-	public JExpression analyze(Context context) {
-    	//FIXME Temporary 
-		lhs = (JExpression) lhs.analyze(context);
-		rhs = (JExpression) rhs.analyze(context);
-		lhs.type().mustMatchExpected(line(), Type.INT);
-		rhs.type().mustMatchExpected(line(), Type.INT);
-		type = Type.INT;
-		return this;
-	}
-
-	public void codegen(CLEmitter output) {
-		//TODO
-	}
-}
+    public JExpression analyze(Context context) {
+        lhs = (JExpression) lhs.analyze(context);
+        rhs = (JExpression) rhs.analyze(context);
+        lhs.type().mustMatchExpected(line(), Type.INT);
+        rhs.type().mustMatchExpected(line(), Type.INT);
+        type = Type.INT;
+        if (isIntConstant(lhs) && isIntConstant(rhs)) {
+            return foldTo(intConstant(lhs) | intConstant(rhs));
+        }
+        return this;
+    }
 
-class JBitAndAssignOp extends JBinaryExpression {
-	public JBitAndAssignOp(int line, JExpression lhs, JExpression rhs) {
-		super(line, "&=", lhs, rhs);
-	}
-
-	public JExpression analyze(Context context) {
-    	//FIXME Temporary placeholder 
-		lhs = (JExpression) lhs.analyze(context);
-		rhs = (JExpression) rhs.analyze(context);
-		lhs.type().mustMatchExpected(line(), Type.INT);
-		rhs.type().mustMatchExpected(line(), Type.INT);
-		type = Type.INT;
-		return this;
-	}
-
-	public void codegen(CLEmitter output) {
-		//TODO
-	}
-}
+    /**
+     * Generating code for the | operation involves generating code for the
+     * two operands, and then the IOR instruction.
+     * 
+     * @param output
+     *            the code emitter (basically an abstraction for producing the
+     *            .class file).
+     */
 
-class JBitOrAssignOp extends JBinaryExpression {
-	public JBitOrAssignOp(int line, JExpression lhs, JExpression rhs) {
-		super(line, "|=", lhs, rhs);
-	}
-
-	public JExpression analyze(Context context) {
-    	//FIXME Temporary placeholder
-		lhs = (JExpression) lhs.analyze(context);
-		rhs = (JExpression) rhs.analyze(context);
-		lhs.type().mustMatchExpected(line(), Type.INT);
-		rhs.type().mustMatchExpected(line(), Type.INT);
-		type = Type.INT;
-		return this;
-	}
-
-	public void codegen(CLEmitter output) {
-		//TODO
-	}
-}
-class JBitXorAssignOp extends JBinaryExpression {
-	public JBitXorAssignOp(int line, JExpression lhs, JExpression rhs) {
-		super(line, "^=", lhs, rhs);
-	}
-
-	public JExpression analyze(Context context) {
-    	//FIXME Temporary placeholder 
-		lhs = (JExpression) lhs.analyze(context);
-		rhs = (JExpression) rhs.analyze(context);
-		lhs.type().mustMatchExpected(line(), Type.INT);
-		rhs.type().mustMatchExpected(line(), Type.INT);
-		type = Type.INT;
-		return this;
-	}
-
-	public void codegen(CLEmitter output) {
-		//TODO
-	}
-}
+    public void codegen(CLEmitter output) {
+        lhs.codegen(output);
+        rhs.codegen(output);
+        output.addNoArgInstruction(IOR);
+    }
 
-class JLogicalOrOp extends JBinaryExpression {
-	public JLogicalOrOp(int line, JExpression lhs, JExpression rhs) {
-		super(line, "||", lhs, rhs);
-	}
-
-	public JExpression analyze(Context context) {
-    	//FIXME Temporary placeholder 
-		lhs = (JExpression) lhs.analyze(context);
-		rhs = (JExpression) rhs.analyze(context);
-		lhs.type().mustMatchExpected(line(), Type.INT);
-		rhs.type().mustMatchExpected(line(), Type.INT);
-		type = Type.INT;
-		return this;
-	}
-
-	public void codegen(CLEmitter output) {
-		//TODO
-	}
 }
 
-class JBitOrOp extends JBinaryExpression {
-	public JBitOrOp(int line, JExpression lhs, JExpression rhs) {
-		super(line, "|", lhs, rhs);
-	}
-
-	public JExpression analyze(Context context) {
-    	//FIXME Temporary placeholder 
-		lhs = (JExpression) lhs.analyze(context);
-		rhs = (JExpression) rhs.analyze(context);
-		lhs.type().mustMatchExpected(line(), Type.INT);
-		rhs.type().mustMatchExpected(line(), Type.INT);
-		type = Type.INT;
-		return this;
-	}
-
-	public void codegen(CLEmitter output) {
-		//TODO
-	}
-}
+/**
+ * The AST node for a bitwise exclusive or (^) expression.
+ */
 
 class JBitXorOp extends JBinaryExpression {
-	public JBitXorOp(int line, JExpression lhs, JExpression rhs) {
-		super(line, "^", lhs, rhs);
-	}
-
-	public JExpression analyze(Context context) {
-    	//FIXME Temporary placeholder 
-		lhs = (JExpression) lhs.analyze(context);
-		rhs = (JExpression) rhs.analyze(context);
-		lhs.type().mustMatchExpected(line(), Type.INT);
-		rhs.type().mustMatchExpected(line(), Type.INT);
-		type = Type.INT;
-		return this;
-	}
-
-	public void codegen(CLEmitter output) {
-		//TODO
-	}
+
+    /**
+     * Construct an AST node for a bitwise exclusive or expression given
+     * its line number, and the lhs and rhs operands.
+     * 
+     * @param line
+     *            line in which the expression occurs in the source file.
+     * @param lhs
+     *            the lhs operand.
+     * @param rhs
+     *            the rhs operand.
+     */
+
+    public JBitXorOp(int line, JExpression lhs, JExpression rhs) {
+        super(line, "^", lhs, rhs);
+    }
+
+    /**
+     * Analyzing the ^ operation involves analyzing its operands, checking
+     * types, and determining the result type. If both operands are constants
+     * the operation is folded.
+     * 
+     * @param context
+     *            context in which names are resolved.
+     * @return the analyzed (and possibly rewritten) AST subtree.
+     */
+
+    public JExpression analyze(Context context) {
+        lhs = (JExpression) lhs.analyze(context);
+        rhs = (JExpression) rhs.analyze(context);
+        lhs.type().mustMatchExpected(line(), Type.INT);
+        rhs.type().mustMatchExpected(line(), Type.INT);
+        type = Type.INT;
+        if (isIntConstant(lhs) && isIntConstant(rhs)) {
+            return foldTo(intConstant(lhs) ^ intConstant(rhs));
+        }
+        return this;
+    }
+
+    /**
+     * Generating code for the ^ operation involves generating code for the
+     * two operands, and then the IXOR instruction.
+     * 
+     * @param output
+     *            the code emitter (basically an abstraction for producing the
+     *            .class file).
+     */
+
+    public void codegen(CLEmitter output) {
+        lhs.codegen(output);
+        rhs.codegen(output);
+        output.addNoArgInstruction(IXOR);
+    }
+
 }
 
+/**
+ * The AST node for a bitwise and (&) expression.
+ */
+
 class JBitAndOp extends JBinaryExpression {
-	public JBitAndOp(int line, JExpression lhs, JExpression rhs) {
-		super(line, "&", lhs, rhs);
-	}
-
-	public JExpression analyze(Context context) {
-    	//FIXME Temporary placeholder
-		lhs = (JExpression) lhs.analyze(context);
-		rhs = (JExpression) rhs.analyze(context);
-		lhs.type().mustMatchExpected(line(), Type.INT);
-		rhs.type().mustMatchExpected(line(), Type.INT);
-		type = Type.INT;
-		return this;
-	}
-
-	public void codegen(CLEmitter output) {
-		//TODO
-	}
-}
 
-class JNotEqualsOp extends JBinaryExpression {
-	public JNotEqualsOp(int line, JExpression lhs, JExpression rhs) {
-		super(line, "!=", lhs, rhs);
-	}
-
-	public JExpression analyze(Context context) {
-    	//FIXME Temporary placeholder that may not be correct.
-		lhs = (JExpression) lhs.analyze(context);
-		rhs = (JExpression) rhs.analyze(context);
-		lhs.type().mustMatchExpected(line(), Type.INT);
-		rhs.type().mustMatchExpected(line(), Type.INT);
-		type = Type.INT;
-		return this;
-	}
-
-	public void codegen(CLEmitter output) {
-		//TODO
-	}
-}
+    /**
+     * Construct an AST node for a bitwise and expression given
+     * its line number, and the lhs and rhs operands.
+     * 
+     * @param line
+     *            line in which the expression occurs in the source file.
+     * @param lhs
+     *            the lhs operand.
+     * @param rhs
+     *            the rhs operand.
+     */
+
+    public JBitAndOp(int line, JExpression lhs, JExpression rhs) {
+        super(line, "&", lhs, rhs);
+    }
+
+    /**
+     * Analyzing the & operation involves analyzing its operands, checking
+     * types, and determining the result type. If both operands are constants
+     * the operation is folded.
+     * 
+     * @param context
+     *            context in which names are resolved.
+     * @return the analyzed (and possibly rewritten) AST subtree.
+     */
+
+    public JExpression analyze(Context context) {
+        lhs = (JExpression) lhs.analyze(context);
+        rhs = (JExpression) rhs.analyze(context);
+        lhs.type().mustMatchExpected(line(), Type.INT);
+        rhs.type().mustMatchExpected(line(), Type.INT);
+        type = Type.INT;
+        if (isIntConstant(lhs) && isIntConstant(rhs)) {
+            return foldTo(intConstant(lhs) & intConstant(rhs));
+        }
+        return this;
+    }
+
+    /**
+     * Generating code for the & operation involves generating code for the
+     * two operands, and then the IAND instruction.
+     * 
+     * @param output
+     *            the code emitter (basically an abstraction for producing the
+     *            .class file).
+     */
+
+    public void codegen(CLEmitter output) {
+        lhs.codegen(output);
+        rhs.codegen(output);
+        output.addNoArgInstruction(IAND);
+    }
 
-class JGreaterEqualOp extends JBinaryExpression {
-	public JGreaterEqualOp(int line, JExpression lhs, JExpression rhs) {
-		super(line, ">=", lhs, rhs);
-	}
-
-	public JExpression analyze(Context context) {
-    	//FIXME Temporary placeholder that may not be correct.
-		lhs = (JExpression) lhs.analyze(context);
-		rhs = (JExpression) rhs.analyze(context);
-		lhs.type().mustMatchExpected(line(), Type.INT);
-		rhs.type().mustMatchExpected(line(), Type.INT);
-		type = Type.INT;
-		return this;
-	}
-
-	public void codegen(CLEmitter output) {
-		//TODO
-	}
-}
-class JLessThanOp extends JBinaryExpression {
-	public JLessThanOp(int line, JExpression lhs, JExpression rhs) {
-		super(line, "<", lhs, rhs);
-	}
-
-	public JExpression analyze(Context context) {
-    	//FIXME Temporary placeholder that may not be correct.
-		lhs = (JExpression) lhs.analyze(context);
-		rhs = (JExpression) rhs.analyze(context);
-		lhs.type().mustMatchExpected(line(), Type.INT);
-		rhs.type().mustMatchExpected(line(), Type.INT);
-		type = Type.INT;
-		return this;
-	}
-
-	public void codegen(CLEmitter output) {
-		//TODO
-	}
 }
 
+/**
+ * The AST node for a left shift (<<) expression.
+ */
+
 class JLeftShiftOp extends JBinaryExpression {
-	public JLeftShiftOp(int line, JExpression lhs, JExpression rhs) {
-		super(line, "<<", lhs, rhs);
-	}
-
-	public JExpression analyze(Context context) {
-    	//FIXME Temporary placeholder that may not be correct.
-		lhs = (JExpression) lhs.analyze(context);
-		rhs = (JExpression) rhs.analyze(context);
-		lhs.type().mustMatchExpected(line(), Type.INT);
-		rhs.type().mustMatchExpected(line(), Type.INT);
-		type = Type.INT;
-		return this;
-	}
-
-	public void codegen(CLEmitter output) {
-		//TODO
-	}
+
+    /**
+     * Construct an AST node for a left shift expression given
+     * its line number, and the lhs and rhs operands.
+     * 
+     * @param line
+     *            line in which the expression occurs in the source file.
+     * @param lhs
+     *            the lhs operand.
+     * @param rhs
+     *            the rhs operand.
+     */
+
+    public JLeftShiftOp(int line, JExpression lhs, JExpression rhs) {
+        super(line, "<<", lhs, rhs);
+    }
+
+    /**
+     * Analyzing the << operation involves analyzing its operands, checking
+     * types, and determining the result type. If both operands are constants
+     * the operation is folded.
+     * 
+     * @param context
+     *            context in which names are resolved.
+     * @return the analyzed (and possibly rewritten) AST subtree.
+     */
+
+    public JExpression analyze(Context context) {
+        lhs = (JExpression) lhs.analyze(context);
+        rhs = (JExpression) rhs.analyze(context);
+        lhs.type().mustMatchExpected(line(), Type.INT);
+        rhs.type().mustMatchExpected(line(), Type.INT);
+        type = Type.INT;
+        if (isIntConstant(lhs) && isIntConstant(rhs)) {
+            return foldTo(intConstant(lhs) << intConstant(rhs));
+        }
+        return this;
+    }
+
+    /**
+     * Generating code for the << operation involves generating code for the
+     * two operands, and then the ISHL instruction.
+     * 
+     * @param output
+     *            the code emitter (basically an abstraction for producing the
+     *            .class file).
+     */
+
+    public void codegen(CLEmitter output) {
+        lhs.codegen(output);
+        rhs.codegen(output);
+        output.addNoArgInstruction(ISHL);
+    }
+
 }
 
+/**
+ * The AST node for a signed right shift (>>) expression.
+ */
+
 class JRightShiftOp extends JBinaryExpression {
-	public JRightShiftOp(int line, JExpression lhs, JExpression rhs) {
-		super(line, ">>", lhs, rhs);
-	}
-
-	public JExpression analyze(Context context) {
-    	//FIXME Temporary placeholder that may not be correct.
-		lhs = (JExpression) lhs.analyze(context);
-		rhs = (JExpression) rhs.analyze(context);
-		lhs.type().mustMatchExpected(line(), Type.INT);
-		rhs.type().mustMatchExpected(line(), Type.INT);
-		type = Type.INT;
-		return this;
-	}
-
-	public void codegen(CLEmitter output) {
-		//TODO
-	}
+
+    /**
+     * Construct an AST node for a signed right shift expression given
+     * its line number, and the lhs and rhs operands.
+     * 
+     * @param line
+     *            line in which the expression occurs in the source file.
+     * @param lhs
+     *            the lhs operand.
+     * @param rhs
+     *            the rhs operand.
+     */
+
+    public JRightShiftOp(int line, JExpression lhs, JExpression rhs) {
+        super(line, ">>", lhs, rhs);
+    }
+
+    /**
+     * Analyzing the >> operation involves analyzing its operands, checking
+     * types, and determining the result type. If both operands are constants
+     * the operation is folded.
+     * 
+     * @param context
+     *            context in which names are resolved.
+     * @return the analyzed (and possibly rewritten) AST subtree.
+     */
+
+    public JExpression analyze(Context context) {
+        lhs = (JExpression) lhs.analyze(context);
+        rhs = (JExpression) rhs.analyze(context);
+        lhs.type().mustMatchExpected(line(), Type.INT);
+        rhs.type().mustMatchExpected(line(), Type.INT);
+        type = Type.INT;
+        if (isIntConstant(lhs) && isIntConstant(rhs)) {
+            return foldTo(intConstant(lhs) >> intConstant(rhs));
+        }
+        return this;
+    }
+
+    /**
+     * Generating code for the >> operation involves generating code for the
+     * two operands, and then the ISHR instruction.
+     * 
+     * @param output
+     *            the code emitter (basically an abstraction for producing the
+     *            .class file).
+     */
+
+    public void codegen(CLEmitter output) {
+        lhs.codegen(output);
+        rhs.codegen(output);
+        output.addNoArgInstruction(ISHR);
+    }
+
 }
 
+/**
+ * The AST node for an unsigned right shift (>>>) expression.
+ */
+
 class JUnsignedRightShiftOp extends JBinaryExpression {
-	public JUnsignedRightShiftOp(int line, JExpression lhs, JExpression rhs) {
-		super(line, ">>>", lhs, rhs);
-	}
-
-	public JExpression analyze(Context context) {
-    	//FIXME Temporary placeholder that may not be correct.
-		lhs = (JExpression) lhs.analyze(context);
-		rhs = (JExpression) rhs.analyze(context);
-		lhs.type().mustMatchExpected(line(), Type.INT);
-		rhs.type().mustMatchExpected(line(), Type.INT);
-		type = Type.INT;
-		return this;
-	}
-
-	public void codegen(CLEmitter output) {
-		//TODO
-	}
-}
\ No newline at end of file
+
+    /**
+     * Construct an AST node for an unsigned right shift expression given
+     * its line number, and the lhs and rhs operands.
+     * 
+     * @param line
+     *            line in which the expression occurs in the source file.
+     * @param lhs
+     *            the lhs operand.
+     * @param rhs
+     *            the rhs operand.
+     */
+
+    public JUnsignedRightShiftOp(int line, JExpression lhs, JExpression rhs) {
+        super(line, ">>>", lhs, rhs);
+    }
+
+    /**
+     * Analyzing the >>> operation involves analyzing its operands, checking
+     * types, and determining the result type. If both operands are constants
+     * the operation is folded.
+     * 
+     * @param context
+     *            context in which names are resolved.
+     * @return the analyzed (and possibly rewritten) AST subtree.
+     */
+
+    public JExpression analyze(Context context) {
+        lhs = (JExpression) lhs.analyze(context);
+        rhs = (JExpression) rhs.analyze(context);
+        lhs.type().mustMatchExpected(line(), Type.INT);
+        rhs.type().mustMatchExpected(line(), Type.INT);
+        type = Type.INT;
+        if (isIntConstant(lhs) && isIntConstant(rhs)) {
+            return foldTo(intConstant(lhs) >>> intConstant(rhs));
+        }
+        return this;
+    }
+
+    /**
+     * Generating code for the >>> operation involves generating code for the
+     * two operands, and then the IUSHR instruction.
+     * 
+     * @param output
+     *            the code emitter (basically an abstraction for producing the
+     *            .class file).
+     */
+
+    public void codegen(CLEmitter output) {
+        lhs.codegen(output);
+        rhs.codegen(output);
+        output.addNoArgInstruction(IUSHR);
+    }
+
+}
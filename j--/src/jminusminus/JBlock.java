@@ -43,6 +43,16 @@ class JBlock extends JStatement {
         return statements;
     }
 
+    /**
+     * Return the context of the block, once analyzed.
+     * 
+     * @return the local context.
+     */
+
+    public LocalContext context() {
+        return context;
+    }
+
     /**
      * Analyzing a block consists of creating a new nested context for that
      * block and analyzing each of its statements within that context.
@@ -60,9 +70,30 @@ class JBlock extends JStatement {
             statements.set(i, (JStatement) statements.get(i).analyze(
                     this.context));
         }
+
+        // Statements following one that cannot complete normally are
+        // unreachable; prune them.
+        for (int i = 0; i < statements.size() - 1; i++) {
+            if (!statements.get(i).completesNormally()) {
+                statements.subList(i + 1, statements.size()).clear();
+                break;
+            }
+        }
         return this;
     }
 
+    /**
+     * A block completes normally unless its last (reachable) statement does
+     * not.
+     * 
+     * @return true or false.
+     */
+
+    public boolean completesNormally() {
+        return statements.isEmpty()
+                || statements.get(statements.size() - 1).completesNormally();
+    }
+
     /**
      * Generating code for a block consists of generating code for each of its
      * statements.
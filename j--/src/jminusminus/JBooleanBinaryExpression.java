@@ -80,7 +80,8 @@ class JEqualOp extends JBooleanBinaryExpression {
 
     /**
      * Analyzing an equality expression means analyzing its operands and
-     * checking that the types match.
+     * checking that the types match. Comparing two constants folds to true or
+     * false.
      * 
      * @param context
      *            context in which names are resolved.
@@ -92,6 +93,11 @@ class JEqualOp extends JBooleanBinaryExpression {
         rhs = (JExpression) rhs.analyze(context);
         lhs.type().mustMatchExpected(line(), rhs.type());
         type = Type.BOOLEAN;
+        if (isIntConstant(lhs) && isIntConstant(rhs)) {
+            return foldTo(intConstant(lhs) == intConstant(rhs));
+        } else if (isBooleanConstant(lhs) && isBooleanConstant(rhs)) {
+            return foldTo(booleanConstant(lhs) == booleanConstant(rhs));
+        }
         return this;
     }
 
@@ -121,6 +127,78 @@ class JEqualOp extends JBooleanBinaryExpression {
 
 }
 
+/**
+ * The AST node for an inequality (!=) expression. Implements short-circuiting
+ * branching.
+ */
+
+class JNotEqualsOp extends JBooleanBinaryExpression {
+
+    /**
+     * Construct an AST node for an inequality expression.
+     * 
+     * @param line
+     *            line number in which the inequality expression occurs in the
+     *            source file.
+     * @param lhs
+     *            lhs operand.
+     * @param rhs
+     *            rhs operand.
+     */
+
+    public JNotEqualsOp(int line, JExpression lhs, JExpression rhs) {
+        super(line, "!=", lhs, rhs);
+    }
+
+    /**
+     * Analyzing an inequality expression means analyzing its operands and
+     * checking that the types match. Comparing two constants folds to true or
+     * false.
+     * 
+     * @param context
+     *            context in which names are resolved.
+     * @return the analyzed (and possibly rewritten) AST subtree.
+     */
+
+    public JExpression analyze(Context context) {
+        lhs = (JExpression) lhs.analyze(context);
+        rhs = (JExpression) rhs.analyze(context);
+        lhs.type().mustMatchExpected(line(), rhs.type());
+        type = Type.BOOLEAN;
+        if (isIntConstant(lhs) && isIntConstant(rhs)) {
+            return foldTo(intConstant(lhs) != intConstant(rhs));
+        } else if (isBooleanConstant(lhs) && isBooleanConstant(rhs)) {
+            return foldTo(booleanConstant(lhs) != booleanConstant(rhs));
+        }
+        return this;
+    }
+
+    /**
+     * Branching code generation for != operation.
+     * 
+     * @param output
+     *            the code emitter (basically an abstraction for producing the
+     *            .class file).
+     * @param targetLabel
+     *            target for generated branch instruction.
+     * @param onTrue
+     *            should we branch on true?
+     */
+
+    public void codegen(CLEmitter output, String targetLabel, boolean onTrue) {
+        lhs.codegen(output);
+        rhs.codegen(output);
+        if (lhs.type().isReference()) {
+            output.addBranchInstruction(onTrue ? IF_ACMPNE : IF_ACMPEQ,
+                    targetLabel);
+        } else {
+            output.addBranchInstruction(onTrue ? IF_ICMPNE : IF_ICMPEQ,
+                    targetLabel);
+        }
+    }
+
+}
+
 /**
  * The AST node for a logical AND (&&) expression. Implements short-circuiting
  * branching.
@@ -147,7 +225,9 @@ class JLogicalAndOp extends JBooleanBinaryExpression {
 
     /**
      * Analyzing a logical AND expression involves analyzing its operands and
-     * insuring they are boolean; the result type is of course boolean.
+     * insuring they are boolean; the result type is of course boolean. A
+     * constant lhs decides the expression: true && e is e, and false && e is
+     * false (e is never evaluated). Similarly e && true is e.
      * 
      * @param context
      *            context in which names are resolved.
@@ -160,6 +240,11 @@ class JLogicalAndOp extends JBooleanBinaryExpression {
         lhs.type().mustMatchExpected(line(), Type.BOOLEAN);
         rhs.type().mustMatchExpected(line(), Type.BOOLEAN);
         type = Type.BOOLEAN;
+        if (isBooleanConstant(lhs)) {
+            return booleanConstant(lhs) ? rhs : lhs;
+        } else if (isBooleanConstant(rhs) && booleanConstant(rhs)) {
+            return lhs;
+        }
         return this;
     }
 
@@ -189,3 +274,79 @@ class JLogicalAndOp extends JBooleanBinaryExpression {
     }
 
 }
+
+/**
+ * The AST node for a logical OR (||) expression. Implements short-circuiting
+ * branching.
+ */
+
+class JLogicalOrOp extends JBooleanBinaryExpression {
+
+    /**
+     * Construct an AST node for a logical OR expression given its line number,
+     * and lhs and rhs operands.
+     * 
+     * @param line
+     *            line in which the logical OR expression occurs in the source
+     *            file.
+     * @param lhs
+     *            lhs operand.
+     * @param rhs
+     *            rhs operand.
+     */
+
+    public JLogicalOrOp(int line, JExpression lhs, JExpression rhs) {
+        super(line, "||", lhs, rhs);
+    }
+
+    /**
+     * Analyzing a logical OR expression involves analyzing its operands and
+     * insuring they are boolean; the result type is of course boolean. A
+     * constant lhs decides the expression: true || e is true (e is never
+     * evaluated), and false || e is e. Similarly e || false is e.
+     * 
+     * @param context
+     *            context in which names are resolved.
+     * @return the analyzed (and possibly rewritten) AST subtree.
+     */
+
+    public JExpression analyze(Context context) {
+        lhs = (JExpression) lhs.analyze(context);
+        rhs = (JExpression) rhs.analyze(context);
+        lhs.type().mustMatchExpected(line(), Type.BOOLEAN);
+        rhs.type().mustMatchExpected(line(), Type.BOOLEAN);
+        type = Type.BOOLEAN;
+        if (isBooleanConstant(lhs)) {
+            return booleanConstant(lhs) ? lhs : rhs;
+        } else if (isBooleanConstant(rhs) && !booleanConstant(rhs)) {
+            return lhs;
+        }
+        return this;
+    }
+
+    /**
+     * The semantics of j-- require that we implement short-circuiting branching
+     * in implementing the logical OR.
+     * 
+     * @param output
+     *            the code emitter (basically an abstraction for producing the
+     *            .class file).
+     * @param targetLabel
+     *            target for generated branch instruction.
+     * @param onTrue
+     *            should we branch on true?
+     */
+
+    public void codegen(CLEmitter output, String targetLabel, boolean onTrue) {
+        if (onTrue) {
+            lhs.codegen(output, targetLabel, true);
+            rhs.codegen(output, targetLabel, true);
+        } else {
+            String trueLabel = output.createLabel();
+            lhs.codegen(output, trueLabel, true);
+            rhs.codegen(output, targetLabel, false);
+            output.addLabel(trueLabel);
+        }
+    }
+
+}
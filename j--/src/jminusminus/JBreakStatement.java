@@ -5,13 +5,15 @@ package jminusminus;
 import static jminusminus.CLConstants.*;
 
 /**
- * The AST node for a return-statement. If the enclosing method
- * in non-void, then there is a value to return, so we keep track
- * of the expression denoting that value and its type.
+ * The AST node for a break-statement. An (unlabeled) break exits the closest
+ * enclosing switch or loop statement, which is found during analysis.
  */
 
 class JBreakStatement extends JStatement {
 
+    /** The switch or loop statement this break exits. */
+    private JBreakable target;
+
     /**
      * Construct an AST node for a break-statement given its
      * line number.
@@ -25,16 +27,52 @@ class JBreakStatement extends JStatement {
         super(line);
     }
 
-    //TODO
+    /**
+     * Analysis involves finding the statement this break exits, and recording
+     * the break with it.
+     * 
+     * @param context
+     *            context in which names are resolved.
+     * @return the analyzed (and possibly rewritten) AST subtree.
+     */
+
     public JStatement analyze(Context context) {
-    	return this;
+        target = context.breakTarget();
+        if (target == null) {
+            JAST.compilationUnit.reportSemanticError(line(),
+                    "break outside switch or loop");
+        } else {
+            target.addBreak();
+        }
+        return this;
     }
 
-    //TODO
+    /**
+     * Generate code for the break, a jump past the statement it exits.
+     * 
+     * @param output
+     *            the code emitter (basically an abstraction for producing the
+     *            .class file).
+     */
+
     public void codegen(CLEmitter output) {
-    	
+        output.addBranchInstruction(GOTO, target.breakLabel());
     }
 
+    /**
+     * A break never completes normally.
+     * 
+     * @return false.
+     */
+
+    public boolean completesNormally() {
+        return false;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
     public void writeToStdOut(PrettyPrinter p) {
     	p.printf("<JBreakStatement line=\"%d\">\n", line());
     }
@@ -0,0 +1,29 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package jminusminus;
+
+/**
+ * The type of any statement that an (unlabeled) break statement can exit, i.e.,
+ * JSwitchStatement and the loop statements.
+ */
+
+interface JBreakable {
+
+    /**
+     * Record that a break statement exits this statement; such a statement can
+     * complete normally.
+     */
+
+    public void addBreak();
+
+    /**
+     * Return the label, placed just past the code for this statement, that a
+     * break statement jumps to. It is created when code for this statement is
+     * generated.
+     * 
+     * @return the break label.
+     */
+
+    public String breakLabel();
+
+}
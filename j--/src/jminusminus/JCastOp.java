@@ -117,6 +117,9 @@ class Conversions {
      */
     private Hashtable<String, Converter> table;
 
+    /** The table used for converting method and constructor arguments. */
+    private static Conversions invocationConversions;
+
     /**
      * Construct a table of conversions and populate it.
      */
@@ -129,6 +132,14 @@ class Conversions {
         put(Type.CHAR, Type.INT, Converter.Identity);
         put(Type.INT, Type.CHAR, new I2C());
 
+        // Primitive widening
+        put(Type.INT, Type.LONG, new I2X(I2L));
+        put(Type.INT, Type.FLOAT, new I2X(I2F));
+        put(Type.INT, Type.DOUBLE, new I2X(I2D));
+        put(Type.CHAR, Type.LONG, new I2X(I2L));
+        put(Type.CHAR, Type.FLOAT, new I2X(I2F));
+        put(Type.CHAR, Type.DOUBLE, new I2X(I2D));
+
         // Boxing
         put(Type.CHAR, Type.BOXED_CHAR, new Boxing(Type.CHAR, Type.BOXED_CHAR));
         put(Type.INT, Type.BOXED_INT, new Boxing(Type.INT, Type.BOXED_INT));
@@ -175,6 +186,80 @@ class Conversions {
         return table.get(source.toDescriptor() + "2" + target.toDescriptor());
     }
 
+    /**
+     * Retrieve a converter for passing a value of the source type where the
+     * target type is expected, as when passing an argument to a method or
+     * constructor (method invocation conversion). Unlike a cast, this may
+     * combine boxing or unboxing with widening. Returns null if there is no
+     * such conversion.
+     * 
+     * @param source
+     *            the original type.
+     * @param target
+     *            the target type.
+     * @return the converter.
+     */
+
+    public Converter getForInvocation(Type source, Type target) {
+        if (source.equals(target)
+                || (source == Type.NULLTYPE && target.isReference())) {
+            return Converter.Identity;
+        } else if (source.isReference() && target.isReference()) {
+            return target.isJavaAssignableFrom(source) ? Converter.WidenReference
+                    : null;
+        }
+        Converter converter = get(source, target);
+        if (converter != null) {
+            return converter;
+        } else if (source.isPrimitive()) {
+            // Boxing followed by reference widening
+            Type boxed = source.boxedType();
+            return target.isJavaAssignableFrom(boxed) ? get(source, boxed)
+                    : null;
+        } else if (source.unboxedType() != null) {
+            // Unboxing followed by primitive widening
+            Type unboxed = source.unboxedType();
+            Converter unboxing = get(source, unboxed);
+            Converter widening = get(unboxed, target);
+            return unboxing == null || widening == null ? null
+                    : new Composite(unboxing, widening);
+        }
+        return null;
+    }
+
+    /**
+     * Compute the converters for passing actual arguments of the given types
+     * to formal parameters of the given types, reporting an error for any
+     * argument that cannot be converted.
+     * 
+     * @param line
+     *            the line in which the invocation occurs in the source file.
+     * @param argTypes
+     *            the actual argument types.
+     * @param paramTypes
+     *            the formal parameter types.
+     * @return the converters, one per argument.
+     */
+
+    public static Converter[] forArguments(int line, Type[] argTypes,
+            Type[] paramTypes) {
+        if (invocationConversions == null) {
+            invocationConversions = new Conversions();
+        }
+        Converter[] converters = new Converter[argTypes.length];
+        for (int i = 0; i < argTypes.length; i++) {
+            converters[i] = invocationConversions.getForInvocation(
+                    argTypes[i], paramTypes[i]);
+            if (converters[i] == null) {
+                JAST.compilationUnit.reportSemanticError(line,
+                        "Cannot convert argument of type " + argTypes[i]
+                                + " to " + paramTypes[i]);
+                converters[i] = Converter.Identity;
+            }
+        }
+        return converters;
+    }
+
 }
 
 /**
@@ -347,3 +432,72 @@ class I2C implements Converter {
     }
 
 }
+
+/**
+ * Widening an int (or char) to a long, float or double requires the
+ * corresponding conversion instruction.
+ */
+
+class I2X implements Converter {
+
+    /** The conversion instruction (I2L, I2F or I2D). */
+    private int opcode;
+
+    /**
+     * Construct a widening converter.
+     * 
+     * @param opcode
+     *            the conversion instruction.
+     */
+
+    public I2X(int opcode) {
+        this.opcode = opcode;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public void codegen(CLEmitter output) {
+        output.addNoArgInstruction(opcode);
+    }
+
+}
+
+/**
+ * A conversion made up of two others, applied in order; eg, unboxing followed
+ * by primitive widening.
+ */
+
+class Composite implements Converter {
+
+    /** The conversion applied first. */
+    private Converter first;
+
+    /** The conversion applied second. */
+    private Converter second;
+
+    /**
+     * Construct a composite converter.
+     * 
+     * @param first
+     *            the conversion applied first.
+     * @param second
+     *            the conversion applied second.
+     */
+
+    public Composite(Converter first, Converter second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public void codegen(CLEmitter output) {
+        first.codegen(output);
+        second.codegen(output);
+    }
+
+}
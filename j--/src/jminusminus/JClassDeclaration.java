@@ -196,9 +196,17 @@ class JClassDeclaration extends JAST implements JTypeDecl {
      */
 
     public JAST analyze(Context context) {
-        // Analyze all members
+        // Analyze all members; fields first, so that the values of
+        // constant fields are known when the methods are analyzed
         for (JMember member : classBlock) {
-            ((JAST) member).analyze(this.context);
+            if (member instanceof JFieldDeclaration) {
+                ((JAST) member).analyze(this.context);
+            }
+        }
+        for (JMember member : classBlock) {
+            if (!(member instanceof JFieldDeclaration)) {
+                ((JAST) member).analyze(this.context);
+            }
         }
 
         // Copy declared fields for purposes of initialization.
@@ -241,6 +249,8 @@ class JClassDeclaration extends JAST implements JTypeDecl {
         String qualifiedName = JAST.compilationUnit.packageName() == "" ? name
                 : JAST.compilationUnit.packageName() + "/" + name;
         output.addClass(mods, qualifiedName, superType.jvmName(), null, false);
+        MethodSplitter splitter = new MethodSplitter(qualifiedName);
+        output.methodSplitter(splitter);
 
         // The implicit empty constructor?
         if (!hasExplicitConstructor) {
@@ -256,6 +266,9 @@ class JClassDeclaration extends JAST implements JTypeDecl {
         if (staticFieldInitializations.size() > 0) {
             codegenClassInit(output);
         }
+
+        // The helper methods that code too long was split into
+        splitter.codegenHelpers(output);
     }
 
     /**
@@ -359,10 +372,13 @@ class JClassDeclaration extends JAST implements JTypeDecl {
         output.addMethod(mods, "<clinit>", "()V", null, false);
 
         // If there are instance initializations, generate code
-        // for them
+        // for them, split up should they be too long
+        ArrayList<JStatement> initializations = new ArrayList<JStatement>();
         for (JFieldDeclaration staticField : staticFieldInitializations) {
-            staticField.codegenInitializations(output);
+            initializations.addAll(staticField.initializations());
         }
+        output.methodSplitter().codegen(initializations, true,
+                new ArrayList<JFormalParameter>(), null, output);
 
         // Return
         output.addNoArgInstruction(RETURN);
@@ -31,7 +31,8 @@ abstract class JComparison extends JBooleanBinaryExpression {
 
     /**
      * The analysis of a comparison operation consists of analyzing its two
-     * operands, and making sure they both have the same numeric type.
+     * operands, and making sure they both have the same numeric type. A
+     * comparison of two constants is folded to true or false.
      * 
      * @param context
      *            context in which names are resolved.
@@ -44,9 +45,24 @@ abstract class JComparison extends JBooleanBinaryExpression {
         lhs.type().mustMatchExpected(line(), Type.INT);
         rhs.type().mustMatchExpected(line(), lhs.type());
         type = Type.BOOLEAN;
+        if (isIntConstant(lhs) && isIntConstant(rhs)) {
+            return foldTo(holds(intConstant(lhs), intConstant(rhs)));
+        }
         return this;
     }
 
+    /**
+     * Evaluate the comparison on constant operands; used for folding.
+     * 
+     * @param lhs
+     *            value of the lhs operand.
+     * @param rhs
+     *            value of the rhs operand.
+     * @return true if the comparison holds, false otherwise.
+     */
+
+    protected abstract boolean holds(int lhs, int rhs);
+
 }
 
 /**
@@ -73,6 +89,14 @@ class JGreaterThanOp extends JComparison {
         super(line, ">", lhs, rhs);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+
+    protected boolean holds(int lhs, int rhs) {
+        return lhs > rhs;
+    }
+
     /**
      * Branching code generation for > operation.
      * 
@@ -119,6 +143,14 @@ class JLessEqualOp extends JComparison {
         super(line, "<=", lhs, rhs);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+
+    protected boolean holds(int lhs, int rhs) {
+        return lhs <= rhs;
+    }
+
     /**
      * Branching code generation for <= operation.
      * 
@@ -140,3 +172,111 @@ class JLessEqualOp extends JComparison {
     }
 
 }
+
+/**
+ * The AST node for a greater-than-or-equal-to (>=) expression. Implements
+ * short-circuiting branching.
+ */
+
+class JGreaterEqualOp extends JComparison {
+
+    /**
+     * Construct an AST node for a greater-than-or-equal-to expression given its
+     * line number, and the lhs and rhs operands.
+     * 
+     * @param line
+     *            line in which the greater-than-or-equal-to expression occurs
+     *            in the source file.
+     * @param lhs
+     *            lhs operand.
+     * @param rhs
+     *            rhs operand.
+     */
+
+    public JGreaterEqualOp(int line, JExpression lhs, JExpression rhs) {
+        super(line, ">=", lhs, rhs);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+
+    protected boolean holds(int lhs, int rhs) {
+        return lhs >= rhs;
+    }
+
+    /**
+     * Branching code generation for >= operation.
+     * 
+     * @param output
+     *            the code emitter (basically an abstraction for producing the
+     *            .class file).
+     * @param targetLabel
+     *            target for generated branch instruction.
+     * @param onTrue
+     *            should we branch on true?
+     */
+
+    public void codegen(CLEmitter output, String targetLabel, boolean onTrue) {
+        lhs.codegen(output);
+        rhs.codegen(output);
+        output
+                .addBranchInstruction(onTrue ? IF_ICMPGE : IF_ICMPLT,
+                        targetLabel);
+    }
+
+}
+
+/**
+ * The AST node for a less-than (<) expression. Implements short-circuiting
+ * branching.
+ */
+
+class JLessThanOp extends JComparison {
+
+    /**
+     * Construct an AST node for a less-than expression given its
+     * line number, and the lhs and rhs operands.
+     * 
+     * @param line
+     *            line in which the less-than expression occurs in the source
+     *            file.
+     * @param lhs
+     *            lhs operand.
+     * @param rhs
+     *            rhs operand.
+     */
+
+    public JLessThanOp(int line, JExpression lhs, JExpression rhs) {
+        super(line, "<", lhs, rhs);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+
+    protected boolean holds(int lhs, int rhs) {
+        return lhs < rhs;
+    }
+
+    /**
+     * Branching code generation for < operation.
+     * 
+     * @param output
+     *            the code emitter (basically an abstraction for producing the
+     *            .class file).
+     * @param targetLabel
+     *            target for generated branch instruction.
+     * @param onTrue
+     *            should we branch on true?
+     */
+
+    public void codegen(CLEmitter output, String targetLabel, boolean onTrue) {
+        lhs.codegen(output);
+        rhs.codegen(output);
+        output
+                .addBranchInstruction(onTrue ? IF_ICMPLT : IF_ICMPGE,
+                        targetLabel);
+    }
+
+}
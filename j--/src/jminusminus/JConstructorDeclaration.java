@@ -158,7 +158,9 @@ class JConstructorDeclaration extends JMethodDeclaration implements JMember {
         }
         // And then the body
         body.codegen(output);
-        output.addNoArgInstruction(RETURN);
+        if (body.completesNormally()) {
+            output.addNoArgInstruction(RETURN);
+        }
     }
 
     /**
@@ -2,13 +2,11 @@
 
 package jminusminus;
 
-import static jminusminus.CLConstants.*;
-
 /**
  * The AST node for a do-until-statement.
  */
 
-class JDoUntilStatement extends JStatement {
+class JDoUntilStatement extends JStatement implements JBreakable {
 
     /** Test expression. */
     private JExpression condition;
@@ -16,6 +14,12 @@ class JDoUntilStatement extends JStatement {
     /** The body. */
     private JStatement body;
 
+    /** Whether a break statement exits this loop. */
+    private boolean hasBreak;
+
+    /** The label past the loop; created in codegen(). */
+    private String out;
+
     /**
      * Construct an AST node for a do-until-statement given its line number, the
      * test expression, and the body.
@@ -34,14 +38,75 @@ class JDoUntilStatement extends JStatement {
         this.body = body;
     }
 
-    //TODO
-    public JDoUntilStatement analyze(Context context) {
+    /**
+     * Analysis involves analyzing the body statement, in which break
+     * statements exit this loop, and analyzing the test and checking its type.
+     * 
+     * @param context
+     *            context in which names are resolved.
+     * @return the analyzed (and possibly rewritten) AST subtree.
+     */
+
+    public JStatement analyze(Context context) {
+        LocalContext bodyContext = new LocalContext(context);
+        bodyContext.setBreakTarget(this);
+        body = (JStatement) body.analyze(bodyContext);
+        condition = condition.analyze(context);
+        condition.type().mustMatchExpected(line(), Type.BOOLEAN);
         return this;
     }
 
-    //TODO
+    /**
+     * Generate code for the do-until loop: the body, followed by the test,
+     * which branches back up to the body on the condition being false.
+     * 
+     * @param output
+     *            the code emitter (basically an abstraction for producing the
+     *            .class file).
+     */
+
     public void codegen(CLEmitter output) {
-        //TODO
+        // Need two labels
+        String top = output.createLabel();
+        out = output.createLabel();
+
+        // Codegen body
+        output.addLabel(top);
+        body.codegen(output);
+
+        // Branch back up to the body on the test condition
+        // being false
+        condition.codegen(output, top, false);
+
+        // The label below and outside the loop
+        output.addLabel(out);
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public void addBreak() {
+        hasBreak = true;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public String breakLabel() {
+        return out;
+    }
+
+    /**
+     * A loop whose test is the constant false completes normally only if a
+     * break statement exits it.
+     * 
+     * @return true or false.
+     */
+
+    public boolean completesNormally() {
+        return !(condition instanceof JLiteralFalse) || hasBreak;
     }
 
     /**
@@ -1,16 +1,26 @@
-package jminusminus;
-
-import static jminusminus.CLConstants.GOTO;
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
 
+package jminusminus;
 
+/**
+ * The AST node for a do-while-statement.
+ */
 
-class JDoWhileStatement extends JStatement {
+class JDoWhileStatement extends JStatement implements JBreakable {
 
-	/** Test expression. */
+    /** Test expression. */
     private JExpression condition;
+
     /** The body. */
     private JStatement body;
-	/**
+
+    /** Whether a break statement exits this loop. */
+    private boolean hasBreak;
+
+    /** The label past the loop; created in codegen(). */
+    private String out;
+
+    /**
      * Construct an AST node for a do-while-statement given its line number, the
      * test expression, and the body.
      * 
@@ -21,53 +31,103 @@ class JDoWhileStatement extends JStatement {
      * @param body
      *            the body.
      */
-	public JDoWhileStatement(int line, JExpression condition, JStatement body) {
-		
-		super(line);
+
+    public JDoWhileStatement(int line, JExpression condition, JStatement body) {
+        super(line);
         this.condition = condition;
-        this.body = body;		
-	}
+        this.body = body;
+    }
+
+    /**
+     * Analysis involves analyzing the body statement, in which break
+     * statements exit this loop, and analyzing the test and checking its type.
+     * 
+     * @param context
+     *            context in which names are resolved.
+     * @return the analyzed (and possibly rewritten) AST subtree.
+     */
+
     public JStatement analyze(Context context) {
-    	condition = condition.analyze(context);
+        LocalContext bodyContext = new LocalContext(context);
+        bodyContext.setBreakTarget(this);
+        body = (JStatement) body.analyze(bodyContext);
+        condition = condition.analyze(context);
         condition.type().mustMatchExpected(line(), Type.BOOLEAN);
-        body = (JStatement) body.analyze(context);
-        return this;    }
-	public void codegen(CLEmitter output) {
-		// Need two labels
-        String test = output.createLabel();
-        String out = output.createLabel();
-
-        // Branch out of the loop on the test condition
-        // being false
-        output.addLabel(test);
-        condition.codegen(output, out, false);
+        return this;
+    }
+
+    /**
+     * Generate code for the do-while loop: the body, followed by the test,
+     * which branches back up to the body on the condition being true.
+     * 
+     * @param output
+     *            the code emitter (basically an abstraction for producing the
+     *            .class file).
+     */
+
+    public void codegen(CLEmitter output) {
+        // Need two labels
+        String top = output.createLabel();
+        out = output.createLabel();
 
         // Codegen body
+        output.addLabel(top);
         body.codegen(output);
 
-        // Unconditional jump back up to test
-        output.addBranchInstruction(GOTO, test);
+        // Branch back up to the body on the test condition
+        // being true
+        condition.codegen(output, top, true);
 
         // The label below and outside the loop
         output.addLabel(out);
     }
-	/**
+
+    /**
+     * @inheritDoc
+     */
+
+    public void addBreak() {
+        hasBreak = true;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public String breakLabel() {
+        return out;
+    }
+
+    /**
+     * A loop whose test is the constant true completes normally only if a
+     * break statement exits it.
+     * 
+     * @return true or false.
+     */
+
+    public boolean completesNormally() {
+        return !(condition instanceof JLiteralTrue) || hasBreak;
+    }
+
+    /**
      * @inheritDoc
      */
+
     public void writeToStdOut(PrettyPrinter p) {
-    	p.printf("<JDoWhileStatement line=\"%d\">\n", line());
+        p.printf("<JDoWhileStatement line=\"%d\">\n", line());
         p.indentRight();
-        p.printf("<TestExpression>\n");
-        p.indentRight();
-        condition.writeToStdOut(p);
-        p.indentLeft();
-        p.printf("</TestExpression>\n");
         p.printf("<Body>\n");
         p.indentRight();
         body.writeToStdOut(p);
         p.indentLeft();
         p.printf("</Body>\n");
+        p.printf("<TestExpression>\n");
+        p.indentRight();
+        condition.writeToStdOut(p);
+        p.indentLeft();
+        p.printf("</TestExpression>\n");
         p.indentLeft();
         p.printf("</JDoWhileStatement>\n");
     }
+
 }
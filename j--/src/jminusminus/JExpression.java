@@ -62,6 +62,94 @@ abstract class JExpression extends JStatement {
 
     public abstract JExpression analyze(Context context);
 
+    /**
+     * Is this expression a compile-time constant? Only literals are; analysis
+     * folds constant expressions (and references to constant variables) into
+     * literals.
+     * 
+     * @return true or false.
+     */
+
+    public boolean isConstant() {
+        return false;
+    }
+
+    /**
+     * Is the given (analyzed) expression an int or char constant?
+     * 
+     * @param expr
+     *            the expression.
+     * @return true or false.
+     */
+
+    protected static boolean isIntConstant(JExpression expr) {
+        return expr instanceof JLiteralInt || expr instanceof JLiteralChar;
+    }
+
+    /**
+     * Is the given (analyzed) expression a boolean constant?
+     * 
+     * @param expr
+     *            the expression.
+     * @return true or false.
+     */
+
+    protected static boolean isBooleanConstant(JExpression expr) {
+        return expr instanceof JLiteralTrue || expr instanceof JLiteralFalse;
+    }
+
+    /**
+     * Return the value of an int or char constant.
+     * 
+     * @param expr
+     *            the constant expression.
+     * @return its (int) value.
+     */
+
+    protected static int intConstant(JExpression expr) {
+        return expr instanceof JLiteralChar ? ((JLiteralChar) expr).value()
+                : ((JLiteralInt) expr).value();
+    }
+
+    /**
+     * Return the value of a boolean constant.
+     * 
+     * @param expr
+     *            the constant expression.
+     * @return its value.
+     */
+
+    protected static boolean booleanConstant(JExpression expr) {
+        return expr instanceof JLiteralTrue;
+    }
+
+    /**
+     * Return the (analyzed) int literal that replaces this expression when it
+     * folds to the given value.
+     * 
+     * @param value
+     *            the folded value.
+     * @return the literal.
+     */
+
+    protected JExpression foldTo(int value) {
+        return new JLiteralInt(line, Integer.toString(value)).analyze(null);
+    }
+
+    /**
+     * Return the (analyzed) boolean literal that replaces this expression when
+     * it folds to the given value.
+     * 
+     * @param value
+     *            the folded value.
+     * @return the literal.
+     */
+
+    protected JExpression foldTo(boolean value) {
+        return (value ? new JLiteralTrue(line) : new JLiteralFalse(line))
+                .analyze(null);
+    }
+
     /**
      * Perform (short-circuit) code generation for a boolean expression, given
      * the code emitter, a target label, and whether we branch to that label on
@@ -50,6 +50,17 @@ class JFieldDeclaration extends JAST implements JMember {
         return mods;
     }
 
+    /**
+     * Return the initializations of the fields (rewritten as assignment
+     * statements in analyze()).
+     * 
+     * @return list of initializations.
+     */
+
+    public ArrayList<JStatement> initializations() {
+        return initializations;
+    }
+
     /**
      * Declare fields in the parent's (partial) class.
      * 
@@ -77,7 +88,9 @@ class JFieldDeclaration extends JAST implements JMember {
 
     /**
      * Analysis of field declaration involves rewriting initializations (if any)
-     * as assignment statements.
+     * as assignment statements. A static final field initialized with a
+     * constant expression is recorded as a constant field of the defining
+     * type, so that references to it are folded.
      * 
      * @param context
      *            context in which names are resolved.
@@ -89,11 +102,18 @@ class JFieldDeclaration extends JAST implements JMember {
             // All initializations must be turned into assignment
             // statements and analyzed
             if (decl.initializer() != null) {
-                JAssignOp assignOp = new JAssignOp(decl.line(), new JVariable(
-                        decl.line(), decl.name()), decl.initializer());
+                JVariable field = new JVariable(decl.line(), decl.name());
+                field.makeFieldInitialization();
+                JAssignOp assignOp = new JAssignOp(decl.line(), field, decl
+                        .initializer());
                 assignOp.isStatementExpression = true;
                 initializations.add(new JStatementExpression(decl.line(),
                         assignOp).analyze(context));
+                if (mods.contains("static") && mods.contains("final")
+                        && assignOp.rhs.isConstant()) {
+                    context.definingType().addConstantField(decl.name(),
+                            assignOp.rhs);
+                }
             }
         }
         return this;
@@ -23,6 +23,9 @@ class JFieldSelection extends JExpression implements JLhs {
     /** The Field representing this field. */
     private Field field;
 
+    /** Was analyzeLhs() done? */
+    private boolean analyzeLhs;
+
     /**
      * Construct an AST node for a field selection without an ambiguous part.
      * 
@@ -109,6 +112,14 @@ class JFieldSelection extends JExpression implements JLhs {
                 context.definingType().checkAccess(line, (Member) field);
                 type = field.type();
 
+                // A constant field is replaced by its value, unless
+                // it's being assigned to.
+                JExpression value = field.declaringType().constantFieldFor(
+                        fieldName);
+                if (value != null && !analyzeLhs) {
+                    return value;
+                }
+
                 // Non-static field cannot be referenced from a static context.
                 if (!field.isStatic()) {
                     if (target instanceof JVariable
@@ -137,6 +148,7 @@ class JFieldSelection extends JExpression implements JLhs {
      */
 
     public JExpression analyzeLhs(Context context) {
+        analyzeLhs = true;
         JExpression result = analyze(context);
         if (field.isFinal()) {
             JAST.compilationUnit.reportSemanticError(line, "The field "
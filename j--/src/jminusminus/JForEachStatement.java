@@ -5,21 +5,61 @@ package jminusminus;
 import static jminusminus.CLConstants.*;
 
 /**
- * The AST node for a while-statement.
+ * The AST node for an enhanced for-statement, over an array or an Iterable.
+ * Over an array, the loop is lowered to a counted loop; the array and its
+ * length are cached in hidden locals, so each iteration costs an index
+ * comparison, an array load and an IINC. Over an Iterable, the loop is
+ * lowered to the iterator protocol.
  */
 
-class JForEachStatement extends JStatement {
+class JForEachStatement extends JStatement implements JBreakable {
+
     /** Declarator. */
     private JVariableDeclarator initializer;
 
     /** The collection. */
-    private JVariableDeclarator collection;
+    private JExpression collection;
 
+    /** The body. */
     private JStatement body;
 
+    /** Offset of the loop variable. */
+    private int variableOffset;
+
+    /**
+     * Offset of the hidden local holding the array (or, over an Iterable, the
+     * iterator).
+     */
+    private int collectionOffset;
+
+    /** Offset of the hidden local holding the array's length. */
+    private int lengthOffset;
+
+    /** Offset of the hidden local holding the array index. */
+    private int indexOffset;
+
+    /** Whether a break statement exits this loop. */
+    private boolean hasBreak;
+
+    /** The label past the loop; created in codegen(). */
+    private String out;
+
+    /**
+     * Construct an AST node for an enhanced for-statement given its line
+     * number, the loop variable, the collection, and the body.
+     *
+     * @param line
+     *            line in which the for-statement occurs in the source file.
+     * @param initializer
+     *            the loop variable.
+     * @param collection
+     *            the array or Iterable iterated over.
+     * @param body
+     *            the body.
+     */
 
     public JForEachStatement(int line, JVariableDeclarator initializer,
-                                       JVariableDeclarator collection,
+                                       JExpression collection,
                                        JStatement body) {
         super(line);
         this.initializer = initializer;
@@ -27,19 +67,163 @@ class JForEachStatement extends JStatement {
         this.body = body;
     }
 
+    /**
+     * Analysis involves analyzing the collection, which must be an array or
+     * an Iterable, allocating the hidden locals, declaring the loop variable
+     * (whose type must accept the elements) in a new local context, and
+     * analyzing the body in that context. Since j-- has no generics, the
+     * elements of an Iterable are Objects; they are cast to the type of the
+     * loop variable, which must be a reference type.
+     *
+     * @param context
+     *            context in which names are resolved.
+     * @return the analyzed (and possibly rewritten) AST subtree.
+     */
 
-    public JForEachStatement analyze(Context context) {
-        initializer = (JVariableDeclarator) initializer.analyze(context);
-        collection = (JVariableDeclarator) collection.analyze(context);
-        //body = (JExpression) body.analyze(context); // stmnt vs expr?
+    public JStatement analyze(Context context) {
+        collection = collection.analyze(context);
+        LocalContext loopContext = new LocalContext(context);
+        loopContext.setBreakTarget(this);
+        Type type = initializer.type().resolve(context);
+        initializer.setType(type);
+        Type collectionType = collection.type();
+        collectionOffset = loopContext.nextOffset();
+        if (collectionType.isArray()) {
+            lengthOffset = loopContext.nextOffset();
+            indexOffset = loopContext.nextOffset();
+            Type elementType = collectionType.componentType();
+            if (!type.matchesExpected(elementType)
+                    && !(type.isReference() && elementType.isReference() && type
+                            .isJavaAssignableFrom(elementType))) {
+                JAST.compilationUnit.reportSemanticError(line(),
+                        "Type mismatch: cannot convert from %s to %s",
+                        elementType.toString(), type.toString());
+            }
+        } else if (collectionType == Type.ANY) {
+            // An error was reported while analyzing the collection
+        } else if (collectionType.isReference()
+                && Type.typeFor(Iterable.class).isJavaAssignableFrom(
+                        collectionType)) {
+            if (!type.isReference()) {
+                JAST.compilationUnit.reportSemanticError(line(),
+                        "Type mismatch: cannot convert from %s to %s",
+                        Type.OBJECT.toString(), type.toString());
+            }
+        } else {
+            JAST.compilationUnit.reportSemanticError(line(),
+                    "Can only iterate over an array or an Iterable, not %s",
+                    collectionType.toString());
+        }
+
+        // Declare the loop variable, checking for shadowing
+        variableOffset = loopContext.nextOffset();
+        LocalVariableDefn defn = new LocalVariableDefn(type, variableOffset);
+        defn.initialize();
+        IDefn previousDefn = context.lookup(initializer.name());
+        if (previousDefn != null && previousDefn instanceof LocalVariableDefn) {
+            JAST.compilationUnit.reportSemanticError(initializer.line(),
+                    "The name " + initializer.name()
+                            + " overshadows another local variable.");
+        }
+        loopContext.addEntry(initializer.line(), initializer.name(), defn);
+        body = (JStatement) body.analyze(loopContext);
         return this;
     }
 
+    /**
+     * Generate code for the loop. As for the while loop, the loop is inverted,
+     * with the test at the bottom branching back up to the body.
+     *
+     * @param output
+     *            the code emitter (basically an abstraction for producing the
+     *            .class file).
+     */
 
     public void codegen(CLEmitter output) {
+        String top = output.createLabel();
+        String test = output.createLabel();
+        out = output.createLabel();
+        Type type = initializer.type();
+        collection.codegen(output);
+        if (collection.type().isArray()) {
+            // Cache the array, its length, and start the index at 0
+            output.addOneArgInstruction(ASTORE, collectionOffset);
+            output.addOneArgInstruction(ALOAD, collectionOffset);
+            output.addNoArgInstruction(ARRAYLENGTH);
+            output.addOneArgInstruction(ISTORE, lengthOffset);
+            output.addNoArgInstruction(ICONST_0);
+            output.addOneArgInstruction(ISTORE, indexOffset);
+            output.addBranchInstruction(GOTO, test);
+
+            // Load the element into the loop variable
+            output.addLabel(top);
+            Type elementType = collection.type().componentType();
+            output.addOneArgInstruction(ALOAD, collectionOffset);
+            output.addOneArgInstruction(ILOAD, indexOffset);
+            output.addNoArgInstruction(elementType == Type.INT ? IALOAD
+                    : elementType == Type.CHAR ? CALOAD
+                            : elementType == Type.BOOLEAN ? BALOAD : AALOAD);
+            output.addOneArgInstruction(type.isReference() ? ASTORE : ISTORE,
+                    variableOffset);
+            body.codegen(output);
+            output.addIINCInstruction(indexOffset, 1);
+
+            // Branch back up to the body while the index is below
+            // the length
+            output.addLabel(test);
+            output.addOneArgInstruction(ILOAD, indexOffset);
+            output.addOneArgInstruction(ILOAD, lengthOffset);
+            output.addBranchInstruction(IF_ICMPLT, top);
+        } else {
+            // Cache the iterator
+            output.addMemberAccessInstruction(INVOKEINTERFACE,
+                    "java/lang/Iterable", "iterator", "()Ljava/util/Iterator;");
+            output.addOneArgInstruction(ASTORE, collectionOffset);
+            output.addBranchInstruction(GOTO, test);
+
+            // Load the next element into the loop variable
+            output.addLabel(top);
+            output.addOneArgInstruction(ALOAD, collectionOffset);
+            output.addMemberAccessInstruction(INVOKEINTERFACE,
+                    "java/util/Iterator", "next", "()Ljava/lang/Object;");
+            if (type != Type.OBJECT) {
+                output.addReferenceInstruction(CHECKCAST, type.jvmName());
+            }
+            output.addOneArgInstruction(ASTORE, variableOffset);
+            body.codegen(output);
+
+            // Branch back up to the body while there are more
+            // elements
+            output.addLabel(test);
+            output.addOneArgInstruction(ALOAD, collectionOffset);
+            output.addMemberAccessInstruction(INVOKEINTERFACE,
+                    "java/util/Iterator", "hasNext", "()Z");
+            output.addBranchInstruction(IFNE, top);
+        }
+
+        // The label below and outside the loop
+        output.addLabel(out);
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public void addBreak() {
+        hasBreak = true;
+    }
+
+    /**
+     * @inheritDoc
+     */
 
+    public String breakLabel() {
+        return out;
     }
 
+    /**
+     * @inheritDoc
+     */
 
     public void writeToStdOut(PrettyPrinter p) {
         p.printf("<JForEachStatement line=\"%d\">\n", line());
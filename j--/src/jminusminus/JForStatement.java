@@ -1,97 +1,206 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
 package jminusminus;
 
 import static jminusminus.CLConstants.*;
-import java.util.ArrayList;
 
-public class JForStatement extends JStatement {
-	
-	/** Declarator. */
+/**
+ * The AST node for a (basic) for-statement.
+ */
+
+class JForStatement extends JStatement implements JBreakable {
+
+    /** Declaration of the loop variable. */
     private JVariableDeclaration initialization;
 
-    /** The collection. */
+    /** Test expression; may be null. */
     private JExpression condition;
 
+    /** The increment; may be null. */
     private JStatement increment;
 
+    /** The body. */
     private JStatement body;
-	
-	private int line;
-		
-	public JForStatement(int line, JVariableDeclaration initialization, JExpression condition, JStatement increment, JStatement body) {
-		super(line);
-		this.line = line;
-		this.initialization = initialization;
-		this.condition = condition;
-		this.increment = increment;
-		this.body = body;
-	}
-	
+
+    /** Whether a break statement exits this loop. */
+    private boolean hasBreak;
+
+    /** The label past the loop; created in codegen(). */
+    private String out;
+
+    /**
+     * Construct an AST node for a for-statement given its line number, the
+     * declaration of the loop variable, the test expression, the increment,
+     * and the body.
+     *
+     * @param line
+     *            line in which the for-statement occurs in the source file.
+     * @param initialization
+     *            declaration of the loop variable.
+     * @param condition
+     *            test expression.
+     * @param increment
+     *            the increment.
+     * @param body
+     *            the body.
+     */
+
+    public JForStatement(int line, JVariableDeclaration initialization,
+            JExpression condition, JStatement increment, JStatement body) {
+        super(line);
+        this.initialization = initialization;
+        this.condition = condition;
+        this.increment = increment;
+        this.body = body;
+    }
+
     /**
-     * Analysis involves analyzing the test, checking its type and analyzing the
-     * body statement.
-     * 
+     * Analysis involves declaring the loop variable in a new local context,
+     * and analyzing the test (checking its type), the increment and the body
+     * in that context; break statements in the body exit this loop.
+     *
      * @param context
      *            context in which names are resolved.
      * @return the analyzed (and possibly rewritten) AST subtree.
      */
-	
-	public JForStatement analyze(Context context) {
-        //TODO
-		if (initialization != null) {
-			initialization = (JVariableDeclaration) initialization.analyze(context);
+
+    public JStatement analyze(Context context) {
+        LocalContext loopContext = new LocalContext(context);
+        loopContext.setBreakTarget(this);
+        if (initialization != null) {
+            initialization = (JVariableDeclaration) initialization
+                    .analyze(loopContext);
         }
         if (condition != null) {
-            condition = condition.analyze(context);
+            condition = condition.analyze(loopContext);
             condition.type().mustMatchExpected(line(), Type.BOOLEAN);
         }
         if (increment != null) {
-            increment = (JStatement) increment.analyze(context);
+            increment = (JStatement) increment.analyze(loopContext);
         }
-        body = (JStatement) body.analyze(context); 
+        body = (JStatement) body.analyze(loopContext);
         return this;
     }
 
     /**
-     * Generate code for the for loop.
-     * 
+     * Generate code for the for loop. As for the while loop, the loop is
+     * inverted: after the initialization and a jump to the test come the body
+     * and the increment, and then the test, which branches back up to the body
+     * on the condition being true. A missing test is the constant true.
+     *
      * @param output
      *            the code emitter (basically an abstraction for producing the
      *            .class file).
      */
 
     public void codegen(CLEmitter output) {
-    	//TODO
+        // Need three labels
+        String top = output.createLabel();
+        String test = output.createLabel();
+        out = output.createLabel();
+
+        // Initialize the loop variable and enter the loop at the
+        // test
+        if (initialization != null) {
+            initialization.codegen(output);
+        }
+        if (!isForever()) {
+            output.addBranchInstruction(GOTO, test);
+        }
+
+        // Codegen body and increment
+        output.addLabel(top);
+        body.codegen(output);
+        if (increment != null) {
+            increment.codegen(output);
+        }
+
+        // Branch back up to the body on the test condition
+        // being true
+        output.addLabel(test);
+        if (condition == null) {
+            output.addBranchInstruction(GOTO, top);
+        } else {
+            condition.codegen(output, top, true);
+        }
+
+        // The label below and outside the loop
+        output.addLabel(out);
     }
-	
-	public void writeToStdOut(PrettyPrinter p) {
-		p.printf("<JForStatement line=\"%d\">\n", line());
-        p.indentRight();
 
-        p.printf("<Initializer>\n");
-        p.indentRight();
-        initialization.writeToStdOut(p);
-        p.indentLeft();
-        p.printf("</Initializer>\n");
+    /**
+     * Return true if the test is missing or the constant true; false
+     * otherwise.
+     *
+     * @return true or false.
+     */
 
-        p.printf("<Test>\n");
-        p.indentRight();
-        condition.writeToStdOut(p);
-        p.indentLeft();
-        p.printf("</Test>\n");
+    private boolean isForever() {
+        return condition == null || condition instanceof JLiteralTrue;
+    }
 
-        p.printf("<Increment>\n");
-        p.indentRight();
-        increment.writeToStdOut(p);
-        p.indentLeft();
-        p.printf("</Increment>\n");
+    /**
+     * @inheritDoc
+     */
+
+    public void addBreak() {
+        hasBreak = true;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public String breakLabel() {
+        return out;
+    }
+
+    /**
+     * A loop without a test, or whose test is the constant true, completes
+     * normally only if a break statement exits it.
+     *
+     * @return true or false.
+     */
+
+    public boolean completesNormally() {
+        return !isForever() || hasBreak;
+    }
 
+    /**
+     * @inheritDoc
+     */
+
+    public void writeToStdOut(PrettyPrinter p) {
+        p.printf("<JForStatement line=\"%d\">\n", line());
+        p.indentRight();
+        if (initialization != null) {
+            p.printf("<Initializer>\n");
+            p.indentRight();
+            initialization.writeToStdOut(p);
+            p.indentLeft();
+            p.printf("</Initializer>\n");
+        }
+        if (condition != null) {
+            p.printf("<Test>\n");
+            p.indentRight();
+            condition.writeToStdOut(p);
+            p.indentLeft();
+            p.printf("</Test>\n");
+        }
+        if (increment != null) {
+            p.printf("<Increment>\n");
+            p.indentRight();
+            increment.writeToStdOut(p);
+            p.indentLeft();
+            p.printf("</Increment>\n");
+        }
         p.printf("<Body>\n");
         p.indentRight();
         body.writeToStdOut(p);
         p.indentLeft();
         p.printf("</Body>\n");
-
         p.indentLeft();
         p.printf("</JForStatement>\n");
     }
+
 }
@@ -43,7 +43,8 @@ class JIfStatement extends JStatement {
 
     /**
      * Analyzing the if-statement means analyzing its components and checking
-     * that the test is boolean.
+     * that the test is boolean. If the test is a constant, the if-statement is
+     * replaced by the branch that is taken (or an empty statement).
      * 
      * @param context
      *            context in which names are resolved.
@@ -57,13 +58,30 @@ class JIfStatement extends JStatement {
         if (elsePart != null) {
             elsePart = (JStatement) elsePart.analyze(context);
         }
+        if (condition instanceof JLiteralTrue) {
+            return thenPart;
+        } else if (condition instanceof JLiteralFalse) {
+            return elsePart != null ? elsePart : new JEmptyStatement(line());
+        }
         return this;
     }
 
+    /**
+     * An if-statement completes normally unless it has an alternate and
+     * neither branch completes normally.
+     * 
+     * @return true or false.
+     */
+
+    public boolean completesNormally() {
+        return elsePart == null || thenPart.completesNormally()
+                || elsePart.completesNormally();
+    }
+
     /**
      * Code generation for an if-statement. We generate code to branch over the
      * consequent if !test; the consequent is followed by an unconditonal branch
-     * over (any) alternate.
+     * over (any) alternate, unless the consequent cannot complete normally.
      * 
      * @param output
      *            the code emitter (basically an abstraction for producing the
@@ -75,12 +93,15 @@ class JIfStatement extends JStatement {
         String endLabel = output.createLabel();
         condition.codegen(output, elseLabel, false);
         thenPart.codegen(output);
-        if (elsePart != null) {
+        boolean branchOver = elsePart != null && thenPart.completesNormally();
+        if (branchOver) {
             output.addBranchInstruction(GOTO, endLabel);
         }
         output.addLabel(elseLabel);
         if (elsePart != null) {
             elsePart.codegen(output);
+        }
+        if (branchOver) {
             output.addLabel(endLabel);
         }
     }
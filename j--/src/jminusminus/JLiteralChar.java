@@ -28,6 +28,32 @@ class JLiteralChar extends JExpression {
         this.text = text;
     }
 
+    /**
+     * A literal is a compile-time constant.
+     * 
+     * @return true.
+     */
+
+    public boolean isConstant() {
+        return true;
+    }
+
+    /**
+     * Return the literal's value.
+     * 
+     * @return the char value.
+     */
+
+    public char value() {
+        // Unescape the escaped escapes
+        String s = Util.unescape(text);
+
+        // The string representation is padded (by hand-written
+        // and JavaCC scanner) with single quotes, so we extract
+        // the char at 1
+        return s.charAt(1);
+    }
+
     /**
      * Analyzing a char literal is trivial.
      * 
@@ -51,14 +77,7 @@ class JLiteralChar extends JExpression {
      */
 
     public void codegen(CLEmitter output) {
-        // Unescape the escaped escapes
-        String s = Util.unescape(text);
-
-        // The string representation is padded (by hand-written
-        // and JavaCC scanner) with single quotes, so we extract
-        // the char at 1
-        char c = s.charAt(1);
-        int i = (int) c;
+        int i = (int) value();
         switch (i) {
         case 0:
             output.addNoArgInstruction(ICONST_0);
@@ -28,6 +28,26 @@ class JLiteralInt extends JExpression {
         this.text = text;
     }
 
+    /**
+     * A literal is a compile-time constant.
+     * 
+     * @return true.
+     */
+
+    public boolean isConstant() {
+        return true;
+    }
+
+    /**
+     * Return the literal's value.
+     * 
+     * @return the int value.
+     */
+
+    public int value() {
+        return Integer.parseInt(text);
+    }
+
     /**
      * Analyzing an int literal is trivial.
      * 
@@ -51,8 +71,11 @@ class JLiteralInt extends JExpression {
      */
 
     public void codegen(CLEmitter output) {
-        int i = Integer.parseInt(text);
+        int i = value();
         switch (i) {
+        case -1:
+            output.addNoArgInstruction(ICONST_M1);
+            break;
         case 0:
             output.addNoArgInstruction(ICONST_0);
             break;
@@ -72,9 +95,9 @@ class JLiteralInt extends JExpression {
             output.addNoArgInstruction(ICONST_5);
             break;
         default:
-            if (i >= 6 && i <= 127) {
+            if (i >= -128 && i <= 127) {
                 output.addOneArgInstruction(BIPUSH, i);
-            } else if (i >= 128 && i <= 32767) {
+            } else if (i >= -32768 && i <= 32767) {
                 output.addOneArgInstruction(SIPUSH, i);
             } else {
                 output.addLDCInstruction(i);
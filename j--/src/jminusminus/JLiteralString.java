@@ -26,6 +26,31 @@ class JLiteralString extends JExpression {
         this.text = text;
     }
 
+    /**
+     * A literal is a compile-time constant.
+     * 
+     * @return true.
+     */
+
+    public boolean isConstant() {
+        return true;
+    }
+
+    /**
+     * Return the literal's value.
+     * 
+     * @return the (unescaped) string.
+     */
+
+    public String value() {
+        // Unescape the escaped escapes
+        String s = Util.unescape(text);
+
+        // The string representation is padded (by hand-written
+        // and JavaCC scanner) with double quotes, so we substring
+        return s.substring(1, s.length() - 1);
+    }
+
     /**
      * Analyzing a String literal is trivial.
      * 
@@ -49,13 +74,7 @@ class JLiteralString extends JExpression {
      */
 
     public void codegen(CLEmitter output) {
-        // Unescape the escaped escapes
-        String s = Util.unescape(text);
-
-        // The string representation is padded (by hand-written
-        // and JavaCC scanner) with double quotes, so we substring
-        String literal = s.substring(1, s.length() - 1);
-        output.addLDCInstruction(literal);
+        output.addLDCInstruction(value());
     }
 
     /**
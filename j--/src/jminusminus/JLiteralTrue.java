@@ -21,6 +21,16 @@ class JLiteralTrue extends JExpression {
         super(line);
     }
 
+    /**
+     * A literal is a compile-time constant.
+     * 
+     * @return true.
+     */
+
+    public boolean isConstant() {
+        return true;
+    }
+
     /**
      * Analyzing a boolean literal is trivial.
      * 
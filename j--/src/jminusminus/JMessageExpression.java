@@ -28,6 +28,9 @@ class JMessageExpression extends JExpression {
     /** Types of arguments. */
     private Type[] argTypes;
 
+    /** Conversions from the argument types to the parameter types. */
+    private Converter[] converters;
+
     /** The Method representing this message. */
     private Method method;
 
@@ -142,6 +145,8 @@ class JMessageExpression extends JExpression {
         } else {
             context.definingType().checkAccess(line, (Member) method);
             type = method.returnType();
+            converters = Conversions.forArguments(line, argTypes, method
+                    .parameterTypes());
 
             // Non-static method cannot be referenced from a static context.
             if (!method.isStatic()) {
@@ -177,8 +182,9 @@ class JMessageExpression extends JExpression {
         if (!method.isStatic()) {
             target.codegen(output);
         }
-        for (JExpression argument : arguments) {
-            argument.codegen(output);
+        for (int i = 0; i < arguments.size(); i++) {
+            arguments.get(i).codegen(output);
+            converters[i].codegen(output);
         }
         int mnemonic = method.isStatic() ? INVOKESTATIC : target.type()
                 .isInterface() ? INVOKEINTERFACE : INVOKEVIRTUAL;
@@ -205,11 +205,19 @@ class JMethodDeclaration
     public void codegen(CLEmitter output) {
         output.addMethod(mods, name, descriptor, null, false);
         if (body != null) {
-            body.codegen(output);
+            // Split the body up should it be too long
+            MethodSplitter splitter = output.methodSplitter();
+            if (splitter == null) {
+                body.codegen(output);
+            } else {
+                splitter.codegen(body.statements(), isStatic, params, body
+                        .context(), output);
+            }
         }
 
-        // Add implicit RETURN
-        if (returnType == Type.VOID) {
+        // Add implicit RETURN, unless it would be unreachable
+        if (returnType == Type.VOID
+                && (body == null || body.completesNormally())) {
             output.addNoArgInstruction(RETURN);
         }
     }
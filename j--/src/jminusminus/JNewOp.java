@@ -21,6 +21,9 @@ class JNewOp extends JExpression {
     /** Types of the arguments. */
     private Type[] argTypes;
 
+    /** Conversions from the argument types to the parameter types. */
+    private Converter[] converters;
+
     /**
      * Construct an AST node for a "new" expression.
      * 
@@ -80,6 +83,9 @@ class JNewOp extends JExpression {
             JAST.compilationUnit.reportSemanticError(line(),
                     "Cannot find constructor: "
                             + Type.signatureFor(type.toString(), argTypes));
+        } else {
+            converters = Conversions.forArguments(line, argTypes, constructor
+                    .parameterTypes());
         }
         return this;
     }
@@ -98,8 +104,9 @@ class JNewOp extends JExpression {
     public void codegen(CLEmitter output) {
         output.addReferenceInstruction(NEW, type.jvmName());
         output.addNoArgInstruction(DUP);
-        for (JExpression argument : arguments) {
-            argument.codegen(output);
+        for (int i = 0; i < arguments.size(); i++) {
+            arguments.get(i).codegen(output);
+            converters[i].codegen(output);
         }
         output.addMemberAccessInstruction(INVOKESPECIAL, type.jvmName(),
                 "<init>", constructor.toDescriptor());
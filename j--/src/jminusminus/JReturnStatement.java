@@ -90,6 +90,16 @@ class JReturnStatement
         return this;
     }
 
+    /**
+     * A return statement never completes normally.
+     * 
+     * @return false.
+     */
+
+    public boolean completesNormally() {
+        return false;
+    }
+
     /**
      * Generate code for the return statement. In the case of
      * void method types, generate a simple (void) return. In the
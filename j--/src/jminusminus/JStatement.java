@@ -20,4 +20,16 @@ abstract class JStatement extends JAST {
         super(line);
     }
 
+    /**
+     * Can this (analyzed) statement complete normally? Most statements can;
+     * those that always transfer control elsewhere (return, throw) cannot, and
+     * any statements following them in a block are unreachable.
+     * 
+     * @return true or false.
+     */
+
+    public boolean completesNormally() {
+        return true;
+    }
+
 }
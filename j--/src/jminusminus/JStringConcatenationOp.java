@@ -2,6 +2,8 @@
 
 package jminusminus;
 
+import java.util.ArrayList;
+
 import static jminusminus.CLConstants.*;
 
 /**
@@ -13,6 +15,40 @@ import static jminusminus.CLConstants.*;
 
 class JStringConcatenationOp extends JBinaryExpression {
 
+    /**
+     * The maximum number of argument slots of a dynamic call site passed to
+     * StringConcatFactory.
+     */
+    private static final int MAX_INDY_SLOTS = 200;
+
+    /** Recipe tag for an ordinary (dynamic) argument. */
+    private static final char TAG_ARG = '\u0001';
+
+    /** Recipe tag for a constant argument. */
+    private static final char TAG_CONST = '\u0002';
+
+    /** The bootstrap method for string concatenation call sites. */
+    private static final String STRING_CONCAT_FACTORY = "java/lang/invoke/StringConcatFactory";
+
+    /** The type descriptor of the bootstrap method. */
+    private static final String MAKE_CONCAT_WITH_CONSTANTS_TYPE = "(Ljava/lang/invoke/MethodHandles$Lookup;"
+            + "Ljava/lang/String;Ljava/lang/invoke/MethodType;"
+            + "Ljava/lang/String;[Ljava/lang/Object;)"
+            + "Ljava/lang/invoke/CallSite;";
+
+    /**
+     * Capacity reserved in the StringBuilder for an operand whose length isn't
+     * known at compile-time.
+     */
+    private static final int OPERAND_ESTIMATE = 16;
+
+    /**
+     * The operands of this concatenation, and of any concatenations nested in
+     * it, in order; adjacent constant operands are folded into a single string
+     * literal. Built in analyze().
+     */
+    private ArrayList<JExpression> operands;
+
     /**
      * Construct an AST node for a string concatenation expression given its
      * line number, and the lhs and rhs operands. An expression of this sort is
@@ -32,8 +68,10 @@ class JStringConcatenationOp extends JBinaryExpression {
     }
 
     /**
-     * Analysis is simple here. The operands have already been analyzed (in
-     * JPlusOp) so we simply set the result type.
+     * The operands have already been analyzed (in JPlusOp) so we set the
+     * result type, flatten nested concatenations into a single list of
+     * operands, and fold adjacent constant operands into one string literal.
+     * A concatenation of constants is itself replaced by a string literal.
      * 
      * @param context
      *            context in which names are resolved.
@@ -42,14 +80,38 @@ class JStringConcatenationOp extends JBinaryExpression {
 
     public JExpression analyze(Context context) {
         type = Type.STRING;
+        operands = new ArrayList<JExpression>();
+        StringBuilder constant = null;
+        for (JExpression operand : flatten(new ArrayList<JExpression>())) {
+            String value = constantValue(operand);
+            if (value != null) {
+                if (constant == null) {
+                    constant = new StringBuilder();
+                }
+                constant.append(value);
+            } else {
+                if (constant != null) {
+                    operands.add(stringLiteral(constant.toString()));
+                    constant = null;
+                }
+                operands.add(operand);
+            }
+        }
+        if (constant != null) {
+            operands.add(stringLiteral(constant.toString()));
+        }
+        if (operands.size() == 1 && operands.get(0).isConstant()) {
+            return operands.get(0);
+        }
         return this;
     }
 
     /**
      * Code generation generates code for creating a StringBuilder atop the
-     * runtime stack, appending the operands (which might contain nested
-     * concatenations; these are handled by cascadingCodegen()), and then for
-     * converting the StringBuilder to a String.
+     * runtime stack, appending the operands, and then for converting the
+     * StringBuilder to a String. The StringBuilder is created with enough
+     * capacity for the constant operands plus an estimate for the others, so
+     * that it rarely needs to grow.
      * 
      * @param output
      *            the code emitter (basically an abstraction for producing the
@@ -57,14 +119,27 @@ class JStringConcatenationOp extends JBinaryExpression {
      */
 
     public void codegen(CLEmitter output) {
-        // Firstly, create a StringBuilder
+        if (output.invokeDynamicConcatenation()
+                && operands.size() <= MAX_INDY_SLOTS) {
+            codegenInvokeDynamic(output);
+            return;
+        }
+
+        // Firstly, create a (presized) StringBuilder
         output.addReferenceInstruction(NEW, "java/lang/StringBuilder");
         output.addNoArgInstruction(DUP);
+        new JLiteralInt(line(), Integer.toString(capacity())).codegen(output);
         output.addMemberAccessInstruction(INVOKESPECIAL,
-                "java/lang/StringBuilder", "<init>", "()V");
+                "java/lang/StringBuilder", "<init>", "(I)V");
 
-        // Lhs and Rhs
-        nestedCodegen(output);
+        // The operands
+        for (JExpression operand : operands) {
+            operand.codegen(output);
+            output.addMemberAccessInstruction(INVOKEVIRTUAL,
+                    "java/lang/StringBuilder", "append", "("
+                            + operand.type().argumentTypeForAppend()
+                            + ")Ljava/lang/StringBuilder;");
+        }
 
         // Finally, make into a String
         output.addMemberAccessInstruction(INVOKEVIRTUAL,
@@ -72,38 +147,129 @@ class JStringConcatenationOp extends JBinaryExpression {
     }
 
     /**
-     * Like a codegen() but we needn't (and shouldn't) create a StringBuilder
-     * nor convert the result to a String, as that will be done in a parent.
+     * Generate a single invokedynamic call whose bootstrap method is
+     * StringConcatFactory.makeConcatWithConstants. The constant operands are
+     * baked into the recipe; the others are pushed onto the stack and marked
+     * by \1 tags in it. Constants that themselves contain a tag character
+     * are passed as arguments instead.
      * 
      * @param output
-     *            the code emitter (basically an abstraction for producing the
-     *            .class file).
+     *            the code emitter.
      */
 
-    void nestedCodegen(CLEmitter output) {
-        // Lhs
-        if (lhs instanceof JStringConcatenationOp) {
-            // This appends lhs
-            ((JStringConcatenationOp) lhs).nestedCodegen(output);
-        } else {
-            lhs.codegen(output);
-            output.addMemberAccessInstruction(INVOKEVIRTUAL,
-                    "java/lang/StringBuilder", "append", "("
-                            + lhs.type().argumentTypeForAppend()
-                            + ")Ljava/lang/StringBuilder;");
+    private void codegenInvokeDynamic(CLEmitter output) {
+        StringBuilder recipe = new StringBuilder();
+        StringBuilder descriptor = new StringBuilder("(");
+        for (JExpression operand : operands) {
+            if (operand instanceof JLiteralString) {
+                String value = ((JLiteralString) operand).value();
+                if (value.indexOf(TAG_ARG) < 0 && value.indexOf(TAG_CONST) < 0) {
+                    recipe.append(value);
+                    continue;
+                }
+            }
+            operand.codegen(output);
+            recipe.append(TAG_ARG);
+            descriptor.append(operand.type().argumentTypeForAppend());
         }
+        descriptor.append(")Ljava/lang/String;");
+        ArrayList<String> bootstrapArguments = new ArrayList<String>();
+        bootstrapArguments.add(recipe.toString());
+        output.addInvokeDynamicInstruction(STRING_CONCAT_FACTORY,
+                "makeConcatWithConstants", MAKE_CONCAT_WITH_CONSTANTS_TYPE,
+                bootstrapArguments, "makeConcatWithConstants", descriptor
+                        .toString());
+    }
 
-        // Rhs
-        if (rhs instanceof JStringConcatenationOp) {
-            // This appends rhs
-            ((JStringConcatenationOp) rhs).nestedCodegen(output);
-        } else {
-            rhs.codegen(output);
-            output.addMemberAccessInstruction(INVOKEVIRTUAL,
-                    "java/lang/StringBuilder", "append", "("
-                            + rhs.type().argumentTypeForAppend()
-                            + ")Ljava/lang/StringBuilder;");
+    /**
+     * Return the operands of this concatenation; those of nested (analyzed)
+     * concatenations are included in their place.
+     * 
+     * @return the operands.
+     */
+
+    ArrayList<JExpression> operands() {
+        return operands;
+    }
+
+    /**
+     * Add the operands of this (not yet flattened) concatenation to the given
+     * list, recursing into nested concatenations.
+     * 
+     * @param list
+     *            the list to add to.
+     * @return the list.
+     */
+
+    private ArrayList<JExpression> flatten(ArrayList<JExpression> list) {
+        for (JExpression operand : new JExpression[] { lhs, rhs }) {
+            if (operand instanceof JStringConcatenationOp) {
+                list.addAll(((JStringConcatenationOp) operand).operands());
+            } else {
+                list.add(operand);
+            }
         }
+        return list;
+    }
+
+    /**
+     * The capacity to create the StringBuilder with: the lengths of the
+     * constant operands, plus an estimate for each of the others.
+     * 
+     * @return the capacity.
+     */
+
+    private int capacity() {
+        int capacity = 0;
+        for (JExpression operand : operands) {
+            if (operand instanceof JLiteralString) {
+                capacity += ((JLiteralString) operand).value().length();
+            } else if (operand.type() == Type.CHAR) {
+                capacity += 1;
+            } else if (operand.type() == Type.BOOLEAN) {
+                capacity += 5;
+            } else if (operand.type() == Type.INT) {
+                capacity += 11;
+            } else {
+                capacity += OPERAND_ESTIMATE;
+            }
+        }
+        return capacity;
+    }
+
+    /**
+     * Return the string an operand contributes to the concatenation if it's a
+     * constant, or null otherwise.
+     * 
+     * @param operand
+     *            the (analyzed) operand.
+     * @return its string value, or null.
+     */
+
+    private static String constantValue(JExpression operand) {
+        if (operand instanceof JLiteralString) {
+            return ((JLiteralString) operand).value();
+        } else if (operand instanceof JLiteralChar) {
+            return String.valueOf(((JLiteralChar) operand).value());
+        } else if (operand instanceof JLiteralInt) {
+            return Integer.toString(((JLiteralInt) operand).value());
+        } else if (isBooleanConstant(operand)) {
+            return String.valueOf(booleanConstant(operand));
+        }
+        return null;
+    }
+
+    /**
+     * Return an (analyzed) string literal for the given value.
+     * 
+     * @param value
+     *            the string.
+     * @return the literal.
+     */
+
+    private JExpression stringLiteral(String value) {
+        return new JLiteralString(line(), "\"" + Util.escape(value) + "\"")
+                .analyze(null);
     }
 
 }
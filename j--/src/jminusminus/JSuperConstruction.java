@@ -20,6 +20,9 @@ class JSuperConstruction extends JExpression {
     /** Types of arguments. */
     private Type[] argTypes;
 
+    /** Conversions from the argument types to the parameter types. */
+    private Converter[] converters;
+
     /**
      * Whether this constructor is used properly, ie, as the first statement
      * within a constructor.
@@ -94,6 +97,9 @@ class JSuperConstruction extends JExpression {
                     "No such constructor: super"
                             + Type.argTypesAsString(argTypes));
 
+        } else {
+            converters = Conversions.forArguments(line, argTypes, constructor
+                    .parameterTypes());
         }
         return this;
     }
@@ -109,8 +115,9 @@ class JSuperConstruction extends JExpression {
 
     public void codegen(CLEmitter output) {
         output.addNoArgInstruction(ALOAD_0); // this
-        for (JExpression argument : arguments) {
-            argument.codegen(output);
+        for (int i = 0; i < arguments.size(); i++) {
+            arguments.get(i).codegen(output);
+            converters[i].codegen(output);
         }
         output.addMemberAccessInstruction(INVOKESPECIAL, constructor
                 .declaringType().jvmName(), "<init>", constructor
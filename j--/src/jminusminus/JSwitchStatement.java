@@ -3,9 +3,11 @@ package jminusminus;
 import static jminusminus.CLConstants.*;
 
 import java.util.ArrayList;
+import java.util.Hashtable;
 import java.util.List;
+import java.util.TreeMap;
 
-public class JSwitchStatement extends JStatement {
+public class JSwitchStatement extends JStatement implements JBreakable {
 	
 	private class SwitchPair {
 		public JExpression[] myCases;
@@ -31,6 +33,30 @@ public class JSwitchStatement extends JStatement {
 	
 	private JExpression myClause;
 	private List<SwitchPair> mySwitchPairs;
+
+    /** Case label values, mapped to the pairs they select; set in analyze(). */
+    private TreeMap<Integer, SwitchPair> caseValues;
+
+    /** The pair the default label belongs to, if any. */
+    private SwitchPair defaultPair;
+
+    /** Whether a break statement exits this switch. */
+    private boolean hasBreak;
+
+    /** The label past the switch; created in codegen(). */
+    private String out;
+
+    /**
+     * For a String switch, the distinct case labels in order; the case value
+     * of a label is its index in this list.
+     */
+    private ArrayList<String> stringLabels;
+
+    /** For a String switch, offset of the local holding the selector. */
+    private int selectorOffset;
+
+    /** For a String switch, offset of the local holding the case index. */
+    private int indexOffset;
 	
 	public JSwitchStatement(int line, JExpression theClause) {
 		super(line);
@@ -74,21 +100,90 @@ public class JSwitchStatement extends JStatement {
 	}
 	
     /**
-     * Analysis involves analyzing the test, checking its type and analyzing the
-     * body statement.
+     * Analysis involves analyzing the selector, checking that it's an int (or
+     * char) or a String, analyzing the case labels, which must be distinct
+     * constants, and analyzing the statements. The switch block is a single
+     * scope, in which break statements exit the switch. For a String switch,
+     * the case value of a label is its index among the (distinct) labels, and
+     * two locals are allocated for codegen.
      * 
      * @param context
      *            context in which names are resolved.
      * @return the analyzed (and possibly rewritten) AST subtree.
      */
-	
-	public JSwitchStatement analyze(Context context) {
-        //TODO
+
+    public JStatement analyze(Context context) {
+        myClause = myClause.analyze(context);
+        myClause.type().mustMatchOneOf(line(), Type.INT, Type.CHAR,
+                Type.STRING);
+        if (myClause.type() == Type.STRING) {
+            stringLabels = new ArrayList<String>();
+            selectorOffset = ((LocalContext) context).nextOffset();
+            indexOffset = ((LocalContext) context).nextOffset();
+        }
+        LocalContext bodyContext = new LocalContext(context);
+        bodyContext.setBreakTarget(this);
+        caseValues = new TreeMap<Integer, SwitchPair>();
+        for (SwitchPair pair : mySwitchPairs) {
+            for (int i = 0; i < pair.myCases.length; i++) {
+                if (pair.myCases[i] == null) {
+                    defaultPair = pair;
+                    continue;
+                }
+                pair.myCases[i] = pair.myCases[i].analyze(bodyContext);
+                JExpression label = pair.myCases[i];
+                if (stringLabels != null) {
+                    if (!(label instanceof JLiteralString)) {
+                        JAST.compilationUnit.reportSemanticError(label.line(),
+                                "case label must be a String constant");
+                        continue;
+                    }
+                    String value = ((JLiteralString) label).value();
+                    if (stringLabels.contains(value)) {
+                        JAST.compilationUnit.reportSemanticError(label.line(),
+                                "Duplicate case label \"%s\"", value);
+                    } else {
+                        caseValues.put(stringLabels.size(), pair);
+                        stringLabels.add(value);
+                    }
+                    continue;
+                }
+                if (!JExpression.isIntConstant(label)) {
+                    JAST.compilationUnit.reportSemanticError(label.line(),
+                            "case label must be an int or char constant");
+                    continue;
+                }
+                int value = JExpression.intConstant(label);
+                if (myClause.type() == Type.CHAR
+                        && (value < Character.MIN_VALUE
+                        || value > Character.MAX_VALUE)) {
+                    JAST.compilationUnit.reportSemanticError(label.line(),
+                            "case label %d is not a char", value);
+                } else if (caseValues.put(value, pair) != null) {
+                    JAST.compilationUnit.reportSemanticError(label.line(),
+                            "Duplicate case label %d", value);
+                }
+            }
+            for (int i = 0; i < pair.myStatements.length; i++) {
+                pair.myStatements[i] = (JStatement) pair.myStatements[i]
+                        .analyze(bodyContext);
+            }
+        }
         return this;
     }
 
     /**
-     * Generate code for the switch statement.
+     * Generate code for the switch statement. The selector is dispatched on
+     * with a TABLESWITCH when the case labels are dense enough, and with a
+     * LOOKUPSWITCH otherwise (see useTableSwitch()); either way dispatch takes
+     * (at most) logarithmic time in the number of cases. The statements
+     * follow, in order, so that control falls through from one group of cases
+     * to the next.
+     * 
+     * A String switch is lowered as javac does it: the case index of the
+     * selector is computed by a first switch, on the selector's hashCode(),
+     * in which equals() tells apart the labels that share a hash code; the
+     * second switch, on the case index, selects the statements.
      * 
      * @param output
      *            the code emitter (basically an abstraction for producing the
@@ -96,10 +191,172 @@ public class JSwitchStatement extends JStatement {
      */
 
     public void codegen(CLEmitter output) {
-    	//TODO
-    	
+        myClause.codegen(output);
+        if (stringLabels != null) {
+            codegenCaseIndex(output);
+        }
+        out = output.createLabel();
+        Hashtable<SwitchPair, String> pairLabels = new Hashtable<SwitchPair, String>();
+        for (SwitchPair pair : mySwitchPairs) {
+            pairLabels.put(pair, output.createLabel());
+        }
+        String defaultLabel = defaultPair == null ? out : pairLabels
+                .get(defaultPair);
+        TreeMap<Integer, String> caseLabels = new TreeMap<Integer, String>();
+        for (int value : caseValues.keySet()) {
+            caseLabels.put(value, pairLabels.get(caseValues.get(value)));
+        }
+        codegenDispatch(output, defaultLabel, caseLabels);
+        for (SwitchPair pair : mySwitchPairs) {
+            output.addLabel(pairLabels.get(pair));
+            for (JStatement statement : pair.myStatements) {
+                statement.codegen(output);
+            }
+        }
+        output.addLabel(out);
+    }
+
+    /**
+     * Generate code that leaves the case index of the (String) selector, atop
+     * the stack, in the index local; the index is -1 if the selector matches
+     * no label.
+     * 
+     * @param output
+     *            the code emitter.
+     */
+
+    private void codegenCaseIndex(CLEmitter output) {
+        output.addOneArgInstruction(ASTORE, selectorOffset);
+        output.addNoArgInstruction(ICONST_M1);
+        output.addOneArgInstruction(ISTORE, indexOffset);
+        output.addOneArgInstruction(ALOAD, selectorOffset);
+        output.addMemberAccessInstruction(INVOKEVIRTUAL, "java/lang/String",
+                "hashCode", "()I");
+
+        // Group the labels by hash code
+        TreeMap<Integer, ArrayList<Integer>> hashes = new TreeMap<Integer, ArrayList<Integer>>();
+        for (int index = 0; index < stringLabels.size(); index++) {
+            int hash = stringLabels.get(index).hashCode();
+            if (!hashes.containsKey(hash)) {
+                hashes.put(hash, new ArrayList<Integer>());
+            }
+            hashes.get(hash).add(index);
+        }
+        String done = output.createLabel();
+        TreeMap<Integer, String> hashLabels = new TreeMap<Integer, String>();
+        for (int hash : hashes.keySet()) {
+            hashLabels.put(hash, output.createLabel());
+        }
+        codegenDispatch(output, done, hashLabels);
+        for (int hash : hashes.keySet()) {
+            output.addLabel(hashLabels.get(hash));
+            ArrayList<Integer> indices = hashes.get(hash);
+            for (int index : indices) {
+                boolean last = index == indices.get(indices.size() - 1);
+                String next = last ? done : output.createLabel();
+                output.addOneArgInstruction(ALOAD, selectorOffset);
+                output.addLDCInstruction(stringLabels.get(index));
+                output.addMemberAccessInstruction(INVOKEVIRTUAL,
+                        "java/lang/String", "equals", "(Ljava/lang/Object;)Z");
+                output.addBranchInstruction(IFEQ, next);
+                new JLiteralInt(line(), Integer.toString(index))
+                        .codegen(output);
+                output.addOneArgInstruction(ISTORE, indexOffset);
+                output.addBranchInstruction(GOTO, done);
+                if (!last) {
+                    output.addLabel(next);
+                }
+            }
+        }
+        output.addLabel(done);
+        output.addOneArgInstruction(ILOAD, indexOffset);
+    }
+
+    /**
+     * Generate a TABLESWITCH or LOOKUPSWITCH on the int atop the stack.
+     * 
+     * @param output
+     *            the code emitter.
+     * @param defaultLabel
+     *            label to jump to when no case matches.
+     * @param caseLabels
+     *            labels to jump to, by case value.
+     */
+
+    private static void codegenDispatch(CLEmitter output, String defaultLabel,
+            TreeMap<Integer, String> caseLabels) {
+        if (!caseLabels.isEmpty()
+                && useTableSwitch(caseLabels.firstKey(), caseLabels.lastKey(),
+                        caseLabels.size())) {
+            int low = caseLabels.firstKey(), high = caseLabels.lastKey();
+            ArrayList<String> labels = new ArrayList<String>();
+            for (long value = low; value <= high; value++) {
+                String label = caseLabels.get((int) value);
+                labels.add(label == null ? defaultLabel : label);
+            }
+            output.addTABLESWITCHInstruction(defaultLabel, low, high, labels);
+        } else {
+            output.addLOOKUPSWITCHInstruction(defaultLabel, caseLabels.size(),
+                    caseLabels);
+        }
+    }
+
+    /**
+     * Should a switch on the given case labels use a TABLESWITCH (or a
+     * LOOKUPSWITCH)? We use the same cost model as javac: a table costs space
+     * proportional to the range of the labels but constant time, while a
+     * lookup costs space proportional to the number of labels and (binary
+     * search) time that grows with it; time is weighted three times space.
+     * 
+     * @param low
+     *            the smallest case label.
+     * @param high
+     *            the largest case label.
+     * @param count
+     *            the number of case labels.
+     * @return true for a TABLESWITCH, false for a LOOKUPSWITCH.
+     */
+
+    private static boolean useTableSwitch(int low, int high, int count) {
+        long tableSpaceCost = 4 + ((long) high - low + 1);
+        long tableTimeCost = 3;
+        long lookupSpaceCost = 3 + 2 * (long) count;
+        long lookupTimeCost = count;
+        return tableSpaceCost + 3 * tableTimeCost <= lookupSpaceCost + 3
+                * lookupTimeCost;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public void addBreak() {
+        hasBreak = true;
     }
-    
+
+    /**
+     * @inheritDoc
+     */
+
+    public String breakLabel() {
+        return out;
+    }
+
+    /**
+     * A switch statement completes normally unless it has a default, no break
+     * exits it, and its last statement cannot complete normally.
+     * 
+     * @return true or false.
+     */
+
+    public boolean completesNormally() {
+        if (defaultPair == null || hasBreak || mySwitchPairs.isEmpty()) {
+            return true;
+        }
+        JStatement[] last = mySwitchPairs.get(mySwitchPairs.size() - 1).myStatements;
+        return last.length == 0 || last[last.length - 1].completesNormally();
+    }
+
     public void writeToStdOut(PrettyPrinter p) {
     	 p.printf("<JSwitchStatement line=\"%d\">\n", line());
          p.indentRight();
@@ -24,8 +24,15 @@ public class JTernaryExpression extends JExpression {
 		// Assignment for resultIfTrue and resultIfFalse
 		resultIfTrue = (JExpression) resultIfTrue.analyze(context);
 		resultIfFalse = (JExpression) resultIfFalse.analyze(context);
-		
+		resultIfFalse.type().mustMatchExpected(line(), resultIfTrue.type());
+		type = resultIfTrue.type();
 
+		// A constant condition selects one of the results
+		if (condition instanceof JLiteralTrue) {
+			return resultIfTrue;
+		} else if (condition instanceof JLiteralFalse) {
+			return resultIfFalse;
+		}
 		return this;
 	}
 
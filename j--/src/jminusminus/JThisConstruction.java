@@ -20,6 +20,9 @@ class JThisConstruction extends JExpression {
     /** Types of arguments. */
     private Type[] argTypes;
 
+    /** Conversions from the argument types to the parameter types. */
+    private Converter[] converters;
+
     /**
      * Whether this constructor is used properly, ie, as the first statement
      * within a constructor.
@@ -88,6 +91,9 @@ class JThisConstruction extends JExpression {
                     "No such constructor: this"
                             + Type.argTypesAsString(argTypes));
 
+        } else {
+            converters = Conversions.forArguments(line, argTypes, constructor
+                    .parameterTypes());
         }
         return this;
     }
@@ -103,8 +109,9 @@ class JThisConstruction extends JExpression {
 
     public void codegen(CLEmitter output) {
         output.addNoArgInstruction(ALOAD_0); // this
-        for (JExpression argument : arguments) {
-            argument.codegen(output);
+        for (int i = 0; i < arguments.size(); i++) {
+            arguments.get(i).codegen(output);
+            converters[i].codegen(output);
         }
         output.addMemberAccessInstruction(INVOKESPECIAL, constructor
                 .declaringType().jvmName(), "<init>", constructor
@@ -33,8 +33,8 @@ class JThrowStatement extends JStatement {
     }
 
     /**
-     * Analyzing the if-statement means analyzing its components and checking
-     * that the test is boolean.
+     * Analyzing the throw-statement means analyzing the thrown expression and
+     * checking that it is a Throwable.
      * 
      * @param context
      *            context in which names are resolved.
@@ -42,13 +42,31 @@ class JThrowStatement extends JStatement {
      */
 
     public JStatement analyze(Context context) {
+        throwExpression = throwExpression.analyze(context);
+        Type throwable = Type.typeFor(Throwable.class);
+        if (throwExpression.type() != Type.ANY
+                && (!throwExpression.type().isReference() || !throwable
+                        .isJavaAssignableFrom(throwExpression.type()))) {
+            JAST.compilationUnit.reportSemanticError(line(),
+                    "Cannot throw a value of type "
+                            + throwExpression.type().toString());
+        }
         return this;
     }
 
     /**
-     * Code generation for an if-statement. We generate code to branch over the
-     * consequent if !test; the consequent is followed by an unconditonal branch
-     * over (any) alternate.
+     * A throw-statement never completes normally.
+     * 
+     * @return false.
+     */
+
+    public boolean completesNormally() {
+        return false;
+    }
+
+    /**
+     * Code generation for a throw-statement: the thrown expression, and then
+     * ATHROW.
      * 
      * @param output
      *            the code emitter (basically an abstraction for producing the
@@ -56,7 +74,8 @@ class JThrowStatement extends JStatement {
      */
 
     public void codegen(CLEmitter output) {
-    	//nothin yet
+        throwExpression.codegen(output);
+        output.addNoArgInstruction(ATHROW);
     }
 
     /**
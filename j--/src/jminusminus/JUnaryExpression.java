@@ -34,6 +34,22 @@ abstract class JUnaryExpression extends JExpression {
         this.arg = arg;
     }
 
+    /**
+     * For the increment and decrement operators: make sure the (analyzed)
+     * operand may be assigned to; constant variables are replaced by their
+     * values during analysis, and final locals may not be assigned.
+     */
+
+    protected void checkAssignable() {
+        if (!(arg instanceof JLhs)
+                || arg instanceof JVariable
+                && ((JVariable) arg).iDefn() instanceof LocalVariableDefn
+                && ((LocalVariableDefn) ((JVariable) arg).iDefn()).isFinal()) {
+            JAST.compilationUnit.reportSemanticError(line,
+                    "Cannot assign a value to a final variable");
+        }
+    }
+
     /**
      * @inheritDoc
      */
@@ -77,7 +93,8 @@ class JNegateOp extends JUnaryExpression {
 
     /**
      * Analyzing the negation operation involves analyzing its operand, checking
-     * its type and determining the result type.
+     * its type and determining the result type. The negation of a constant is
+     * folded.
      * 
      * @param context
      *            context in which names are resolved.
@@ -88,6 +105,9 @@ class JNegateOp extends JUnaryExpression {
         arg = arg.analyze(context);
         arg.type().mustMatchExpected(line(), Type.INT);
         type = Type.INT;
+        if (isIntConstant(arg)) {
+            return foldTo(-intConstant(arg));
+        }
         return this;
     }
 
@@ -130,7 +150,8 @@ class JLogicalNotOp extends JUnaryExpression {
 
     /**
      * Analyzing a logical NOT operation means analyzing its operand, insuring
-     * it's a boolean, and setting the result to boolean.
+     * it's a boolean, and setting the result to boolean. The negation of a
+     * constant is folded.
      * 
      * @param context
      *            context in which names are resolved.
@@ -140,6 +161,9 @@ class JLogicalNotOp extends JUnaryExpression {
         arg = (JExpression) arg.analyze(context);
         arg.type().mustMatchExpected(line(), Type.BOOLEAN);
         type = Type.BOOLEAN;
+        if (isBooleanConstant(arg)) {
+            return foldTo(!booleanConstant(arg));
+        }
         return this;
     }
 
@@ -215,6 +239,7 @@ class JPostDecrementOp extends JUnaryExpression {
             type = Type.ANY;
         } else {
             arg = (JExpression) arg.analyze(context);
+            checkAssignable();
             arg.type().mustMatchExpected(line(), Type.INT);
             type = Type.INT;
         }
@@ -297,6 +322,7 @@ class JPreIncrementOp extends JUnaryExpression {
             type = Type.ANY;
         } else {
             arg = (JExpression) arg.analyze(context);
+            checkAssignable();
             arg.type().mustMatchExpected(line(), Type.INT);
             type = Type.INT;
         }
@@ -369,7 +395,8 @@ class JPositiveOp extends JUnaryExpression {
 
     /**
      * Analyzing the positive operation involves analyzing its operand, checking
-     * its type and determining the result type.
+     * its type and determining the result type. Since unary plus is the
+     * identity on int, a constant operand is simply returned.
      * 
      * @param context
      *            context in which names are resolved.
@@ -380,12 +407,15 @@ class JPositiveOp extends JUnaryExpression {
         arg = arg.analyze(context);
         arg.type().mustMatchExpected(line(), Type.INT);
         type = Type.INT;
+        if (isIntConstant(arg)) {
+            return foldTo(intConstant(arg));
+        }
         return this;
     }
 
     /**
      * Generating code for the positive operation involves generating code for
-     * the operand, and then the positive instruction.
+     * the operand only; there is no instruction for unary plus.
      * 
      * @param output
      *            the code emitter (basically an abstraction for producing the
@@ -394,7 +424,6 @@ class JPositiveOp extends JUnaryExpression {
 
     public void codegen(CLEmitter output) {
         arg.codegen(output);
-        output.addNoArgInstruction(INEG);
     }
 
 }
@@ -435,6 +464,7 @@ class JPostIncrementOp extends JUnaryExpression {
             type = Type.ANY;
         } else {
             arg = (JExpression) arg.analyze(context);
+            checkAssignable();
             arg.type().mustMatchExpected(line(), Type.INT);
             type = Type.INT;
         }
@@ -442,12 +472,12 @@ class JPostIncrementOp extends JUnaryExpression {
     }
 
     /**
-     * In generating code for a post-decrement operation, we treat simple
+     * In generating code for a post-increment operation, we treat simple
      * variable (JVariable) operands specially since the JVM has an increment
      * instruction. Otherwise, we rely on the JLhs code generation support for
      * generating the proper code. Notice that we distinguish between
      * expressions that are statement expressions and those that are not; we
-     * insure the proper value (before the decrement) is left atop the stack in
+     * insure the proper value (before the increment) is left atop the stack in
      * the latter case.
      * 
      * @param output
@@ -465,7 +495,7 @@ class JPostIncrementOp extends JUnaryExpression {
                 // Loading its original rvalue
                 arg.codegen(output);
             }
-            output.addIINCInstruction(offset, -1);
+            output.addIINCInstruction(offset, 1);
         } else {
             ((JLhs) arg).codegenLoadLhsLvalue(output);
             ((JLhs) arg).codegenLoadLhsRvalue(output);
@@ -516,6 +546,7 @@ class JPreDecrementOp extends JUnaryExpression {
             type = Type.ANY;
         } else {
             arg = (JExpression) arg.analyze(context);
+            checkAssignable();
             arg.type().mustMatchExpected(line(), Type.INT);
             type = Type.INT;
         }
@@ -523,12 +554,12 @@ class JPreDecrementOp extends JUnaryExpression {
     }
 
     /**
-     * In generating code for a pre-increment operation, we treat simple
+     * In generating code for a pre-decrement operation, we treat simple
      * variable (JVariable) operands specially since the JVM has an increment
      * instruction. Otherwise, we rely on the JLhs code generation support for
      * generating the proper code. Notice that we distinguish between
      * expressions that are statement expressions and those that are not; we
-     * insure the proper value (after the increment) is left atop the stack in
+     * insure the proper value (after the decrement) is left atop the stack in
      * the latter case.
      * 
      * @param output
@@ -542,7 +573,7 @@ class JPreDecrementOp extends JUnaryExpression {
             // have replaced it with an explicit field selection.
             int offset = ((LocalVariableDefn) ((JVariable) arg).iDefn())
                     .offset();
-            output.addIINCInstruction(offset, 1);
+            output.addIINCInstruction(offset, -1);
             if (!isStatementExpression) {
                 // Loading its original rvalue
                 arg.codegen(output);
@@ -582,8 +613,9 @@ class JComplementOp extends JUnaryExpression {
     }
 
     /**
-     * Analyze the operand as a lhs (since there is a side effect), check types
-     * and determine the type of the result.
+     * Analyzing the complement operation involves analyzing its operand,
+     * checking its type and determining the result type. The complement of a
+     * constant is folded.
      * 
      * @param context
      *            context in which names are resolved.
@@ -591,14 +623,26 @@ class JComplementOp extends JUnaryExpression {
      */
 
     public JExpression analyze(Context context) {
-    	//FIXME 
-    	arg = arg.analyze(context);
+        arg = arg.analyze(context);
         arg.type().mustMatchExpected(line(), Type.INT);
         type = Type.INT;
+        if (isIntConstant(arg)) {
+            return foldTo(~intConstant(arg));
+        }
         return this;
     }
 
+    /**
+     * There is no complement instruction; ~x is computed as x ^ -1.
+     * 
+     * @param output
+     *            the code emitter (basically an abstraction for producing the
+     *            .class file).
+     */
+
     public void codegen(CLEmitter output) {
-        //TODO
+        arg.codegen(output);
+        output.addNoArgInstruction(ICONST_M1);
+        output.addNoArgInstruction(IXOR);
     }
 }
\ No newline at end of file
@@ -19,6 +19,9 @@ class JVariable extends JExpression implements JLhs {
     /** Was analyzeLhs() done? */
     private boolean analyzeLhs;
 
+    /** Is this the field initialized by a field declaration? */
+    private boolean isFieldInitialization;
+
     /**
      * Construct the AST node for a variable given its line number and name.
      * 
@@ -33,6 +36,15 @@ class JVariable extends JExpression implements JLhs {
         this.name = name;
     }
 
+    /**
+     * Mark this variable as the field initialized by a field declaration,
+     * which may be assigned to even if it is final.
+     */
+
+    public void makeFieldInitialization() {
+        isFieldInitialization = true;
+    }
+
     /**
      * Return the identifier name.
      * 
@@ -78,12 +90,18 @@ class JVariable extends JExpression implements JLhs {
                 // Rewrite a variable denoting a field as an
                 // explicit field selection
                 type = field.type();
-                JExpression newTree = new JFieldSelection(line(), field
+                JFieldSelection newTree = new JFieldSelection(line(), field
                         .isStatic()
                         || (context.methodContext() != null && context
                                 .methodContext().isStatic()) ? new JVariable(
                         line(), definingType.toString()) : new JThis(line),
                         name);
+
+                if (analyzeLhs && !isFieldInitialization) {
+                    // As a lhs, a constant field must not be replaced by
+                    // its value, and a final one is an error
+                    return newTree.analyzeLhs(context);
+                }
                 return (JExpression) newTree.analyze(context);
             }
         } else {
@@ -93,6 +111,16 @@ class JVariable extends JExpression implements JLhs {
                         + name + " might not have been initialized");
             }
             type = iDefn.type();
+            if (iDefn instanceof LocalVariableDefn) {
+                LocalVariableDefn defn = (LocalVariableDefn) iDefn;
+                if (analyzeLhs && defn.isFinal()) {
+                    JAST.compilationUnit.reportSemanticError(line,
+                            "Cannot assign a value to final variable " + name);
+                } else if (!analyzeLhs && defn.constantValue() != null) {
+                    // A constant variable; use its value
+                    return defn.constantValue();
+                }
+            }
         }
         return this;
     }
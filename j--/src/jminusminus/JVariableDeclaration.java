@@ -52,6 +52,16 @@ class JVariableDeclaration extends JStatement {
         return mods;
     }
 
+    /**
+     * Return the list of variable declarators.
+     * 
+     * @return list of declarators.
+     */
+
+    public ArrayList<JVariableDeclarator> decls() {
+        return decls;
+    }
+
     /**
      * We declare the variable(s). Initializations are rewritten as assignment
      * statements.
@@ -91,6 +101,15 @@ class JVariableDeclaration extends JStatement {
                 assignOp.isStatementExpression = true;
                 initializations.add(new JStatementExpression(decl.line(),
                         assignOp).analyze(context));
+
+                // A final local initialized with a constant expression
+                // is a constant variable; its uses are folded
+                if (mods.contains("final")) {
+                    defn.makeFinal();
+                    if (assignOp.rhs.isConstant()) {
+                        defn.setConstantValue(assignOp.rhs);
+                    }
+                }
             }
         }
         return this;
@@ -8,7 +8,7 @@ import static jminusminus.CLConstants.*;
  * The AST node for a while-statement.
  */
 
-class JWhileStatement extends JStatement {
+class JWhileStatement extends JStatement implements JBreakable {
 
     /** Test expression. */
     private JExpression condition;
@@ -16,6 +16,12 @@ class JWhileStatement extends JStatement {
     /** The body. */
     private JStatement body;
 
+    /** Whether a break statement exits this loop. */
+    private boolean hasBreak;
+
+    /** The label past the loop; created in codegen(). */
+    private String out;
+
     /**
      * Construct an AST node for a while-statement given its line number, the
      * test expression, and the body.
@@ -36,22 +42,33 @@ class JWhileStatement extends JStatement {
 
     /**
      * Analysis involves analyzing the test, checking its type and analyzing the
-     * body statement.
+     * body statement, in which break statements exit this loop. A loop whose
+     * test is the constant false is replaced by an empty statement; for the
+     * constant true, codegen emits no test.
      * 
      * @param context
      *            context in which names are resolved.
      * @return the analyzed (and possibly rewritten) AST subtree.
      */
 
-    public JWhileStatement analyze(Context context) {
+    public JStatement analyze(Context context) {
         condition = condition.analyze(context);
         condition.type().mustMatchExpected(line(), Type.BOOLEAN);
-        body = (JStatement) body.analyze(context);
+        LocalContext bodyContext = new LocalContext(context);
+        bodyContext.setBreakTarget(this);
+        body = (JStatement) body.analyze(bodyContext);
+        if (condition instanceof JLiteralFalse) {
+            return new JEmptyStatement(line());
+        }
         return this;
     }
 
     /**
-     * Generate code for the while loop.
+     * Generate code for the while loop. The loop is inverted: after a jump to
+     * the test, the body is followed by the test, which branches back up to
+     * the body on the condition being true. So each iteration takes a single
+     * (backward, conditional) branch. When the test is the constant true, the
+     * entry jump is left out.
      * 
      * @param output
      *            the code emitter (basically an abstraction for producing the
@@ -59,25 +76,56 @@ class JWhileStatement extends JStatement {
      */
 
     public void codegen(CLEmitter output) {
-        // Need two labels
+        // Need three labels
+        String top = output.createLabel();
         String test = output.createLabel();
-        String out = output.createLabel();
+        out = output.createLabel();
 
-        // Branch out of the loop on the test condition
-        // being false
-        output.addLabel(test);
-        condition.codegen(output, out, false);
+        // Enter the loop at the test
+        if (!(condition instanceof JLiteralTrue)) {
+            output.addBranchInstruction(GOTO, test);
+        }
 
         // Codegen body
+        output.addLabel(top);
         body.codegen(output);
 
-        // Unconditional jump back up to test
-        output.addBranchInstruction(GOTO, test);
+        // Branch back up to the body on the test condition
+        // being true
+        output.addLabel(test);
+        condition.codegen(output, top, true);
 
         // The label below and outside the loop
         output.addLabel(out);
     }
 
+    /**
+     * @inheritDoc
+     */
+
+    public void addBreak() {
+        hasBreak = true;
+    }
+
+    /**
+     * @inheritDoc
+     */
+
+    public String breakLabel() {
+        return out;
+    }
+
+    /**
+     * A loop whose test is the constant true completes normally only if a
+     * break statement exits it.
+     * 
+     * @return true or false.
+     */
+
+    public boolean completesNormally() {
+        return !(condition instanceof JLiteralTrue) || hasBreak;
+    }
+
     /**
      * @inheritDoc
      */
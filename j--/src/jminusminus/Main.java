@@ -2,8 +2,14 @@
 
 package jminusminus;
 
-import java.io.FileInputStream;
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
 import static jminusminus.TokenKind.EOF;
 
 /**
@@ -44,22 +50,63 @@ public class Main {
 
     public static void main(String args[]) {
         String caller = "java jminusminus.Main";
-        String sourceFile = "";
+        ArrayList<String> sourceFiles = new ArrayList<String>();
         String debugOption = "";
         String outputDir = ".";
+        String jarFile = null;
+        boolean isStored = false;
+        String[] programArgs = null;
         boolean spimOutput = false;
         String registerAllocation = "";
+        int majorVersion = CLConstants.MAJOR_VERSION;
         errorHasOccurred = false;
+        boolean isIndy = false;
+        boolean isOptimized = true;
+        boolean isDirect = false;
+        boolean hasTarget = false;
         for (int i = 0; i < args.length; i++) {
             if (args[i].equals("j--")) {
                 caller = "j--";
             } else if (args[i].endsWith(".java")) {
-                sourceFile = args[i];
+                sourceFiles.add(args[i]);
             } else if (args[i].equals("-t") || args[i].equals("-p")
                     || args[i].equals("-pa") || args[i].equals("-a")) {
                 debugOption = args[i];
+            } else if (args[i].equals("-indy")) {
+                isIndy = true;
+            } else if (args[i].equals("-nopeephole")) {
+                isOptimized = false;
+            } else if (args[i].equals("-direct")) {
+                isDirect = true;
+            } else if (args[i].equals("-run")) {
+                // The remaining arguments are the program's
+                programArgs = Arrays.copyOfRange(args, i + 1, args.length);
+                break;
+            } else if (args[i].equals("-target") && (i + 1) < args.length) {
+                // Release 5 is class file version 49, 6 is 50, and
+                // so on; 1.5 through 1.8 stand for 5 through 8
+                String release = args[++i];
+                if (release.matches("1\\.[5-8]")) {
+                    release = release.substring(2);
+                }
+                int n;
+                try {
+                    n = Integer.parseInt(release);
+                } catch (NumberFormatException e) {
+                    n = 0;
+                }
+                if (n < 5 || n > 17) {
+                    printUsage(caller);
+                    return;
+                }
+                majorVersion = n + 44;
+                hasTarget = true;
             } else if (args[i].endsWith("-d") && (i + 1) < args.length) {
                 outputDir = args[++i];
+            } else if (args[i].equals("-jar") && (i + 1) < args.length) {
+                jarFile = args[++i];
+            } else if (args[i].equals("-0")) {
+                isStored = true;
             } else if (args[i].endsWith("-s") && (i + 1) < args.length) {
                 spimOutput = true;
                 registerAllocation = args[++i];
@@ -80,16 +127,188 @@ public class Main {
                 return;
             }
         }
-        if (sourceFile.equals("")) {
+        if (sourceFiles.isEmpty()) {
             printUsage(caller);
             return;
         }
+        if (isDirect) {
+            // Direct assembly leaves no room for stack map frames, so
+            // the class files are version 49 (release 5)
+            if (hasTarget
+                    && majorVersion >= CLConstants.STACK_MAP_MAJOR_VERSION) {
+                System.err.println("Error: -direct requires -target 5");
+                errorHasOccurred = true;
+                return;
+            }
+            if (isIndy) {
+                // invokedynamic needs class file version 53
+                System.err.println("Error: -direct cannot be used with -indy");
+                errorHasOccurred = true;
+                return;
+            }
+            majorVersion = CLConstants.STACK_MAP_MAJOR_VERSION - 1;
+        }
+        if (jarFile != null && spimOutput) {
+            System.err.println("Error: -jar cannot be used with -s");
+            errorHasOccurred = true;
+            return;
+        }
+        if (programArgs != null && (jarFile != null || spimOutput)) {
+            System.err.println("Error: -run cannot be used with -jar or -s");
+            errorHasOccurred = true;
+            return;
+        }
 
+        CLJarWriter jar = null;
+        if (jarFile != null) {
+            try {
+                jar = new CLJarWriter(jarFile, isStored);
+            } catch (IOException e) {
+                System.err.println("Error: cannot create jar " + jarFile);
+                errorHasOccurred = true;
+                return;
+            }
+        }
+        // Class files are written in the background while the next
+        // types are compiled
+        CLClassWriter writer = spimOutput || programArgs != null ? null
+                : new CLClassWriter();
+        ArrayList<CLFile> classes = programArgs == null ? null
+                : new ArrayList<CLFile>();
+        for (String sourceFile : sourceFiles) {
+            compile(sourceFile, debugOption, outputDir, spimOutput,
+                    registerAllocation, majorVersion, isOptimized, isDirect,
+                    isIndy, jar, writer, classes);
+        }
+        if (writer != null) {
+            errorHasOccurred |= writer.finish();
+        }
+        if (jar != null) {
+            try {
+                jar.close();
+            } catch (IOException e) {
+                System.err.println("Error: cannot write jar " + jarFile);
+                errorHasOccurred = true;
+            }
+            if (errorHasOccurred) {
+                // Do not leave a jar with some of the classes missing
+                new File(jarFile).delete();
+            }
+        }
+        if (classes != null && !classes.isEmpty() && !errorHasOccurred) {
+            run(classes, programArgs);
+        }
+    }
+
+    /**
+     * Load the specified classes from memory, and invoke the main() method of
+     * the first of them, in the order they were compiled, that declares a
+     * public static void main(String[]), with the specified arguments. An
+     * exception thrown by the program is reported as an error.
+     * 
+     * @param classes
+     *            the classes.
+     * @param args
+     *            the program arguments.
+     */
+
+    private static void run(ArrayList<CLFile> classes, String[] args) {
+        ByteClassLoader loader = new ByteClassLoader();
+        String mainClass = null;
+        try {
+            for (CLFile clFile : classes) {
+                loader.addClassBytes(clFile.name(), clFile.toByteBuffer());
+            }
+            Method main = null;
+            for (int i = 0; i < classes.size() && main == null; i++) {
+                mainClass = classes.get(i).name().replace("/", ".");
+                main = mainMethod(loader.loadClass(mainClass));
+            }
+            if (main == null) {
+                System.err.println("Error: no public static void "
+                        + "main(String[]) method to run");
+                errorHasOccurred = true;
+                return;
+            }
+            // The class need not be public
+            main.setAccessible(true);
+            main.invoke(null, (Object) args);
+        } catch (InvocationTargetException e) {
+            System.err.print("Exception in thread \""
+                    + Thread.currentThread().getName() + "\" ");
+            e.getCause().printStackTrace();
+            errorHasOccurred = true;
+        } catch (Exception e) {
+            System.err.println("Error: cannot run " + mainClass + ": " + e);
+            errorHasOccurred = true;
+        }
+    }
+
+    /**
+     * Return the public static void main(String[]) method declared by the
+     * specified class.
+     * 
+     * @param c
+     *            the class.
+     * @return the method, or null if the class declares none.
+     */
+
+    private static Method mainMethod(Class<?> c) {
+        try {
+            Method main = c.getDeclaredMethod("main", String[].class);
+            int modifiers = main.getModifiers();
+            if (Modifier.isPublic(modifiers) && Modifier.isStatic(modifiers)
+                    && main.getReturnType() == void.class) {
+                return main;
+            }
+        } catch (NoSuchMethodException e) {
+            // Not declared
+        }
+        return null;
+    }
+
+    /**
+     * Compile the specified compilation unit, writing its classes into the
+     * specified jar if it is not null, and under the specified directory
+     * otherwise.
+     * 
+     * @param sourceFile
+     *            the compilation unit.
+     * @param debugOption
+     *            -t, -p, -pa, -a, or "".
+     * @param outputDir
+     *            the output directory.
+     * @param spimOutput
+     *            whether SPIM code is generated instead of class files.
+     * @param registerAllocation
+     *            the register allocation scheme for SPIM code.
+     * @param majorVersion
+     *            major version of the class files.
+     * @param isOptimized
+     *            whether the peephole optimizer is run.
+     * @param isDirect
+     *            whether methods are assembled directly (see CLAssembler).
+     * @param isIndy
+     *            whether string concatenation is compiled to invokedynamic.
+     * @param jar
+     *            the jar to write the classes into, or null.
+     * @param writer
+     *            the background writer to hand the classes to, or null.
+     * @param classes
+     *            list to add the classes to instead of writing them, or null.
+     */
+
+    private static void compile(String sourceFile, String debugOption,
+            String outputDir, boolean spimOutput, String registerAllocation,
+            int majorVersion, boolean isOptimized, boolean isDirect,
+            boolean isIndy, CLJarWriter jar, CLClassWriter writer,
+            ArrayList<CLFile> classes) {
         LookaheadScanner scanner = null;
         try {
             scanner = new LookaheadScanner(sourceFile);
         } catch (FileNotFoundException e) {
             System.err.println("Error: file " + sourceFile + " not found.");
+            errorHasOccurred = true;
             return;
         }
 
@@ -141,13 +360,22 @@ public class Main {
         }
 
         // Generate JVM code
-        CLEmitter clEmitter = new CLEmitter(!spimOutput);
+        CLEmitter clEmitter = new CLEmitter(!spimOutput && classes == null);
         clEmitter.destinationDir(outputDir);
+        clEmitter.destinationJar(jar);
+        clEmitter.classWriter(writer);
+        clEmitter.majorVersion(majorVersion);
+        clEmitter.peepholeOptimization(isOptimized);
+        clEmitter.directAssembly(isDirect);
+        clEmitter.invokeDynamicConcatenation(isIndy);
         ast.codegen(clEmitter);
         errorHasOccurred |= clEmitter.errorHasOccurred();
         if (errorHasOccurred) {
             return;
         }
+        if (classes != null) {
+            classes.addAll(ast.clFiles());
+        }
 
         // If SPIM output was asked for, convert the in-memory
         // JVM instructions to SPIM using the specified register
@@ -181,7 +409,7 @@ public class Main {
     private static void printUsage(String caller) {
         String usage = "Usage: "
                 + caller
-                + " <options> <source file>\n"
+                + " <options> <source files>\n"
                 + "where possible options include:\n"
                 + "  -t Only tokenize input and print tokens to STDOUT\n"
                 + "  -p Only parse input and print AST to STDOUT\n"
@@ -191,7 +419,23 @@ public class Main {
                 + "and print AST to STDOUT\n"
                 + "  -s <naive|linear|graph> Generate SPIM code\n"
                 + "  -r <num> Max. physical registers (1-18) available for allocation; default = 8\n"
-                + "  -d <dir> Specify where to place output files; default = .";
+                + "  -indy Compile string concatenation to invokedynamic "
+                + "(requires Java 9 or later to run)\n"
+                + "  -nopeephole Do not run the peephole optimizer on the "
+                + "generated bytecode\n"
+                + "  -target <release> Generate class files for the "
+                + "specified Java release (5-17); default = 8\n"
+                + "  -direct Assemble bytecode in a single pass, without "
+                + "peephole optimization; implies -target 5 (class file "
+                + "version 49), as no stack map frames are computed, "
+                + "and cannot be used with -indy\n"
+                + "  -d <dir> Specify where to place output files; default = .\n"
+                + "  -jar <file> Write the class files into the specified "
+                + "jar instead\n"
+                + "  -0 Store the jar entries without compression\n"
+                + "  -run [<args>] Do not write class files, but run the "
+                + "main() method of the first class that declares one, "
+                + "with the arguments that follow";
         System.out.println(usage);
     }
 
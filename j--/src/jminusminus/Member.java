@@ -154,6 +154,21 @@ class Method extends Member {
         return str;
     }
 
+    /**
+     * Return the method's parameter types.
+     * 
+     * @return the parameter types.
+     */
+
+    public Type[] parameterTypes() {
+        Class<?>[] paramTypes = method.getParameterTypes();
+        Type[] types = new Type[paramTypes.length];
+        for (int i = 0; i < paramTypes.length; i++) {
+            types[i] = Type.typeFor(paramTypes[i]);
+        }
+        return types;
+    }
+
     /**
      * Return the method's return type.
      * 
@@ -264,6 +279,21 @@ class Constructor extends Member {
         return descriptor;
     }
 
+    /**
+     * Return the constructor's parameter types.
+     * 
+     * @return the parameter types.
+     */
+
+    public Type[] parameterTypes() {
+        Class<?>[] paramTypes = constructor.getParameterTypes();
+        Type[] types = new Type[paramTypes.length];
+        for (int i = 0; i < paramTypes.length; i++) {
+            types[i] = Type.typeFor(paramTypes[i]);
+        }
+        return types;
+    }
+
     /**
      * Return the type declaring this constructor.
      * 
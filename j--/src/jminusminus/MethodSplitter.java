@@ -0,0 +1,469 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package jminusminus;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import static jminusminus.CLConstants.*;
+
+/**
+ * Splitting of code that would exceed the limit (MAX_CODE_LENGTH) that the JVM
+ * puts on the code of a method; generated tables and long runs of static field
+ * initializations typically do.
+ *
+ * A list of statements (a method body, or the static field initializations
+ * making up <clinit>) is generated in place first. Should the method turn out
+ * too long, the statements are generated again, with runs of them moved into
+ * private static synthetic helper methods, the longest runs first, until the
+ * method fits in SPLIT_LENGTH bytes. A helper takes the local variables in
+ * scope as arguments, in the slots they occupy in the method, so that the
+ * statements generate the same code in either; the variables that the run
+ * reads are passed, and the others are passed as 0 or null. A run may not
+ * declare a variable, assign to one declared outside of it, return, or fail to
+ * complete normally.
+ *
+ * An array initializer with many constant elements stores them from helper
+ * methods, each filling a range of the elements, in the same way.
+ *
+ * The helpers are generated after the other members of the class.
+ */
+
+class MethodSplitter {
+
+    /**
+     * Length that split code is brought under, and most that a run of
+     * statements moved into a helper may take; no branch in code this long
+     * needs to be relaxed.
+     */
+    private static final int SPLIT_LENGTH = Short.MAX_VALUE;
+
+    /**
+     * Number of element stores an array initializer may generate inline; it
+     * moves more into helpers that each do at most as many.
+     */
+    public static final int ARRAY_CHUNK = 2048;
+
+    /** Name of the class being generated, in internal form. */
+    private String className;
+
+    /** The helper methods, in the order they are generated. */
+    private ArrayList<Helper> helpers;
+
+    /**
+     * Construct a splitter for the class with the specified name. The class
+     * hands it to the emitter (see CLEmitter.methodSplitter()), from which
+     * its members get it.
+     *
+     * @param className
+     *            fully qualified name of the class in internal form.
+     */
+
+    public MethodSplitter(String className) {
+        this.className = className;
+        helpers = new ArrayList<Helper>();
+    }
+
+    /**
+     * Generate code for a list of statements making up the code of the method
+     * being added, splitting it up should it be too long.
+     *
+     * @param statements
+     *            the statements.
+     * @param isStatic
+     *            whether the method is static.
+     * @param params
+     *            the formal parameters of the method.
+     * @param context
+     *            context in which the statements declare their variables;
+     *            null if they declare none.
+     * @param output
+     *            the code emitter (basically an abstraction for producing the
+     *            .class file).
+     */
+
+    public void codegen(ArrayList<JStatement> statements, boolean isStatic,
+            ArrayList<JFormalParameter> params, LocalContext context,
+            CLEmitter output) {
+        int startPC = output.pc();
+        int helperCount = helpers.size();
+        int[] pcs = new int[statements.size() + 1];
+        for (int i = 0; i < statements.size(); i++) {
+            pcs[i] = output.pc();
+            statements.get(i).codegen(output);
+        }
+        pcs[statements.size()] = output.pc();
+        if (output.pc() < MAX_CODE_LENGTH) {
+            // Fits, with room for a return
+            return;
+        }
+
+        // Move the longest runs out until the rest fits
+        ArrayList<String> frame = new ArrayList<String>();
+        if (!isStatic) {
+            frame.add("L" + className + ";");
+        }
+        for (JFormalParameter param : params) {
+            frame.add(param.type().toDescriptor());
+        }
+        ArrayList<Run> runs = runs(statements, pcs, frame, context, output);
+        ArrayList<Run> longest = new ArrayList<Run>(runs);
+        Collections.sort(longest, new Comparator<Run>() {
+            public int compare(Run a, Run b) {
+                return b.length - a.length;
+            }
+        });
+        int length = output.pc();
+        boolean isSplit = false;
+        for (Run run : longest) {
+            if (length <= SPLIT_LENGTH) {
+                break;
+            }
+            run.isMoved = true;
+            isSplit = true;
+            length -= run.length - (2 * run.frame.size() + 3);
+        }
+        if (!isSplit) {
+            // Nothing can be moved; the emitter reports the code too
+            // large
+            return;
+        }
+
+        // Generate the statements again, calling the helpers for the
+        // runs moved out
+        output.rewind(startPC);
+        while (helpers.size() > helperCount) {
+            helpers.remove(helpers.size() - 1);
+        }
+        int next = 0;
+        for (int i = 0; i < statements.size(); i++) {
+            Run run = next < runs.size() ? runs.get(next) : null;
+            if (run != null && run.start == i) {
+                next++;
+                if (run.isMoved) {
+                    codegenCall(run, statements, output);
+                    i = run.end - 1;
+                    continue;
+                }
+            }
+            statements.get(i).codegen(output);
+        }
+    }
+
+    /**
+     * Generate code that calls a helper to store a range of the elements of
+     * an array initializer into the array, which is on top of the stack and
+     * stays there.
+     *
+     * @param array
+     *            the array initializer.
+     * @param from
+     *            index of the first element.
+     * @param to
+     *            index past the last element.
+     * @param output
+     *            the code emitter (basically an abstraction for producing the
+     *            .class file).
+     */
+
+    public void codegenFill(JArrayInitializer array, int from, int to,
+            CLEmitter output) {
+        Helper helper = new Helper("split$" + helpers.size(), "("
+                + array.type().toDescriptor() + ")V");
+        helper.array = array;
+        helper.from = from;
+        helper.to = to;
+        helpers.add(helper);
+        output.addNoArgInstruction(DUP);
+        output.addMemberAccessInstruction(INVOKESTATIC, className,
+                helper.name, helper.descriptor);
+    }
+
+    /**
+     * Generate the helper methods that code was moved into.
+     *
+     * @param output
+     *            the code emitter (basically an abstraction for producing the
+     *            .class file).
+     */
+
+    public void codegenHelpers(CLEmitter output) {
+        ArrayList<String> mods = new ArrayList<String>();
+        mods.add("private");
+        mods.add("static");
+
+        // Generating a helper may add further helpers
+        for (int i = 0; i < helpers.size(); i++) {
+            Helper helper = helpers.get(i);
+            output.addMethod(mods, helper.name, helper.descriptor, null, true);
+            if (helper.statements != null) {
+                for (JStatement statement : helper.statements) {
+                    statement.codegen(output);
+                }
+            } else {
+                helper.array.codegenStores(ALOAD_0, helper.from, helper.to,
+                        output);
+            }
+            output.addNoArgInstruction(RETURN);
+        }
+    }
+
+    /**
+     * Return the runs of statements that may be moved into helpers, in order.
+     *
+     * @param statements
+     *            the statements.
+     * @param pcs
+     *            pcs of the statements, and the pc past the last one.
+     * @param frame
+     *            type descriptors of the local variables in scope before the
+     *            statements, by offset; modified in place.
+     * @param context
+     *            context in which the statements declare their variables.
+     * @param output
+     *            the code emitter holding the code of the statements.
+     * @return list of runs.
+     */
+
+    private ArrayList<Run> runs(ArrayList<JStatement> statements, int[] pcs,
+            ArrayList<String> frame, LocalContext context, CLEmitter output) {
+        ArrayList<Run> runs = new ArrayList<Run>();
+        Run run = null;
+
+        // The instructions are walked once, cut at the pcs of the statements
+        ArrayList<CLInstruction> code = output.instructions(pcs[0],
+                pcs[statements.size()]);
+        int from = 0;
+        for (int i = 0; i < statements.size(); i++) {
+            JStatement statement = statements.get(i);
+            int length = pcs[i + 1] - pcs[i];
+            int to = from;
+            while (code != null && to < code.size()
+                    && code.get(to).pc() < pcs[i + 1]) {
+                to++;
+            }
+            BitSet reads = new BitSet();
+            boolean isMovable = !(statement instanceof JVariableDeclaration)
+                    && statement.completesNormally()
+                    && length <= SPLIT_LENGTH && isPassable(frame)
+                    && reads(code, from, to, frame.size(), reads);
+            from = to;
+            if (!isMovable) {
+                run = null;
+            } else if (run != null && run.length + length <= SPLIT_LENGTH) {
+                run.end = i + 1;
+                run.length += length;
+                run.reads.or(reads);
+            } else {
+                run = new Run(i, length, new ArrayList<String>(frame), reads);
+                runs.add(run);
+            }
+
+            // Variables declared here are in scope from now on
+            if (statement instanceof JVariableDeclaration) {
+                for (JVariableDeclarator decl : ((JVariableDeclaration) statement)
+                        .decls()) {
+                    LocalVariableDefn defn = (LocalVariableDefn) context
+                            .lookup(decl.name());
+                    while (frame.size() <= defn.offset()) {
+                        frame.add(null);
+                    }
+                    frame.set(defn.offset(), defn.type().toDescriptor());
+                }
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Record the local variables below frameSize that the specified range of
+     * instructions reads.
+     *
+     * @param code
+     *            the instructions; null if not available.
+     * @param from
+     *            index of the first instruction of the range.
+     * @param to
+     *            index past the last instruction of the range.
+     * @param frameSize
+     *            number of local variables in scope before the code.
+     * @param reads
+     *            the variables read; modified in place.
+     * @return false if the instructions are not available, or one returns or
+     *         assigns to a variable below frameSize; true otherwise.
+     */
+
+    private static boolean reads(ArrayList<CLInstruction> code, int from,
+            int to, int frameSize, BitSet reads) {
+        if (code == null) {
+            // Assembled directly
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            CLInstruction instr = code.get(i);
+            int opcode = instr.opcode();
+            int index = instr.localVariableIndex();
+            if (opcode >= IRETURN && opcode <= RETURN) {
+                return false;
+            } else if (opcode >= ISTORE && opcode <= ASTORE_3
+                    || opcode == IINC) {
+                if (index < frameSize) {
+                    return false;
+                }
+            } else if (opcode >= ILOAD && opcode <= ALOAD_3 || opcode == RET) {
+                if (index < frameSize) {
+                    reads.set(index);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return true if the specified local variables can be passed to a helper
+     * in their slots; false otherwise.
+     *
+     * @param frame
+     *            type descriptors of the local variables, by offset.
+     * @return true or false.
+     */
+
+    private static boolean isPassable(ArrayList<String> frame) {
+        if (frame.size() > 255) {
+            // Too many arguments
+            return false;
+        }
+        for (String type : frame) {
+            // j-- gives every local variable a single slot
+            if (type != null && (type.equals("J") || type.equals("D"))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Generate code that calls a helper for a run of statements, and add the
+     * helper.
+     *
+     * @param run
+     *            the run.
+     * @param statements
+     *            the statements the run is part of.
+     * @param output
+     *            the code emitter (basically an abstraction for producing the
+     *            .class file).
+     */
+
+    private void codegenCall(Run run, ArrayList<JStatement> statements,
+            CLEmitter output) {
+        String descriptor = "(";
+        for (int offset = 0; offset < run.frame.size(); offset++) {
+            // Slots not holding a variable are passed as 0
+            String type = run.frame.get(offset) == null ? "I" : run.frame
+                    .get(offset);
+            descriptor += type;
+            boolean isReference = type.startsWith("L")
+                    || type.startsWith("[");
+            if (!run.reads.get(offset)) {
+                output.addNoArgInstruction(isReference ? ACONST_NULL : type
+                        .equals("F") ? FCONST_0 : ICONST_0);
+                continue;
+            }
+            int opcode = isReference ? ALOAD : type.equals("F") ? FLOAD
+                    : ILOAD;
+            if (offset <= 3) {
+                // ILOAD_0, FLOAD_0 and ALOAD_0 each start four short forms
+                int shortForm = isReference ? ALOAD_0 : type.equals("F")
+                        ? FLOAD_0 : ILOAD_0;
+                output.addNoArgInstruction(shortForm + offset);
+            } else {
+                output.addOneArgInstruction(opcode, offset);
+            }
+        }
+        descriptor += ")V";
+        Helper helper = new Helper("split$" + helpers.size(), descriptor);
+        helper.statements = new ArrayList<JStatement>(statements.subList(
+                run.start, run.end));
+        helpers.add(helper);
+        output.addMemberAccessInstruction(INVOKESTATIC, className,
+                helper.name, helper.descriptor);
+    }
+
+    /**
+     * A run of statements that may be moved into a helper.
+     */
+
+    private static class Run {
+
+        /** Index of the first statement. */
+        public int start;
+
+        /** Index past the last statement. */
+        public int end;
+
+        /** Length of the code of the statements. */
+        public int length;
+
+        /** Type descriptors of the local variables in scope, by offset. */
+        public ArrayList<String> frame;
+
+        /** The local variables in scope that the statements read. */
+        public BitSet reads;
+
+        /** Whether the statements are moved into a helper. */
+        public boolean isMoved;
+
+        /**
+         * Construct a run made up of one statement.
+         */
+
+        public Run(int start, int length, ArrayList<String> frame,
+                BitSet reads) {
+            this.start = start;
+            this.end = start + 1;
+            this.length = length;
+            this.frame = frame;
+            this.reads = reads;
+        }
+
+    }
+
+    /**
+     * A helper method that code was moved into: either a run of statements, or
+     * stores of a range of the elements of an array initializer.
+     */
+
+    private static class Helper {
+
+        /** Name of the helper. */
+        public String name;
+
+        /** Descriptor of the helper. */
+        public String descriptor;
+
+        /** The statements; null for an array initializer. */
+        public ArrayList<JStatement> statements;
+
+        /** The array initializer. */
+        public JArrayInitializer array;
+
+        /** Index of the first element to store. */
+        public int from;
+
+        /** Index past the last element to store. */
+        public int to;
+
+        /**
+         * Construct a helper given its name and descriptor.
+         */
+
+        public Helper(String name, String descriptor) {
+            this.name = name;
+            this.descriptor = descriptor;
+        }
+
+    }
+
+}
@@ -456,12 +456,12 @@ class NControlFlowGraph {
         desc = new String(((CLConstantUtf8Info) cp.cpItem(m.descriptorIndex)).b);
         basicBlocks = new ArrayList<NBasicBlock>();
         pcToBasicBlock = new HashMap<Integer, NBasicBlock>();
-        ArrayList<Integer> code = getByteCode();
+        byte[] code = getByteCode();
         ArrayList<NTuple> tuples = bytecodeToTuples(code);
         if (tuples.size() == 0) {
             return;
         }
-        NTuple[] tupleAt = new NTuple[code.size()];
+        NTuple[] tupleAt = new NTuple[code.length];
         for (NTuple tuple : tuples) {
             tupleAt[tuple.pc] = tuple;
         }
@@ -551,7 +551,7 @@ class NControlFlowGraph {
         // its control flow graph.
         basicBlocks.get(0).successors.add(basicBlocks.get(1));
         basicBlocks.get(1).predecessors.add(basicBlocks.get(0));
-        NBasicBlock[] blockAt = new NBasicBlock[code.size()];
+        NBasicBlock[] blockAt = new NBasicBlock[code.length];
         for (NBasicBlock block : basicBlocks) {
             if (block.tuples.size() == 0) {
                 continue;
@@ -1453,11 +1453,11 @@ class NControlFlowGraph {
      * @return list of tuples.
      */
 
-    private ArrayList<NTuple> bytecodeToTuples(ArrayList<Integer> code) {
+    private ArrayList<NTuple> bytecodeToTuples(byte[] code) {
         ArrayList<NTuple> tuples = new ArrayList<NTuple>();
-        for (int i = 0; i < code.size(); i++) {
+        for (int i = 0; i < code.length; i++) {
             int pc = i;
-            int opcode = code.get(i);
+            int opcode = code[i] & 0xFF;
             int operandBytes = CLInstruction.instructionInfo[opcode].operandCount;
             short operandByte1, operandByte2, operandByte3, operandByte4;
             int pad, deflt;
@@ -1466,28 +1466,28 @@ class NControlFlowGraph {
             case 0:
                 break;
             case 1:
-                operandByte1 = code.get(++i).shortValue();
+                operandByte1 = (short) (code[++i] & 0xFF);
                 operands.add(operandByte1);
                 break;
             case 2:
-                operandByte1 = code.get(++i).shortValue();
-                operandByte2 = code.get(++i).shortValue();
+                operandByte1 = (short) (code[++i] & 0xFF);
+                operandByte2 = (short) (code[++i] & 0xFF);
                 operands.add(operandByte1);
                 operands.add(operandByte2);
                 break;
             case 3:
-                operandByte1 = code.get(++i).shortValue();
-                operandByte2 = code.get(++i).shortValue();
-                operandByte3 = code.get(++i).shortValue();
+                operandByte1 = (short) (code[++i] & 0xFF);
+                operandByte2 = (short) (code[++i] & 0xFF);
+                operandByte3 = (short) (code[++i] & 0xFF);
                 operands.add(operandByte1);
                 operands.add(operandByte2);
                 operands.add(operandByte3);
                 break;
             case 4:
-                operandByte1 = code.get(++i).shortValue();
-                operandByte2 = code.get(++i).shortValue();
-                operandByte3 = code.get(++i).shortValue();
-                operandByte4 = code.get(++i).shortValue();
+                operandByte1 = (short) (code[++i] & 0xFF);
+                operandByte2 = (short) (code[++i] & 0xFF);
+                operandByte3 = (short) (code[++i] & 0xFF);
+                operandByte4 = (short) (code[++i] & 0xFF);
                 operands.add(operandByte1);
                 operands.add(operandByte2);
                 operands.add(operandByte3);
@@ -1541,8 +1541,8 @@ class NControlFlowGraph {
      * @return JVM bytecode for the method denoted by this cfg.
      */
 
-    private ArrayList<Integer> getByteCode() {
-        ArrayList<Integer> code = null;
+    private byte[] getByteCode() {
+        byte[] code = null;
         for (CLAttributeInfo info : m.attributes) {
             if (info instanceof CLCodeAttribute) {
                 code = ((CLCodeAttribute) info).code;
@@ -1590,7 +1590,7 @@ class NControlFlowGraph {
      */
 
     private int numLocals() {
-        ArrayList<Integer> code = null;
+        byte[] code = null;
         int numLocals = 0;
         for (CLAttributeInfo info : m.attributes) {
             if (info instanceof CLCodeAttribute) {
@@ -411,7 +411,7 @@ public class Parser {
      * <p>
      * <pre>
      *   modifiers ::= {PUBLIC | PROTECTED | PRIVATE | STATIC |
-     *                  ABSTRACT}
+     *                  ABSTRACT | FINAL}
      * </pre>
      * <p>
      * Check for duplicates, and conflicts among access modifiers (public,
@@ -427,6 +427,7 @@ public class Parser {
         boolean scannedPRIVATE = false;
         boolean scannedSTATIC = false;
         boolean scannedABSTRACT = false;
+        boolean scannedFINAL = false;
         boolean scannedTHROWS = false;
         boolean more = true;
         while (more)
@@ -469,6 +470,12 @@ public class Parser {
                     reportParserError("Repeated modifier: abstract");
                 }
                 scannedABSTRACT = true;
+            } else if (have(FINAL)) {
+                mods.add("final");
+                if (scannedFINAL) {
+                    reportParserError("Repeated modifier: final");
+                }
+                scannedFINAL = true;
             } else if (have(THROWS)) {
                 mods.add("throws");
                 if (scannedTHROWS) {
@@ -652,7 +659,7 @@ public class Parser {
      */
 
     private JStatement blockStatement() {
-        if (seeLocalVariableDeclaration()) {
+        if (see(FINAL) || seeLocalVariableDeclaration()) {
             return localVariableDeclarationStatement();
         } else {
             return statement();
@@ -710,12 +717,10 @@ public class Parser {
             type = type();
             JVariableDeclarator initializer = variableDeclarator(type); 
             if (have(COLON)) { // enhanced-for
-                type = type();
-                String name = scanner.previousToken().image();
+                JExpression collection = expression();
                 mustBe(RPAREN);
                 JStatement stmnt = statement();
-                JVariableDeclarator jvd = new JVariableDeclarator(line, name, type, null);
-                return new JForEachStatement(line, initializer, jvd, stmnt);
+                return new JForEachStatement(line, initializer, collection, stmnt);
             } else { // basic for-statement
                 mustBe(SEMI);
                 JExpression test = expression();
@@ -723,7 +728,12 @@ public class Parser {
                 JStatement increment = statementExpression();
                 mustBe(RPAREN);
                 JStatement statement = statement();
-                return new JForStatement(line, initializer, test, increment, statement);
+                ArrayList<JVariableDeclarator> declarators =
+                        new ArrayList<JVariableDeclarator>();
+                declarators.add(initializer);
+                return new JForStatement(line, new JVariableDeclaration(line,
+                        new ArrayList<String>(), declarators), test,
+                        increment, statement);
             }
           } else if (have(RETURN)) {
             if (have(SEMI)) {
@@ -877,7 +887,7 @@ public class Parser {
      * Parse a local variable declaration statement.
      * <p>
      * <pre>
-     *   localVariableDeclarationStatement ::= type
+     *   localVariableDeclarationStatement ::= [FINAL] type
      *                                           variableDeclarators
      *                                             SEMI
      * </pre>
@@ -888,6 +898,9 @@ public class Parser {
     private JVariableDeclaration localVariableDeclarationStatement() {
         int line = scanner.token().line();
         ArrayList<String> mods = new ArrayList<String>();
+        if (have(FINAL)) {
+            mods.add("final");
+        }
         ArrayList<JVariableDeclarator> vdecls = variableDeclarators(type());
         mustBe(SEMI);
         return new JVariableDeclaration(line, mods, vdecls);
@@ -144,6 +144,7 @@ class Scanner {
                         nextCh();
                     }
                 } else if (ch == '=') {
+                    nextCh();
                     return new TokenInfo(DIV_ASSIGN, line);
                 } else if (ch == '*') {
                     // CharReader maps all chars to "*/"
@@ -208,6 +209,7 @@ class Scanner {
         case '!':
             nextCh();
             if (ch == '=') {
+                nextCh();
                 return new TokenInfo(NEQUAL, line);
             } else {
                 return new TokenInfo(LNOT, line);
@@ -215,18 +217,25 @@ class Scanner {
         case '*':
             nextCh();
             if (ch == '=') {
+                nextCh();
             	return new TokenInfo(STAR_ASSIGN, line);
             } else return new TokenInfo(STAR, line);
         case '%':
             nextCh();
             if (ch == '=') {
+                nextCh();
                 return new TokenInfo(MOD_ASSIGN, line);
             } else {
                 return new TokenInfo(MODULO, line);
             }
         case '^':
             nextCh();
-            return new TokenInfo(BEOR, line);
+            if (ch == '=') {
+                nextCh();
+                return new TokenInfo(XOR_ASSIGN, line);
+            } else {
+                return new TokenInfo(BEOR, line);
+            }
         case '|':
             nextCh();
             if (ch == '|') {
@@ -284,14 +293,17 @@ class Scanner {
                 if (ch == '>') {
                     nextCh();
                     if (ch == '=') {
+                        nextCh();
                         return new TokenInfo(ZSHIFT_ASSIGN, line);
                     } else {
                         return new TokenInfo(ZSHIFT, line);
                     }
+                } else if (ch == '=') {
+                    nextCh();
+                    return new TokenInfo(RSHIFT_ASSIGN, line);
+                } else {
+                    return new TokenInfo(RSHIFT, line);
                 }
-            } else if (ch == '=') {
-                nextCh();
-                return new TokenInfo(RSHIFT_ASSIGN, line);
             } else {
                 return new TokenInfo(GT, line);
             }
@@ -302,7 +314,12 @@ class Scanner {
                 return new TokenInfo(LE, line);
             } else if (ch == '<') {
                 nextCh();
-                return new TokenInfo(LSHIFT_ASSIGN, line);
+                if (ch == '=') {
+                    nextCh();
+                    return new TokenInfo(LSHIFT_ASSIGN, line);
+                } else {
+                    return new TokenInfo(LSHIFT, line);
+                }
             } else {
                 return new TokenInfo(LT, line);
             }
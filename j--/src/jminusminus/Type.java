@@ -30,6 +30,39 @@ class Type {
     /** Maps type names to their Type representations. */
     private static Hashtable<String, Type> types = new Hashtable<String, Type>();
 
+    /** Maps primitive types to their wrapper (boxed) types. */
+    private static Hashtable<Class<?>, Class<?>> boxes = new Hashtable<Class<?>, Class<?>>();
+
+    static {
+        boxes.put(boolean.class, java.lang.Boolean.class);
+        boxes.put(byte.class, java.lang.Byte.class);
+        boxes.put(char.class, java.lang.Character.class);
+        boxes.put(short.class, java.lang.Short.class);
+        boxes.put(int.class, java.lang.Integer.class);
+        boxes.put(long.class, java.lang.Long.class);
+        boxes.put(float.class, java.lang.Float.class);
+        boxes.put(double.class, java.lang.Double.class);
+    }
+
+    /**
+     * The overload index; maps a method name and arity (eg, append/1) to the
+     * candidate methods of that name and arity, built lazily by methodFor().
+     */
+    private Hashtable<String, ArrayList<java.lang.reflect.Method>> methodIndex;
+
+    /**
+     * Maps call-site signatures (a method name and the descriptors of the
+     * actual argument types) to the methods they resolved to.
+     */
+    private Hashtable<String, Method> resolvedMethods;
+
+    /**
+     * Maps the names of this type's constant fields (static, final, and
+     * initialized with a constant expression) to their values. Only types
+     * being compiled have constant fields recorded.
+     */
+    private Hashtable<String, JExpression> constantFields;
+
     /** The primitive type, int. */
     public final static Type INT = typeFor(int.class);
 
@@ -127,6 +160,9 @@ class Type {
 
     public void setClassRep(Class<?> classRep) {
         this.classRep = classRep;
+        methodIndex = null;
+        resolvedMethods = null;
+        constantFields = null;
     }
 
     /**
@@ -419,7 +455,12 @@ class Type {
                 : cls.isArray() ? "[" + descriptorFor(cls.getComponentType())
                         : cls.isPrimitive() ? (cls == int.class ? "I"
                                 : cls == char.class ? "C"
-                                        : cls == boolean.class ? "Z" : "?")
+                                : cls == boolean.class ? "Z"
+                                : cls == long.class ? "J"
+                                : cls == float.class ? "F"
+                                : cls == double.class ? "D"
+                                : cls == byte.class ? "B"
+                                : cls == short.class ? "S" : "?")
                                 : "L" + cls.getName().replace('.', '/') + ";";
     }
 
@@ -476,9 +517,12 @@ class Type {
 
     /**
      * Find an appropriate method in this type, given a message (method) name
-     * and it's argument types. This is pretty easy given our (current)
-     * restriction that the types of the actual arguments must exactly match the
-     * types of the formal parameters. Returns null if it cannot find one.
+     * and it's argument types. Candidates are looked up in the overload index
+     * by name and arity. As in the JLS, we first look for methods applicable
+     * by (primitive or reference) widening alone, and only then allow boxing
+     * and unboxing; of the applicable methods, the most specific one is
+     * chosen. The result is remembered for the call-site signature. Returns
+     * null if there is no applicable method, or no single most specific one.
      * 
      * @param name
      *            the method name.
@@ -488,32 +532,36 @@ class Type {
      */
 
     public Method methodFor(String name, Type[] argTypes) {
-        Class[] classes = new Class[argTypes.length];
-        for (int i = 0; i < argTypes.length; i++) {
-            classes[i] = argTypes[i].classRep;
+        if (resolvedMethods == null) {
+            resolvedMethods = new Hashtable<String, Method>();
         }
-        Class cls = classRep;
-
-        // Search this class and all superclasses
-        while (cls != null) {
-            java.lang.reflect.Method[] methods = cls.getDeclaredMethods();
-            for (java.lang.reflect.Method method : methods) {
-                if (method.getName().equals(name)
-                        && Type.argTypesMatch(classes, method
-                                .getParameterTypes())) {
-                    return new Method(method);
-                }
-            }
-            cls = cls.getSuperclass();
+        String key = name + argTypesKey(argTypes);
+        Method resolved = resolvedMethods.get(key);
+        if (resolved != null) {
+            return resolved;
         }
-        return null;
+        ArrayList<java.lang.reflect.Method> candidates = methodIndex().get(
+                name + "/" + argTypes.length);
+        if (candidates == null) {
+            return null;
+        }
+        ArrayList<Class<?>[]> signatures = new ArrayList<Class<?>[]>();
+        for (java.lang.reflect.Method candidate : candidates) {
+            signatures.add(candidate.getParameterTypes());
+        }
+        int i = mostSpecific(signatures, argTypes);
+        if (i == -1) {
+            return null;
+        }
+        resolved = new Method(candidates.get(i));
+        resolvedMethods.put(key, resolved);
+        return resolved;
     }
 
     /**
      * Find an appropriate constructor in this type, given it's argument types.
-     * This is pretty easy given our (current) restriction that the types of the
-     * actual arguments must exactly match the types of the formal parameters.
-     * Returns null if it cannot find one.
+     * The constructor is selected as for methods (see methodFor()). Returns
+     * null if it cannot find one.
      * 
      * @param argTypes
      *            the argument types.
@@ -521,22 +569,368 @@ class Type {
      */
 
     public Constructor constructorFor(Type[] argTypes) {
-        Class[] classes = new Class[argTypes.length];
-        for (int i = 0; i < argTypes.length; i++) {
-            classes[i] = argTypes[i].classRep;
-        }
-
         // Search only this class (we don't inherit constructors)
         java.lang.reflect.Constructor[] constructors = classRep
                 .getDeclaredConstructors();
+        ArrayList<Class<?>[]> signatures = new ArrayList<Class<?>[]>();
         for (java.lang.reflect.Constructor constructor : constructors) {
-            if (argTypesMatch(classes, constructor.getParameterTypes())) {
-                return new Constructor(constructor);
+            signatures.add(constructor.getParameterTypes());
+        }
+        int i = mostSpecific(signatures, argTypes);
+        return i == -1 ? null : new Constructor(constructors[i]);
+    }
+
+    /**
+     * Return the overload index for this type, building it on first use. The
+     * index holds the methods declared in this class and its superclasses
+     * and, for an interface, its superinterfaces; a method overridden (or
+     * re-declared) in a subtype hides the one it overrides, and bridge
+     * methods are left out. The superclass chain is searched before any
+     * interface, so that a class receiver never resolves to an interface's
+     * declaration (which would be invoked with INVOKEVIRTUAL).
+     * 
+     * @return the overload index.
+     */
+
+    private Hashtable<String, ArrayList<java.lang.reflect.Method>> methodIndex() {
+        if (methodIndex != null) {
+            return methodIndex;
+        }
+        methodIndex = new Hashtable<String, ArrayList<java.lang.reflect.Method>>();
+        Hashtable<String, String> seen = new Hashtable<String, String>();
+
+        // Subclasses first, so that they hide their superclasses' methods
+        for (Class<?> cls = classRep; cls != null; cls = cls.getSuperclass()) {
+            index(cls, seen, false);
+        }
+
+        // An interface inherits from its superinterfaces, breadth first
+        if (classRep != null && classRep.isInterface()) {
+            ArrayList<Class<?>> interfaces = new ArrayList<Class<?>>(Arrays
+                    .asList(classRep.getInterfaces()));
+            for (int c = 0; c < interfaces.size(); c++) {
+                index(interfaces.get(c), seen, true);
+                interfaces.addAll(Arrays.asList(interfaces.get(c)
+                        .getInterfaces()));
+            }
+        }
+        return methodIndex;
+    }
+
+    /**
+     * Add the methods declared in the specified class to the overload index,
+     * except those with a signature already seen, and bridge methods.
+     * 
+     * @param cls
+     *            the class (or interface).
+     * @param seen
+     *            the signatures already indexed.
+     * @param isSuperinterface
+     *            whether cls is a superinterface, the static methods of
+     *            which are not inherited.
+     */
+
+    private void index(Class<?> cls, Hashtable<String, String> seen,
+            boolean isSuperinterface) {
+        for (java.lang.reflect.Method method : cls.getDeclaredMethods()) {
+            String signature = method.getName()
+                    + argTypesKey(method.getParameterTypes());
+            if (method.isBridge() || seen.containsKey(signature)
+                    || isSuperinterface
+                    && Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            seen.put(signature, signature);
+            String key = method.getName() + "/"
+                    + method.getParameterTypes().length;
+            ArrayList<java.lang.reflect.Method> bucket = methodIndex.get(key);
+            if (bucket == null) {
+                bucket = new ArrayList<java.lang.reflect.Method>();
+                methodIndex.put(key, bucket);
+            }
+            bucket.add(method);
+        }
+    }
+
+    /**
+     * Select the most specific of a list of candidate signatures that is
+     * applicable to the given argument types. Following the JLS, applicability
+     * is first tried without boxing and unboxing, and only if that yields no
+     * candidates, with them.
+     * 
+     * @param signatures
+     *            the parameter types of each candidate.
+     * @param argTypes
+     *            the actual argument types.
+     * @return the index of the selected candidate, or -1 if none is applicable
+     *         or the choice is ambiguous.
+     */
+
+    private static int mostSpecific(ArrayList<Class<?>[]> signatures,
+            Type[] argTypes) {
+        for (int phase = 1; phase <= 2; phase++) {
+            ArrayList<Integer> applicable = new ArrayList<Integer>();
+            for (int i = 0; i < signatures.size(); i++) {
+                if (isApplicable(signatures.get(i), argTypes, phase == 2)) {
+                    applicable.add(i);
+                }
+            }
+            if (applicable.isEmpty()) {
+                continue;
+            }
+            int best = applicable.get(0);
+            for (int i = 1; i < applicable.size(); i++) {
+                int candidate = applicable.get(i);
+                if (isMoreSpecific(signatures.get(candidate), signatures
+                        .get(best))) {
+                    best = candidate;
+                }
+            }
+
+            // The choice must be strictly more specific than all others
+            for (int other : applicable) {
+                if (other != best
+                        && !isMoreSpecific(signatures.get(best), signatures
+                                .get(other))) {
+                    return -1;
+                }
+            }
+            return best;
+        }
+        return -1;
+    }
+
+    /**
+     * Is a method with the given parameter types applicable to arguments of
+     * the given types?
+     * 
+     * @param paramTypes
+     *            the formal parameter types.
+     * @param argTypes
+     *            the actual argument types.
+     * @param allowBoxing
+     *            whether boxing and unboxing conversions may be used.
+     * @return true or false.
+     */
+
+    private static boolean isApplicable(Class<?>[] paramTypes,
+            Type[] argTypes, boolean allowBoxing) {
+        if (paramTypes.length != argTypes.length) {
+            return false;
+        }
+        for (int i = 0; i < argTypes.length; i++) {
+            if (!isInvocationConvertible(argTypes[i], paramTypes[i],
+                    allowBoxing)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Is one signature more specific than another, ie, is each of its
+     * parameter types convertible to the corresponding one of the other
+     * without boxing?
+     * 
+     * @param paramTypes1
+     *            the parameter types of one method.
+     * @param paramTypes2
+     *            the parameter types of another method.
+     * @return true iff paramTypes1 is at least as specific as paramTypes2.
+     */
+
+    private static boolean isMoreSpecific(Class<?>[] paramTypes1,
+            Class<?>[] paramTypes2) {
+        for (int i = 0; i < paramTypes1.length; i++) {
+            if (!isWidening(paramTypes1[i], paramTypes2[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Can a value of the given argument type be passed for a parameter of the
+     * given (Java) type, ie, is there a method invocation conversion from the
+     * one to the other?
+     * 
+     * @param argType
+     *            the argument type.
+     * @param paramType
+     *            the parameter type.
+     * @param allowBoxing
+     *            whether boxing and unboxing conversions may be used.
+     * @return true or false.
+     */
+
+    private static boolean isInvocationConvertible(Type argType,
+            Class<?> paramType, boolean allowBoxing) {
+        Class<?> argClass = argType.classRep;
+        if (argType == Type.ANY || argClass == null) {
+            return false;
+        } else if (argType == Type.NULLTYPE) {
+            return !paramType.isPrimitive();
+        } else if (isWidening(argClass, paramType)) {
+            return true;
+        } else if (!allowBoxing) {
+            return false;
+        } else if (argClass.isPrimitive()) {
+            return paramType.isAssignableFrom(boxes.get(argClass));
+        } else {
+            Class<?> unboxed = unboxedClass(argClass);
+            return unboxed != null && isWidening(unboxed, paramType);
+        }
+    }
+
+    /**
+     * Is there an identity or widening (primitive or reference) conversion
+     * from one (Java) type to another?
+     * 
+     * @param from
+     *            the source type.
+     * @param to
+     *            the target type.
+     * @return true or false.
+     */
+
+    private static boolean isWidening(Class<?> from, Class<?> to) {
+        if (from == to) {
+            return true;
+        } else if (from.isPrimitive() != to.isPrimitive()) {
+            return false;
+        } else if (!from.isPrimitive()) {
+            return to.isAssignableFrom(from);
+        } else if (from == boolean.class || to == boolean.class
+                || to == char.class || to == byte.class) {
+            return false;
+        } else if (to == short.class) {
+            return from == byte.class;
+        }
+
+        // Widening orders byte, short (or char), int, long, float, double
+        return rank(from) < rank(to);
+    }
+
+    /**
+     * The position of a numeric primitive type in the widening order.
+     * 
+     * @param cls
+     *            the primitive type.
+     * @return its rank.
+     */
+
+    private static int rank(Class<?> cls) {
+        return cls == byte.class ? 0 : cls == short.class
+                || cls == char.class ? 1 : cls == int.class ? 2
+                : cls == long.class ? 3 : cls == float.class ? 4 : 5;
+    }
+
+    /**
+     * Return the primitive type a wrapper class unboxes to, or null if the
+     * class is not a wrapper.
+     * 
+     * @param cls
+     *            the (possibly) wrapper class.
+     * @return the primitive type or null.
+     */
+
+    private static Class<?> unboxedClass(Class<?> cls) {
+        for (Class<?> primitive : boxes.keySet()) {
+            if (boxes.get(primitive) == cls) {
+                return primitive;
             }
         }
         return null;
     }
 
+    /**
+     * Return the wrapper type for this primitive type (eg, java.lang.Integer
+     * for int), or null if this type is not primitive.
+     * 
+     * @return the boxed type or null.
+     */
+
+    public Type boxedType() {
+        return isPrimitive() ? typeFor(boxes.get(classRep)) : null;
+    }
+
+    /**
+     * Return the primitive type this wrapper type unboxes to (eg, int for
+     * java.lang.Integer), or null if this type is not a wrapper.
+     * 
+     * @return the unboxed type or null.
+     */
+
+    public Type unboxedType() {
+        Class<?> unboxed = classRep == null ? null : unboxedClass(classRep);
+        return unboxed == null ? null : typeFor(unboxed);
+    }
+
+    /**
+     * A key identifying a list of argument types, made up of their
+     * descriptors. The null type is distinguished from Object, since the two
+     * may select different methods.
+     * 
+     * @param argTypes
+     *            the argument types.
+     * @return the key.
+     */
+
+    private static String argTypesKey(Type[] argTypes) {
+        StringBuffer key = new StringBuffer("(");
+        for (Type argType : argTypes) {
+            key.append(argType == Type.NULLTYPE ? "null;" : argType
+                    .toDescriptor());
+        }
+        return key.append(")").toString();
+    }
+
+    /**
+     * A key identifying a list of (Java) parameter types, made up of their
+     * descriptors.
+     * 
+     * @param paramTypes
+     *            the parameter types.
+     * @return the key.
+     */
+
+    private static String argTypesKey(Class<?>[] paramTypes) {
+        StringBuffer key = new StringBuffer("(");
+        for (Class<?> paramType : paramTypes) {
+            key.append(descriptorFor(paramType));
+        }
+        return key.append(")").toString();
+    }
+
+    /**
+     * Record the value of a constant field declared in this type.
+     * 
+     * @param name
+     *            the field's name.
+     * @param value
+     *            the (literal) value it's initialized with.
+     */
+
+    public void addConstantField(String name, JExpression value) {
+        if (constantFields == null) {
+            constantFields = new Hashtable<String, JExpression>();
+        }
+        constantFields.put(name, value);
+    }
+
+    /**
+     * Return the value of the constant field declared in this type having
+     * this name.
+     * 
+     * @param name
+     *            the field's name.
+     * @return the value, or null if there's no such constant field.
+     */
+
+    public JExpression constantFieldFor(String name) {
+        return constantFields == null ? null : constantFields.get(name);
+    }
+
     /**
      * Return the Field having this name.
      * 
@@ -26,6 +26,48 @@ class Util {
         return escapedString;
     }
 
+    /**
+     * Escape the characters in the specified string that must be escaped in a
+     * string literal and return the escaped string; the inverse of unescape().
+     * 
+     * @param s
+     *            string to escape.
+     * @return the escaped string.
+     */
+
+    public static String escape(String s) {
+        StringBuffer b = new StringBuffer();
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+            case '\b':
+                b.append("\\b");
+                break;
+            case '\t':
+                b.append("\\t");
+                break;
+            case '\n':
+                b.append("\\n");
+                break;
+            case '\f':
+                b.append("\\f");
+                break;
+            case '\r':
+                b.append("\\r");
+                break;
+            case '"':
+                b.append("\\\"");
+                break;
+            case '\\':
+                b.append("\\\\");
+                break;
+            default:
+                b.append(c);
+            }
+        }
+        return b.toString();
+    }
+
     /**
      * Unescape the escaped characters in the specified string and return the
      * unescaped string.
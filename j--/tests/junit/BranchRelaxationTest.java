@@ -0,0 +1,125 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package junit;
+
+import java.io.PrintWriter;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import jminusminus.CLEmitter;
+import jminusminus.Main;
+import junit.framework.TestCase;
+import static jminusminus.CLConstants.*;
+
+public class BranchRelaxationTest extends TestCase {
+
+    /** Number of IINC instructions (3 bytes each) padding a method. */
+    private static final int PADDING = 12000;
+
+    /** Number of statements (4 bytes each) padding a compiled method. */
+    private static final int STATEMENTS = 8500;
+
+    private Class<?> relaxed;
+
+    private ScratchDirectory dir;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        dir = new ScratchDirectory("relax");
+        CLEmitter.initializeByteClassLoader();
+        CLEmitter output = new CLEmitter(false);
+        ArrayList<String> accessFlags = new ArrayList<String>();
+        accessFlags.add("public");
+        output.addClass(accessFlags, "pass/Relaxed", "java/lang/Object",
+                null, false);
+        accessFlags.add("static");
+
+        // int far(int n): n + PADDING, or 42 if n is 0; the IFEQ
+        // jumps forward over the padding
+        output.addMethod(accessFlags, "far", "(I)I", null, false);
+        String zero = output.createLabel();
+        output.addNoArgInstruction(ILOAD_0);
+        output.addBranchInstruction(IFEQ, zero);
+        for (int i = 0; i < PADDING; i++) {
+            output.addIINCInstruction(0, 1);
+        }
+        output.addNoArgInstruction(ILOAD_0);
+        output.addNoArgInstruction(IRETURN);
+        output.addLabel(zero);
+        output.addOneArgInstruction(BIPUSH, 42);
+        output.addNoArgInstruction(IRETURN);
+
+        // int loop(int n): n * PADDING; the GOTO jumps back over
+        // the padding
+        output.addMethod(accessFlags, "loop", "(I)I", null, false);
+        String top = output.createLabel();
+        String end = output.createLabel();
+        output.addNoArgInstruction(ICONST_0);
+        output.addNoArgInstruction(ISTORE_1);
+        output.addLabel(top);
+        output.addNoArgInstruction(ILOAD_0);
+        output.addBranchInstruction(IFLE, end);
+        for (int i = 0; i < PADDING; i++) {
+            output.addIINCInstruction(1, 1);
+        }
+        output.addIINCInstruction(0, -1);
+        output.addBranchInstruction(GOTO, top);
+        output.addLabel(end);
+        output.addNoArgInstruction(ILOAD_1);
+        output.addNoArgInstruction(IRETURN);
+        relaxed = output.toClass();
+    }
+
+    public void testForwardBranch() throws Exception {
+        Method far = relaxed.getMethod("far", int.class);
+        assertEquals(far.invoke(null, 0), 42);
+        assertEquals(far.invoke(null, 5), 5 + PADDING);
+    }
+
+    public void testBackwardBranch() throws Exception {
+        Method loop = relaxed.getMethod("loop", int.class);
+        assertEquals(loop.invoke(null, 0), 0);
+        assertEquals(loop.invoke(null, 3), 3 * PADDING);
+    }
+
+    public void testBranchToWidenedBranch() throws Exception {
+        // The GOTO that ends the then part of the if-else jumps to the
+        // GOTO back to the top of the loop, which is widened; without
+        // the peephole optimizer, the first GOTO is not threaded
+        PrintWriter out = dir.writer("pass/Looped.java");
+        out.println("package pass;");
+        out.println("public class Looped {");
+        out.println("    public static int run(int x) {");
+        out.println("        while (true) {");
+        out.println("            if (x > 1000) {");
+        for (int i = 0; i < STATEMENTS; i++) {
+            out.println("                x = x - 1;");
+        }
+        out.println("            }");
+        out.println("            if (x >= 500) {");
+        out.println("                return x;");
+        out.println("            }");
+        out.println("            if (x > 0) {");
+        out.println("                x = x + 2000;");
+        out.println("            } else {");
+        out.println("                x = x + 9000;");
+        out.println("            }");
+        out.println("        }");
+        out.println("    }");
+        out.println("}");
+        out.close();
+        Main.main(new String[] { "-nopeephole", "-d", dir.path("classes"),
+                dir.path("pass/Looped.java") });
+        assertFalse(Main.errorHasOccurred());
+        Method run = dir.loader("classes").loadClass("pass.Looped")
+                .getMethod("run", int.class);
+        assertEquals(run.invoke(null, 0), 500);
+        assertEquals(run.invoke(null, 600), 600);
+        assertEquals(run.invoke(null, 2000), 500);
+    }
+
+    protected void tearDown() throws Exception {
+        dir.delete();
+        super.tearDown();
+    }
+
+}
@@ -0,0 +1,87 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package junit;
+
+import java.io.File;
+import java.io.PrintWriter;
+import jminusminus.CLIndex;
+import jminusminus.Main;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test case for CLIndex. Two versions of a class are compiled, one into
+ * a directory and one into a jar, and the class path made of both is indexed;
+ * the class must be indexed from the first, and survive saving and loading
+ * the index.
+ */
+
+public class ClassIndexTest extends TestCase {
+
+    private ScratchDirectory dir;
+
+    private String path;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        dir = new ScratchDirectory("index");
+        write("first");
+        String[] args = { "-d", dir.path("first"),
+                dir.path("first/pass/Indexed.java") };
+        Main.main(args);
+        assertFalse(Main.errorHasOccurred());
+        write("second");
+        args = new String[] { "-jar", dir.path("second.jar"),
+                dir.path("second/pass/Indexed.java") };
+        Main.main(args);
+        assertFalse(Main.errorHasOccurred());
+        path = dir.path("first") + File.pathSeparator
+                + dir.path("second.jar");
+    }
+
+    public void testIndex() throws Exception {
+        check(new CLIndex(path));
+    }
+
+    public void testSaveAndLoad() throws Exception {
+        String file = dir.path("index.bin");
+        new CLIndex(path).save(file);
+        check(CLIndex.load(file));
+    }
+
+    protected void tearDown() throws Exception {
+        dir.delete();
+        super.tearDown();
+    }
+
+    /**
+     * Write a version of pass.Indexed, with a method named after the version,
+     * under the directory of the version.
+     */
+
+    private void write(String version) throws Exception {
+        PrintWriter out = dir.writer(version + "/pass/Indexed.java");
+        out.println("package pass;");
+        out.println("public class Indexed extends java.util.Random {");
+        out.println("    private int count;");
+        out.println("    public int " + version + "(String s) {");
+        out.println("        return count;");
+        out.println("    }");
+        out.println("}");
+        out.close();
+    }
+
+    /**
+     * Check that the specified index has the first version of pass.Indexed.
+     */
+
+    private static void check(CLIndex index) {
+        assertEquals(index.superName("pass/Indexed"), "java/util/Random");
+        assertTrue(index.hasMember("pass/Indexed", "count", "I"));
+        assertTrue(index.hasMember("pass/Indexed", "first",
+                "(Ljava/lang/String;)I"));
+        assertFalse(index.hasMember("pass/Indexed", "second",
+                "(Ljava/lang/String;)I"));
+        assertNull(index.superName("pass/Missing"));
+    }
+
+}
@@ -0,0 +1,73 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package junit;
+
+import java.io.PrintWriter;
+import java.lang.reflect.Method;
+import java.net.URLClassLoader;
+import jminusminus.Main;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test case for the background writing of class files. More classes
+ * than the writer's queue holds are compiled, and must all be written by the
+ * time Main returns; an error writing a class must be reported.
+ */
+
+public class ClassWriterTest extends TestCase {
+
+    /** Number of classes compiled. */
+    private static final int CLASSES = 40;
+
+    private ScratchDirectory dir;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        dir = new ScratchDirectory("writer");
+        PrintWriter out = dir.writer("pass/Written.java");
+        out.println("package pass;");
+        out.println("public class Written {");
+        out.println("    public static int count() {");
+        out.println("        return Written" + (CLASSES - 1) + ".count();");
+        out.println("    }");
+        out.println("}");
+        for (int i = 0; i < CLASSES; i++) {
+            out.println("class Written" + i + " {");
+            out.println("    public static int count() {");
+            out.println("        return "
+                    + (i == 0 ? "1" : "Written" + (i - 1) + ".count() + 1")
+                    + ";");
+            out.println("    }");
+            out.println("}");
+        }
+        out.close();
+    }
+
+    public void testAllWritten() throws Exception {
+        String[] args = { "-d", dir.path("classes"),
+                dir.path("pass/Written.java") };
+        Main.main(args);
+        assertFalse(Main.errorHasOccurred());
+        for (int i = 0; i < CLASSES; i++) {
+            assertTrue(dir.file("classes/pass/Written" + i + ".class")
+                    .exists());
+        }
+        URLClassLoader loader = dir.loader("classes");
+        Method count = loader.loadClass("pass.Written").getMethod("count");
+        assertEquals(count.invoke(null), CLASSES);
+    }
+
+    public void testWriteError() throws Exception {
+        // The destination is under a file, so it cannot be created
+        String[] args = { "-d", dir.path("pass/Written.java/classes"),
+                dir.path("pass/Written.java") };
+        Main.main(args);
+        assertTrue(Main.errorHasOccurred());
+    }
+
+    protected void tearDown() throws Exception {
+        dir.delete();
+        super.tearDown();
+    }
+
+}
@@ -0,0 +1,37 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package junit;
+
+import junit.framework.TestCase;
+import pass.CompoundAssignment;
+
+public class CompoundAssignmentTest extends TestCase {
+
+    private CompoundAssignment compoundAssignment;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        compoundAssignment = new CompoundAssignment();
+    }
+
+    public void testLocals() {
+        assertEquals(compoundAssignment.arithmetic(10), 3);
+        assertEquals(compoundAssignment.bitwise(1), 5);
+        assertEquals(compoundAssignment.unsignedShift(-16), 15);
+        assertEquals(compoundAssignment.largeDeltas(0), -38998);
+        assertEquals(compoundAssignment.increments(), 220);
+    }
+
+    public void testFieldsAndElements() {
+        assertEquals(compoundAssignment.field(3), 20);
+        int[] a = { 5, 6 };
+        assertEquals(compoundAssignment.element(a), 13);
+        assertEquals(a[0], 15);
+        assertEquals(a[1], 12);
+    }
+
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+}
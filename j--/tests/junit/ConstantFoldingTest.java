@@ -0,0 +1,276 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package junit;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import jminusminus.Main;
+import junit.framework.TestCase;
+import pass.ConstantFolding;
+import static jminusminus.CLConstants.*;
+
+public class ConstantFoldingTest extends TestCase {
+
+    private ConstantFolding folding;
+
+    private ScratchDirectory dir;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        folding = new ConstantFolding();
+        dir = new ScratchDirectory("folding");
+    }
+
+    public void testIntExpressions() {
+        assertEquals(folding.arithmetic(), 4);
+        assertEquals(folding.bitwise(), 242);
+        assertEquals(folding.wraparound(), Integer.MIN_VALUE);
+    }
+
+    public void testBooleanExpressions() {
+        assertEquals(folding.comparisons(), true);
+        assertEquals(folding.shortCircuit(true), true);
+        assertEquals(folding.shortCircuit(false), false);
+    }
+
+    public void testConstantVariables() {
+        assertEquals(folding.constantLocals(2), 19);
+        assertEquals(folding.constantFields(100), 36);
+        assertEquals(ConstantFolding.SIZE, 64);
+    }
+
+    public void testDivisionByZeroIsNotFolded() {
+        try {
+            folding.divideByZero(1);
+            fail("Expected an ArithmeticException");
+        } catch (ArithmeticException e) {
+        }
+    }
+
+    public void testFoldedBytecode() throws Exception {
+        // return 4;
+        ArrayList<Integer> arithmetic = opcodes("arithmetic", "()I");
+        assertEquals(arithmetic.size(), 2);
+        assertEquals(count(arithmetic, ICONST_4), 1);
+        ArrayList<Integer> bitwise = opcodes("bitwise", "()I");
+        assertEquals(count(bitwise, IOR) + count(bitwise, IXOR)
+                + count(bitwise, IAND) + count(bitwise, ISHL)
+                + count(bitwise, ISHR) + count(bitwise, IUSHR), 0);
+        assertEquals(branches(opcodes("comparisons", "()Z")), 0);
+
+        // return x * 6 + 7;
+        ArrayList<Integer> locals = opcodes("constantLocals", "(I)I");
+        assertEquals(count(locals, IMUL), 1);
+        assertEquals(count(locals, IADD), 1);
+        assertEquals(count(opcodes("constantFields", "(I)I"), GETSTATIC), 0);
+
+        // x / 0 is left to throw
+        ArrayList<Integer> divide = opcodes("divideByZero", "(I)I");
+        assertEquals(count(divide, IDIV), 1);
+        assertEquals(count(divide, ISUB), 0);
+    }
+
+    public void testAssignmentToFinalField() throws Exception {
+        // Named without a target, a final field is still final, and a
+        // constant field is not replaced by its value
+        assertTrue(compiles("int f = 1; void m() { f = 2; }"));
+        assertTrue(compiles("final int f = 1; int m() { return f; }"));
+        assertFalse(compiles("final int f = 1; void m() { f = 2; }"));
+        assertFalse(compiles("static final int C = 1; void m() { C = 2; }"));
+    }
+
+    protected void tearDown() throws Exception {
+        dir.delete();
+        super.tearDown();
+    }
+
+    /**
+     * Compile a class with the specified members, and return true if there
+     * are no errors; false otherwise.
+     */
+
+    private boolean compiles(String members) throws IOException {
+        PrintWriter out = dir.writer("pass/Finals.java");
+        out.println("package pass;");
+        out.println("public class Finals {");
+        out.println("    " + members);
+        out.println("}");
+        out.close();
+        Main.main(new String[] { "-d", dir.path("classes"),
+                dir.path("pass/Finals.java") });
+        return !Main.errorHasOccurred();
+    }
+
+    /**
+     * Return the opcodes of the code of the method of ConstantFolding with the
+     * specified name and descriptor, read from its class file.
+     */
+
+    private static ArrayList<Integer> opcodes(String name, String descriptor)
+            throws IOException {
+        DataInputStream in = new DataInputStream(ConstantFolding.class
+                .getResourceAsStream("ConstantFolding.class"));
+        try {
+            in.skipBytes(8);
+            int count = in.readUnsignedShort();
+            String[] utf8 = new String[count];
+            for (int i = 1; i < count; i++) {
+                int tag = in.readUnsignedByte();
+                if (tag == CONSTANT_Utf8) {
+                    utf8[i] = in.readUTF();
+                } else if (tag == CONSTANT_Long || tag == CONSTANT_Double) {
+                    in.skipBytes(8);
+                    i++;
+                } else {
+                    in.skipBytes(tag == CONSTANT_MethodHandle ? 3
+                            : tag == CONSTANT_Class || tag == CONSTANT_String
+                                    || tag == CONSTANT_MethodType ? 2 : 4);
+                }
+            }
+            in.skipBytes(6);
+            in.skipBytes(2 * in.readUnsignedShort());
+            int fields = in.readUnsignedShort();
+            for (int i = 0; i < fields; i++) {
+                in.skipBytes(6);
+                skipAttributes(in);
+            }
+            int methods = in.readUnsignedShort();
+            for (int i = 0; i < methods; i++) {
+                in.skipBytes(2);
+                String method = utf8[in.readUnsignedShort()]
+                        + utf8[in.readUnsignedShort()];
+                boolean isMethod = method.equals(name + descriptor);
+                int attributes = in.readUnsignedShort();
+                for (int j = 0; j < attributes; j++) {
+                    String attribute = utf8[in.readUnsignedShort()];
+                    int length = in.readInt();
+                    if (isMethod && attribute.equals(ATT_CODE)) {
+                        in.skipBytes(4);
+                        byte[] code = new byte[in.readInt()];
+                        in.readFully(code);
+                        return opcodes(code);
+                    }
+                    in.skipBytes(length);
+                }
+            }
+        } finally {
+            in.close();
+        }
+        fail("No code for ConstantFolding." + name + descriptor);
+        return null;
+    }
+
+    /**
+     * Skip the attributes of a field or method.
+     */
+
+    private static void skipAttributes(DataInputStream in) throws IOException {
+        int attributes = in.readUnsignedShort();
+        for (int i = 0; i < attributes; i++) {
+            in.skipBytes(2);
+            in.skipBytes(in.readInt());
+        }
+    }
+
+    /**
+     * Return the opcodes of the specified code, which has no switch or WIDE
+     * instruction.
+     */
+
+    private static ArrayList<Integer> opcodes(byte[] code) {
+        ArrayList<Integer> opcodes = new ArrayList<Integer>();
+        int pc = 0;
+        while (pc < code.length) {
+            int opcode = code[pc] & 0xFF;
+            opcodes.add(opcode);
+            pc += length(opcode);
+        }
+        return opcodes;
+    }
+
+    /**
+     * Return the length of the instruction with the specified opcode.
+     */
+
+    private static int length(int opcode) {
+        switch (opcode) {
+        case BIPUSH:
+        case LDC:
+        case ILOAD:
+        case LLOAD:
+        case FLOAD:
+        case DLOAD:
+        case ALOAD:
+        case ISTORE:
+        case LSTORE:
+        case FSTORE:
+        case DSTORE:
+        case ASTORE:
+        case RET:
+        case NEWARRAY:
+            return 2;
+        case SIPUSH:
+        case LDC_W:
+        case LDC2_W:
+        case IINC:
+        case GETSTATIC:
+        case PUTSTATIC:
+        case GETFIELD:
+        case PUTFIELD:
+        case INVOKEVIRTUAL:
+        case INVOKESPECIAL:
+        case INVOKESTATIC:
+        case NEW:
+        case ANEWARRAY:
+        case CHECKCAST:
+        case INSTANCEOF:
+        case IFNULL:
+        case IFNONNULL:
+            return 3;
+        case MULTIANEWARRAY:
+            return 4;
+        case INVOKEINTERFACE:
+        case INVOKEDYNAMIC:
+        case GOTO_W:
+        case JSR_W:
+            return 5;
+        case TABLESWITCH:
+        case LOOKUPSWITCH:
+        case WIDE:
+            fail("Unexpected opcode " + opcode);
+        }
+        return opcode >= IFEQ && opcode <= JSR ? 3 : 1;
+    }
+
+    /**
+     * Return the number of times the specified opcode occurs.
+     */
+
+    private static int count(ArrayList<Integer> opcodes, int opcode) {
+        int n = 0;
+        for (int op : opcodes) {
+            if (op == opcode) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Return the number of branches.
+     */
+
+    private static int branches(ArrayList<Integer> opcodes) {
+        int n = 0;
+        for (int op : opcodes) {
+            if (op >= IFEQ && op <= JSR || op == IFNULL || op == IFNONNULL
+                    || op == GOTO_W || op == JSR_W) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+}
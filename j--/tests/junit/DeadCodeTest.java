@@ -0,0 +1,39 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package junit;
+
+import junit.framework.TestCase;
+import pass.DeadCode;
+
+public class DeadCodeTest extends TestCase {
+
+    private DeadCode deadCode;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        deadCode = new DeadCode();
+    }
+
+    public void testConstantConditions() {
+        assertEquals(deadCode.constantIf(1), 2);
+        assertEquals(deadCode.constantWhile(1), 1);
+        assertEquals(deadCode.constantTernary(), 2);
+        assertEquals(deadCode.ternary(true), 1);
+        assertEquals(deadCode.ternary(false), 2);
+    }
+
+    public void testUnreachableStatements() {
+        assertEquals(deadCode.afterReturn(5), 1);
+        assertEquals(deadCode.afterReturn(-5), -1);
+        try {
+            deadCode.afterThrow(1);
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+}
@@ -0,0 +1,93 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package junit;
+
+import java.io.PrintWriter;
+import java.lang.reflect.Method;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import jminusminus.Main;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test case for the single-pass assembler. A class with forward and
+ * backward branches, short-circuit conditions and a switch is compiled with
+ * -direct, and also without it (but with the same target and no peephole
+ * optimization); the class files must be the same.
+ */
+
+public class DirectAssemblyTest extends TestCase {
+
+    private ScratchDirectory dir;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        dir = new ScratchDirectory("direct");
+        PrintWriter out = dir.writer("pass/Direct.java");
+        out.println("package pass;");
+        out.println("public class Direct {");
+        out.println("    public static int collatz(int n) {");
+        out.println("        int steps = 0;");
+        out.println("        while (n != 1 && steps < 1000) {");
+        out.println("            if (n % 2 == 0) {");
+        out.println("                n = n / 2;");
+        out.println("            } else {");
+        out.println("                n = 3 * n + 1;");
+        out.println("            }");
+        out.println("            steps++;");
+        out.println("        }");
+        out.println("        return steps;");
+        out.println("    }");
+        out.println("    public static int digit(int d) {");
+        out.println("        switch (d) {");
+        out.println("        case 0: return 10;");
+        out.println("        case 1: return 11;");
+        out.println("        case 2: return 12;");
+        out.println("        case 100: return 13;");
+        out.println("        default: return d > 5 || d < -5 ? -1 : d;");
+        out.println("        }");
+        out.println("    }");
+        out.println("}");
+        out.close();
+    }
+
+    public void testSameClassFile() throws Exception {
+        String source = dir.path("pass/Direct.java");
+        String[] listedArgs = { "-nopeephole", "-target", "5", "-d",
+                dir.path("listed"), source };
+        Main.main(listedArgs);
+        assertFalse(Main.errorHasOccurred());
+        String[] directArgs = { "-direct", "-d", dir.path("direct"), source };
+        Main.main(directArgs);
+        assertFalse(Main.errorHasOccurred());
+        assertTrue(Arrays.equals(dir.read("direct/pass/Direct.class"), dir
+                .read("listed/pass/Direct.class")));
+
+        URLClassLoader loader = dir.loader("direct");
+        Class<?> c = loader.loadClass("pass.Direct");
+        Method collatz = c.getMethod("collatz", int.class);
+        assertEquals(collatz.invoke(null, 27), 111);
+        Method digit = c.getMethod("digit", int.class);
+        assertEquals(digit.invoke(null, 100), 13);
+        assertEquals(digit.invoke(null, 4), 4);
+        assertEquals(digit.invoke(null, 9), -1);
+    }
+
+    public void testTargetConflict() throws Exception {
+        String[] args = { "-direct", "-target", "8", "-d",
+                dir.path("conflict"), dir.path("pass/Direct.java") };
+        Main.main(args);
+        assertTrue(Main.errorHasOccurred());
+        args = new String[] { "-direct", "-indy", "-d", dir.path("conflict"),
+                dir.path("pass/Direct.java") };
+        Main.main(args);
+        assertTrue(Main.errorHasOccurred());
+        assertFalse(dir.file("conflict").exists());
+    }
+
+    protected void tearDown() throws Exception {
+        dir.delete();
+        super.tearDown();
+    }
+
+}
@@ -0,0 +1,88 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package junit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import jminusminus.Main;
+import junit.framework.TestCase;
+import pass.FieldAssignment;
+
+/**
+ * JUnit test case for assignments to fields inside branches and loops. Besides
+ * running pass.FieldAssignment, a program assigning a static field inside an
+ * if-statement is compiled, and then run with -run; neither may report an
+ * error.
+ */
+
+public class FieldAssignmentTest extends TestCase {
+
+    private FieldAssignment fields;
+
+    private ScratchDirectory dir;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        fields = new FieldAssignment();
+        dir = new ScratchDirectory("fields");
+        PrintWriter out = dir.writer("pass/Assigned.java");
+        out.println("package pass;");
+        out.println("import java.lang.System;");
+        out.println("public class Assigned {");
+        out.println("    static int s;");
+        out.println("    static void m(int a) {");
+        out.println("        if (a > 0) {");
+        out.println("            s = 1;");
+        out.println("        }");
+        out.println("        s = s + 2;");
+        out.println("    }");
+        out.println("    public static void main(String[] args) {");
+        out.println("        m(1);");
+        out.println("        System.out.println(s);");
+        out.println("    }");
+        out.println("}");
+        out.close();
+    }
+
+    public void testBranches() {
+        assertEquals(fields.branch(3), 3);
+        assertEquals(fields.sign, "+");
+        assertEquals(fields.branch(-2), -2);
+        assertEquals(fields.sign, "-");
+        assertEquals(FieldAssignment.last, -2);
+    }
+
+    public void testLoops() {
+        assertEquals(fields.loop(4), 10);
+        assertEquals(fields.sum(new int[] { 1, 2, 3 }), 16);
+        assertEquals(FieldAssignment.last, 3);
+    }
+
+    public void testCompile() throws Exception {
+        Main.main(new String[] { "-d", dir.path("classes"),
+                dir.path("pass/Assigned.java") });
+        assertFalse(Main.errorHasOccurred());
+        assertTrue(dir.file("classes/pass/Assigned.class").exists());
+    }
+
+    public void testRun() throws Exception {
+        String[] args = { dir.path("pass/Assigned.java"), "-run" };
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(bytes, true));
+        try {
+            Main.main(args);
+        } finally {
+            System.setOut(out);
+        }
+        assertFalse(Main.errorHasOccurred());
+        assertEquals(bytes.toString().trim(), "3");
+    }
+
+    protected void tearDown() throws Exception {
+        dir.delete();
+        super.tearDown();
+    }
+
+}
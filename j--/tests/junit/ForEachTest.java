@@ -0,0 +1,38 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package junit;
+
+import java.util.ArrayList;
+import junit.framework.TestCase;
+import pass.ForEach;
+
+public class ForEachTest extends TestCase {
+
+    private ForEach forEach;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        forEach = new ForEach();
+    }
+
+    public void testArrays() {
+        assertEquals(forEach.sum(new int[] { 1, 2, 3, 4 }), 10);
+        assertEquals(forEach.sum(new int[0]), 0);
+        assertEquals(forEach.count("banana", 'a'), 3);
+    }
+
+    public void testIterables() {
+        ArrayList<String> list = new ArrayList<String>();
+        assertEquals(forEach.join(list), "");
+        list.add("x");
+        list.add("y");
+        list.add("stop");
+        list.add("z");
+        assertEquals(forEach.join(list), "xy");
+    }
+
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+}
@@ -21,6 +21,26 @@ public class JMinusMinusTestRunner {
         suite.addTestSuite(GCDTest.class);
         suite.addTestSuite(SeriesTest.class);
         suite.addTestSuite(ClassesTest.class);
+        suite.addTestSuite(OverloadsTest.class);
+        suite.addTestSuite(ConstantFoldingTest.class);
+        suite.addTestSuite(DeadCodeTest.class);
+        suite.addTestSuite(StringConcatTest.class);
+        suite.addTestSuite(SwitchTest.class);
+        suite.addTestSuite(ForEachTest.class);
+        suite.addTestSuite(CompoundAssignmentTest.class);
+        suite.addTestSuite(FieldAssignmentTest.class);
+        suite.addTestSuite(PeepholeTest.class);
+        suite.addTestSuite(LoopsTest.class);
+        suite.addTestSuite(StackMapTest.class);
+        suite.addTestSuite(BranchRelaxationTest.class);
+        suite.addTestSuite(MethodSplittingTest.class);
+        suite.addTestSuite(DirectAssemblyTest.class);
+        suite.addTestSuite(JarOutputTest.class);
+        suite.addTestSuite(ClassWriterTest.class);
+        suite.addTestSuite(RunModeTest.class);
+        suite.addTestSuite(LazyAbsorberTest.class);
+        suite.addTestSuite(ClassIndexTest.class);
+        suite.addTestSuite(ReportTest.class);
         return suite;
     }
 
@@ -0,0 +1,128 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package junit;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+import jminusminus.Main;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test case for the -jar output mode. Two compilation units are
+ * compiled into one jar, with compressed and with stored entries, and their
+ * classes are loaded from it.
+ */
+
+public class JarOutputTest extends TestCase {
+
+    private ScratchDirectory dir;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        dir = new ScratchDirectory("jar");
+        PrintWriter out = dir.writer("pass/JarSquare.java");
+        out.println("package pass;");
+        out.println("public class JarSquare {");
+        out.println("    public static int square(int n) {");
+        out.println("        return n * n;");
+        out.println("    }");
+        out.println("}");
+        out.close();
+        out = dir.writer("pass/JarCube.java");
+        out.println("package pass;");
+        out.println("public class JarCube {");
+        out.println("    public static int cube(int n) {");
+        out.println("        return n * n * n;");
+        out.println("    }");
+        out.println("}");
+        out.close();
+    }
+
+    public void testDeflated() throws Exception {
+        File jar = compile("deflated.jar", false);
+        assertEquals(entry(jar, "pass/JarSquare.class").getMethod(),
+                ZipEntry.DEFLATED);
+        run(jar);
+    }
+
+    public void testStored() throws Exception {
+        File jar = compile("stored.jar", true);
+        assertEquals(entry(jar, "pass/JarCube.class").getMethod(),
+                ZipEntry.STORED);
+        run(jar);
+    }
+
+    public void testDuplicateClass() throws Exception {
+        File jar = dir.file("duplicate.jar");
+        String square = dir.path("pass/JarSquare.java");
+        String[] args = { "-jar", jar.toString(), square, square };
+        Main.main(args);
+        assertTrue(Main.errorHasOccurred());
+        assertFalse(jar.exists());
+    }
+
+    public void testMissingSource() throws Exception {
+        File jar = dir.file("missing.jar");
+        String[] args = { "-jar", jar.toString(), dir.path("pass/JarCube.java"),
+                dir.path("pass/Missing.java") };
+        Main.main(args);
+        assertTrue(Main.errorHasOccurred());
+        assertFalse(jar.exists());
+    }
+
+    protected void tearDown() throws Exception {
+        dir.delete();
+        super.tearDown();
+    }
+
+    /**
+     * Compile both classes into the specified jar, and return the jar.
+     */
+
+    private File compile(String name, boolean isStored) throws Exception {
+        File jar = dir.file("out/" + name);
+        String square = dir.path("pass/JarSquare.java");
+        String cube = dir.path("pass/JarCube.java");
+        String[] args = isStored ? new String[] { "-jar", jar.toString(), "-0",
+                square, cube } : new String[] { "-jar", jar.toString(), square,
+                cube };
+        Main.main(args);
+        assertFalse(Main.errorHasOccurred());
+        assertFalse(dir.file("pass/JarSquare.class").exists());
+        return jar;
+    }
+
+    /**
+     * Return the entry of the specified jar with the specified name.
+     */
+
+    private static ZipEntry entry(File jar, String name) throws Exception {
+        JarFile jarFile = new JarFile(jar);
+        assertNotNull(jarFile.getManifest());
+        ZipEntry entry = jarFile.getEntry(name);
+        assertNotNull(entry);
+        jarFile.close();
+        return entry;
+    }
+
+    /**
+     * Load both classes from the specified jar, and call their methods.
+     */
+
+    private static void run(File jar) throws Exception {
+        URLClassLoader loader = new URLClassLoader(new URL[] { jar.toURI()
+                .toURL() });
+        Method square = loader.loadClass("pass.JarSquare").getMethod("square",
+                int.class);
+        assertEquals(square.invoke(null, 7), 49);
+        Method cube = loader.loadClass("pass.JarCube").getMethod("cube",
+                int.class);
+        assertEquals(cube.invoke(null, 3), 27);
+    }
+
+}
@@ -0,0 +1,112 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package junit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.List;
+import jminusminus.CLAbsorber;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test case for the lazy mode of CLAbsorber. A class read lazily must
+ * print the same as when read eagerly, its attributes being decoded as they
+ * are printed. The CL classes are package private, so the attributes of a
+ * class read lazily are inspected through reflection.
+ */
+
+public class LazyAbsorberTest extends TestCase {
+
+    protected void setUp() throws Exception {
+        super.setUp();
+    }
+
+    public void testSameAsEager() throws Exception {
+        String eager = absorb(new String[] { "junit/framework/TestCase" });
+        String lazy = absorb(new String[] { "-lazy",
+                "junit/framework/TestCase" });
+        assertTrue(eager.indexOf("Code") >= 0);
+        assertEquals(lazy, eager);
+    }
+
+    public void testLazyReader() throws Exception {
+        CLAbsorber absorber = new CLAbsorber("junit/framework/TestCase", true);
+        assertFalse(absorber.errorHasOccurred());
+        assertNotNull(absorber.classFile());
+    }
+
+    public void testDecodedOnAccess() throws Exception {
+        CLAbsorber absorber = new CLAbsorber("junit/framework/TestCase", true);
+        List<?> methods = (List<?>) field(absorber.classFile(), "methods");
+        assertFalse(methods.isEmpty());
+        Object code = null;
+        for (Object method : methods) {
+            for (Object attribute : (List<?>) field(method, "attributes")) {
+                assertEquals(attribute.getClass().getSimpleName(),
+                        "CLLazyAttribute");
+                if (code == null
+                        && invoke(attribute, "attributeName").equals("Code")) {
+                    code = attribute;
+                }
+            }
+        }
+        assertNotNull(code);
+        assertEquals(field(code, "isDecoded"), false);
+        Object decoded = invoke(code, "attribute");
+        assertEquals(decoded.getClass().getSimpleName(), "CLCodeAttribute");
+        assertEquals(field(code, "isDecoded"), true);
+        assertSame(invoke(code, "attribute"), decoded);
+    }
+
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    /**
+     * Run CLAbsorber with the specified arguments, and return what it prints.
+     */
+
+    private static String absorb(String[] args) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(bytes, true));
+        try {
+            CLAbsorber.main(args);
+        } finally {
+            System.setOut(out);
+        }
+        return bytes.toString();
+    }
+
+    /**
+     * Return the value of the field with the specified name of the specified
+     * object, declared by its class or a superclass.
+     */
+
+    private static Object field(Object o, String name) throws Exception {
+        for (Class<?> c = o.getClass(); c != null; c = c.getSuperclass()) {
+            try {
+                Field field = c.getDeclaredField(name);
+                field.setAccessible(true);
+                return field.get(o);
+            } catch (NoSuchFieldException e) {
+                // Look in the superclass
+            }
+        }
+        throw new NoSuchFieldException(name);
+    }
+
+    /**
+     * Invoke the method with the specified name, declared by the class of the
+     * specified object and taking no arguments, and return its result.
+     */
+
+    private static Object invoke(Object o, String name) throws Exception {
+        Method method = o.getClass().getDeclaredMethod(name);
+        method.setAccessible(true);
+        return method.invoke(o);
+    }
+
+}
@@ -0,0 +1,41 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package junit;
+
+import junit.framework.TestCase;
+import pass.Loops;
+
+public class LoopsTest extends TestCase {
+
+    private Loops loops;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        loops = new Loops();
+    }
+
+    public void testWhile() {
+        assertEquals(loops.sumWhile(10), 55);
+        assertEquals(loops.sumWhile(0), 0);
+        assertEquals(loops.firstMultiple(10, 7), 14);
+    }
+
+    public void testFor() {
+        assertEquals(loops.sumFor(10), 55);
+        assertEquals(loops.sumFor(0), 0);
+        assertEquals(loops.product(3), 64);
+        assertEquals(loops.firstSquareAbove(10), 16);
+    }
+
+    public void testDo() {
+        assertEquals(loops.digits(0), 1);
+        assertEquals(loops.digits(12345), 5);
+        assertEquals(loops.halvings(1), 1);
+        assertEquals(loops.halvings(8), 4);
+    }
+
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+}
@@ -0,0 +1,118 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package junit;
+
+import java.io.PrintWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import jminusminus.Main;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test case for the splitting of code that exceeds the 64 KB limit on
+ * the code of a method. A class whose static array initializer, static field
+ * initializations and method body are each too long for a single method is
+ * generated, compiled, and run.
+ */
+
+public class MethodSplittingTest extends TestCase {
+
+    /** Number of elements of the table (8 bytes of code each). */
+    private static final int ELEMENTS = 10000;
+
+    /** Number of static fields initialized from the table. */
+    private static final int FIELDS = 5000;
+
+    /** Number of statements of the method body. */
+    private static final int STATEMENTS = 5000;
+
+    /** The compiled (and initialized) class, shared by the tests. */
+    private static Class<?> split;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        if (split != null) {
+            return;
+        }
+        ScratchDirectory dir = new ScratchDirectory("split");
+        PrintWriter out = dir.writer("pass/Split.java");
+        out.println("package pass;");
+        out.println("public class Split {");
+        out.print("    public static int[] table = {");
+        for (int i = 0; i < ELEMENTS; i++) {
+            out.print((i == 0 ? "" : ", ") + element(i));
+        }
+        out.println("};");
+        for (int i = 0; i < FIELDS; i++) {
+            out.println("    public static int f" + i + " = " + i
+                    + " * 3 + table[" + i + "];");
+        }
+        out.println("    private int base;");
+        out.println("    public Split(int base) {");
+        out.println("        this.base = base;");
+        out.println("    }");
+        out.println("    public int sum(int k) {");
+        out.println("        int[] a = new int[" + STATEMENTS + "];");
+        out.println("        int x = k + 1;");
+        for (int i = 0; i < STATEMENTS; i++) {
+            out.println("        a[" + i + "] = x * " + i + " + base + table["
+                    + i + "];");
+        }
+        out.println("        int s = 0;");
+        out.println("        for (int i = 0; i < a.length; i++) {");
+        out.println("            s = s + a[i];");
+        out.println("        }");
+        out.println("        return s;");
+        out.println("    }");
+        out.println("}");
+        out.close();
+        String[] args = { "-d", dir.toString(), dir.path("pass/Split.java") };
+        try {
+            Main.main(args);
+            assertFalse(Main.errorHasOccurred());
+
+            // Initialize the class, so that the directory is no longer needed
+            split = Class.forName("pass.Split", true, dir.loader(""));
+        } finally {
+            dir.delete();
+        }
+    }
+
+    public void testArrayInitializer() throws Exception {
+        int[] table = (int[]) split.getField("table").get(null);
+        assertEquals(table.length, ELEMENTS);
+        for (int i = 0; i < ELEMENTS; i++) {
+            assertEquals(table[i], element(i));
+        }
+    }
+
+    public void testClassInit() throws Exception {
+        for (int i = 0; i < FIELDS; i += 999) {
+            Field field = split.getField("f" + i);
+            assertEquals(field.get(null), i * 3 + element(i));
+        }
+    }
+
+    public void testMethodBody() throws Exception {
+        Object instance = split.getConstructor(int.class).newInstance(2);
+        Method sum = split.getMethod("sum", int.class);
+        int expected = 0;
+        for (int i = 0; i < STATEMENTS; i++) {
+            expected += 4 * i + 2 + element(i);
+        }
+        assertEquals(sum.invoke(instance, 3), expected);
+    }
+
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    /**
+     * Return the element of the table at the specified index.
+     */
+
+    private static int element(int i) {
+        return i * 7 % 1000;
+    }
+
+}
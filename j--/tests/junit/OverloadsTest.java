@@ -0,0 +1,47 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package junit;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import junit.framework.TestCase;
+import pass.Overloads;
+
+public class OverloadsTest extends TestCase {
+
+    private Overloads overloads;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        overloads = new Overloads();
+    }
+
+    public void testMostSpecific() {
+        assertEquals(overloads.pickString(), 2);
+        assertEquals(overloads.pickNull(), 2);
+        assertEquals(overloads.pickBoxed(), 1);
+    }
+
+    public void testWidening() {
+        assertEquals(overloads.max(3, 'a'), 97);
+        assertEquals(overloads.max(100, 'a'), 100);
+        assertEquals(overloads.widen(7).longValue(), 7L);
+    }
+
+    public void testPrimitiveOverloads() {
+        assertEquals(overloads.append("x", 'y', 42), "xy42");
+    }
+
+    public void testInheritedMethods() {
+        ArrayList<String> a = new ArrayList<String>();
+        a.add("x");
+        assertTrue(overloads.containsAll(a, new ArrayList<String>()));
+        assertFalse(overloads.containsAll(new ArrayList<String>(), a));
+        assertTrue(overloads.isEmpty(new ArrayDeque<String>()));
+    }
+
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+}
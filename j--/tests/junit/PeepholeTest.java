@@ -0,0 +1,135 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package junit;
+
+import java.io.PrintWriter;
+import jminusminus.CLMethodReport;
+import jminusminus.CLReport;
+import jminusminus.Main;
+import junit.framework.TestCase;
+import pass.Peephole;
+import static jminusminus.CLConstants.*;
+
+/**
+ * JUnit test case for the peephole optimizer. Besides running pass.Peephole, a
+ * class built so that each rewrite applies is compiled with and without
+ * -nopeephole, and the code of its methods must show the rewrites.
+ */
+
+public class PeepholeTest extends TestCase {
+
+    private Peephole peephole;
+
+    private ScratchDirectory dir;
+
+    /** Report of the class compiled with -nopeephole. */
+    private CLReport listed;
+
+    /** Report of the class compiled with the optimizer. */
+    private CLReport optimized;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        peephole = new Peephole();
+        dir = new ScratchDirectory("peephole");
+        PrintWriter out = dir.writer("pass/Rewritten.java");
+        out.println("package pass;");
+        out.println("public class Rewritten {");
+        out.println("    public static int threaded(int a, int b) {");
+        out.println("        int x = 0;");
+        out.println("        if (a > 0) {");
+        out.println("            if (b > 0) {");
+        out.println("                x = 1;");
+        out.println("            } else {");
+        out.println("                return 2;");
+        out.println("            }");
+        out.println("        } else {");
+        out.println("            x = 3;");
+        out.println("        }");
+        out.println("        return x;");
+        out.println("    }");
+        out.println("    public static int emptyElse(int a) {");
+        out.println("        int x = 0;");
+        out.println("        if (a > 0) {");
+        out.println("            x = 1;");
+        out.println("        } else {");
+        out.println("        }");
+        out.println("        return x;");
+        out.println("    }");
+        out.println("    public static int storeLoad(int a) {");
+        out.println("        int x = a + 1;");
+        out.println("        return x;");
+        out.println("    }");
+        out.println("}");
+        out.close();
+        String source = dir.path("pass/Rewritten.java");
+        Main.main(new String[] { "-nopeephole", "-d", dir.path("listed"),
+                source });
+        assertFalse(Main.errorHasOccurred());
+        Main.main(new String[] { "-d", dir.path("optimized"), source });
+        assertFalse(Main.errorHasOccurred());
+        listed = new CLReport(dir.path("listed"));
+        optimized = new CLReport(dir.path("optimized"));
+    }
+
+    public void testBranches() {
+        assertEquals(peephole.sign(-5), -1);
+        assertEquals(peephole.sign(0), 0);
+        assertEquals(peephole.sign(7), 1);
+        assertEquals(peephole.reduce(100), 8);
+        assertEquals(peephole.classify(1), 10);
+        assertEquals(peephole.classify(2), 20);
+        assertEquals(peephole.classify(3), 30);
+    }
+
+    public void testLoops() {
+        assertEquals(peephole.triangle(10), 55);
+        assertEquals(peephole.triangle(0), 0);
+        assertEquals(peephole.last(new int[] { 1, 2, 3 }), 3);
+        assertEquals(peephole.last(new int[0]), 0);
+    }
+
+    public void testJumpThreading() {
+        // The GOTO to the GOTO after the inner if goes straight to the
+        // end, which leaves the second GOTO dead
+        CLMethodReport before = listed.lookup(method("threaded(II)I"));
+        CLMethodReport after = optimized.lookup(method("threaded(II)I"));
+        assertEquals(before.count(GOTO), 2);
+        assertEquals(after.count(GOTO), 1);
+        assertEquals(after.codeLength, before.codeLength - 3);
+    }
+
+    public void testGotoNextRemoval() {
+        CLMethodReport before = listed.lookup(method("emptyElse(I)I"));
+        CLMethodReport after = optimized.lookup(method("emptyElse(I)I"));
+        assertEquals(before.count(GOTO), 1);
+        assertEquals(after.count(GOTO), 0);
+        assertEquals(after.codeLength, before.codeLength - 3);
+    }
+
+    public void testStoreLoad() {
+        // ISTORE_1; ILOAD_1 becomes DUP; ISTORE_1
+        CLMethodReport before = listed.lookup(method("storeLoad(I)I"));
+        CLMethodReport after = optimized.lookup(method("storeLoad(I)I"));
+        assertEquals(before.count(ILOAD_1), 1);
+        assertEquals(before.count(DUP), 0);
+        assertEquals(after.count(ILOAD_1), 0);
+        assertEquals(after.count(DUP), 1);
+        assertEquals(after.count(ISTORE_1), 1);
+    }
+
+    protected void tearDown() throws Exception {
+        dir.delete();
+        super.tearDown();
+    }
+
+    /**
+     * Return the report name of the method of pass.Rewritten with the
+     * specified name and descriptor.
+     */
+
+    private static String method(String name) {
+        return "pass/Rewritten." + name;
+    }
+
+}
@@ -0,0 +1,106 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package junit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import jminusminus.CLReport;
+import jminusminus.Main;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test case for CLReport. Two builds of a class are compiled, the second
+ * with a bigger method; the report of a build must describe the code of its
+ * methods, and comparing the builds must flag the bigger method.
+ */
+
+public class ReportTest extends TestCase {
+
+    private static final String METHOD = "pass/Reported.sum(I)I";
+
+    private ScratchDirectory dir;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        dir = new ScratchDirectory("report");
+        build("old", "s = s + i;");
+        build("new", "if (s > 100) { s = s - 100; } s = s + i;");
+    }
+
+    public void testReport() throws Exception {
+        CLReport report = new CLReport(dir.path("old/classes"));
+        assertNotNull(report.lookup(METHOD));
+        assertNotNull(report.lookup("pass/Reported.<init>()V"));
+        assertEquals(report.size(), 2);
+        String printed = print(report, null);
+        int i = printed.indexOf(METHOD + "\n");
+        assertTrue(i >= 0);
+        String[] lines = printed.substring(i).split("\n");
+        assertTrue(lines[1].indexOf("locals 4,") >= 0);
+        assertTrue(lines[1].endsWith("branches 2"));
+        assertTrue(lines[2].indexOf("goto 1") >= 0);
+        assertTrue(lines[2].indexOf("ireturn 1") >= 0);
+    }
+
+    public void testChanges() throws Exception {
+        CLReport old = new CLReport(dir.path("old/classes"));
+        CLReport report = new CLReport(dir.path("new/classes"));
+        String printed = print(report, old);
+        assertTrue(printed.indexOf("REGRESSION " + METHOD + ": code") >= 0);
+        assertTrue(printed.endsWith(", 1 regressions\n"));
+        assertTrue(print(old, old).endsWith(", 0 regressions\n"));
+    }
+
+    protected void tearDown() throws Exception {
+        dir.delete();
+        super.tearDown();
+    }
+
+    /**
+     * Print the specified report, or its changes from the specified old one
+     * if it is not null, and return what is printed.
+     */
+
+    private static String print(CLReport report, CLReport old) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(bytes, true));
+        try {
+            if (old == null) {
+                report.writeToStdOut();
+            } else {
+                report.printChangesFrom(old);
+            }
+        } finally {
+            System.setOut(out);
+        }
+        return bytes.toString();
+    }
+
+    /**
+     * Compile a build of pass.Reported, the loop of which has the specified
+     * body, into the classes directory of the build.
+     */
+
+    private void build(String version, String body) throws Exception {
+        PrintWriter out = dir.writer(version + "/pass/Reported.java");
+        out.println("package pass;");
+        out.println("public class Reported {");
+        out.println("    public int sum(int n) {");
+        out.println("        int s = 0;");
+        out.println("        int i = 0;");
+        out.println("        while (i < n) {");
+        out.println("            " + body);
+        out.println("            i = i + 1;");
+        out.println("        }");
+        out.println("        return s;");
+        out.println("    }");
+        out.println("}");
+        out.close();
+        Main.main(new String[] { "-d", dir.path(version + "/classes"),
+                dir.path(version + "/pass/Reported.java") });
+        assertFalse(Main.errorHasOccurred());
+    }
+
+}
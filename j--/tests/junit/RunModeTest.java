@@ -0,0 +1,71 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package junit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import jminusminus.Main;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test case for the -run option. A program of two classes that refer to
+ * each other is compiled and run in memory, and must write no class files;
+ * the class declaring main() need not come first.
+ */
+
+public class RunModeTest extends TestCase {
+
+    private ScratchDirectory dir;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        dir = new ScratchDirectory("run");
+        PrintWriter out = dir.writer("pass/Greeter.java");
+        out.println("package pass;");
+        out.println("import java.lang.System;");
+        out.println("class Greeting {");
+        out.println("    public static String greet(String name) {");
+        out.println("        return \"Hello, \" + name + Greeter.punctuation();");
+        out.println("    }");
+        out.println("}");
+        out.println("public class Greeter {");
+        out.println("    public static String punctuation() {");
+        out.println("        return \"!\";");
+        out.println("    }");
+        out.println("    public static void main(String[] args) {");
+        out.println("        System.out.println(Greeting.greet(args[0]));");
+        out.println("    }");
+        out.println("}");
+        out.close();
+    }
+
+    public void testRun() throws Exception {
+        String[] args = { "-d", dir.path("classes"),
+                dir.path("pass/Greeter.java"), "-run", "j--" };
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(bytes, true));
+        try {
+            Main.main(args);
+        } finally {
+            System.setOut(out);
+        }
+        assertFalse(Main.errorHasOccurred());
+        assertEquals(bytes.toString().trim(), "Hello, j--!");
+        assertFalse(dir.file("classes").exists());
+    }
+
+    public void testProgramException() throws Exception {
+        // Without arguments, args[0] is out of bounds
+        String[] args = { dir.path("pass/Greeter.java"), "-run" };
+        Main.main(args);
+        assertTrue(Main.errorHasOccurred());
+    }
+
+    protected void tearDown() throws Exception {
+        dir.delete();
+        super.tearDown();
+    }
+
+}
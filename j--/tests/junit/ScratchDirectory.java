@@ -0,0 +1,155 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package junit;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * A scratch directory for the tests that compile sources of their own: it is
+ * created empty under the temporary directory of the system, holds the
+ * sources and what they compile to, and is deleted, with all it holds, when
+ * the test is torn down.
+ */
+
+class ScratchDirectory {
+
+    /** The directory. */
+    private File dir;
+
+    /**
+     * Create an empty scratch directory, the name of which starts with the
+     * specified prefix.
+     *
+     * @param prefix
+     *            prefix of the name.
+     * @throws IOException
+     *             if the directory cannot be created.
+     */
+
+    public ScratchDirectory(String prefix) throws IOException {
+        dir = File.createTempFile(prefix, "");
+        if (!dir.delete() || !dir.mkdirs()) {
+            throw new IOException("cannot create " + dir);
+        }
+    }
+
+    /**
+     * Return the file (or directory) with the specified path, relative to the
+     * scratch directory.
+     *
+     * @param name
+     *            relative path of the file.
+     * @return the file.
+     */
+
+    public File file(String name) {
+        return new File(dir, name);
+    }
+
+    /**
+     * Return the name of the file with the specified relative path.
+     *
+     * @param name
+     *            relative path of the file.
+     * @return name of the file.
+     */
+
+    public String path(String name) {
+        return file(name).toString();
+    }
+
+    /**
+     * Return a writer to the file with the specified relative path, creating
+     * the directories above it.
+     *
+     * @param name
+     *            relative path of the file.
+     * @return the writer.
+     * @throws IOException
+     *             if the file cannot be created.
+     */
+
+    public PrintWriter writer(String name) throws IOException {
+        File file = file(name);
+        file.getParentFile().mkdirs();
+        return new PrintWriter(file);
+    }
+
+    /**
+     * Return the contents of the file with the specified relative path.
+     *
+     * @param name
+     *            relative path of the file.
+     * @return the contents.
+     * @throws IOException
+     *             if the file cannot be read.
+     */
+
+    public byte[] read(String name) throws IOException {
+        File file = file(name);
+        byte[] bytes = new byte[(int) file.length()];
+        FileInputStream in = new FileInputStream(file);
+        try {
+            int n = 0;
+            while (n < bytes.length) {
+                n += in.read(bytes, n, bytes.length - n);
+            }
+        } finally {
+            in.close();
+        }
+        return bytes;
+    }
+
+    /**
+     * Return a class loader over the directory or jar with the specified
+     * relative path.
+     *
+     * @param name
+     *            relative path of the directory or jar.
+     * @return the class loader.
+     * @throws IOException
+     *             if the path is malformed.
+     */
+
+    public URLClassLoader loader(String name) throws IOException {
+        return new URLClassLoader(new URL[] { file(name).toURI().toURL() });
+    }
+
+    /**
+     * Delete the scratch directory and all it holds.
+     */
+
+    public void delete() {
+        delete(dir);
+    }
+
+    /**
+     * Return the name of the scratch directory.
+     *
+     * @return name of the directory.
+     */
+
+    public String toString() {
+        return dir.toString();
+    }
+
+    /**
+     * Delete the specified file, or directory and all it holds.
+     */
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                delete(f);
+            }
+        }
+        file.delete();
+    }
+
+}
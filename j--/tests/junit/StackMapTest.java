@@ -0,0 +1,38 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package junit;
+
+import junit.framework.TestCase;
+import pass.StackMap;
+
+public class StackMapTest extends TestCase {
+
+    private StackMap stackMap;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        stackMap = new StackMap(-5);
+    }
+
+    public void testConstructor() {
+        assertEquals(stackMap.value(), 5);
+        assertEquals(new StackMap(7).value(), 7);
+    }
+
+    public void testMerges() {
+        assertEquals(stackMap.describe(true), "circle");
+        assertEquals(stackMap.describe(false), "square");
+        assertEquals(stackMap.label(3), "positive3");
+        assertEquals(stackMap.label(0), "non-positive0");
+        assertEquals(stackMap.pick(1, "a", "b"), "a");
+        assertEquals(stackMap.pick(2, "a", "b"), "b");
+        assertEquals(stackMap.pick(0, "a", "b"), null);
+        assertEquals(stackMap.pick(3, "a", "b"), "none");
+        assertEquals(stackMap.count(4), 6);
+    }
+
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+}
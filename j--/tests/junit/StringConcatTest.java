@@ -0,0 +1,59 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package junit;
+
+import java.io.PrintWriter;
+import java.net.URLClassLoader;
+import jminusminus.Main;
+import junit.framework.TestCase;
+import pass.StringConcat;
+
+public class StringConcatTest extends TestCase {
+
+    private StringConcat concat;
+
+    private ScratchDirectory dir;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        concat = new StringConcat();
+        dir = new ScratchDirectory("indy");
+    }
+
+    public void testConstantConcatenation() {
+        assertEquals(concat.constant(), "a1btrue\t\"q\"");
+        assertEquals(concat.arithmeticFirst(), "3x12");
+        assertEquals(StringConcat.PREFIX, "[log]");
+    }
+
+    public void testConcatenation() {
+        assertEquals(concat.mixed("n", 3), "[log] n: 3 items!");
+        assertEquals(concat.nested("s"), "<s|s>");
+        assertEquals(concat.append("s", 'c'), "s-1c");
+        assertEquals(concat.object(null), "o=null");
+    }
+
+    public void testInvokeDynamic() throws Exception {
+        PrintWriter out = dir.writer("pass/Indy.java");
+        out.println("package pass;");
+        out.println("public class Indy {");
+        out.println("    public static String label(String s, int n) {");
+        out.println("        return s + \": \" + n;");
+        out.println("    }");
+        out.println("}");
+        out.close();
+        String[] args = { "-indy", "-d", dir.toString(),
+                dir.path("pass/Indy.java") };
+        Main.main(args);
+        assertFalse(Main.errorHasOccurred());
+        URLClassLoader loader = dir.loader("");
+        assertEquals(loader.loadClass("pass.Indy").getMethod("label",
+                String.class, int.class).invoke(null, "n", 3), "n: 3");
+    }
+
+    protected void tearDown() throws Exception {
+        dir.delete();
+        super.tearDown();
+    }
+
+}
@@ -0,0 +1,55 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package junit;
+
+import junit.framework.TestCase;
+import pass.Switch;
+
+public class SwitchTest extends TestCase {
+
+    private Switch switchStatement;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        switchStatement = new Switch();
+    }
+
+    public void testTableSwitch() {
+        assertEquals(switchStatement.dense(1), 10);
+        assertEquals(switchStatement.dense(2), 50);
+        assertEquals(switchStatement.dense(3), 30);
+        assertEquals(switchStatement.dense(4), -1);
+        assertEquals(switchStatement.dense(5), 50);
+        assertEquals(switchStatement.dense(6), -1);
+    }
+
+    public void testLookupSwitch() {
+        assertEquals(switchStatement.sparse(-1000), 1);
+        assertEquals(switchStatement.sparse(7), 2);
+        assertEquals(switchStatement.sparse(100000), 3);
+        assertEquals(switchStatement.sparse(8), 0);
+        assertEquals(switchStatement.kind('a'), "vowel");
+        assertEquals(switchStatement.kind('e'), "vowel");
+        assertEquals(switchStatement.kind('z'), "zed");
+        assertEquals(switchStatement.kind('q'), "other");
+    }
+
+    public void testStringSwitch() {
+        assertEquals(switchStatement.command("stop"), 1);
+        assertEquals(switchStatement.command("go"), 2);
+        assertEquals(switchStatement.command("run"), 2);
+        assertEquals(switchStatement.command("Aa"), 3);
+        assertEquals(switchStatement.command("BB"), 4);
+        assertEquals(switchStatement.command("walk"), -1);
+        assertEquals(switchStatement.command("Ab"), -1);
+    }
+
+    public void testBreak() {
+        assertEquals(switchStatement.loop(5), 105);
+    }
+
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+}
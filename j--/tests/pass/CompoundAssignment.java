@@ -0,0 +1,62 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package pass;
+
+// Exercises compound assignments and increments on locals (IINC), fields
+// and array elements.
+
+public class CompoundAssignment {
+
+    private int field;
+
+    public int arithmetic(int x) {
+        x += 5;
+        x -= 3;
+        x *= 4;
+        x /= 6;
+        x %= 5;
+        return x;
+    }
+
+    public int bitwise(int x) {
+        x <<= 4;
+        x >>= 1;
+        x |= 3;
+        x &= 10;
+        x ^= 15;
+        return x;
+    }
+
+    public int unsignedShift(int x) {
+        x >>>= 28;
+        return x;
+    }
+
+    public int largeDeltas(int x) {
+        x += 1000;
+        x -= 40000;
+        return x += 2;
+    }
+
+    public int increments() {
+        int i = 0;
+        int a = i++;
+        int b = ++i;
+        int c = i--;
+        int d = --i;
+        return a * 1000 + b * 100 + c * 10 + d;
+    }
+
+    public int field(int x) {
+        field = x;
+        field *= 7;
+        return field -= 1;
+    }
+
+    public int element(int[] a) {
+        int k = 0;
+        a[k++] += 10;
+        return (a[k] *= 2) + k;
+    }
+
+}
@@ -0,0 +1,54 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package pass;
+
+// Exercises compile-time constant folding, including constant
+// variables (final locals and static final fields).
+
+public class ConstantFolding {
+
+    public static final int SIZE = 4 * 16;
+
+    public static final int MASK = SIZE - 1;
+
+    public static final boolean DEBUG = !true;
+
+    public int arithmetic() {
+        return (1 + 2) * 3 - 10 / 3 % 2 + -(4);
+    }
+
+    public int bitwise() {
+        return (240 | 15) ^ (6 & 3) ^ ~0 << 4 >> 2 >>> 28;
+    }
+
+    public int wraparound() {
+        return 2147483647 + 1;
+    }
+
+    public boolean comparisons() {
+        return 1 < 2 && 3 >= 3 && 4 > 2 && 2 <= 2 && 'a' == 'a'
+                && 1 != 2;
+    }
+
+    public boolean shortCircuit(boolean b) {
+        return false && b || true && b;
+    }
+
+    public int constantLocals(int x) {
+        final int scale = 3 * 2;
+        final int offset = scale + 1;
+        return x * scale + offset;
+    }
+
+    public int constantFields(int x) {
+        if (DEBUG) {
+            return -1;
+        }
+        return x & MASK;
+    }
+
+    public int divideByZero(int x) {
+        return x / (1 - 1);
+    }
+
+}
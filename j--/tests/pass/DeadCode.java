@@ -0,0 +1,56 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package pass;
+
+import java.lang.IllegalArgumentException;
+
+// Exercises pruning of constant-condition branches and unreachable
+// statements.
+
+public class DeadCode {
+
+    public static final boolean TRACE = false;
+
+    public int constantIf(int x) {
+        if (TRACE) {
+            x = x * 100;
+        }
+        if (!TRACE) {
+            x = x + 1;
+        } else {
+            x = x - 1;
+        }
+        return x;
+    }
+
+    public int constantWhile(int x) {
+        while (TRACE) {
+            x = x + 1;
+        }
+        return x;
+    }
+
+    public int constantTernary() {
+        return TRACE ? 1 : 2;
+    }
+
+    public int ternary(boolean b) {
+        return b ? 1 : 2;
+    }
+
+    public int afterReturn(int x) {
+        if (x > 0) {
+            return 1;
+        } else {
+            return -1;
+        }
+        x = x + 1;
+        return x;
+    }
+
+    public int afterThrow(int x) {
+        throw new IllegalArgumentException("x");
+        return x;
+    }
+
+}
@@ -0,0 +1,43 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package pass;
+
+// Exercises assignments to fields inside branches and loops, where the
+// stack depths of the paths that meet must agree.
+
+public class FieldAssignment {
+
+    public static int last;
+
+    public int total;
+
+    public String sign;
+
+    public int branch(int a) {
+        if (a > 0) {
+            sign = "+";
+        } else {
+            sign = "-";
+        }
+        last = a;
+        return last;
+    }
+
+    public int loop(int n) {
+        total = 0;
+        while (n > 0) {
+            total = total + n;
+            n = n - 1;
+        }
+        return total;
+    }
+
+    public int sum(int[] a) {
+        for (int x : a) {
+            last = x;
+            total = total + x;
+        }
+        return total;
+    }
+
+}
@@ -0,0 +1,40 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package pass;
+
+import java.util.ArrayList;
+
+// Exercises enhanced for-statements over arrays and Iterables.
+
+public class ForEach {
+
+    public int sum(int[] a) {
+        int s = 0;
+        for (int x : a) {
+            s = s + x;
+        }
+        return s;
+    }
+
+    public int count(String s, char c) {
+        int n = 0;
+        for (char d : s.toCharArray()) {
+            if (d == c) {
+                n = n + 1;
+            }
+        }
+        return n;
+    }
+
+    public String join(ArrayList list) {
+        String s = "";
+        for (String e : list) {
+            if (e.equals("stop")) {
+                break;
+            }
+            s = s + e;
+        }
+        return s;
+    }
+
+}
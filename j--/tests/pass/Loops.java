@@ -0,0 +1,78 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package pass;
+
+// Exercises while, for, do-while and do-until loops, with and without break
+// statements.
+
+public class Loops {
+
+    public int sumWhile(int n) {
+        int sum = 0;
+        int i = 1;
+        while (i <= n) {
+            sum = sum + i;
+            i++;
+        }
+        return sum;
+    }
+
+    public int sumFor(int n) {
+        int sum = 0;
+        for (int i = 1; i <= n; i++) {
+            sum = sum + i;
+        }
+        return sum;
+    }
+
+    public int product(int n) {
+        int product = 1;
+        for (int i = 1; i <= n; i++) {
+            for (int j = 1; j <= i; j++) {
+                product = product * 2;
+            }
+        }
+        return product;
+    }
+
+    public int digits(int n) {
+        int count = 0;
+        do {
+            count++;
+            n = n / 10;
+        } while (n > 0);
+        return count;
+    }
+
+    public int halvings(int n) {
+        int count = 0;
+        do {
+            n = n / 2;
+            count++;
+        } until (n == 0);
+        return count;
+    }
+
+    public int firstMultiple(int n, int k) {
+        int i = n;
+        while (true) {
+            if (i % k == 0) {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    public int firstSquareAbove(int n) {
+        int square = 0;
+        for (int i = 0; i < n; i++) {
+            square = i * i;
+            if (square > n) {
+                break;
+            }
+        }
+        return square;
+    }
+
+}
@@ -0,0 +1,77 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package pass;
+
+import java.lang.Long;
+import java.lang.Math;
+import java.lang.StringBuilder;
+import java.util.ArrayList;
+import java.util.Deque;
+
+// Exercises overload resolution: widening, boxing and most-specific
+// method selection.
+
+public class Overloads {
+
+    private int pick(Object o) {
+        return 1;
+    }
+
+    private int pick(String s) {
+        return 2;
+    }
+
+    // Exact match.
+
+    public int pickString() {
+        return pick("s");
+    }
+
+    // null is applicable to both; pick(String) is the more specific.
+
+    public int pickNull() {
+        return pick(null);
+    }
+
+    // Only applicable by boxing the int to an Integer.
+
+    public int pickBoxed() {
+        return pick(42);
+    }
+
+    // Math.max(int, int), by widening the char.
+
+    public int max(int a, char b) {
+        return Math.max(a, b);
+    }
+
+    // StringBuilder.append(char) and append(int), rather than
+    // append(Object).
+
+    public String append(String s, char c, int i) {
+        StringBuilder b = new StringBuilder(s);
+        b.append(c);
+        b.append(i);
+        return b.toString();
+    }
+
+    // Long.valueOf(long), by widening the int.
+
+    public Long widen(int i) {
+        return Long.valueOf(i);
+    }
+
+    // AbstractCollection.containsAll(Collection), found on the superclass
+    // chain of ArrayList before the declaration in the List interface.
+
+    public boolean containsAll(ArrayList a, ArrayList b) {
+        return a.containsAll(b);
+    }
+
+    // Collection.isEmpty(), inherited by the Deque interface through Queue.
+
+    public boolean isEmpty(Deque d) {
+        return d.isEmpty();
+    }
+
+}
@@ -0,0 +1,68 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package pass;
+
+// Exercises code that the peephole optimizer rewrites: jumps to jumps, stores
+// followed by loads, and code after returns.
+
+public class Peephole {
+
+    public int sign(int x) {
+        if (x > 0) {
+            return 1;
+        } else if (x < 0) {
+            return -1;
+        } else {
+            return 0;
+        }
+    }
+
+    public int reduce(int n) {
+        while (n > 9) {
+            if (n % 2 == 0) {
+                n = n / 2;
+            } else {
+                n = n - 3;
+            }
+        }
+        return n;
+    }
+
+    public int triangle(int n) {
+        int sum = 0;
+        int i = 0;
+        while (i < n) {
+            int j = 0;
+            while (j <= i) {
+                sum = sum + 1;
+                j++;
+            }
+            i++;
+        }
+        return sum;
+    }
+
+    public int last(int[] a) {
+        int x = 0;
+        for (int y : a) {
+            x = y;
+        }
+        return x;
+    }
+
+    public int classify(int x) {
+        int result = 0;
+        switch (x) {
+        case 1:
+            result = 10;
+            break;
+        case 2:
+            result = 20;
+            break;
+        default:
+            result = 30;
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,95 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package pass;
+
+import java.lang.Integer;
+import java.lang.StringBuilder;
+
+// Exercises control flow merges that need stack map frames: branches in a
+// constructor, a conditional expression as an argument to new, merges of
+// different reference types and of null, and variables live across loops.
+
+class Shape {
+
+    protected String name;
+
+    public Shape(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+}
+
+class Square extends Shape {
+
+    public Square() {
+        super("square");
+    }
+
+}
+
+class Circle extends Shape {
+
+    public Circle() {
+        super("circle");
+    }
+
+}
+
+public class StackMap {
+
+    private int value;
+
+    public StackMap(int value) {
+        if (value < 0) {
+            this.value = -value;
+        } else {
+            this.value = value;
+        }
+    }
+
+    public int value() {
+        return value;
+    }
+
+    public String describe(boolean round) {
+        Object shape = round ? (Object) new Circle() : (Object) new Square();
+        return ((Shape) shape).name();
+    }
+
+    public String label(int n) {
+        return new StringBuilder(n > 0 ? "positive" : "non-positive")
+                .append(n).toString();
+    }
+
+    public String pick(int n, String a, String b) {
+        String result = null;
+        if (n == 1) {
+            result = a;
+        } else if (n == 2) {
+            result = b;
+        }
+        return n > 2 ? "none" : result;
+    }
+
+    public int count(int n) {
+        int count = 0;
+        int i = 0;
+        while (i < n) {
+            boolean even = i % 2 == 0;
+            if (even) {
+                String s = "" + i;
+                count = count + s.length();
+            } else {
+                Integer boxed = new Integer(i);
+                count = count + boxed.intValue();
+            }
+            i++;
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,38 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package pass;
+
+// Exercises string concatenation, including folding of constant
+// operands.
+
+public class StringConcat {
+
+    public static final String PREFIX = "[" + "log" + ']';
+
+    public String constant() {
+        return "a" + 1 + 'b' + true + "\t\"q\"";
+    }
+
+    public String arithmeticFirst() {
+        return 1 + 2 + "x" + 1 + 2;
+    }
+
+    public String mixed(String name, int n) {
+        return PREFIX + " " + name + ": " + n + " items" + '!';
+    }
+
+    public String nested(String s) {
+        return "<" + (s + "|" + s) + ">";
+    }
+
+    public String append(String s, char c) {
+        s += "-" + 1;
+        s += c;
+        return s;
+    }
+
+    public String object(Object o) {
+        return "o=" + o;
+    }
+
+}
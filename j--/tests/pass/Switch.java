@@ -0,0 +1,97 @@
+// Copyright 2013 Bill Campbell, Swami Iyer and Bahar Akbal-Delibas
+
+package pass;
+
+// Exercises switch statements, lowered to TABLESWITCH (dense labels) and
+// LOOKUPSWITCH (sparse labels), with fall-through and break, and String
+// switches, including labels with the same hash code ("Aa" and "BB").
+
+public class Switch {
+
+    public int dense(int x) {
+        int r = 0;
+        switch (x) {
+        case 1:
+            r = 10;
+            break;
+        case 2:
+            r = 20;
+        case 3:
+            r = r + 30;
+            break;
+        case 5:
+            return 50;
+        default:
+            r = -1;
+        }
+        return r;
+    }
+
+    public int sparse(int x) {
+        switch (x) {
+        case -1000:
+            return 1;
+        case 7:
+            return 2;
+        case 100000:
+            return 3;
+        default:
+            return 0;
+        }
+    }
+
+    public String kind(char c) {
+        String s = "other";
+        switch (c) {
+        case 'a':
+        case 'e':
+            s = "vowel";
+            break;
+        case 'z':
+            s = "zed";
+        }
+        return s;
+    }
+
+    public int loop(int n) {
+        int i = 0;
+        int sum = 0;
+        while (true) {
+            switch (i) {
+            case 3:
+                sum = sum + 100;
+                break;
+            default:
+                sum = sum + 1;
+            }
+            i = i + 1;
+            if (i > n) {
+                break;
+            }
+        }
+        return sum;
+    }
+
+    public int command(String s) {
+        int r = 0;
+        switch (s) {
+        case "stop":
+            r = 1;
+            break;
+        case "go":
+        case "run":
+            r = 2;
+            break;
+        case "Aa":
+            r = 3;
+            break;
+        case "BB":
+            r = 4;
+            break;
+        default:
+            r = -1;
+        }
+        return r;
+    }
+
+}